@@ -5,6 +5,7 @@ plugins {
     signing
     jacoco
     id("io.github.gradle-nexus.publish-plugin") version "1.0.0"
+    id("me.champeau.gradle.jmh") version "0.5.3"
 }
 
 repositories {
@@ -30,6 +31,13 @@ tasks.withType(JavaCompile::class) {
     options.compilerArgs.add("-Xlint:unchecked")
 }
 
+/*
+* Benchmarks are in src/jmh/java and can be run with: ./gradlew jmh
+* */
+jmh {
+    jmhVersion = "1.29"
+}
+
 tasks.jacocoTestReport {
     reports {
         xml.setEnabled(true)
@@ -0,0 +1,170 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ApiMapParam#check(Map)} with checking with a reused
+ * {@link ValidationContext} and the compiled {@link ApiMapParamPlan} (with and
+ * without a generated class) for an order intake-like request (nested
+ * maps and a list of maps).
+ *
+ * Run with: ./gradlew jmh
+ *
+ * @author Blake Howell
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ApiMapParamBenchmark {
+
+	static final ApiMapParam ADDRESS =
+		ApiMapParam.builder("address")
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("line1", String.class)
+			                         .addChecks(StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+			                                    StringChecks.lengthLessThan(100))
+			                         .build(),
+			           ApiSingleParam.builder("city", String.class)
+			                         .addChecks(StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE)
+			                         .build(),
+			           ApiSingleParam.builder("state", String.class)
+			                         .addChecks(StringChecks.lengthEqualTo(2))
+			                         .build(),
+			           ApiSingleParam.builder("zip", String.class)
+			                         .addChecks(StringChecks.lengthEqualTo(5))
+			                         .build())
+		           .addOptionalSingleParams(
+			           ApiSingleParam.builder("line2", String.class)
+			                         .addChecks(StringChecks.lengthLessThan(100))
+			                         .build())
+		           .build();
+
+	static final ApiMapParam CUSTOMER =
+		ApiMapParam.builder("customer")
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("name", String.class)
+			                         .addChecks(StringChecks.lengthGreaterThan(1), StringChecks.lengthLessThan(50))
+			                         .build(),
+			           ApiSingleParam.builder("email", String.class)
+			                         .addChecks(StringChecks.MATCHES_BASIC_EMAIL_PATTERN)
+			                         .build())
+		           .addRequiredMapParams(ADDRESS)
+		           .build();
+
+	static final ApiMapParam LINE_ITEM =
+		ApiMapParam.builder()
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("sku", String.class)
+			                         .addChecks(StringChecks.lengthEqualTo(6))
+			                         .build(),
+			           ApiSingleParam.builder("quantity", Integer.class)
+			                         .addChecks(IntegerChecks.valueGreaterThan(0), IntegerChecks.valueLessThan(1000))
+			                         .build(),
+			           ApiSingleParam.builder("price_cents", Integer.class)
+			                         .addChecks(IntegerChecks.valueGreaterThanOrEqualTo(0))
+			                         .build())
+		           .addOptionalSingleParams(
+			           ApiSingleParam.builder("note", String.class)
+			                         .addChecks(StringChecks.lengthLessThan(200))
+			                         .build())
+		           .build();
+
+	static final ApiMapParam ORDER =
+		ApiMapParam.builder()
+		           .addRequiredMapParams(CUSTOMER)
+		           .addRequiredCollectionParams(
+			           ApiListParam.<Map<String, Object>, Map<String, Object>>builder("line_items")
+				           .setIndexMapCheck(LINE_ITEM)
+				           .build())
+		           .addOptionalSingleParams(
+			           ApiSingleParam.builder("coupon", String.class)
+			                         .addChecks(StringChecks.lengthLessThan(20))
+			                         .build(),
+			           ApiSingleParam.builder("gift_message", String.class)
+			                         .addChecks(StringChecks.lengthLessThan(500))
+			                         .build())
+		           .build();
+
+	@Param({"1", "10", "100"})
+	public int lineItemCount;
+
+	ApiMapParamPlan plan;
+	ApiMapParamPlan generatedPlan;
+	ValidationContext context;
+	Map<String, Object> order;
+
+	@Setup
+	public void setup() {
+		this.plan = ORDER.compile();
+		this.generatedPlan = ORDER.generate();
+		this.context = new ValidationContext();
+		Map<String, Object> address = new HashMap<>();
+		address.put("line1", "123 Main Street");
+		address.put("city", "Memphis");
+		address.put("state", "TN");
+		address.put("zip", "38117");
+		Map<String, Object> customer = new HashMap<>();
+		customer.put("name", "Bob Smith");
+		customer.put("email", "bob@example.com");
+		customer.put("address", address);
+		List<Map<String, Object>> lineItems = new ArrayList<>(this.lineItemCount);
+		for (int i = 0; i < this.lineItemCount; i++) {
+			Map<String, Object> lineItem = new HashMap<>();
+			lineItem.put("sku", "ABC" + (100 + i % 900));
+			lineItem.put("quantity", 1 + i % 10);
+			lineItem.put("price_cents", 999);
+			lineItems.add(lineItem);
+		}
+		this.order = new HashMap<>();
+		this.order.put("customer", customer);
+		this.order.put("line_items", lineItems);
+		this.order.put("coupon", "SAVE10");
+		if (!ORDER.check(this.order).successful()
+			|| !this.plan.check(this.order).successful()
+			|| !this.generatedPlan.check(this.order).successful()) {
+			throw new IllegalStateException("Benchmark order should pass.");
+		}
+	}
+
+	@Benchmark
+	public ApiMapParam.Result check() {
+		return ORDER.check(this.order);
+	}
+
+	@Benchmark
+	public ApiMapParam.Result checkWithContext() {
+		return ORDER.check(this.order, this.context);
+	}
+
+	@Benchmark
+	public ApiMapParam.Result compiledPlan() {
+		return this.plan.check(this.order);
+	}
+
+	@Benchmark
+	public ApiMapParam.Result generatedPlan() {
+		return this.generatedPlan.check(this.order);
+	}
+
+}
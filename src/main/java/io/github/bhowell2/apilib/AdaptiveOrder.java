@@ -0,0 +1,216 @@
+package io.github.bhowell2.apilib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The order in which the nodes (the parameters of an {@link ApiMapParam} or the checks
+ * of an {@link ApiSingleParam}) are evaluated, which is learned from the cost and
+ * failure rate of each node (see {@link AdaptiveOrdering}).
+ *
+ * The nodes are split into segments (e.g., the required and the optional parameters
+ * of a map) and are only reordered within their segment. {@link #order()} returns the
+ * node at each position, where the positions of a segment are the same as its nodes'
+ * (i.e., the nodes of the segment [from, to) are at positions [from, to)).
+ *
+ * Within a segment the pinned nodes are always evaluated first (in their original
+ * order), then the nodes by descending priority and then by ascending rank: the
+ * node's average cost divided by its (smoothed) probability of failing. Evaluating
+ * the nodes by rank minimizes the expected cost of the evaluation, which stops at the
+ * first failure. Nodes that have not been sampled enough have a rank of 0, so they
+ * are evaluated early (and sampled) until their rank is known.
+ *
+ * The counters are {@link LongAdder}s and the order is replaced (not modified), so
+ * recording and reading the order do not lock.
+ *
+ * @author Blake Howell
+ */
+final class AdaptiveOrder {
+
+	static final int MIN_SAMPLES = 8;
+
+	final AdaptiveOrdering ordering;
+	final String profileName;
+	final String[] nodeNames;
+	// the end of each segment (the last is the number of nodes)
+	final int[] segmentEnds;
+	final boolean[] pinned;
+	final int[] priorities;
+
+	private final LongAdder[] samples, failures, nanos;
+	// sampled evaluations since the last reorder
+	private final AtomicLong sampleCount = new AtomicLong();
+	private final AtomicBoolean reordering = new AtomicBoolean();
+	private volatile int[] order;
+
+	AdaptiveOrder(AdaptiveOrdering ordering,
+	              String profileName,
+	              String[] nodeNames,
+	              int[] segmentEnds,
+	              boolean[] pinned,
+	              int[] priorities) {
+		this.ordering = ordering;
+		this.profileName = profileName;
+		this.nodeNames = nodeNames;
+		this.segmentEnds = segmentEnds;
+		this.pinned = pinned;
+		this.priorities = priorities;
+		this.samples = newAdders(nodeNames.length);
+		this.failures = newAdders(nodeNames.length);
+		this.nanos = newAdders(nodeNames.length);
+		this.order = new int[nodeNames.length];
+		for (int i = 0; i < this.order.length; i++) {
+			this.order[i] = i;
+		}
+		ordering.register(this);
+	}
+
+	private static LongAdder[] newAdders(int length) {
+		LongAdder[] adders = new LongAdder[length];
+		for (int i = 0; i < length; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	/**
+	 * @return the node at each position. should not be modified
+	 */
+	int[] order() {
+		return this.order;
+	}
+
+	/**
+	 * @return whether or not the nodes of this evaluation should be measured
+	 */
+	boolean sample() {
+		int sampleRate = this.ordering.sampleRate;
+		return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+	}
+
+	void record(int node, long elapsedNanos, boolean failed) {
+		this.samples[node].increment();
+		this.nanos[node].add(elapsedNanos);
+		if (failed) {
+			this.failures[node].increment();
+		}
+	}
+
+	/**
+	 * Called once per sampled evaluation. Reorders every
+	 * {@link AdaptiveOrdering.Builder#setReorderInterval(int)} sampled evaluations.
+	 */
+	void sampled() {
+		if (this.sampleCount.incrementAndGet() >= this.ordering.reorderInterval) {
+			reorder();
+		}
+	}
+
+	/**
+	 * @return the number of sampled evaluations since the order was last reordered
+	 */
+	long sampledSinceReorder() {
+		return this.sampleCount.get();
+	}
+
+	void reorder() {
+		// another thread is already reordering with (nearly) the same statistics
+		if (!this.reordering.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.sampleCount.set(0);
+			double[] ranks = new double[this.nodeNames.length];
+			for (int node = 0; node < ranks.length; node++) {
+				long sampleCount = this.samples[node].sum();
+				if (sampleCount >= MIN_SAMPLES) {
+					double averageNanos = Math.max(1.0, (double) this.nanos[node].sum() / sampleCount);
+					double failureProbability = (this.failures[node].sum() + 0.5) / (sampleCount + 1.0);
+					ranks[node] = averageNanos / failureProbability;
+				}
+			}
+			Comparator<Integer> comparator = (a, b) -> {
+				if (this.pinned[a] != this.pinned[b]) {
+					return this.pinned[a] ? -1 : 1;
+				}
+				if (this.pinned[a]) {
+					return Integer.compare(a, b);
+				}
+				if (this.priorities[a] != this.priorities[b]) {
+					return Integer.compare(this.priorities[b], this.priorities[a]);
+				}
+				int compare = Double.compare(ranks[a], ranks[b]);
+				return compare != 0 ? compare : Integer.compare(a, b);
+			};
+			int[] order = new int[this.nodeNames.length];
+			int from = 0;
+			for (int segmentEnd : this.segmentEnds) {
+				List<Integer> segment = new ArrayList<>(segmentEnd - from);
+				for (int node = from; node < segmentEnd; node++) {
+					segment.add(node);
+				}
+				segment.sort(comparator);
+				for (int i = 0; i < segment.size(); i++) {
+					order[from + i] = segment.get(i);
+				}
+				from = segmentEnd;
+			}
+			this.order = order;
+		} finally {
+			this.reordering.set(false);
+		}
+	}
+
+	/**
+	 * Adds the statistics of each node to the profile (summing them with any
+	 * that were already added for the node).
+	 */
+	void exportStatistics(Map<String, long[]> nodeStatistics) {
+		for (int node = 0; node < this.nodeNames.length; node++) {
+			long[] statistics = nodeStatistics.get(this.nodeNames[node]);
+			if (statistics == null) {
+				statistics = new long[3];
+				nodeStatistics.put(this.nodeNames[node], statistics);
+			}
+			statistics[0] += this.samples[node].sum();
+			statistics[1] += this.failures[node].sum();
+			statistics[2] += this.nanos[node].sum();
+		}
+	}
+
+	/**
+	 * Replaces the statistics of the nodes in the profile and reorders.
+	 */
+	void loadStatistics(Map<String, long[]> nodeStatistics) {
+		for (int node = 0; node < this.nodeNames.length; node++) {
+			long[] statistics = nodeStatistics.get(this.nodeNames[node]);
+			if (statistics != null) {
+				this.samples[node].reset();
+				this.samples[node].add(statistics[0]);
+				this.failures[node].reset();
+				this.failures[node].add(statistics[1]);
+				this.nanos[node].reset();
+				this.nanos[node].add(statistics[2]);
+			}
+		}
+		reorder();
+	}
+
+	@Override
+	public String toString() {
+		String[] orderedNames = new String[this.nodeNames.length];
+		int[] order = this.order;
+		for (int i = 0; i < order.length; i++) {
+			orderedNames[i] = this.nodeNames[order[i]];
+		}
+		return this.profileName + Arrays.toString(orderedNames);
+	}
+
+}
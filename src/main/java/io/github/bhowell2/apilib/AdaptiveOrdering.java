@@ -0,0 +1,229 @@
+package io.github.bhowell2.apilib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Learns the order in which to evaluate the parameters of {@link ApiMapParam}s and
+ * the checks of {@link ApiSingleParam}s that have been built with it (see
+ * {@link ApiMapParam.Builder#setAdaptiveOrdering(AdaptiveOrdering)} and
+ * {@link ApiSingleParam.Builder#setAdaptiveOrdering(AdaptiveOrdering)}), so that
+ * cheap checks that fail often are evaluated first and an invalid payload is
+ * rejected as early as possible.
+ *
+ * One in every {@link Builder#setSampleRate(int)} checks of a parameter is measured:
+ * the time each of its nodes (parameter or check) took and whether it failed. After
+ * every {@link Builder#setReorderInterval(int)} measured checks the nodes are
+ * reordered by their average cost and failure rate. The parameters of a map are
+ * reordered among the required and among the optional parameters (required
+ * parameters are always checked first), while custom parameters and conditional
+ * checks are always run in the order they were added. Pinned nodes are always
+ * evaluated first and priorities take precedence over the statistics.
+ *
+ * Since evaluation stops at the first failure, the error returned for a map with
+ * more than one invalid parameter (or a value failing more than one check) may
+ * change when the nodes are reordered. This only ever happens for the maps and
+ * single parameters built with an AdaptiveOrdering. Parameters that are checked in
+ * parallel (see {@link ApiMapParam.Builder#setParallelCheck(java.util.concurrent.ForkJoinPool, int)})
+ * or with a compiled {@link ApiMapParamPlan} are evaluated in their original order.
+ *
+ * The learned statistics can be exported with {@link #exportProfile()} and loaded
+ * (e.g., when an application starts) with {@link #loadProfile(Map)}. The profile of
+ * a map or single parameter is identified by its profile name, which is its key name
+ * unless one is provided when setting the AdaptiveOrdering. The statistics of
+ * parameters with the same profile name are combined, so maps or single parameters
+ * that are checked differently should be given their own profile names.
+ *
+ * @author Blake Howell
+ */
+public final class AdaptiveOrdering {
+
+	public static final int DEFAULT_SAMPLE_RATE = 64;
+
+	public static final int DEFAULT_REORDER_INTERVAL = 1000;
+
+	/*
+	 * Keys of each node's statistics in the exported profile.
+	 * */
+	public static final String SAMPLES = "samples";
+	public static final String FAILURES = "failures";
+	public static final String NANOS = "nanos";
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	final int sampleRate;
+	final int reorderInterval;
+
+	// the registered orders are dropped with their parameters
+	private final Map<AdaptiveOrder, Boolean> orders = new WeakHashMap<>();
+	// the loaded profile, used by orders registered after it was loaded
+	private Map<String, Map<String, long[]>> loadedProfile = Collections.emptyMap();
+
+	private AdaptiveOrdering(Builder builder) {
+		this.sampleRate = builder.sampleRate;
+		this.reorderInterval = builder.reorderInterval;
+	}
+
+	synchronized void register(AdaptiveOrder order) {
+		this.orders.put(order, Boolean.TRUE);
+		Map<String, long[]> nodeStatistics = this.loadedProfile.get(order.profileName);
+		if (nodeStatistics != null) {
+			order.loadStatistics(nodeStatistics);
+		}
+	}
+
+	/**
+	 * Exports the statistics of every map and single parameter using this ordering,
+	 * by profile name and then by node (the key name of a map's parameter or the
+	 * index of a single parameter's check), as a map with the number of
+	 * {@link #SAMPLES}, {@link #FAILURES} and total {@link #NANOS} of the node (e.g.,
+	 * to be serialized as JSON).
+	 *
+	 * @return the profile, which can be loaded with {@link #loadProfile(Map)}
+	 */
+	public Map<String, Object> exportProfile() {
+		Map<String, Map<String, long[]>> profile = new LinkedHashMap<>();
+		synchronized (this) {
+			for (AdaptiveOrder order : new ArrayList<>(this.orders.keySet())) {
+				Map<String, long[]> nodeStatistics = profile.get(order.profileName);
+				if (nodeStatistics == null) {
+					nodeStatistics = new LinkedHashMap<>();
+					profile.put(order.profileName, nodeStatistics);
+				}
+				order.exportStatistics(nodeStatistics);
+			}
+		}
+		Map<String, Object> exported = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, long[]>> profileEntry : profile.entrySet()) {
+			Map<String, Object> nodes = new LinkedHashMap<>();
+			for (Map.Entry<String, long[]> nodeEntry : profileEntry.getValue().entrySet()) {
+				Map<String, Object> statistics = new LinkedHashMap<>();
+				statistics.put(SAMPLES, nodeEntry.getValue()[0]);
+				statistics.put(FAILURES, nodeEntry.getValue()[1]);
+				statistics.put(NANOS, nodeEntry.getValue()[2]);
+				nodes.put(nodeEntry.getKey(), statistics);
+			}
+			exported.put(profileEntry.getKey(), nodes);
+		}
+		return exported;
+	}
+
+	/**
+	 * Loads a profile that was exported with {@link #exportProfile()} (possibly by
+	 * another instance of the application, any numbers are accepted), replacing the
+	 * statistics of the nodes in the profile. The maps and single parameters using
+	 * this ordering are reordered immediately, as are those built later. Parameters
+	 * and nodes that are not in the profile are ignored.
+	 *
+	 * @param profile the exported profile
+	 */
+	@SuppressWarnings("unchecked")
+	public void loadProfile(Map<String, ?> profile) {
+		if (profile == null) {
+			throw new IllegalArgumentException("Profile cannot be null.");
+		}
+		Map<String, Map<String, long[]>> loadedProfile = new HashMap<>();
+		for (Map.Entry<String, ?> profileEntry : profile.entrySet()) {
+			if (!(profileEntry.getValue() instanceof Map)) {
+				throw new IllegalArgumentException("Profile '" + profileEntry.getKey() + "' is not a map of nodes.");
+			}
+			Map<String, long[]> nodeStatistics = new HashMap<>();
+			for (Map.Entry<String, ?> nodeEntry : ((Map<String, ?>) profileEntry.getValue()).entrySet()) {
+				if (!(nodeEntry.getValue() instanceof Map)) {
+					throw new IllegalArgumentException("Node '" + nodeEntry.getKey() + "' of profile '"
+						                                   + profileEntry.getKey() + "' is not a map of statistics.");
+				}
+				Map<String, ?> statistics = (Map<String, ?>) nodeEntry.getValue();
+				nodeStatistics.put(nodeEntry.getKey(), new long[]{
+					statistic(statistics, SAMPLES),
+					statistic(statistics, FAILURES),
+					statistic(statistics, NANOS)
+				});
+			}
+			loadedProfile.put(profileEntry.getKey(), nodeStatistics);
+		}
+		synchronized (this) {
+			this.loadedProfile = loadedProfile;
+			for (AdaptiveOrder order : new ArrayList<>(this.orders.keySet())) {
+				Map<String, long[]> nodeStatistics = loadedProfile.get(order.profileName);
+				if (nodeStatistics != null) {
+					order.loadStatistics(nodeStatistics);
+				}
+			}
+		}
+	}
+
+	private static long statistic(Map<String, ?> statistics, String name) {
+		Object value = statistics.get(name);
+		if (!(value instanceof Number) || ((Number) value).longValue() < 0) {
+			throw new IllegalArgumentException("Statistic '" + name + "' must be a non-negative number.");
+		}
+		return ((Number) value).longValue();
+	}
+
+	/**
+	 * Reorders every map and single parameter using this ordering now, rather than
+	 * after their next reorder interval.
+	 */
+	public void reorder() {
+		List<AdaptiveOrder> orders;
+		synchronized (this) {
+			orders = new ArrayList<>(this.orders.keySet());
+		}
+		for (AdaptiveOrder order : orders) {
+			order.reorder();
+		}
+	}
+
+	public static final class Builder {
+
+		private int sampleRate = DEFAULT_SAMPLE_RATE;
+		private int reorderInterval = DEFAULT_REORDER_INTERVAL;
+
+		private Builder() {}
+
+		/**
+		 * Set how often a check is measured: one in every sampleRate checks (chosen at
+		 * random). Measuring adds two calls to {@link System#nanoTime()} per node, so a
+		 * higher rate keeps the overhead low. Defaults to {@link #DEFAULT_SAMPLE_RATE}.
+		 *
+		 * @param sampleRate 1 to measure every check
+		 * @return this builder
+		 */
+		public Builder setSampleRate(int sampleRate) {
+			if (sampleRate < 1) {
+				throw new IllegalArgumentException("Sample rate must be greater than 0.");
+			}
+			this.sampleRate = sampleRate;
+			return this;
+		}
+
+		/**
+		 * Set the number of measured checks of a map or single parameter after which
+		 * its nodes are reordered. Defaults to {@link #DEFAULT_REORDER_INTERVAL}.
+		 *
+		 * @param reorderInterval the number of measured checks between reorders
+		 * @return this builder
+		 */
+		public Builder setReorderInterval(int reorderInterval) {
+			if (reorderInterval < 1) {
+				throw new IllegalArgumentException("Reorder interval must be greater than 0.");
+			}
+			this.reorderInterval = reorderInterval;
+			return this;
+		}
+
+		public AdaptiveOrdering build() {
+			return new AdaptiveOrdering(this);
+		}
+
+	}
+
+}
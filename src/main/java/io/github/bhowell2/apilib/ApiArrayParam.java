@@ -30,7 +30,7 @@ public class ApiArrayParam<In, Param> extends ApiCollectionParam<In, Param, Para
 
 	public static <Param> Builder<Map<String, Object>, Param>
 	mapInputBuilder(String keyName, Class<Param> paramType) {
-		return builder(keyName);
+		return ApiArrayParam.<Map<String, Object>, Param>builder(keyName).setIndexType(paramType);
 	}
 
 	public static <Param> Builder<Param[], Param> innerArrayBuilder() {
@@ -38,7 +38,7 @@ public class ApiArrayParam<In, Param> extends ApiCollectionParam<In, Param, Para
 	}
 
 	public static <Param> Builder<Param[], Param> innerArrayBuilder(Class<Param> paramType) {
-		return unnamedBuilder();
+		return ApiArrayParam.<Param[], Param>unnamedBuilder().setIndexType(paramType);
 	}
 
 
@@ -68,6 +68,11 @@ public class ApiArrayParam<In, Param> extends ApiCollectionParam<In, Param, Para
 		super(builder);
 	}
 
+	@Override
+	protected boolean isCollectionType(Object value) {
+		return value instanceof Object[];
+	}
+
 	@Override
 	protected int getCollectionSize(Param[] paramCollection) {
 		return paramCollection.length;
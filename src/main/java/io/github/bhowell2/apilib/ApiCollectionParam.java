@@ -7,8 +7,14 @@ import io.github.bhowell2.apilib.errors.ApiParamError;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +30,7 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 	extends ApiParamBase<In, ApiCollectionParam.Result>
 {
 
+	private static final int INDICES_PER_DEADLINE_CHECK = 64;
 
 	/**
 	 * Checks used on the entire collection. This is most useful when needing
@@ -68,6 +75,31 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 	 */
 	final ApiCollectionParam<Param, ?, ?> innerCollectionParam;
 
+	/**
+	 * The type of the collection's values. If null, values are not checked for their
+	 * type before the index checks are run.
+	 */
+	final Class<?> indexType;
+
+	/**
+	 * The pool the indices are checked on in chunks of {@link #parallelChunkSize}
+	 * when the collection has more than one chunk. Null if the indices are always
+	 * checked sequentially.
+	 */
+	final ForkJoinPool parallelIndexCheckPool;
+	final int parallelChunkSize;
+
+	/**
+	 * Which indices of a large collection are checked. Null if every index is checked.
+	 */
+	final CollectionSamplingPolicy samplingPolicy;
+
+	/*
+	 * Results are immutable, so every successful check without nested results (or
+	 * missing/wrong type check) can return the same one.
+	 * */
+	private final Result successResult, missingResult, castResult;
+
 	/**
 	 * ArrayOrListParam builder base.
 	 */
@@ -100,6 +132,10 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 		ApiMapParam indexMapCheck;
 		List<ApiMapParam> individualIndexMapCheck;
 		ApiCollectionParam<Param, ?, ?> innerCollectionParam;
+		Class<?> indexType;
+		ForkJoinPool parallelIndexCheckPool;
+		int parallelChunkSize;
+		CollectionSamplingPolicy samplingPolicy;
 
 		public Builder(String keyName) {
 			super(keyName);
@@ -121,6 +157,10 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 				                 List::addAll)
 				: null;
 			this.indexMapCheck = copyFrom.indexMapCheck;
+			this.indexType = copyFrom.indexType;
+			this.parallelIndexCheckPool = copyFrom.parallelIndexCheckPool;
+			this.parallelChunkSize = copyFrom.parallelChunkSize;
+			this.samplingPolicy = copyFrom.samplingPolicy;
 			this.individualIndexMapCheck = arrayIsNotNullOrEmpty(copyFrom.individualIndexMapChecks)
 				? Arrays.asList(copyFrom.individualIndexMapChecks)
 				: null;
@@ -145,6 +185,69 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 //			return (B) this;
 //		}
 
+		/**
+		 * Sets the type of the collection's (non-null) values. If a value is not an
+		 * instance of the type the check fails with {@link ApiErrorType#CASTING_ERROR}
+		 * before the index checks are run, rather than relying on an index check
+		 * failing to cast the value.
+		 * @param indexType the type of the values in the collection
+		 * @return this builder
+		 */
+		@SuppressWarnings("unchecked")
+		public B setIndexType(Class<Param> indexType) {
+			this.indexType = indexType != null ? wrapperType(indexType) : null;
+			return (B) this;
+		}
+
+		/**
+		 * Sets the pool with which the indices of large collections are checked in
+		 * parallel. The index range is split into chunks of (at most) the chunk size,
+		 * which are checked as {@link ForkJoinTask}s, when the collection has more
+		 * elements than the chunk size.
+		 *
+		 * The {@link #addCollectionChecks(Check[])} are always run first, on the whole
+		 * collection, and then the index checks, the inner collection and the index map
+		 * check are each run over all of the chunks (in that order), so the result is
+		 * the same as checking sequentially. If multiple indices fail, the error of the
+		 * first failing index is returned and the chunks after a failed index stop
+		 * checking (or never start) once the failure is known.
+		 *
+		 * The index checks and maps should be safe to run concurrently (the library's
+		 * checks are). The indices are always checked sequentially when checked with a
+		 * {@link ValidationContext}. Individual index checks and individual index map
+		 * checks, which are for a fixed number of indices, are always checked
+		 * sequentially as well.
+		 *
+		 * @param pool the pool to check the chunks in. null to always check sequentially
+		 * @param chunkSize the maximum number of indices checked by one task
+		 * @return this builder
+		 */
+		@SuppressWarnings("unchecked")
+		public B setParallelIndexCheck(ForkJoinPool pool, int chunkSize) {
+			if (chunkSize < 1) {
+				throw new IllegalArgumentException("Parallel index check chunk size must be greater than 0.");
+			}
+			this.parallelIndexCheckPool = pool;
+			this.parallelChunkSize = chunkSize;
+			return (B) this;
+		}
+
+		/**
+		 * Sets the policy with which only some of the indices of a large collection are
+		 * checked (see {@link CollectionSamplingPolicy}). This should only be used for
+		 * collections from trusted producers. The collection checks and the type of
+		 * every index are still checked. A sampled collection is always checked
+		 * sequentially.
+		 *
+		 * @param samplingPolicy the policy. null to check every index
+		 * @return this builder
+		 */
+		@SuppressWarnings("unchecked")
+		public B setSamplingPolicy(CollectionSamplingPolicy samplingPolicy) {
+			this.samplingPolicy = samplingPolicy;
+			return (B) this;
+		}
+
 		/**
 		 * Sets a check for the length of the collection.
 		 * (Alias of {@link #addCollectionChecks).}
@@ -393,6 +496,13 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 			:
 			null;
 		this.innerCollectionParam = builder.innerCollectionParam;
+		this.indexType = builder.indexType;
+		this.parallelIndexCheckPool = builder.parallelIndexCheckPool;
+		this.parallelChunkSize = builder.parallelChunkSize;
+		this.samplingPolicy = builder.samplingPolicy;
+		this.successResult = Result.success(this.keyName);
+		this.missingResult = Result.failure(ApiParamError.missing(this.keyName, this.displayName));
+		this.castResult = Result.failure(ApiParamError.cast(this, null));
 	}
 
 
@@ -412,13 +522,51 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 		                                        apiParamError));
 	}
 
+	/**
+	 * Whether or not the value retrieved for this parameter is the collection
+	 * type of the implementation (i.e., can be passed to {@link #getCollectionSize(Object)}).
+	 * A value that is not is a {@link ApiErrorType#CASTING_ERROR}.
+	 *
+	 * Defaults to true, in which case the wrong type is found when the value
+	 * fails to cast.
+	 */
+	protected boolean isCollectionType(Object value) {
+		return true;
+	}
+
+	private boolean isIndexType(Object value) {
+		return this.indexType == null || value == null || this.indexType.isInstance(value);
+	}
+
 	protected abstract int getCollectionSize(Collection paramCollection);
 
 	protected abstract Param getParamAtIndex(int i, Collection paramCollection);
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Result check(In params) {
+		return check(params, ApiMapParam::check);
+	}
+
+	/**
+	 * Checks the collection, using the provided {@link MapParamEvaluator} to check
+	 * any {@link #indexMapCheck} or {@link #individualIndexMapChecks}. This allows
+	 * {@link ApiMapParamPlan} to run the maps within a collection with its own
+	 * interpreter rather than falling back to {@link ApiMapParam#check(Map)}.
+	 *
+	 * @param params the map (or list/array for inner collections) to check
+	 * @param mapParamEvaluator used to check the map at each index
+	 * @return the collection check result
+	 */
+	Result check(In params, MapParamEvaluator mapParamEvaluator) {
+		return check(params, mapParamEvaluator, null);
+	}
+
+	/**
+	 * Same as {@link #check(Object, MapParamEvaluator)}, but the nested results
+	 * are stored in (and returned from) the context if it is not null.
+	 */
+	@SuppressWarnings("unchecked")
+	Result check(In params, MapParamEvaluator mapParamEvaluator, ValidationContext context) {
 		try {
 			/*
 			 * params argument can be either a Map or an Array/List (for nested arrays).
@@ -441,12 +589,17 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 
 			if (collectionParam == null) {
 				if (this.canBeNull) {
-					return Result.success(this.keyName);
+					return this.successResult;
 				} else {
-					return Result.failure(ApiParamError.missing(this.keyName, this.displayName));
+					return this.missingResult;
 				}
 			}
 
+			// avoids relying on a (relatively expensive) ClassCastException
+			if (!isCollectionType(collectionParam)) {
+				return this.castResult;
+			}
+
 			/*
 			 * In the interest of reducing redundancy need to get the length here so that
 			 * it can be used throughout the checks below. Otherwise would need to have a
@@ -463,7 +616,7 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 						return Result.failure(new ApiParamError(this.keyName,
 						                                        this.displayName,
 						                                        ApiErrorType.INVALID_PARAMETER,
-						                                        checkResult.failureMessage));
+						                                        checkResult.failureMessage()));
 					}
 				}
 			}
@@ -476,19 +629,40 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 			 * just continue on, otherwise return the (possibly null) failure message with
 			 * an invalid parameter check.
 			 * */
+			int[] sampledIndices = this.samplingPolicy != null
+				? this.samplingPolicy.sampleIndices(collectionLength)
+				: null;
+			if (sampledIndices != null) {
+				Result failedResult = checkIndexTypes(collectionLength, collectionParam);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			}
+
+			boolean parallel = this.parallelIndexCheckPool != null
+				&& context == null
+				&& sampledIndices == null
+				&& collectionLength > this.parallelChunkSize;
+
 			if (this.indexChecks != null && this.indexChecks.length > 0) {
-				for (int i = 0; i < collectionLength; i++) {
-					Param paramToCheck = getParamAtIndex(i, collectionParam);
-					for (int j = 0; j < this.indexChecks.length; j++) {
-						Check.Result checkResult = this.indexChecks[j].check(i, paramToCheck);
-						if (checkResult.failed()) {
-							return Result.failure(new ApiParamError(this.keyName,
-							                                        this.displayName,
-							                                        ApiErrorType.INVALID_PARAMETER,
-							                                        checkResult.failureMessage,
-							                                        null,
-							                                        i,
-							                                        null));
+				if (sampledIndices != null) {
+					for (int i : sampledIndices) {
+						Result failedResult = checkIndexChecksAt(i, collectionParam);
+						if (failedResult != null) {
+							return failedResult;
+						}
+					}
+				} else if (parallel) {
+					Result failedResult =
+						checkIndicesInParallel(collectionLength, i -> checkIndexChecksAt(i, collectionParam), null);
+					if (failedResult != null) {
+						return failedResult;
+					}
+				} else {
+					for (int i = 0; i < collectionLength; i++) {
+						Result failedResult = checkIndexChecksAt(i, collectionParam);
+						if (failedResult != null) {
+							return failedResult;
 						}
 					}
 				}
@@ -504,13 +678,16 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 					CollectionIndexCheck<Param>[] indexChecks = this.individualIndexChecks[i];
 					if (indexChecks != null && indexChecks.length > 0) {
 						Param paramToCheck = getParamAtIndex(i, collectionParam);
+						if (!isIndexType(paramToCheck)) {
+							return this.castResult;
+						}
 						for (int j = 0; j < indexChecks.length; j++) {
 							Check.Result checkResult = indexChecks[j].check(i, paramToCheck);
 							if (checkResult.failed()) {
 								return Result.failure(new ApiParamError(this.keyName,
 								                                        this.displayName,
 								                                        ApiErrorType.INVALID_PARAMETER,
-								                                        checkResult.failureMessage,
+								                                        checkResult.failureMessage(),
 								                                        null,
 								                                        i,
 								                                        null));
@@ -531,48 +708,101 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 				 * while others may return something of interest. If only kept the ones that were
 				 * of interest then the positions would be off.
 				 * */
-				List<Result> innerArrayCheckResults = new ArrayList<>(collectionLength);
-				// only want to add to these if the returned
-				for (int i = 0; i < collectionLength; i++) {
-					Param param = getParamAtIndex(i, collectionParam);
-					if (!(param instanceof List) && !(param instanceof Object[])) {
-						return Result.failure(new ApiParamError(this.keyName,
-						                                        this.displayName,
-						                                        ApiErrorType.INVALID_PARAMETER,
-						                                        "Not a list or array.",
-						                                        null,
-						                                        i,
-						                                        null));
+				ValidationContext.CollectionResults contextResults =
+					context != null ? context.collectionResults(this) : null;
+				List<Result> innerArrayCheckResults;
+				if (sampledIndices != null) {
+					innerArrayCheckResults = contextResults != null
+						? contextResults.innerCollectionResults
+						: new ArrayList<>(collectionLength);
+					// the indices that are not checked do not have results
+					innerArrayCheckResults.addAll(Collections.nCopies(collectionLength, null));
+					for (int i : sampledIndices) {
+						Result checkResult = checkInnerCollectionAt(i, collectionParam, mapParamEvaluator, context);
+						if (checkResult.failed()) {
+							return checkResult;
+						}
+						innerArrayCheckResults.set(i, checkResult);
 					}
-					Result checkResult = this.innerCollectionParam.check(param);
-					if (checkResult.failed()) {
-						return returnFailedCheckResult(i, checkResult.error);
+				} else if (parallel) {
+					Result[] checkResults = new Result[collectionLength];
+					Result failedResult =
+						checkIndicesInParallel(collectionLength,
+						                       i -> checkInnerCollectionAt(i, collectionParam, mapParamEvaluator, null),
+						                       checkResults);
+					if (failedResult != null) {
+						return failedResult;
+					}
+					innerArrayCheckResults = Arrays.asList(checkResults);
+				} else {
+					innerArrayCheckResults = contextResults != null
+						? contextResults.innerCollectionResults
+						: new ArrayList<>(collectionLength);
+					// only want to add to these if the returned
+					for (int i = 0; i < collectionLength; i++) {
+						Result checkResult = checkInnerCollectionAt(i, collectionParam, mapParamEvaluator, context);
+						if (checkResult.failed()) {
+							return checkResult;
+						}
+						// only want to keep check result if it has fields set... should not have any named fields
+						innerArrayCheckResults.add(checkResult);
 					}
-					// only want to keep check result if it has fields set... should not have any named fields
-					innerArrayCheckResults.add(checkResult);
 				}
 				/*
 				 * Go through inner array check results. If any one has inner arrays or maps
 				 * then need to return them all, otherwise just return success.
 				 * */
 				for (Result res : innerArrayCheckResults) {
-					if (res.hasInnerCollectionResults() || res.hasMapResults()) {
-						return Result.successWithNestedList(this.keyName, innerArrayCheckResults);
+					if (res != null && (res.hasInnerCollectionResults() || res.hasMapResults())) {
+						return contextResults != null
+							? contextResults.innerCollectionResult()
+							: Result.successWithNestedList(this.keyName, innerArrayCheckResults);
 					}
 				}
-				return Result.success(this.keyName);
+				return this.successResult;
 			} else if (this.indexMapCheck != null) {
-				List<ApiMapParam.Result> indexMapCheckResults = new ArrayList<>(collectionLength);
-				for (int i = 0; i < collectionLength; i++) {
-					ApiMapParam.Result mapCheckResult =
-						this.indexMapCheck.check((Map<String, Object>) getParamAtIndex(i, collectionParam));
-					if (mapCheckResult.failed()) {
-						return returnFailedCheckResult(i, mapCheckResult.error);
+				ValidationContext.CollectionResults contextResults =
+					context != null ? context.collectionResults(this) : null;
+				List<ApiMapParam.Result> indexMapCheckResults;
+				if (sampledIndices != null) {
+					indexMapCheckResults = contextResults != null
+						? contextResults.mapResults
+						: new ArrayList<>(collectionLength);
+					// the indices that are not checked do not have results
+					indexMapCheckResults.addAll(Collections.nCopies(collectionLength, null));
+					for (int i : sampledIndices) {
+						ApiParamBase.Result checkResult = checkIndexMapAt(i, collectionParam, mapParamEvaluator);
+						if (checkResult.failed()) {
+							return (Result) checkResult;
+						}
+						indexMapCheckResults.set(i, (ApiMapParam.Result) checkResult);
+					}
+				} else if (parallel) {
+					ApiMapParam.Result[] checkResults = new ApiMapParam.Result[collectionLength];
+					Result failedResult =
+						checkIndicesInParallel(collectionLength,
+						                       i -> checkIndexMapAt(i, collectionParam, mapParamEvaluator),
+						                       checkResults);
+					if (failedResult != null) {
+						return failedResult;
+					}
+					indexMapCheckResults = Arrays.asList(checkResults);
+				} else {
+					indexMapCheckResults = contextResults != null
+						? contextResults.mapResults
+						: new ArrayList<>(collectionLength);
+					for (int i = 0; i < collectionLength; i++) {
+						ApiParamBase.Result checkResult = checkIndexMapAt(i, collectionParam, mapParamEvaluator);
+						if (checkResult.failed()) {
+							return (Result) checkResult;
+						}
+						// successful, add it
+						indexMapCheckResults.add((ApiMapParam.Result) checkResult);
 					}
-					// successful, add it
-					indexMapCheckResults.add(mapCheckResult);
 				}
-				return Result.successWithMapCheckResults(this.keyName, indexMapCheckResults);
+				return contextResults != null
+					? contextResults.mapResult()
+					: Result.successWithMapCheckResults(this.keyName, indexMapCheckResults);
 			} else if (this.individualIndexMapChecks != null && this.individualIndexMapChecks.length > 0) {
 				if (this.individualIndexMapChecks.length != collectionLength) {
 					return Result.failure(
@@ -581,17 +811,27 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 							                      + this.individualIndexMapChecks.length + ".")
 					);
 				}
-				List<ApiMapParam.Result> indexMapCheckResults = new ArrayList<>(collectionLength);
+				ValidationContext.CollectionResults contextResults =
+					context != null ? context.collectionResults(this) : null;
+				List<ApiMapParam.Result> indexMapCheckResults = contextResults != null
+					? contextResults.mapResults
+					: new ArrayList<>(collectionLength);
 				for (int i = 0; i < this.individualIndexMapChecks.length; i++) {
 					// must be of map type
+					Param param = getParamAtIndex(i, collectionParam);
+					if (param != null && !(param instanceof Map)) {
+						return this.castResult;
+					}
 					ApiMapParam.Result mapCheckResult =
-						this.individualIndexMapChecks[i].check((Map<String, Object>) getParamAtIndex(i, collectionParam));
+						mapParamEvaluator.check(this.individualIndexMapChecks[i], (Map<String, Object>) param);
 					if (mapCheckResult.failed()) {
 						return returnFailedCheckResult(i, mapCheckResult.error);
 					}
 					indexMapCheckResults.add(mapCheckResult);
 				}
-				return Result.successWithMapCheckResults(this.keyName, indexMapCheckResults);
+				return contextResults != null
+					? contextResults.mapResult()
+					: Result.successWithMapCheckResults(this.keyName, indexMapCheckResults);
 			}
 			/*
 			 * There are no inner array checks or index map checks, therefore this must
@@ -600,7 +840,7 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 			 * a {@link ApiSingleParam} will work just as well, but this allows for more
 			 * nesting than the standard structure.
 			 * */
-			return Result.success(this.keyName);
+			return this.successResult;
 		} catch (ClassCastException e) {
 			return Result.failure(ApiParamError.cast(this, e));
 		} catch (Exception e) {
@@ -608,6 +848,221 @@ public abstract class ApiCollectionParam<In, Param, Collection>
 		}
 	}
 
+	/**
+	 * Checks the type of every index of a sampled collection, as the index checks,
+	 * the inner collection and the index map check would (see
+	 * {@link CollectionSamplingPolicy}).
+	 * @return the failed result of the first index of the wrong type or null if all are of the right type
+	 */
+	private Result checkIndexTypes(int collectionLength, Collection collectionParam) {
+		boolean checkIndexType = this.indexType != null && this.indexChecks != null && this.indexChecks.length > 0;
+		if (!checkIndexType && this.innerCollectionParam == null && this.indexMapCheck == null) {
+			return null;
+		}
+		for (int i = 0; i < collectionLength; i++) {
+			checkDeadline(i);
+			Param param = getParamAtIndex(i, collectionParam);
+			if (checkIndexType && !isIndexType(param)) {
+				return this.castResult;
+			}
+			if (this.innerCollectionParam != null && !(param instanceof List) && !(param instanceof Object[])) {
+				return Result.failure(new ApiParamError(this.keyName,
+				                                        this.displayName,
+				                                        ApiErrorType.INVALID_PARAMETER,
+				                                        "Not a list or array.",
+				                                        null,
+				                                        i,
+				                                        null));
+			}
+			if (this.indexMapCheck != null && param != null && !(param instanceof Map)) {
+				return this.castResult;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Checks the deadline of the check (see Deadline) every INDICES_PER_DEADLINE_CHECK
+	 * indices, as looking it up for every index would cost more than most index checks.
+	 * */
+	private static void checkDeadline(int i) {
+		if (i % INDICES_PER_DEADLINE_CHECK == 0) {
+			Deadline.checkCurrent();
+		}
+	}
+
+	/**
+	 * Runs the index checks on the value at the index.
+	 * @return the failed result or null if the index passed
+	 */
+	private Result checkIndexChecksAt(int i, Collection collectionParam) {
+		checkDeadline(i);
+		Param paramToCheck = getParamAtIndex(i, collectionParam);
+		if (!isIndexType(paramToCheck)) {
+			return this.castResult;
+		}
+		for (int j = 0; j < this.indexChecks.length; j++) {
+			Check.Result checkResult = this.indexChecks[j].check(i, paramToCheck);
+			if (checkResult.failed()) {
+				return Result.failure(new ApiParamError(this.keyName,
+				                                        this.displayName,
+				                                        ApiErrorType.INVALID_PARAMETER,
+				                                        checkResult.failureMessage(),
+				                                        null,
+				                                        i,
+				                                        null));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks the inner collection at the index.
+	 * @return the inner collection's result if successful, otherwise the failed result to return
+	 */
+	private Result checkInnerCollectionAt(int i,
+	                                      Collection collectionParam,
+	                                      MapParamEvaluator mapParamEvaluator,
+	                                      ValidationContext context) {
+		checkDeadline(i);
+		Param param = getParamAtIndex(i, collectionParam);
+		if (!(param instanceof List) && !(param instanceof Object[])) {
+			return Result.failure(new ApiParamError(this.keyName,
+			                                        this.displayName,
+			                                        ApiErrorType.INVALID_PARAMETER,
+			                                        "Not a list or array.",
+			                                        null,
+			                                        i,
+			                                        null));
+		}
+		Result checkResult = this.innerCollectionParam.check(param, mapParamEvaluator, context);
+		if (checkResult.failed()) {
+			return returnFailedCheckResult(i, checkResult.error);
+		}
+		return checkResult;
+	}
+
+	/**
+	 * Checks the map at the index with {@link #indexMapCheck}.
+	 * @return the map's result if successful, otherwise the failed (collection) result to return
+	 */
+	@SuppressWarnings("unchecked")
+	private ApiParamBase.Result checkIndexMapAt(int i, Collection collectionParam, MapParamEvaluator mapParamEvaluator) {
+		checkDeadline(i);
+		Param param = getParamAtIndex(i, collectionParam);
+		if (param != null && !(param instanceof Map)) {
+			return this.castResult;
+		}
+		ApiMapParam.Result mapCheckResult = mapParamEvaluator.check(this.indexMapCheck, (Map<String, Object>) param);
+		if (mapCheckResult.failed()) {
+			return returnFailedCheckResult(i, mapCheckResult.error);
+		}
+		return mapCheckResult;
+	}
+
+	/**
+	 * Checks the indices [0, length) in chunks on {@link #parallelIndexCheckPool}.
+	 * @param indexCheck returns the failed result to return for the index, or the
+	 *                   successful (nested) result or null
+	 * @param checkResults where the successful results are stored by index. may be
+	 *                     null if the successful results are not needed
+	 * @return the failed result of the first failing index or null if all passed
+	 */
+	private Result checkIndicesInParallel(int length,
+	                                      IntFunction<? extends ApiParamBase.Result> indexCheck,
+	                                      ApiParamBase.Result[] checkResults) {
+		IndexRangeTask task = new IndexRangeTask(indexCheck, checkResults, new AtomicInteger(length), 0, length);
+		if (ForkJoinTask.getPool() == this.parallelIndexCheckPool) {
+			return task.invoke();
+		}
+		return this.parallelIndexCheckPool.invoke(task);
+	}
+
+	/**
+	 * Checks a range of indices, splitting it in half (and forking the upper half)
+	 * until the range is no larger than the chunk size. Returns the failed result of
+	 * the first failing index in the range, so the lower half's failure always wins.
+	 */
+	private final class IndexRangeTask extends RecursiveTask<Result> {
+
+		private final IntFunction<? extends ApiParamBase.Result> indexCheck;
+		private final ApiParamBase.Result[] checkResults;
+		// the lowest index known to have failed. no index after it needs to be checked
+		private final AtomicInteger failedIndex;
+		private final int from, to;
+		// created on the thread checking the collection or by a task, which has bound it
+		private final Deadline deadline = Deadline.current();
+
+		private IndexRangeTask(IntFunction<? extends ApiParamBase.Result> indexCheck,
+		                       ApiParamBase.Result[] checkResults,
+		                       AtomicInteger failedIndex,
+		                       int from,
+		                       int to) {
+			this.indexCheck = indexCheck;
+			this.checkResults = checkResults;
+			this.failedIndex = failedIndex;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Result compute() {
+			Deadline previousDeadline = Deadline.bind(this.deadline);
+			try {
+				return computeRange();
+			} finally {
+				Deadline.unbind(previousDeadline);
+			}
+		}
+
+		private Result computeRange() {
+			if (this.failedIndex.get() < this.from) {
+				return null;
+			}
+			if (this.to - this.from > parallelChunkSize) {
+				int mid = (this.from + this.to) >>> 1;
+				IndexRangeTask upper = new IndexRangeTask(this.indexCheck, this.checkResults, this.failedIndex, mid, this.to);
+				upper.fork();
+				Result lowerFailure =
+					new IndexRangeTask(this.indexCheck, this.checkResults, this.failedIndex, this.from, mid).compute();
+				if (lowerFailure != null) {
+					// the upper half stops at its next index if it has started
+					if (upper.tryUnfork() || upper.cancel(false)) {
+						return lowerFailure;
+					}
+					upper.join();
+					return lowerFailure;
+				}
+				return upper.join();
+			}
+			for (int i = this.from; i < this.to; i++) {
+				if (this.failedIndex.get() < i) {
+					return null;
+				}
+				ApiParamBase.Result checkResult;
+				/*
+				 * Sequentially the exception would end the check, so it is the index's failure
+				 * (rather than propagating from whichever chunk threw first).
+				 * */
+				try {
+					checkResult = this.indexCheck.apply(i);
+				} catch (ClassCastException e) {
+					checkResult = Result.failure(ApiParamError.cast(ApiCollectionParam.this, e));
+				} catch (Exception e) {
+					checkResult = Result.failure(ApiParamError.exceptional(ApiCollectionParam.this, e));
+				}
+				if (checkResult != null && checkResult.failed()) {
+					this.failedIndex.accumulateAndGet(i, Math::min);
+					return (Result) checkResult;
+				}
+				if (this.checkResults != null) {
+					this.checkResults[i] = checkResult;
+				}
+			}
+			return null;
+		}
+	}
+
 	/*
 	 *
 	 * RESULT
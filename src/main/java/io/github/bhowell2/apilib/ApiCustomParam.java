@@ -3,6 +3,7 @@ package io.github.bhowell2.apilib;
 import io.github.bhowell2.apilib.errors.ApiParamError;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -16,11 +17,47 @@ import java.util.Set;
  * the parameter in which the error occurred will be considered the calling
  * {@link ApiMapParam} (which could be the root ApiMapParam).
  *
+ * When the map is checked with a deadline, {@link Deadline#current()} returns it,
+ * so the remaining time can be used by the custom parameter.
+ *
  * @author Blake Howell
  */
 @FunctionalInterface
 public interface ApiCustomParam extends ApiParam<Map<String, Object>, ApiCustomParam.Result> {
 
+	/**
+	 * The key names of the map that this custom parameter reads. This is used by
+	 * {@link ApiMapParam#checkDelta(Map, Map)} to only run the custom parameters
+	 * again when a key that they read was changed.
+	 *
+	 * @return the key names or null if they are not known (the default), in which
+	 * case the custom parameter is run again on every change
+	 */
+	default Set<String> getReadKeyNames() {
+		return null;
+	}
+
+	/**
+	 * @param readKeyNames the key names of the map that this custom parameter reads
+	 * @return this custom parameter, declaring the key names that it reads (see
+	 * {@link #getReadKeyNames()})
+	 */
+	default ApiCustomParam withReadKeyNames(String... readKeyNames) {
+		ApiCustomParam param = this;
+		Set<String> keyNames = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(readKeyNames)));
+		return new ApiCustomParam() {
+			@Override
+			public Result check(Map<String, Object> params) {
+				return param.check(params);
+			}
+
+			@Override
+			public Set<String> getReadKeyNames() {
+				return keyNames;
+			}
+		};
+	}
+
 	/**
 	 * Returns everything that the other Results can return as well as allowing to return
 	 * a custom value with the name. This custom value can them be retrieved downstream
@@ -49,6 +49,11 @@ public class ApiLibSettings {
 	 */
 	public static volatile String DEFAULT_FORMATTING_ERROR_MESSAGE = "Was not formattable.";
 
+	/**
+	 * Error message used when a parameter was not checked before the deadline of the check passed.
+	 */
+	public static volatile String DEFAULT_TIMEOUT_MESSAGE = "Could not be checked in time.";
+
 	/**
 	 * These are used to set the key names of the map that is generated when calling
 	 * {@link ApiParamError#toMap()}.
@@ -34,7 +34,7 @@ public class ApiListParam<In, Param> extends ApiCollectionParam<In, Param, List<
 
 	public static <Param> Builder<Map<String, Object>, Param>
 	mapInputBuilder(String keyName, Class<Param> paramType) {
-		return builder(keyName);
+		return ApiListParam.<Map<String, Object>, Param>builder(keyName).setIndexType(paramType);
 	}
 
 	public static <Param> Builder<List<Param>, Param> innerListBuilder() {
@@ -42,7 +42,7 @@ public class ApiListParam<In, Param> extends ApiCollectionParam<In, Param, List<
 	}
 
 	public static <Param> Builder<List<Param>, Param> innerListBuilder(Class<Param> paramType) {
-		return unnamedBuilder();
+		return ApiListParam.<List<Param>, Param>unnamedBuilder().setIndexType(paramType);
 	}
 
 	public static class Builder<In, Param> extends ApiCollectionParam.Builder<
@@ -71,6 +71,11 @@ public class ApiListParam<In, Param> extends ApiCollectionParam<In, Param, List<
 		super(builder);
 	}
 
+	@Override
+	protected boolean isCollectionType(Object value) {
+		return value instanceof List;
+	}
+
 	@Override
 	protected int getCollectionSize(List<Param> paramCollection) {
 		return paramCollection.size();
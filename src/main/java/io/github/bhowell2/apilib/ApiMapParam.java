@@ -1,15 +1,29 @@
 package io.github.bhowell2.apilib;
 
+import io.github.bhowell2.apilib.checks.utils.StringPerfectHash;
 import io.github.bhowell2.apilib.errors.ApiErrorType;
 import io.github.bhowell2.apilib.errors.ApiParamError;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * An ApiMapParam is a parameter that contains other, named, parameters. This can be viewed
@@ -120,8 +134,52 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 	final ApiMapParam[] requiredMapParams, optionalMapParams;
 	final ApiCollectionParam<Map<String, Object>, ?, ?>[] requiredCollectionParams, optionalCollectionParams;
 	final ApiCustomParam[] requiredCustomParams, optionalCustomParams;
+	final AsyncApiCustomParam[] requiredAsyncCustomParams, optionalAsyncCustomParams;
 	final ApiMapParamConditionalCheck[] conditionalChecks;
 
+	/*
+	 * All single, map and collection parameters (i.e., those with a key name) in
+	 * the order they are checked: required single, map and collection parameters
+	 * and then the optional ones. The index of the parameter is its slot.
+	 * */
+	final ApiParamBase<Map<String, Object>, ?>[] keyedParams;
+	final int requiredKeyedParamCount;
+	final MapResultLayout resultLayout;
+	final boolean inputKeyDispatch;
+	final boolean formattedValueOverlay;
+	/*
+	 * The required and then the optional async custom params (null if there are
+	 * none) and the limiter shared by all checks of this map.
+	 * */
+	final AsyncApiCustomParam[] asyncCustomParams;
+	final int requiredAsyncCustomParamCount;
+	final AsyncCustomParamCheck.Limiter asyncLimiter;
+	final ForkJoinPool parallelCheckPool;
+	final int parallelCheckThreshold;
+	// slots of the map and collection parameters, which are checked in parallel
+	final int[] parallelSlots;
+	// null if there are no limits on the input
+	final InputBudget inputBudget;
+	// null if the keyed params are checked in slot order. the nodes are the slots
+	final AdaptiveOrder adaptiveOrder;
+	// the profile name that was set, rather than defaulted to the key name
+	final String adaptiveProfileName;
+	// null if not dispatching by input key or if a key name is used more than once
+	final StringPerfectHash keyedParamIndex;
+	/*
+	 * Bitmask (by slot) of the parameters that must be checked even if their key
+	 * is not in the map: all required parameters (they will fail as missing, unless
+	 * the parameter can be null) and optional maps/collections that can be null
+	 * (they are successful when missing).
+	 * */
+	final long[] checkWhenMissingSlots;
+	// returned when the map is null (depending on canBeNull) or not a map. results are immutable, so can be reused
+	final Result nullResult, missingResult, castResult;
+	// null if the results of check(Map) are not cached
+	final ValidationCache validationCache;
+	// compiled on the first checkAll. the plan is immutable, so compiling it more than once is harmless
+	private volatile ApiMapParamPlan batchPlan;
+
 
 	/*
 	 *
@@ -140,6 +198,25 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 		// default to false, avoids potential problems for user down the line
 		private boolean continueOnOptionalFailure = false;
 
+		private boolean inputKeyDispatch = false;
+
+		private boolean formattedValueOverlay = false;
+
+		private ForkJoinPool parallelCheckPool;
+		private int parallelCheckThreshold;
+
+		private int maxKeyCount = InputBudget.UNLIMITED;
+		private int maxDepth = InputBudget.UNLIMITED;
+		private int maxCollectionElementCount = InputBudget.UNLIMITED;
+		private int maxStringLength = InputBudget.UNLIMITED;
+
+		private AdaptiveOrdering adaptiveOrdering;
+		private String adaptiveProfileName;
+
+		private ValidationCache validationCache;
+		private Set<String> pinnedParams = new HashSet<>();
+		private Map<String, Integer> paramPriorities = new HashMap<>();
+
 		// using maps to easily keep track of already added params (by key name)
 		private Map<String, ApiSingleParam<?>> requiredSingleParams, optionalSingleParams;
 		private Map<String, ApiMapParam> requiredMapParams, optionalMapParams;
@@ -147,6 +224,8 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 
 		// custom parameters and conditional checks do not have names
 		private List<ApiCustomParam> requiredCustomParams, optionalCustomParams;
+		private List<AsyncApiCustomParam> requiredAsyncCustomParams, optionalAsyncCustomParams;
+		private int asyncConcurrencyLimit = Integer.MAX_VALUE;
 		private List<ApiMapParamConditionalCheck> conditionalChecks;
 
 		private static <T extends ApiParamBase<?,?>> Map<String, T> makeMapForCopyFromParamArray(T[] copyFromArray) {
@@ -187,6 +266,8 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			this.optionalCollectionParams = new HashMap<>();
 			this.requiredCustomParams = new ArrayList<>();
 			this.optionalCustomParams = new ArrayList<>();
+			this.requiredAsyncCustomParams = new ArrayList<>();
+			this.optionalAsyncCustomParams = new ArrayList<>();
 			this.conditionalChecks = new ArrayList<>();
 		}
 
@@ -203,6 +284,29 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			this.canBeNull = copyFrom.canBeNull;
 			this.invalidErrorMessage = copyFrom.invalidErrorMessage;
 			this.continueOnOptionalFailure = copyFrom.continueOnOptionalFailure;
+			this.inputKeyDispatch = copyFrom.inputKeyDispatch;
+			this.formattedValueOverlay = copyFrom.formattedValueOverlay;
+			this.parallelCheckPool = copyFrom.parallelCheckPool;
+			this.parallelCheckThreshold = copyFrom.parallelCheckThreshold;
+			this.validationCache = copyFrom.validationCache;
+			if (copyFrom.inputBudget != null) {
+				this.maxKeyCount = copyFrom.inputBudget.maxKeyCount;
+				this.maxDepth = copyFrom.inputBudget.maxDepth;
+				this.maxCollectionElementCount = copyFrom.inputBudget.maxCollectionElementCount;
+				this.maxStringLength = copyFrom.inputBudget.maxStringLength;
+			}
+			if (copyFrom.adaptiveOrder != null) {
+				this.adaptiveOrdering = copyFrom.adaptiveOrder.ordering;
+				this.adaptiveProfileName = copyFrom.adaptiveProfileName;
+				for (int slot = 0; slot < copyFrom.keyedParams.length; slot++) {
+					if (copyFrom.adaptiveOrder.pinned[slot]) {
+						this.pinnedParams.add(copyFrom.keyedParams[slot].keyName);
+					}
+					if (copyFrom.adaptiveOrder.priorities[slot] != 0) {
+						this.paramPriorities.put(copyFrom.keyedParams[slot].keyName, copyFrom.adaptiveOrder.priorities[slot]);
+					}
+				}
+			}
 			this.requiredSingleParams = makeMapForCopyFromParamArray(copyFrom.requiredSingleParams);
 			this.optionalSingleParams = makeMapForCopyFromParamArray(copyFrom.optionalSingleParams);
 			this.requiredMapParams = makeMapForCopyFromParamArray(copyFrom.requiredMapParams);
@@ -211,6 +315,9 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			this.optionalCollectionParams = makeMapForCopyFromParamArray(copyFrom.optionalCollectionParams);
 			this.requiredCustomParams = makeListForCopyFromParamArray(copyFrom.requiredCustomParams);
 			this.optionalCustomParams = makeListForCopyFromParamArray(copyFrom.optionalCustomParams);
+			this.requiredAsyncCustomParams = makeListForCopyFromParamArray(copyFrom.requiredAsyncCustomParams);
+			this.optionalAsyncCustomParams = makeListForCopyFromParamArray(copyFrom.optionalAsyncCustomParams);
+			this.asyncConcurrencyLimit = copyFrom.asyncLimiter.limit();
 			if (arrayIsNotNullOrEmpty(copyFrom.conditionalChecks)) {
 				this.conditionalChecks.addAll(Arrays.asList(copyFrom.conditionalChecks));
 			}
@@ -232,6 +339,250 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			return this;
 		}
 
+		/**
+		 * Set whether or not the {@link ApiMapParam} should find the parameters to check
+		 * by iterating over the keys of the map being checked, rather than retrieving
+		 * every parameter from the map by its key name. This is beneficial for maps that
+		 * have many (optional) parameters, where only a few are provided per check (e.g.,
+		 * settings with hundreds of optional keys) - only the provided parameters (and
+		 * required parameters) will be checked.
+		 *
+		 * Each key of the map is resolved to its parameter with a perfect hash of all
+		 * of the parameters' key names, which is created when the {@link ApiMapParam} is
+		 * built. Missing required parameters are found with a bitmask of the provided
+		 * keys. The result (and the order in which parameters are checked) is the same
+		 * as without input key dispatch.
+		 *
+		 * This is only used when the map being checked has fewer keys than this
+		 * ApiMapParam has (single, map and collection) parameters.
+		 *
+		 * @param inputKeyDispatch whether or not to check the parameters by the map's keys
+		 * @return this builder
+		 */
+		public Builder setInputKeyDispatch(boolean inputKeyDispatch) {
+			this.inputKeyDispatch = inputKeyDispatch;
+			return this;
+		}
+
+		/**
+		 * Set whether or not the formatted values of single parameters are returned in
+		 * {@link ApiMapParam.Result#formattedValues} rather than put back into the map
+		 * being checked. With the overlay the checked map (and every map nested within
+		 * it, which use the overlay as well) is never modified, so the same map can be
+		 * checked concurrently without any synchronization and read-only maps can be
+		 * checked when there are formatters.
+		 *
+		 * {@link ApiMapParam.Result#withFormattedValues(Map)} provides a view of the
+		 * checked map with the formatted values, which is also what custom parameters
+		 * and conditional checks receive when any value has been formatted.
+		 *
+		 * @param formattedValueOverlay whether or not to keep the formatted values in
+		 *                              the result rather than put them in the map
+		 * @return this builder
+		 */
+		public Builder setFormattedValueOverlay(boolean formattedValueOverlay) {
+			this.formattedValueOverlay = formattedValueOverlay;
+			return this;
+		}
+
+		/**
+		 * Set the pool with which the map and collection parameters of this map are
+		 * checked in parallel (as {@link ForkJoinTask}s) when the map being checked is
+		 * large. This is for very large payloads, where checking the nested maps and
+		 * collections one after another would leave the other cores idle.
+		 *
+		 * The required parameters are checked in parallel with each other and then the
+		 * optional parameters are (the single parameters are checked by the calling
+		 * thread while the tasks run). Custom parameters and conditional checks are run
+		 * in the same order as they are otherwise, so the result and the error returned
+		 * are always the same as without the pool: the error of the first parameter
+		 * (in the sequential order) that failed. Once a parameter has failed, the tasks
+		 * of the parameters after it are cancelled (tasks that are already running
+		 * finish, but their results are discarded).
+		 *
+		 * The parameters are only checked in parallel when at least two of them are
+		 * provided and the total size of their values (i.e., the number of entries in
+		 * the nested maps plus the number of elements of the collections) is at least
+		 * the threshold. Nested maps are only checked in parallel if they have been
+		 * built with a pool as well (which can be the same pool). The parameters are
+		 * always checked sequentially when checked with a {@link ValidationContext} or
+		 * a compiled {@link ApiMapParamPlan}.
+		 *
+		 * The checked map should not be modified while it is being checked, but nested
+		 * maps being formatted by different tasks is not a problem as each task only
+		 * formats the values of its own map.
+		 *
+		 * @param pool the pool to run the tasks in. null to always check sequentially
+		 * @param threshold the minimum combined size of the nested maps and collections
+		 *                  to check them in parallel
+		 * @return this builder
+		 */
+		public Builder setParallelCheck(ForkJoinPool pool, int threshold) {
+			if (threshold < 0) {
+				throw new IllegalArgumentException("Parallel check threshold cannot be negative.");
+			}
+			this.parallelCheckPool = pool;
+			this.parallelCheckThreshold = threshold;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of keys of the map being checked and of every map
+		 * nested within it (whether or not they have parameters).
+		 *
+		 * This and the other input limits are checked by walking the map before any of
+		 * its parameters are checked, so that an oversized payload fails before any
+		 * checks or formatters run on it (e.g., before a regex runs on a 2 MB string or
+		 * the indices of a collection with a million elements are checked). The limits
+		 * apply to the whole map, including values that do not have parameters. The
+		 * error is for the first value that exceeded a limit (an
+		 * {@link ApiErrorType#INVALID_PARAMETER} with the key names and indices of the
+		 * maps and collections containing it). The limits should generally be set on
+		 * the root map, as a nested map with limits walks its map again when it is
+		 * checked.
+		 *
+		 * @param maxKeyCount the maximum number of keys of each map
+		 * @return this builder
+		 */
+		public Builder setMaxKeyCount(int maxKeyCount) {
+			if (maxKeyCount < 0) {
+				throw new IllegalArgumentException("Max key count cannot be negative.");
+			}
+			this.maxKeyCount = maxKeyCount;
+			return this;
+		}
+
+		/**
+		 * Set the maximum depth of the map being checked, which is at depth 1. Each
+		 * nested map or collection is one deeper than the map or collection containing
+		 * it (e.g., a list of maps in the checked map is at depth 2 and the maps are at
+		 * depth 3). See {@link #setMaxKeyCount(int)}.
+		 *
+		 * @param maxDepth the maximum depth of any nested map or collection
+		 * @return this builder
+		 */
+		public Builder setMaxDepth(int maxDepth) {
+			if (maxDepth < 1) {
+				throw new IllegalArgumentException("Max depth must be greater than 0.");
+			}
+			this.maxDepth = maxDepth;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of elements of all collections (and arrays) in the
+		 * map being checked combined. A collection that would exceed the maximum fails
+		 * without its elements being walked. See {@link #setMaxKeyCount(int)}.
+		 *
+		 * @param maxCollectionElementCount the maximum total number of collection elements
+		 * @return this builder
+		 */
+		public Builder setMaxCollectionElementCount(int maxCollectionElementCount) {
+			if (maxCollectionElementCount < 0) {
+				throw new IllegalArgumentException("Max collection element count cannot be negative.");
+			}
+			this.maxCollectionElementCount = maxCollectionElementCount;
+			return this;
+		}
+
+		/**
+		 * Set the maximum length of every string (keys included) in the map being
+		 * checked. See {@link #setMaxKeyCount(int)}.
+		 *
+		 * @param maxStringLength the maximum length of each string
+		 * @return this builder
+		 */
+		public Builder setMaxStringLength(int maxStringLength) {
+			if (maxStringLength < 0) {
+				throw new IllegalArgumentException("Max string length cannot be negative.");
+			}
+			this.maxStringLength = maxStringLength;
+			return this;
+		}
+
+		/**
+		 * Set the cache of the results of {@link ApiMapParam#check(Map)}, so that a
+		 * payload identical to one that was checked recently returns the same result
+		 * without being checked again (see {@link ValidationCache}). The payload is
+		 * the map checked by this map (i.e., the value of the key name if this map has
+		 * one). The input limits (e.g., {@link #setMaxStringLength(int)}) are still
+		 * checked before the payload is looked up.
+		 *
+		 * The cache requires {@link #setFormattedValueOverlay(boolean)}, as a cached
+		 * result cannot put the formatted values into the map being checked. Checks
+		 * with a {@link ValidationContext}, {@link ApiMapParam#checkAsync(Map)},
+		 * {@link ApiMapParam#checkAll(List)} and checks of this map as a parameter of
+		 * another map are not cached.
+		 *
+		 * @param validationCache the cache. null to not cache the results
+		 * @return this builder
+		 */
+		public Builder setValidationCache(ValidationCache validationCache) {
+			this.validationCache = validationCache;
+			return this;
+		}
+
+		/**
+		 * Set the ordering that learns in which order to check the single, map and
+		 * collection parameters of this map (see {@link AdaptiveOrdering}). The required
+		 * parameters are still checked before the optional ones. The profile name is the
+		 * key name, so a profile name must be provided with
+		 * {@link #setAdaptiveOrdering(AdaptiveOrdering, String)} for a map without a key
+		 * name.
+		 *
+		 * @param adaptiveOrdering the ordering. null to check the parameters in their original order
+		 * @return this builder
+		 */
+		public Builder setAdaptiveOrdering(AdaptiveOrdering adaptiveOrdering) {
+			return setAdaptiveOrdering(adaptiveOrdering, null);
+		}
+
+		/**
+		 * Same as {@link #setAdaptiveOrdering(AdaptiveOrdering)}, with the name of the
+		 * map's statistics in the ordering's profile.
+		 *
+		 * @param adaptiveOrdering the ordering. null to check the parameters in their original order
+		 * @param profileName the profile name. null to use the key name
+		 * @return this builder
+		 */
+		public Builder setAdaptiveOrdering(AdaptiveOrdering adaptiveOrdering, String profileName) {
+			this.adaptiveOrdering = adaptiveOrdering;
+			this.adaptiveProfileName = profileName;
+			return this;
+		}
+
+		/**
+		 * Pins the parameters so that they are always checked first (among the required
+		 * or optional parameters, in their original order) when the parameters are
+		 * reordered (see {@link #setAdaptiveOrdering(AdaptiveOrdering)}).
+		 *
+		 * @param keyNames the key names of parameters of this map (when it is built)
+		 * @return this builder
+		 */
+		public Builder pinParams(String... keyNames) {
+			checkVarArgsNotNullAndValuesNotNull(keyNames);
+			this.pinnedParams.addAll(Arrays.asList(keyNames));
+			return this;
+		}
+
+		/**
+		 * Sets the priority of a parameter when the parameters are reordered (see
+		 * {@link #setAdaptiveOrdering(AdaptiveOrdering)}). Parameters with a higher
+		 * priority are always checked before (required or optional) parameters with
+		 * a lower priority, regardless of their cost or failure rate. Defaults to 0.
+		 *
+		 * @param keyName the key name of a parameter of this map (when it is built)
+		 * @param priority the parameter's priority
+		 * @return this builder
+		 */
+		public Builder setParamPriority(String keyName, int priority) {
+			if (keyName == null) {
+				throw new IllegalArgumentException("Key name cannot be null.");
+			}
+			this.paramPriorities.put(keyName, priority);
+			return this;
+		}
+
 		// checks that the parameter by the given name has not been added to
 		private void checkHasNotBeenAdded(ApiParamBase<?, ?> param) {
 			// redundancy check since checkVarArgs... is used everywhere
@@ -574,6 +925,65 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			return this;
 		}
 
+		/**
+		 * Adds asynchronous custom parameters, which are only checked by
+		 * {@link ApiMapParam#checkAsync(Map)} (or blocked on by {@link ApiMapParam#check(Map)})
+		 * once all synchronous checks have passed. Like the required custom parameters,
+		 * any failure fails the map.
+		 *
+		 * @param params the asynchronous custom parameters to add
+		 * @return this builder
+		 */
+		public final Builder addRequiredAsyncCustomParams(AsyncApiCustomParam... params) {
+			checkVarArgsNotNullAndValuesNotNull(params);
+			if (this.requiredAsyncCustomParams == null) {
+				this.requiredAsyncCustomParams = new ArrayList<>();
+			}
+			for (AsyncApiCustomParam p : params) {
+				if (!this.requiredAsyncCustomParams.contains(p)) {
+					this.requiredAsyncCustomParams.add(p);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Same as {@link #addRequiredAsyncCustomParams(AsyncApiCustomParam...)}, but
+		 * a failure is handled like the failure of an optional custom parameter.
+		 *
+		 * @param params the asynchronous custom parameters to add
+		 * @return this builder
+		 */
+		public final Builder addOptionalAsyncCustomParams(AsyncApiCustomParam... params) {
+			checkVarArgsNotNullAndValuesNotNull(params);
+			if (this.optionalAsyncCustomParams == null) {
+				this.optionalAsyncCustomParams = new ArrayList<>();
+			}
+			for (AsyncApiCustomParam p : params) {
+				if (!this.optionalAsyncCustomParams.contains(p)) {
+					this.optionalAsyncCustomParams.add(p);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of this map's {@link AsyncApiCustomParam}s that may
+		 * be running at once. The limit is shared by all checks of the built map (e.g.,
+		 * to limit the number of database connections its checks use), so parameters
+		 * are queued until a running parameter completes. Defaults to no limit.
+		 *
+		 * @param asyncConcurrencyLimit the maximum number of running asynchronous custom parameters
+		 * @return this builder
+		 */
+		public Builder setAsyncConcurrencyLimit(int asyncConcurrencyLimit) {
+			if (asyncConcurrencyLimit < 1) {
+				throw new IllegalArgumentException("Async concurrency limit must be greater than 0.");
+			}
+			this.asyncConcurrencyLimit = asyncConcurrencyLimit;
+			return this;
+		}
+
 		public Builder addConditionalChecks(ApiMapParamConditionalCheck... conditionalChecks) {
 			checkVarArgsNotNullAndValuesNotNull(conditionalChecks);
 			if (this.conditionalChecks == null) {
@@ -625,6 +1035,10 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 		@SuppressWarnings("unchecked")
 		@Override
 		public ApiMapParam build() {
+			if (this.validationCache != null && !this.formattedValueOverlay) {
+				throw new IllegalArgumentException("A validation cache requires the formatted value overlay, " +
+					                                   "as a cached result does not put formatted values into the map.");
+			}
 			return new ApiMapParam(this);
 		}
 	}
@@ -666,6 +1080,131 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 		this.conditionalChecks = listIsNotNullOrEmpty(builder.conditionalChecks)
 			? builder.conditionalChecks.toArray(new ApiMapParamConditionalCheck[0])
 			: null;
+		this.requiredAsyncCustomParams = listIsNotNullOrEmpty(builder.requiredAsyncCustomParams)
+			? builder.requiredAsyncCustomParams.toArray(new AsyncApiCustomParam[0])
+			: null;
+		this.optionalAsyncCustomParams = listIsNotNullOrEmpty(builder.optionalAsyncCustomParams)
+			? builder.optionalAsyncCustomParams.toArray(new AsyncApiCustomParam[0])
+			: null;
+		List<AsyncApiCustomParam> asyncCustomParams = new ArrayList<>();
+		if (this.requiredAsyncCustomParams != null) {
+			asyncCustomParams.addAll(Arrays.asList(this.requiredAsyncCustomParams));
+		}
+		this.requiredAsyncCustomParamCount = asyncCustomParams.size();
+		if (this.optionalAsyncCustomParams != null) {
+			asyncCustomParams.addAll(Arrays.asList(this.optionalAsyncCustomParams));
+		}
+		this.asyncCustomParams = asyncCustomParams.isEmpty()
+			? null
+			: asyncCustomParams.toArray(new AsyncApiCustomParam[0]);
+		this.asyncLimiter = new AsyncCustomParamCheck.Limiter(builder.asyncConcurrencyLimit);
+
+		List<ApiParamBase<Map<String, Object>, ?>> keyedParams = new ArrayList<>();
+		addAll(keyedParams, this.requiredSingleParams);
+		addAll(keyedParams, this.requiredMapParams);
+		addAll(keyedParams, this.requiredCollectionParams);
+		this.requiredKeyedParamCount = keyedParams.size();
+		addAll(keyedParams, this.optionalSingleParams);
+		addAll(keyedParams, this.optionalMapParams);
+		addAll(keyedParams, this.optionalCollectionParams);
+		this.keyedParams = keyedParams.toArray(new ApiParamBase[0]);
+		this.resultLayout = createResultLayout(this.keyedParams);
+		this.nullResult = Result.success(this.keyName);
+		this.missingResult = Result.failure(ApiParamError.missing(this));
+		this.castResult = Result.failure(ApiParamError.cast(this, null));
+		this.inputKeyDispatch = builder.inputKeyDispatch;
+		this.formattedValueOverlay = builder.formattedValueOverlay;
+		this.parallelCheckPool = builder.parallelCheckPool;
+		this.parallelCheckThreshold = builder.parallelCheckThreshold;
+		this.inputBudget = InputBudget.of(builder.maxKeyCount,
+		                                  builder.maxDepth,
+		                                  builder.maxCollectionElementCount,
+		                                  builder.maxStringLength);
+		this.adaptiveProfileName = builder.adaptiveProfileName;
+		this.adaptiveOrder = builder.adaptiveOrdering != null ? createAdaptiveOrder(builder) : null;
+		this.validationCache = builder.validationCache;
+		int parallelSlotCount = 0;
+		for (ApiParamBase<Map<String, Object>, ?> param : this.keyedParams) {
+			if (!(param instanceof ApiSingleParam)) {
+				parallelSlotCount++;
+			}
+		}
+		this.parallelSlots = new int[parallelSlotCount];
+		for (int slot = 0, i = 0; slot < this.keyedParams.length; slot++) {
+			if (!(this.keyedParams[slot] instanceof ApiSingleParam)) {
+				this.parallelSlots[i++] = slot;
+			}
+		}
+		this.keyedParamIndex = this.inputKeyDispatch ? this.resultLayout.keyIndex : null;
+		this.checkWhenMissingSlots = new long[(this.keyedParams.length + 63) >>> 6];
+		for (int slot = 0; slot < this.keyedParams.length; slot++) {
+			ApiParamBase<Map<String, Object>, ?> param = this.keyedParams[slot];
+			if (slot < this.requiredKeyedParamCount || (param.canBeNull && !(param instanceof ApiSingleParam))) {
+				this.checkWhenMissingSlots[slot >>> 6] |= 1L << slot;
+			}
+		}
+	}
+
+	private AdaptiveOrder createAdaptiveOrder(Builder builder) {
+		String profileName = builder.adaptiveProfileName != null ? builder.adaptiveProfileName : this.keyName;
+		if (profileName == null) {
+			throw new IllegalArgumentException("A profile name is required for the adaptive ordering of a map "
+				                                   + "without a key name.");
+		}
+		String[] nodeNames = new String[this.keyedParams.length];
+		boolean[] pinned = new boolean[this.keyedParams.length];
+		int[] priorities = new int[this.keyedParams.length];
+		Set<String> keyNames = new HashSet<>();
+		for (int slot = 0; slot < this.keyedParams.length; slot++) {
+			nodeNames[slot] = this.keyedParams[slot].keyName;
+			keyNames.add(nodeNames[slot]);
+			pinned[slot] = builder.pinnedParams.contains(nodeNames[slot]);
+			Integer priority = builder.paramPriorities.get(nodeNames[slot]);
+			priorities[slot] = priority != null ? priority : 0;
+		}
+		for (String keyName : builder.pinnedParams) {
+			if (!keyNames.contains(keyName)) {
+				throw new IllegalArgumentException("Pinned parameter '" + keyName + "' is not a parameter of the map.");
+			}
+		}
+		for (String keyName : builder.paramPriorities.keySet()) {
+			if (!keyNames.contains(keyName)) {
+				throw new IllegalArgumentException("Parameter '" + keyName + "' with a priority is not a parameter of "
+					                                   + "the map.");
+			}
+		}
+		return new AdaptiveOrder(builder.adaptiveOrdering,
+		                         profileName,
+		                         nodeNames,
+		                         new int[]{this.requiredKeyedParamCount, this.keyedParams.length},
+		                         pinned,
+		                         priorities);
+	}
+
+	private static void addAll(List<ApiParamBase<Map<String, Object>, ?>> keyedParams,
+	                           ApiParamBase<Map<String, Object>, ?>[] params) {
+		if (params != null) {
+			keyedParams.addAll(Arrays.asList(params));
+		}
+	}
+
+	/*
+	 * Parameters added with addRequiredParams/addOptionalParams are not checked for
+	 * duplicate key names across groups. Cannot index the parameters by key in that
+	 * case (i.e., cannot dispatch by key or represent the result by slot), since a
+	 * key would belong to more than one parameter.
+	 * */
+	private static MapResultLayout createResultLayout(ApiParamBase<Map<String, Object>, ?>[] keyedParams) {
+		String[] keyNames = new String[keyedParams.length];
+		Set<String> uniqueKeyNames = new HashSet<>();
+		boolean unique = true;
+		for (int i = 0; i < keyedParams.length; i++) {
+			keyNames[i] = keyedParams[i].keyName;
+			if (keyNames[i] == null || !uniqueKeyNames.add(keyNames[i])) {
+				unique = false;
+			}
+		}
+		return new MapResultLayout(keyNames, unique ? StringPerfectHash.of(keyNames) : null);
 	}
 
 	/**
@@ -698,7 +1237,7 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 	 * @param apiParamError the original ApiParamError if in the root
 	 * @return
 	 */
-	private ApiParamError wrapCheckError(ApiParamError apiParamError) {
+	ApiParamError wrapCheckError(ApiParamError apiParamError) {
 		if (this.keyName == null) {
 			return apiParamError;
 		}
@@ -717,7 +1256,7 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 	 * @param exception the thrown exception...
 	 * @return an Result to be returned to the caller of {@link #check(Map)}
 	 */
-	private Result returnFailedCheckResult(ApiParamBase<?, ?> param, Exception exception) {
+	Result returnFailedCheckResult(ApiParamBase<?, ?> param, Exception exception) {
 		ApiParamError apiParamError = null;
 		if (exception instanceof ClassCastException) {
 			apiParamError = ApiParamError.cast(param, exception);
@@ -733,337 +1272,625 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 	 * @param failedCheckError
 	 * @return
 	 */
-	private Result returnFailedCheckResult(ApiParamError failedCheckError) {
+	Result returnFailedCheckResult(ApiParamError failedCheckError) {
 		return Result.failure(wrapCheckError(failedCheckError));
 	}
 
-	@SuppressWarnings({"unchecked", "ConstantConditions"})
+	/**
+	 * Checks the map. If the map has {@link AsyncApiCustomParam}s, this blocks until
+	 * they have completed (use {@link #checkAsync(Map)} to not block).
+	 *
+	 * @param params the map to check
+	 * @return the result of the check
+	 */
+	@SuppressWarnings("unchecked")
 	public Result check(Map<String, Object> params) {
-		/*
-		 * All parameters are passed down the map containing their values. If this map does
-		 * not contain a parameter name then it is a top-level/root map (i.e., the parent map
-		 * or a map that is the index of an array and thus has no name).
-		 * */
-		try {
-			Map<String, Object> mapParamToCheck;
-			if (this.keyName == null) {
-				mapParamToCheck = params;
-			} else {
-				mapParamToCheck = (Map<String, Object>) params.get(this.keyName);
-			}
-
-			if (mapParamToCheck == null) {
-				if (this.canBeNull) {
-					return Result.success(this.keyName);
-				} else {
-					return Result.failure(ApiParamError.missing(this));
+		// null params fail (or are handled) the same as without the cache
+		if (this.validationCache != null && params != null) {
+			Object value = this.keyName == null ? params : params.get(this.keyName);
+			if (value instanceof Map) {
+				// fails without walking (and copying) all of an oversized payload
+				if (this.inputBudget != null) {
+					ApiParamError budgetError = this.inputBudget.check((Map<String, Object>) value);
+					if (budgetError != null) {
+						return returnFailedCheckResult(budgetError);
+					}
 				}
+				return this.validationCache.check(this, params, (Map<String, Object>) value);
 			}
+		}
+		return check(params, null, false, false);
+	}
 
-			/*
-			 * Currently there are no formatters/re-insertions for ApiMapParam. This likely is
-			 * not a problem since all other parameters can re-insert their modified values
-			 * back into the map and maps are just references, so any sub-map that has its
-			 * parameters formatted and re-inserted into it will appear in the retrieve map
-			 * */
+	/**
+	 * Same as {@link #check(Map)}, but checking stops once the deadline has passed and
+	 * the result fails with {@link ApiErrorType#TIMEOUT}. See {@link Deadline} for where
+	 * the deadline is checked. A check that is (or is nested in) a check with an earlier
+	 * deadline keeps the earlier deadline.
+	 *
+	 * A cached result (see {@link Builder#setValidationCache(ValidationCache)}) is still
+	 * returned once the deadline has passed, but a result that timed out is never cached.
+	 *
+	 * @param params the map to check
+	 * @param deadline the time by which the check must have completed. if null, this
+	 *                 is the same as {@link #check(Map)}
+	 * @return the result of the check
+	 */
+	public Result checkWithDeadline(Map<String, Object> params, Deadline deadline) {
+		if (deadline == null) {
+			return check(params);
+		}
+		Deadline previousDeadline = Deadline.bind(deadline);
+		try {
+			return check(params);
+		} finally {
+			Deadline.unbind(previousDeadline);
+		}
+	}
 
-			Set<String> checkedKeyNames = null;
-			Map<String, Result> checkedMapResults = null;
-			Map<String, ApiCollectionParam.Result> checkedCollectionResults = null;
-			Map<String, Object> customValues = null;
+	/**
+	 * Checks the map with all of its synchronous checks and then, if they passed,
+	 * starts the {@link AsyncApiCustomParam}s of this map, which run concurrently
+	 * (see {@link Builder#setAsyncConcurrencyLimit(int)}). The returned future is
+	 * completed once they have completed, with the result of the synchronous checks
+	 * merged with their results. The error returned is the same regardless of the
+	 * order in which the asynchronous parameters complete: the error of the first
+	 * (required and then optional) parameter that failed. Once one fails, the
+	 * parameters after it are not started (and their futures are cancelled if they
+	 * have been).
+	 *
+	 * The synchronous checks run on the calling thread. The asynchronous parameters
+	 * of nested maps (including maps in collections) are blocked on while checking
+	 * their map, as with {@link #check(Map)}.
+	 *
+	 * @param params the map to check
+	 * @return a future that is completed (normally) with the result
+	 */
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<Result> checkAsync(Map<String, Object> params) {
+		Result syncResult = check(params, null, false, false, true, false);
+		if (this.asyncCustomParams == null || syncResult.failed()) {
+			return CompletableFuture.completedFuture(syncResult);
+		}
+		Map<String, Object> mapParamToCheck = this.keyName == null
+			? params
+			: (Map<String, Object>) params.get(this.keyName);
+		if (mapParamToCheck == null) {
+			// null (and allowed to be), so there is nothing to check
+			return CompletableFuture.completedFuture(syncResult);
+		}
+		return AsyncCustomParamCheck.check(this, mapParamToCheck, syncResult);
+	}
 
-			// check all required first. will fail faster if something is not provided.
+	/**
+	 * Same as {@link #check(Map)}, but the storage for the results is taken from the
+	 * context (and reused on every check with the context) rather than allocated. The
+	 * returned result belongs to the context and is only valid until the context is
+	 * used for another check. See {@link ValidationContext}.
+	 *
+	 * @param params the map to check
+	 * @param context the context to use. if null, this is the same as {@link #check(Map)}
+	 * @return the result, which is only valid until the context is used again
+	 */
+	public Result check(Map<String, Object> params, ValidationContext context) {
+		return check(params, context, true, false);
+	}
 
-			/* REQUIRED PARAMS */
+	/**
+	 * Same as {@link #checkDelta(Map, Result, Map)}, without the result of the previous
+	 * check. The required single parameters whose keys did not change are not checked
+	 * again, but everything else (the map and collection parameters and the custom
+	 * parameters) is, as their results are needed to create the result. The optional
+	 * single parameters are only not checked again when an optional parameter that fails
+	 * fails the map (see {@link Builder#setContinueOnOptionalFailure(boolean)}), as
+	 * otherwise a value that failed was skipped by the previous check.
+	 *
+	 * @param previouslyValidated the map that was successfully checked by this map
+	 * @param patch the keys that changed and their new values
+	 * @return the result of checking the patched map
+	 */
+	public Result checkDelta(Map<String, Object> previouslyValidated, Map<String, Object> patch) {
+		return checkDelta(previouslyValidated, null, patch);
+	}
 
-			if (this.requiredSingleParams != null) {
-				for (ApiSingleParam<?> param : this.requiredSingleParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						ApiSingleParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							return returnFailedCheckResult(checkResult.error);
-						} else if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>(this.requiredSingleParams.length);
-						}
-						/*
-						 * A single param will always return the key name. So, may just
-						 * add it here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
-					}
+	/**
+	 * Checks the map that results from applying the patch to a map that was already
+	 * successfully checked by this map (e.g., a PATCH request to a resource that was
+	 * validated when it was created), by only checking again what the patch could have
+	 * changed: the parameters of the keys in the patch and the custom parameters and
+	 * conditional checks that read them. The results of everything else are taken from
+	 * the previous result.
+	 *
+	 * The custom parameters and conditional checks declare the keys that they read with
+	 * {@link ApiCustomParam#getReadKeyNames()} and
+	 * {@link ApiMapParamConditionalCheck#getReadKeyNames()}. The custom parameters are run
+	 * again (all of them, as their results cannot be told apart in the previous result)
+	 * if any of them reads a key in the patch or does not declare the keys that it reads.
+	 * A conditional check is run again if it reads a key in the patch or does not declare
+	 * the keys that it reads. The {@link AsyncApiCustomParam}s are always run again.
+	 *
+	 * The maps are the maps checked by this map (i.e., not the map containing this map
+	 * when this map has a key name). The patch is applied to a copy of the previously
+	 * validated map: the patch's values replace the previous values and keys with null
+	 * values are removed. The merge is shallow (unlike a JSON merge patch), so a patch
+	 * that changes one key of a nested map must contain the whole nested map, which
+	 * replaces the previous one. Neither map (nor any map nested within them) is
+	 * modified: the formatted values of the checked parameters are returned in
+	 * {@link Result#formattedValues}, as with the formatted value overlay (see
+	 * {@link Builder#setFormattedValueOverlay(boolean)} and
+	 * {@link Result#withFormattedValues(Map)}).
+	 *
+	 * @param previouslyValidated the map that was successfully checked by this map
+	 * @param previousResult the successful result of checking the previously validated
+	 *                       map. if null, see {@link #checkDelta(Map, Map)}
+	 * @param patch the keys that changed and their new values
+	 * @return the result of checking the patched map
+	 */
+	public Result checkDelta(Map<String, Object> previouslyValidated, Result previousResult, Map<String, Object> patch) {
+		if (previouslyValidated == null || patch == null) {
+			throw new IllegalArgumentException("Previously validated map and patch cannot be null.");
+		}
+		if (previousResult != null && previousResult.failed()) {
+			throw new IllegalArgumentException("Previous result must be successful.");
+		}
+		try {
+			Map<String, Object> mapParamToCheck = new HashMap<>(previouslyValidated);
+			for (Map.Entry<String, Object> entry : patch.entrySet()) {
+				if (entry.getValue() == null) {
+					mapParamToCheck.remove(entry.getKey());
+				} else {
+					mapParamToCheck.put(entry.getKey(), entry.getValue());
 				}
 			}
-
-			if (this.requiredMapParams != null) {
-				for (ApiMapParam param : this.requiredMapParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>(this.requiredMapParams.length);
-						}
-						if (checkedMapResults == null) {
-							checkedMapResults = new HashMap<>(this.requiredMapParams.length);
-						}
-						/*
-						 * All maps within maps are required to have key-names (per constructor),
-						 * so do not need to check for this here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-						checkedMapResults.put(checkResult.keyName, checkResult);
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
-					}
+			if (this.inputBudget != null) {
+				ApiParamError budgetError = this.inputBudget.check(mapParamToCheck);
+				if (budgetError != null) {
+					return returnFailedCheckResult(budgetError);
 				}
 			}
+			Set<String> changedKeyNames = patch.keySet();
+			MapResultAccumulator accumulator = new MapResultAccumulator(this.resultLayout);
 
-			if (this.requiredCollectionParams != null) {
-				for (ApiCollectionParam<Map<String, Object>, ?, ?> param : this.requiredCollectionParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						ApiCollectionParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>(this.requiredCollectionParams.length);
-						}
-						/*
-						 * All arrays within maps are required to have key names (per constructor),
-						 * so do not need to check for name here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-						/*
-						 * Do not want to add if the array did not provide an inner array (which
-						 * also requires either another inner array or map check results - per
-						 * ApiArrayParam/ApiListParam)
-						 * */
-						if (checkResult.hasInnerCollectionResults() || checkResult.hasMapResults()) {
-							if (checkedCollectionResults == null) {
-								checkedCollectionResults = new HashMap<>(this.requiredCollectionParams.length);
-							}
-							checkedCollectionResults.put(checkResult.keyName, checkResult);
-						}
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
-					}
+			/* REQUIRED PARAMS */
+
+			Result failedResult = checkDeltaKeyedParams(0,
+			                                            this.requiredKeyedParamCount,
+			                                            changedKeyNames,
+			                                            mapParamToCheck,
+			                                            previousResult,
+			                                            accumulator);
+			if (failedResult != null) {
+				return failedResult;
+			}
+
+			boolean checkCustomParams = previousResult == null
+				|| readsAny(this.requiredCustomParams, changedKeyNames)
+				|| readsAny(this.optionalCustomParams, changedKeyNames);
+			if (checkCustomParams && this.requiredCustomParams != null) {
+				failedResult = checkCustomParams(this.requiredCustomParams, false, mapParamToCheck, accumulator);
+				if (failedResult != null) {
+					return failedResult;
 				}
 			}
 
-			if (this.requiredCustomParams != null) {
-				for (ApiCustomParam param : this.requiredCustomParams) {
-					try {
-						ApiCustomParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkResult.hasKeyName()) {
-							if (checkedKeyNames == null) {
-								checkedKeyNames = new HashSet<>();
-							}
-							checkedKeyNames.add(checkResult.keyName);
-						}
-						if (checkResult.hasCheckedKeyNames()) {
-							if (checkedKeyNames == null) {
-								checkedKeyNames = new HashSet<>();
-							}
-							checkedKeyNames.addAll(checkResult.checkedKeyNames);
-						}
-						if (checkResult.hasCheckedCollectionParams()) {
-							if (checkedCollectionResults == null) {
-								checkedCollectionResults = new HashMap<>();
-							}
-							checkedCollectionResults.putAll(checkResult.checkedCollectionParams);
-						}
-						if (checkResult.hasCheckedMapParams()) {
-							if (checkedMapResults == null) {
-								checkedMapResults = new HashMap<>();
-							}
-							checkedMapResults.putAll(checkResult.checkedMapParams);
-						}
-						if (checkResult.hasCustomValue()) {
-							if (customValues == null) {
-								customValues = new HashMap<>();
-							}
-							/*
-							 * Must have keyName if returning a custom value or else would not be
-							 * able to retrieve the custom value.
-							 * */
-							customValues.put(checkResult.keyName, checkResult.customValue);
-						}
-					} catch (Exception e) {
-						// custom parameters do not have names, so error is considered to be with the map itself
-						return returnFailedCheckResult(this, e);
+			/* OPTIONAL PARAMS */
+
+			failedResult = checkDeltaKeyedParams(this.requiredKeyedParamCount,
+			                                     this.keyedParams.length,
+			                                     changedKeyNames,
+			                                     mapParamToCheck,
+			                                     previousResult,
+			                                     accumulator);
+			if (failedResult != null) {
+				return failedResult;
+			}
+
+			if (checkCustomParams && this.optionalCustomParams != null) {
+				failedResult = checkCustomParams(this.optionalCustomParams, true, mapParamToCheck, accumulator);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else if (!checkCustomParams) {
+				addPreviousCustomResults(previousResult, accumulator);
+			}
+
+			Result thisMapCheckResult = accumulator.toResult(this.keyName);
+
+			if (this.conditionalChecks != null) {
+				failedResult = checkConditionalChecks(changedKeyNames, mapParamToCheck, accumulator, thisMapCheckResult);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			}
+
+			if (this.asyncCustomParams != null) {
+				return checkAsyncCustomParams(mapParamToCheck, thisMapCheckResult);
+			}
+
+			return thisMapCheckResult;
+		} catch (ClassCastException e) {
+			return Result.failure(ApiParamError.cast(this, e));
+		} catch (Exception e) {
+			return Result.failure(ApiParamError.exceptional(this, e));
+		}
+	}
+
+	/**
+	 * Checks the parameters of the slots [from, to) whose keys changed, adding the
+	 * previous results of the others to the accumulator.
+	 * @return the failed result to return from {@link #checkDelta(Map, Result, Map)} or null
+	 */
+	private Result checkDeltaKeyedParams(int from,
+	                                     int to,
+	                                     Set<String> changedKeyNames,
+	                                     Map<String, Object> mapParamToCheck,
+	                                     Result previousResult,
+	                                     MapResultAccumulator accumulator) {
+		boolean overlay = this.formattedValueOverlay;
+		for (int slot = from; slot < to; slot++) {
+			ApiParamBase<Map<String, Object>, ?> param = this.keyedParams[slot];
+			String keyName = param.keyName;
+			// an optional parameter that failed did not fail the previous check if it continued on optional failures
+			boolean skippedIfFailed = this.continueOnOptionalFailure && slot >= this.requiredKeyedParamCount;
+			if (changedKeyNames.contains(keyName)
+				|| (previousResult == null && (overlay || skippedIfFailed || !(param instanceof ApiSingleParam)))) {
+				// always with the overlay, so that the patch's values (e.g., nested maps) are not modified
+				Result failedResult = checkKeyedParam(slot, mapParamToCheck, accumulator, null, true);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else if (previousResult == null) {
+				// previously successful, so the single parameter was provided if the key is present
+				if (mapParamToCheck.containsKey(keyName)) {
+					accumulator.addKeyName(slot);
+				}
+			} else if (previousResult.hasCheckedMapResults() && previousResult.checkedMapResults.containsKey(keyName)) {
+				accumulator.addMapResult(slot, previousResult.checkedMapResults.get(keyName));
+			} else if (previousResult.hasCheckedCollectionResults()
+				&& previousResult.checkedCollectionResults.containsKey(keyName)) {
+				accumulator.addCollectionResult(slot, previousResult.checkedCollectionResults.get(keyName));
+			} else if (previousResult.containsParameter(keyName)) {
+				accumulator.addKeyName(slot);
+				if (previousResult.formattedValues != null && previousResult.formattedValues.containsKey(keyName)) {
+					accumulator.addFormattedValue(slot, previousResult.formattedValues.get(keyName));
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * The custom parameters were not run again, so adds what they added to the
+	 * previous result: the custom values and the key names and results that are not
+	 * of the keyed parameters.
+	 * */
+	private void addPreviousCustomResults(Result previousResult, MapResultAccumulator accumulator) {
+		Set<String> keyedKeyNames = new HashSet<>();
+		for (ApiParamBase<Map<String, Object>, ?> param : this.keyedParams) {
+			keyedKeyNames.add(param.keyName);
+		}
+		Set<String> checkedKeyNames = null;
+		if (previousResult.hasCheckedKeyNames()) {
+			for (String keyName : previousResult.checkedKeyNames) {
+				if (!keyedKeyNames.contains(keyName)) {
+					if (checkedKeyNames == null) {
+						checkedKeyNames = new HashSet<>();
+					}
+					checkedKeyNames.add(keyName);
+				}
+			}
+		}
+		Map<String, Result> checkedMapResults = null;
+		if (previousResult.hasCheckedMapResults()) {
+			for (Map.Entry<String, Result> entry : previousResult.checkedMapResults.entrySet()) {
+				if (!keyedKeyNames.contains(entry.getKey())) {
+					if (checkedMapResults == null) {
+						checkedMapResults = new HashMap<>();
+					}
+					checkedMapResults.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		Map<String, ApiCollectionParam.Result> checkedCollectionResults = null;
+		if (previousResult.hasCheckedCollectionResults()) {
+			for (Map.Entry<String, ApiCollectionParam.Result> entry : previousResult.checkedCollectionResults.entrySet()) {
+				if (!keyedKeyNames.contains(entry.getKey())) {
+					if (checkedCollectionResults == null) {
+						checkedCollectionResults = new HashMap<>();
 					}
+					checkedCollectionResults.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		if (checkedKeyNames != null || checkedMapResults != null || checkedCollectionResults != null) {
+			accumulator.addCustomResult(ApiCustomParam.Result.success(checkedKeyNames,
+			                                                          checkedMapResults,
+			                                                          checkedCollectionResults));
+		}
+		if (previousResult.hasCustomValues()) {
+			for (Map.Entry<String, Object> entry : previousResult.customValues.entrySet()) {
+				accumulator.addCustomResult(ApiCustomParam.Result.successWithCustomResult(entry.getKey(), entry.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Checks each of the maps, in order, as {@link #check(Map)} would. The maps are
+	 * checked with this map's plan (see {@link #compile()}), which is compiled on
+	 * the first call and then reused by every batch.
+	 *
+	 * @param paramsList the maps to check
+	 * @return the results, in the same order as the maps
+	 */
+	public BatchResult checkAll(List<? extends Map<String, Object>> paramsList) {
+		return checkAll(paramsList.iterator());
+	}
+
+	/**
+	 * Same as {@link #checkAll(List)}, but the maps are split into chunks that are
+	 * checked concurrently on the executor (and the calling thread). The results are
+	 * still returned in the same order as the maps. Small batches are checked on the
+	 * calling thread.
+	 *
+	 * @param paramsList the maps to check
+	 * @param executor runs the chunks (e.g., a {@link ForkJoinPool}). if null, this is
+	 *                 the same as {@link #checkAll(List)}
+	 * @return the results, in the same order as the maps
+	 */
+	public BatchResult checkAll(List<? extends Map<String, Object>> paramsList, Executor executor) {
+		if (executor == null) {
+			return checkAll(paramsList);
+		}
+		return BatchCheck.check(batchPlan(), paramsList, executor);
+	}
+
+	/**
+	 * Same as {@link #checkAll(List)}, for the maps returned by the iterator.
+	 *
+	 * @param paramsIterator the maps to check
+	 * @return the results, in the order the maps were returned
+	 */
+	public BatchResult checkAll(Iterator<? extends Map<String, Object>> paramsIterator) {
+		return BatchCheck.check(batchPlan(), paramsIterator);
+	}
+
+	/**
+	 * Same as {@link #checkAll(List)}, for the maps of the stream (in encounter order).
+	 *
+	 * @param paramsStream the maps to check
+	 * @return the results, in the encounter order of the maps
+	 */
+	public BatchResult checkAll(Stream<? extends Map<String, Object>> paramsStream) {
+		return checkAll(paramsStream.iterator());
+	}
+
+	private ApiMapParamPlan batchPlan() {
+		ApiMapParamPlan plan = this.batchPlan;
+		if (plan == null) {
+			plan = compile();
+			this.batchPlan = plan;
+		}
+		return plan;
+	}
+
+	/**
+	 * @param overlay whether the formatted values are returned in the result rather than
+	 *                put in the map, because this map (or a map it is nested in) has
+	 *                {@link Builder#setFormattedValueOverlay(boolean)}
+	 */
+	Result check(Map<String, Object> params, ValidationContext context, boolean resetContext, boolean overlay) {
+		return check(params, context, resetContext, overlay, false, false);
+	}
+
+	/**
+	 * Same as {@link #check(Map)} without the cache, for a map that has already been
+	 * checked against the {@link #inputBudget} (i.e., by the {@link ValidationCache}
+	 * before it looked the map up), so that it is not walked again.
+	 */
+	Result checkWithinBudget(Map<String, Object> params) {
+		return check(params, null, false, false, false, true);
+	}
+
+	/**
+	 * @param deferAsync whether or not the {@link #asyncCustomParams} are left for
+	 *                   the caller to check (see {@link #checkAsync(Map)}), rather
+	 *                   than blocked on
+	 * @param withinBudget whether or not the map has already been checked against
+	 *                     the {@link #inputBudget}
+	 */
+	@SuppressWarnings({"unchecked", "ConstantConditions"})
+	private Result check(Map<String, Object> params,
+	                     ValidationContext context,
+	                     boolean resetContext,
+	                     boolean overlay,
+	                     boolean deferAsync,
+	                     boolean withinBudget) {
+		if (context != null && resetContext) {
+			context.reset();
+		}
+		overlay |= this.formattedValueOverlay;
+		/*
+		 * All parameters are passed down the map containing their values. If this map does
+		 * not contain a parameter name then it is a top-level/root map (i.e., the parent map
+		 * or a map that is the index of an array and thus has no name).
+		 * */
+		try {
+			Map<String, Object> mapParamToCheck;
+			if (this.keyName == null) {
+				mapParamToCheck = params;
+			} else {
+				Object value = params.get(this.keyName);
+				// avoids relying on a (relatively expensive) ClassCastException
+				if (value != null && !(value instanceof Map)) {
+					return this.castResult;
+				}
+				mapParamToCheck = (Map<String, Object>) value;
+			}
+
+			if (mapParamToCheck == null) {
+				if (this.canBeNull) {
+					return this.nullResult;
+				} else {
+					return this.missingResult;
 				}
+			}
 
+			if (this.inputBudget != null && !withinBudget) {
+				ApiParamError budgetError = this.inputBudget.check(mapParamToCheck);
+				if (budgetError != null) {
+					return returnFailedCheckResult(budgetError);
+				}
 			}
 
-			/* OPTIONAL PARAMS */
+			Deadline.checkCurrent();
 
-			if (this.optionalSingleParams != null) {
-				for (ApiSingleParam<?> param : this.optionalSingleParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						ApiSingleParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							if (this.continueOnOptionalFailure || checkResult.error.errorType == ApiErrorType.MISSING_PARAMETER) {
-								continue;
-							}
-							return returnFailedCheckResult(checkResult.error);
-						} else if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>();
-						}
-						/*
-						 * A single param will always return the key name. So, may just
-						 * add it here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
+			/*
+			 * Currently there are no formatters/re-insertions for ApiMapParam. This likely is
+			 * not a problem since all other parameters can re-insert their modified values
+			 * back into the map and maps are just references, so any sub-map that has its
+			 * parameters formatted and re-inserted into it will appear in the retrieve map
+			 * (with the overlay the nested map's formatted values are in its result instead).
+			 * */
+
+			MapResultAccumulator accumulator = context != null
+				? context.mapAccumulator(this)
+				: new MapResultAccumulator(this.resultLayout);
+
+			// check all required first. will fail faster if something is not provided.
+
+			/*
+			 * Input key dispatch only pays off when there are fewer keys to iterate
+			 * over than there are parameters to retrieve from the map.
+			 * */
+			long[] checkSlots = null;
+			if (this.keyedParamIndex != null && mapParamToCheck.size() < this.keyedParams.length) {
+				checkSlots = accumulator.scratchSlots(this.checkWhenMissingSlots);
+				for (Object key : mapParamToCheck.keySet()) {
+					int slot = key instanceof String ? this.keyedParamIndex.indexOf((String) key) : -1;
+					if (slot >= 0) {
+						checkSlots[slot >>> 6] |= 1L << slot;
 					}
 				}
 			}
 
-			if (this.optionalMapParams != null) {
-				for (ApiMapParam param : this.optionalMapParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							if (this.continueOnOptionalFailure || checkResult.error.errorType == ApiErrorType.MISSING_PARAMETER) {
-								continue;
-							}
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>();
-						}
-						if (checkedMapResults == null) {
-							checkedMapResults = new HashMap<>();
+			boolean parallel = this.parallelCheckPool != null
+				&& context == null
+				&& shouldCheckInParallel(mapParamToCheck, checkSlots);
+			// whether the parameters are measured for the adaptive order
+			boolean sample = this.adaptiveOrder != null && !parallel && this.adaptiveOrder.sample();
+			if (sample) {
+				// counted once per check here, as the check can return from any of its parts
+				this.adaptiveOrder.sampled();
+			}
+
+			/* REQUIRED PARAMS */
+
+			if (parallel) {
+				Result failedResult =
+					checkKeyedParamsInParallel(0, this.requiredKeyedParamCount, checkSlots, mapParamToCheck, accumulator, overlay);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else if (this.adaptiveOrder != null) {
+				Result failedResult = checkKeyedParamsInAdaptiveOrder(0,
+				                                                      this.requiredKeyedParamCount,
+				                                                      checkSlots,
+				                                                      mapParamToCheck,
+				                                                      accumulator,
+				                                                      context,
+				                                                      overlay,
+				                                                      sample);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else {
+				for (int slot = 0; slot < this.requiredKeyedParamCount; slot++) {
+					if (checkSlots == null || (checkSlots[slot >>> 6] & (1L << slot)) != 0) {
+						Result failedResult = checkKeyedParam(slot, mapParamToCheck, accumulator, context, overlay);
+						if (failedResult != null) {
+							return failedResult;
 						}
-						/*
-						 * All maps within maps are required to have key-names (per constructor),
-						 * so do not need to check for this here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-						checkedMapResults.put(checkResult.keyName, checkResult);
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
 					}
 				}
 			}
 
+			if (this.requiredCustomParams != null) {
+				Result failedResult = checkCustomParams(this.requiredCustomParams, false, mapParamToCheck, accumulator);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			}
 
-			if (this.optionalCollectionParams != null) {
-				for (ApiCollectionParam<Map<String, Object>, ?, ?> param : this.optionalCollectionParams) {
-					// catch any fall-through exceptions (should never happen for this)
-					try {
-						ApiCollectionParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							if (this.continueOnOptionalFailure || checkResult.error.errorType == ApiErrorType.MISSING_PARAMETER) {
-								continue;
-							}
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkedKeyNames == null) {
-							checkedKeyNames = new HashSet<>();
-						}
-						/*
-						 * All arrays within maps are required to have key names (per constructor),
-						 * so do not need to check for name here.
-						 * */
-						checkedKeyNames.add(checkResult.keyName);
-						/*
-						 * Do not want to add if the array did not provide an inner array (which
-						 * also requires either another inner array or map check results - per
-						 * ApiArrayParam/ApiListParam)
-						 * */
-						if (checkResult.hasInnerCollectionResults() || checkResult.hasMapResults()) {
-							if (checkedCollectionResults == null) {
-								checkedCollectionResults = new HashMap<>();
-							}
-							checkedCollectionResults.put(checkResult.keyName, checkResult);
+			/* OPTIONAL PARAMS */
+
+			if (parallel) {
+				Result failedResult = checkKeyedParamsInParallel(this.requiredKeyedParamCount,
+				                                                 this.keyedParams.length,
+				                                                 checkSlots,
+				                                                 mapParamToCheck,
+				                                                 accumulator,
+				                                                 overlay);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else if (this.adaptiveOrder != null) {
+				Result failedResult = checkKeyedParamsInAdaptiveOrder(this.requiredKeyedParamCount,
+				                                                      this.keyedParams.length,
+				                                                      checkSlots,
+				                                                      mapParamToCheck,
+				                                                      accumulator,
+				                                                      context,
+				                                                      overlay,
+				                                                      sample);
+				if (failedResult != null) {
+					return failedResult;
+				}
+			} else if (checkSlots == null) {
+				for (int slot = this.requiredKeyedParamCount; slot < this.keyedParams.length; slot++) {
+					Result failedResult = checkKeyedParam(slot, mapParamToCheck, accumulator, context, overlay);
+					if (failedResult != null) {
+						return failedResult;
+					}
+				}
+			} else {
+				// only visit the set bits, in slot order
+				for (int i = this.requiredKeyedParamCount >>> 6; i < checkSlots.length; i++) {
+					long bits = checkSlots[i];
+					if (i == this.requiredKeyedParamCount >>> 6) {
+						bits &= -1L << this.requiredKeyedParamCount;
+					}
+					while (bits != 0) {
+						int slot = (i << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						Result failedResult = checkKeyedParam(slot, mapParamToCheck, accumulator, context, overlay);
+						if (failedResult != null) {
+							return failedResult;
 						}
-					} catch (Exception e) {
-						return returnFailedCheckResult(param, e);
 					}
 				}
 			}
 
 			if (this.optionalCustomParams != null) {
-				for (ApiCustomParam param : this.optionalCustomParams) {
-					try {
-						ApiCustomParam.Result checkResult = param.check(mapParamToCheck);
-						if (checkResult.failed()) {
-							if (this.continueOnOptionalFailure || checkResult.error.errorType == ApiErrorType.MISSING_PARAMETER) {
-								continue;
-							}
-							return returnFailedCheckResult(checkResult.error);
-						}
-						if (checkResult.hasKeyName()) {
-							if (checkedKeyNames == null) {
-								checkedKeyNames = new HashSet<>();
-							}
-							checkedKeyNames.add(checkResult.keyName);
-						}
-						if (checkResult.hasCheckedKeyNames()) {
-							if (checkedKeyNames == null) {
-								checkedKeyNames = new HashSet<>();
-							}
-							checkedKeyNames.addAll(checkResult.checkedKeyNames);
-						}
-						if (checkResult.hasCheckedCollectionParams()) {
-							if (checkedCollectionResults == null) {
-								checkedCollectionResults = new HashMap<>();
-							}
-							checkedCollectionResults.putAll(checkResult.checkedCollectionParams);
-						}
-						if (checkResult.hasCheckedMapParams()) {
-							if (checkedMapResults == null) {
-								checkedMapResults = new HashMap<>();
-							}
-							checkedMapResults.putAll(checkResult.checkedMapParams);
-						}
-						if (checkResult.hasCustomValue()) {
-							if (customValues == null) {
-								customValues = new HashMap<>();
-							}
-							/*
-							 * Must have keyName if returning a custom value or else would not be
-							 * able to retrieve the custom value.
-							 * */
-							customValues.put(checkResult.keyName, checkResult.customValue);
-						}
-					} catch (Exception e) {
-						// custom parameters do not have names, so error is considered to be with the map itself
-						return returnFailedCheckResult(this, e);
-					}
+				Result failedResult = checkCustomParams(this.optionalCustomParams, true, mapParamToCheck, accumulator);
+				if (failedResult != null) {
+					return failedResult;
 				}
 			}
 
 			// create here to pass to conditional checks if exist
-			Result thisMapCheckResult = Result.success(this.keyName,
-			                                           checkedKeyNames,
-			                                           checkedMapResults,
-			                                           checkedCollectionResults,
-			                                           customValues);
+			Result thisMapCheckResult = accumulator.toResult(this.keyName);
 
 			if (this.conditionalChecks != null) {
-				for (ApiMapParamConditionalCheck cc : this.conditionalChecks) {
-					ApiMapParamConditionalCheck.Result checkResult = cc.check(mapParamToCheck, thisMapCheckResult);
-					if (checkResult.failed()) {
-						return returnFailedCheckResult(checkResult.error);
-					}
+				Result failedResult = checkConditionalChecks(null, mapParamToCheck, accumulator, thisMapCheckResult);
+				if (failedResult != null) {
+					return failedResult;
 				}
 			}
 
+			if (this.asyncCustomParams != null && !deferAsync) {
+				return checkAsyncCustomParams(mapParamToCheck, thisMapCheckResult);
+			}
+
 			return thisMapCheckResult;
 		} catch (ClassCastException e) {
 			return Result.failure(ApiParamError.cast(this, e));
@@ -1072,12 +1899,464 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 		}
 	}
 
+	/**
+	 * Runs the {@link #asyncCustomParams} and blocks until they have completed, or
+	 * until the deadline of the check (if it has one) has passed.
+	 * @param syncResult the successful result of the synchronous checks
+	 * @return the result of the map
+	 */
+	Result checkAsyncCustomParams(Map<String, Object> mapParamToCheck, Result syncResult) {
+		CompletableFuture<Result> asyncResult = AsyncCustomParamCheck.check(this, mapParamToCheck, syncResult);
+		Deadline deadline = Deadline.current();
+		if (deadline == null) {
+			return asyncResult.join();
+		}
+		try {
+			return asyncResult.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			// cancels the parameters that have not completed
+			asyncResult.cancel(false);
+			return returnFailedCheckResult(ApiParamError.timeout(null, null, e));
+		} catch (InterruptedException e) {
+			asyncResult.cancel(false);
+			Thread.currentThread().interrupt();
+			return returnFailedCheckResult(this, e);
+		} catch (ExecutionException e) {
+			// never completed exceptionally
+			return returnFailedCheckResult(this, e);
+		}
+	}
+
+	/**
+	 * Checks the single, map or collection parameter in the given slot of
+	 * {@link #keyedParams} and adds it to the accumulator if successful.
+	 * @return the failed result to return from {@link #check(Map)} or null if the
+	 * parameter was successful (or is an optional parameter that can be skipped)
+	 */
+	@SuppressWarnings("unchecked")
+	private Result checkKeyedParam(int slot,
+	                               Map<String, Object> mapParamToCheck,
+	                               MapResultAccumulator accumulator,
+	                               ValidationContext context,
+	                               boolean overlay) {
+		// catch any fall-through exceptions (should never happen for this)
+		try {
+			Deadline.checkCurrent();
+			return addKeyedParamResult(slot, checkKeyedParamOnly(slot, mapParamToCheck, context, overlay), accumulator);
+		} catch (Exception e) {
+			return returnFailedCheckResult(this.keyedParams[slot], e);
+		}
+	}
+
+	/**
+	 * Checks the parameters of the slots [from, to) in the order learned by
+	 * {@link #adaptiveOrder}, measuring them if this check is sampled (the sampled
+	 * check is counted by the caller).
+	 * @return the failed result to return from {@link #check(Map)} or null
+	 */
+	private Result checkKeyedParamsInAdaptiveOrder(int from,
+	                                               int to,
+	                                               long[] checkSlots,
+	                                               Map<String, Object> mapParamToCheck,
+	                                               MapResultAccumulator accumulator,
+	                                               ValidationContext context,
+	                                               boolean overlay,
+	                                               boolean sample) {
+		int[] order = this.adaptiveOrder.order();
+		for (int i = from; i < to; i++) {
+			int slot = order[i];
+			if (checkSlots != null && (checkSlots[slot >>> 6] & (1L << slot)) == 0) {
+				continue;
+			}
+			long start = sample ? System.nanoTime() : 0;
+			Result failedResult = checkKeyedParam(slot, mapParamToCheck, accumulator, context, overlay);
+			if (sample) {
+				this.adaptiveOrder.record(slot, System.nanoTime() - start, failedResult != null);
+			}
+			if (failedResult != null) {
+				return failedResult;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ApiParamBase.Result checkKeyedParamOnly(int slot,
+	                                                Map<String, Object> mapParamToCheck,
+	                                                ValidationContext context,
+	                                                boolean overlay) {
+		ApiParamBase<Map<String, Object>, ?> param = this.keyedParams[slot];
+		if (param instanceof ApiSingleParam) {
+			return ((ApiSingleParam<?>) param).check(mapParamToCheck, !overlay);
+		} else if (param instanceof ApiMapParam) {
+			return ((ApiMapParam) param).check(mapParamToCheck, context, false, overlay);
+		} else if (context == null && !overlay) {
+			return param.check(mapParamToCheck);
+		} else {
+			return ((ApiCollectionParam<Map<String, Object>, ?, ?>) param)
+				.check(mapParamToCheck, mapParamEvaluator(context, overlay), context);
+		}
+	}
+
+	// whether the failed result of the slot's parameter fails this map (rather than being skipped)
+	private boolean failsMap(int slot, ApiParamBase.Result checkResult) {
+		return checkResult.failed() && (slot < this.requiredKeyedParamCount || !skipsOptionalFailure(checkResult.error));
+	}
+
+	/**
+	 * @return whether or not the error of an optional parameter is skipped rather than
+	 * failing this map. a timeout is never skipped, since checking must stop
+	 */
+	boolean skipsOptionalFailure(ApiParamError error) {
+		return error.errorType != ApiErrorType.TIMEOUT
+			&& (this.continueOnOptionalFailure || error.errorType == ApiErrorType.MISSING_PARAMETER);
+	}
+
+	/**
+	 * Runs the custom parameters, adding their results to the accumulator.
+	 * @param optional whether the parameters are optional (i.e., their failure does
+	 *                 not fail the map if {@link #continueOnOptionalFailure} or missing)
+	 * @return the failed result to return from {@link #check(Map)} or null
+	 */
+	private Result checkCustomParams(ApiCustomParam[] params,
+	                                 boolean optional,
+	                                 Map<String, Object> mapParamToCheck,
+	                                 MapResultAccumulator accumulator) {
+		for (ApiCustomParam param : params) {
+			try {
+				ApiCustomParam.Result checkResult = param.check(withFormattedValues(mapParamToCheck, accumulator));
+				if (checkResult.failed()) {
+					if (optional && skipsOptionalFailure(checkResult.error)) {
+						continue;
+					}
+					return returnFailedCheckResult(checkResult.error);
+				}
+				accumulator.addCustomResult(checkResult);
+			} catch (Exception e) {
+				// custom parameters do not have names, so error is considered to be with the map itself
+				return returnFailedCheckResult(this, e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs the conditional checks.
+	 * @param changedKeyNames if not null, only the conditional checks that read any of
+	 *                        these key names (or do not declare which they read) are run
+	 * @return the failed result to return from {@link #check(Map)} or null
+	 */
+	private Result checkConditionalChecks(Set<String> changedKeyNames,
+	                                      Map<String, Object> mapParamToCheck,
+	                                      MapResultAccumulator accumulator,
+	                                      Result thisMapCheckResult) {
+		for (ApiMapParamConditionalCheck cc : this.conditionalChecks) {
+			if (changedKeyNames != null && !readsAny(cc.getReadKeyNames(), changedKeyNames)) {
+				continue;
+			}
+			ApiMapParamConditionalCheck.Result checkResult =
+				cc.check(withFormattedValues(mapParamToCheck, accumulator), thisMapCheckResult);
+			if (checkResult.failed()) {
+				return returnFailedCheckResult(checkResult.error);
+			}
+		}
+		return null;
+	}
+
+	// whether any of the custom parameters needs to be run again when the key names changed
+	private static boolean readsAny(ApiCustomParam[] params, Set<String> changedKeyNames) {
+		if (params != null) {
+			for (ApiCustomParam param : params) {
+				if (readsAny(param.getReadKeyNames(), changedKeyNames)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param readKeyNames the key names read by a custom parameter or conditional
+	 *                     check (null if it does not declare them)
+	 * @return whether or not the custom parameter or conditional check needs to be
+	 * run again when the key names changed
+	 */
+	private static boolean readsAny(Set<String> readKeyNames, Set<String> changedKeyNames) {
+		if (readKeyNames == null) {
+			return true;
+		}
+		for (String keyName : readKeyNames) {
+			if (changedKeyNames.contains(keyName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the successful result of the slot's parameter to the accumulator.
+	 * @return the failed result to return from {@link #check(Map)} or null
+	 */
+	private Result addKeyedParamResult(int slot, ApiParamBase.Result checkResult, MapResultAccumulator accumulator) {
+		if (checkResult.failed()) {
+			return failsMap(slot, checkResult) ? returnFailedCheckResult(checkResult.error) : null;
+		}
+		if (checkResult instanceof Result) {
+			accumulator.addMapResult(slot, (Result) checkResult);
+		} else if (checkResult instanceof ApiCollectionParam.Result) {
+			accumulator.addCollectionResult(slot, (ApiCollectionParam.Result) checkResult);
+		} else {
+			// a single param always returns its key name, which is the slot's key name
+			accumulator.addKeyName(slot);
+			Object formattedValue = ((ApiSingleParam.Result) checkResult).formattedValue;
+			if (formattedValue != null) {
+				accumulator.addFormattedValue(slot, formattedValue);
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Only worth forking when there are (at least) two sizable values that can be
+	 * checked at the same time.
+	 * */
+	@SuppressWarnings("rawtypes")
+	private boolean shouldCheckInParallel(Map<String, Object> mapParamToCheck, long[] checkSlots) {
+		int providedCount = 0;
+		long size = 0;
+		for (int slot : this.parallelSlots) {
+			if (checkSlots != null && (checkSlots[slot >>> 6] & (1L << slot)) == 0) {
+				continue;
+			}
+			Object value = mapParamToCheck.get(this.keyedParams[slot].keyName);
+			if (value instanceof Map) {
+				size += ((Map) value).size();
+			} else if (value instanceof Collection) {
+				size += ((Collection) value).size();
+			} else if (value instanceof Object[]) {
+				size += ((Object[]) value).length;
+			} else {
+				continue;
+			}
+			providedCount++;
+		}
+		return providedCount > 1 && size >= this.parallelCheckThreshold;
+	}
+
+	/**
+	 * Checks the parameters in the slots [fromSlot, toSlot) with the map and collection
+	 * parameters forked to {@link #parallelCheckPool} and adds the results to the
+	 * accumulator in slot order, so that the first failure in slot order is returned.
+	 * @return the failed result to return from {@link #check(Map)} or null
+	 */
+	private Result checkKeyedParamsInParallel(int fromSlot,
+	                                          int toSlot,
+	                                          long[] checkSlots,
+	                                          Map<String, Object> mapParamToCheck,
+	                                          MapResultAccumulator accumulator,
+	                                          boolean overlay) {
+		ApiParamBase.Result[] checkResults = new ApiParamBase.Result[toSlot - fromSlot];
+		KeyedParamTask[] tasks = new KeyedParamTask[toSlot - fromSlot];
+		// the lowest slot that has failed the map. no task after it needs to run
+		AtomicInteger failedSlot = new AtomicInteger(toSlot);
+		Exception failedException = null;
+		// the tasks are checked on other threads
+		Deadline deadline = Deadline.current();
+		int lastSlot = toSlot;
+		for (int slot = fromSlot; slot < toSlot && slot < failedSlot.get(); slot++) {
+			if (checkSlots != null && (checkSlots[slot >>> 6] & (1L << slot)) == 0) {
+				continue;
+			}
+			ApiParamBase<Map<String, Object>, ?> param = this.keyedParams[slot];
+			if (param instanceof ApiSingleParam) {
+				try {
+					ApiParamBase.Result checkResult = checkKeyedParamOnly(slot, mapParamToCheck, null, overlay);
+					checkResults[slot - fromSlot] = checkResult;
+					if (failsMap(slot, checkResult)) {
+						failedSlot.accumulateAndGet(slot, Math::min);
+						lastSlot = slot + 1;
+					}
+				} catch (Exception e) {
+					failedException = e;
+					failedSlot.accumulateAndGet(slot, Math::min);
+					lastSlot = slot + 1;
+				}
+			} else {
+				/*
+				 * The task is given its own map with just its value, so that the values put
+				 * back into this map by the single parameters' formatters are never put while
+				 * a task is reading from it.
+				 * */
+				KeyedParamTask task =
+					new KeyedParamTask(this,
+					                   slot,
+					                   Collections.singletonMap(param.keyName, mapParamToCheck.get(param.keyName)),
+					                   overlay,
+					                   failedSlot,
+					                   deadline);
+				tasks[slot - fromSlot] = task;
+				if (ForkJoinTask.getPool() == this.parallelCheckPool) {
+					task.fork();
+				} else {
+					this.parallelCheckPool.execute(task);
+				}
+			}
+		}
+		try {
+			for (int slot = fromSlot; slot < lastSlot; slot++) {
+				ApiParamBase.Result checkResult;
+				KeyedParamTask task = tasks[slot - fromSlot];
+				if (task != null) {
+					checkResult = task.join();
+					if (task.exception != null) {
+						return returnFailedCheckResult(this.keyedParams[slot], task.exception);
+					}
+				} else if (slot == lastSlot - 1 && failedException != null) {
+					return returnFailedCheckResult(this.keyedParams[slot], failedException);
+				} else {
+					checkResult = checkResults[slot - fromSlot];
+				}
+				/*
+				 * No result if the slot's parameter was not provided (with input key dispatch).
+				 * A task only skips its check when a slot before it failed, which has been
+				 * returned before getting here.
+				 * */
+				if (checkResult != null) {
+					Result failedResult = addKeyedParamResult(slot, checkResult, accumulator);
+					if (failedResult != null) {
+						return failedResult;
+					}
+				}
+			}
+			return null;
+		} finally {
+			// does nothing for the tasks that have completed
+			for (KeyedParamTask task : tasks) {
+				if (task != null) {
+					task.cancel(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks a map or collection parameter for {@link #checkKeyedParamsInParallel}.
+	 */
+	private static final class KeyedParamTask extends RecursiveTask<ApiParamBase.Result> {
+
+		private final ApiMapParam mapParam;
+		private final int slot;
+		private final Map<String, Object> params;
+		private final boolean overlay;
+		private final AtomicInteger failedSlot;
+		private final Deadline deadline;
+		// read after joining the task
+		Exception exception;
+
+		private KeyedParamTask(ApiMapParam mapParam,
+		                       int slot,
+		                       Map<String, Object> params,
+		                       boolean overlay,
+		                       AtomicInteger failedSlot,
+		                       Deadline deadline) {
+			this.mapParam = mapParam;
+			this.slot = slot;
+			this.params = params;
+			this.overlay = overlay;
+			this.failedSlot = failedSlot;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected ApiParamBase.Result compute() {
+			if (this.failedSlot.get() < this.slot) {
+				return null;
+			}
+			Deadline previousDeadline = Deadline.bind(this.deadline);
+			try {
+				Deadline.checkCurrent();
+				ApiParamBase.Result checkResult = this.mapParam.checkKeyedParamOnly(this.slot, this.params, null, this.overlay);
+				if (this.mapParam.failsMap(this.slot, checkResult)) {
+					this.failedSlot.accumulateAndGet(this.slot, Math::min);
+				}
+				return checkResult;
+			} catch (Exception e) {
+				this.exception = e;
+				this.failedSlot.accumulateAndGet(this.slot, Math::min);
+				return null;
+			} finally {
+				Deadline.unbind(previousDeadline);
+			}
+		}
+	}
+
+	// checks the maps within collections when the formatted values are overlaid
+	private static final MapParamEvaluator OVERLAY_MAP_PARAM_EVALUATOR =
+		(mapParam, params) -> mapParam.check(params, null, false, true);
+
+	private static MapParamEvaluator mapParamEvaluator(ValidationContext context, boolean overlay) {
+		if (context != null) {
+			return overlay ? context.overlayMapParamEvaluator : context.mapParamEvaluator;
+		}
+		return overlay ? OVERLAY_MAP_PARAM_EVALUATOR : ApiMapParam::check;
+	}
+
+	/**
+	 * Custom parameters and conditional checks would see the formatted values in
+	 * the map if they were put back into it, so they receive the overlaid map.
+	 */
+	Map<String, Object> withFormattedValues(Map<String, Object> mapParamToCheck, MapResultAccumulator accumulator) {
+		return accumulator.hasFormattedValues()
+			? accumulator.toResult(this.keyName).withFormattedValues(mapParamToCheck)
+			: mapParamToCheck;
+	}
+
+	/**
+	 * Compiles this map (and all parameters nested within it) into a flat
+	 * {@link ApiMapParamPlan}. The plan returns the same result as
+	 * {@link #check(Map)}, but avoids recursing through each parameter's check
+	 * and the creation of intermediate results for single parameters. This is
+	 * useful for large, heavily used maps. The plan should be created once and
+	 * reused, as compilation is relatively expensive.
+	 *
+	 * @return the compiled plan for this map
+	 */
+	public ApiMapParamPlan compile() {
+		return ApiMapParamPlan.compile(this);
+	}
+
+	/**
+	 * Same as {@link #compile()}, but also generates a class dedicated to checking
+	 * the single parameters of this map (and all nested maps). Each single parameter
+	 * is checked by its own generated method, where the key name is a constant, the
+	 * library's integer and string length checks are inlined (see
+	 * {@link io.github.bhowell2.apilib.checks.LibraryCheck}) and every other check
+	 * is called from its own call site, which allows the JIT to specialize each check.
+	 *
+	 * The class is defined as a hidden class on Java 15+ and with its own class
+	 * loader on earlier versions. This is more expensive than {@link #compile()}, so
+	 * it should be used for maps that are checked very frequently.
+	 *
+	 * @return the compiled plan, using the generated class for single parameters
+	 */
+	public ApiMapParamPlan generate() {
+		return ApiMapParamPlan.generate(this);
+	}
+
 	/*
 	 *
 	 * RESULT
 	 *
 	 * */
 
+	/**
+	 * The result of {@link #check(Map)}. The checked key names and nested results
+	 * of a successful check are usually immutable views over a bitmap (by parameter)
+	 * and an array of the nested results, rather than hash sets/maps, and results
+	 * with the same checked parameters share the same key name set. The views are
+	 * not used (i.e., the sets/maps are created) if an {@link ApiCustomParam} returns
+	 * key names or nested results. In either case they should not be modified.
+	 */
 	public static class Result extends ApiParamBase.Result {
 
 		/**
@@ -1110,16 +2389,34 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 		 */
 		public final Map<String, Object> customValues;
 
+		/**
+		 * The formatted values of this map's single parameters (by key name), when
+		 * the formatted values are not put back into the checked map (see
+		 * {@link Builder#setFormattedValueOverlay(boolean)}). The formatted values
+		 * of nested maps are in their own results. Null if no values were formatted.
+		 */
+		public final Map<String, Object> formattedValues;
+
 		public Result(String keyName,
 		              Set<String> checkedKeyNames,
 		              Map<String, Result> checkedMapResults,
 		              Map<String, ApiCollectionParam.Result> checkedCollectionResults,
 		              Map<String, Object> customValues) {
+			this(keyName, checkedKeyNames, checkedMapResults, checkedCollectionResults, customValues, null);
+		}
+
+		public Result(String keyName,
+		              Set<String> checkedKeyNames,
+		              Map<String, Result> checkedMapResults,
+		              Map<String, ApiCollectionParam.Result> checkedCollectionResults,
+		              Map<String, Object> customValues,
+		              Map<String, Object> formattedValues) {
 			super(keyName);
 			this.checkedKeyNames = checkedKeyNames;
 			this.checkedMapResults = checkedMapResults;
 			this.checkedCollectionResults = checkedCollectionResults;
 			this.customValues = customValues;
+			this.formattedValues = formattedValues;
 		}
 
 		public Result(ApiParamError error) {
@@ -1128,6 +2425,7 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			this.checkedMapResults = null;
 			this.checkedCollectionResults = null;
 			this.customValues = null;
+			this.formattedValues = null;
 		}
 
 		/**
@@ -1189,6 +2487,42 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			return this.customValues != null ? customValues.get(customKeyName) : null;
 		}
 
+		/* FORMATTED VALUES */
+
+		/**
+		 * @return whether or not this map or any of its nested maps (not including
+		 * maps within collections) have formatted values
+		 */
+		public boolean hasFormattedValues() {
+			if (this.formattedValues != null) {
+				return true;
+			}
+			if (this.checkedMapResults != null) {
+				for (Result mapResult : this.checkedMapResults.values()) {
+					if (mapResult.hasFormattedValues()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Returns an immutable view of the checked map with the formatted values of
+		 * this result (and of its nested map results) in place of the original values,
+		 * which is the map as it would have been after the check if the formatted
+		 * values were put back into it. Maps within collections are not overlaid,
+		 * their formatted values are available from the collection's
+		 * {@link ApiCollectionParam.Result#mapResults}.
+		 *
+		 * @param params the map that was checked to create this result (i.e., for the
+		 *               result of a nested map, the nested map)
+		 * @return a view of the map with the formatted values
+		 */
+		public Map<String, Object> withFormattedValues(Map<String, Object> params) {
+			return new FormattedValueOverlay(params, this);
+		}
+
 		/* Static creation methods */
 
 		/**
@@ -1213,12 +2547,69 @@ public class ApiMapParam extends ApiParamBase<Map<String, Object>, ApiMapParam.R
 			return new Result(keyName, checkedKeyNames, checkedMapResults, checkedCollectionResults, customValues);
 		}
 
+		public static Result success(String keyName,
+		                             Set<String> checkedKeyNames,
+		                             Map<String, Result> checkedMapResults,
+		                             Map<String, ApiCollectionParam.Result> checkedCollectionResults,
+		                             Map<String, Object> customValues,
+		                             Map<String, Object> formattedValues) {
+			return new Result(keyName,
+			                  checkedKeyNames,
+			                  checkedMapResults,
+			                  checkedCollectionResults,
+			                  customValues,
+			                  formattedValues);
+		}
+
 		public static Result failure(ApiParamError apiParamError) {
 			return new Result(apiParamError);
 		}
 
 	}
 
+	/**
+	 * The results of {@link #checkAll(List)}, in the same order as the maps that were
+	 * checked, and the number of maps that passed and failed.
+	 */
+	public static final class BatchResult {
+
+		public final List<Result> results;
+
+		public final int successCount;
+
+		public final int failureCount;
+
+		// by ApiErrorType#ordinal()
+		private final int[] failureCountsByErrorType;
+
+		BatchResult(Result[] results) {
+			this.results = Collections.unmodifiableList(Arrays.asList(results));
+			this.failureCountsByErrorType = new int[ApiErrorType.values().length];
+			int failureCount = 0;
+			for (Result result : results) {
+				if (result.failed()) {
+					failureCount++;
+					this.failureCountsByErrorType[result.error.errorType.ordinal()]++;
+				}
+			}
+			this.successCount = results.length - failureCount;
+			this.failureCount = failureCount;
+		}
+
+		public boolean allSuccessful() {
+			return this.failureCount == 0;
+		}
+
+		/**
+		 * @return the number of maps that failed with the error type (of the top-level
+		 * error, which is that of the innermost error)
+		 */
+		public int getFailureCount(ApiErrorType errorType) {
+			return this.failureCountsByErrorType[errorType.ordinal()];
+		}
+
+	}
+
 	private static boolean mapIsNotNullOrEmpty(Map<?, ?> map) {
 		return map != null && map.size() > 0;
 	}
@@ -0,0 +1,697 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.LibraryCheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a {@link GeneratedSingleParamChecks} class for an {@link ApiMapParamPlan}.
+ * Each single parameter of the plan gets its own method with the key name as a
+ * constant, the known {@link LibraryCheck}s inlined as comparisons and every other
+ * check called from its own (monomorphic) call site. The plan's interpreter still
+ * handles the maps, collections, custom parameters and conditional checks.
+ *
+ * On Java 15+ the class is defined as a hidden class (so that it can be unloaded
+ * with the plan) and otherwise it is defined with its own class loader.
+ *
+ * The class file is written directly (version 49) to avoid any dependencies and
+ * the need for stack map frames.
+ *
+ * @author Blake Howell
+ */
+final class ApiMapParamClassGenerator {
+
+	private ApiMapParamClassGenerator() {}  // no instantiation
+
+	private static final String BASE_CLASS = "io/github/bhowell2/apilib/GeneratedSingleParamChecks";
+	private static final String PLAN_CLASS = "io/github/bhowell2/apilib/ApiMapParamPlan";
+	private static final String CHECK_CLASS = "io/github/bhowell2/apilib/checks/Check";
+	private static final String CHECK_RESULT_CLASS = "io/github/bhowell2/apilib/checks/Check$Result";
+	private static final String ERROR_DESC = "Lio/github/bhowell2/apilib/errors/ApiParamError;";
+	private static final String SINGLE_DESC = "(Ljava/util/Map;)" + ERROR_DESC;
+	private static final String DISPATCH_DESC = "(ILjava/util/Map;)" + ERROR_DESC;
+
+	/*
+	 * The instructions are dispatched in chunks, so that no method is too large
+	 * to be compiled by the JIT (HotSpot does not compile methods over 8000 bytes).
+	 * */
+	private static final int DISPATCH_CHUNK_BITS = 8;
+	private static final int DISPATCH_CHUNK_SIZE = 1 << DISPATCH_CHUNK_BITS;
+
+	private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+
+	/*
+	 * Lookup#defineHiddenClass(byte[], boolean, ClassOption...) is only available
+	 * on Java 15+, so it must be retrieved reflectively.
+	 * */
+	private static final Method DEFINE_HIDDEN_CLASS;
+	private static final Object NO_CLASS_OPTIONS;
+
+	static {
+		Method defineHiddenClass = null;
+		Object noClassOptions = null;
+		try {
+			Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			noClassOptions = Array.newInstance(classOption, 0);
+			defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+			                                                         byte[].class,
+			                                                         boolean.class,
+			                                                         noClassOptions.getClass());
+		} catch (ReflectiveOperationException e) {
+			// pre Java 15. fall back to class loader
+		}
+		DEFINE_HIDDEN_CLASS = defineHiddenClass;
+		NO_CLASS_OPTIONS = noClassOptions;
+	}
+
+	static GeneratedSingleParamChecks generate(ApiMapParamPlan plan) {
+		return generate(plan, DEFINE_HIDDEN_CLASS != null);
+	}
+
+	static GeneratedSingleParamChecks generate(ApiMapParamPlan plan, boolean hiddenClass) {
+		String className = BASE_CLASS + "$$Generated" + CLASS_COUNT.incrementAndGet();
+		byte[] classBytes = generateClassBytes(plan, className);
+		try {
+			Class<?> generatedClass = hiddenClass
+				?
+				defineHiddenClass(classBytes)
+				:
+				new GeneratedClassLoader(GeneratedSingleParamChecks.class.getClassLoader())
+					.define(className.replace('/', '.'), classBytes);
+			return (GeneratedSingleParamChecks) generatedClass.getConstructor(ApiMapParamPlan.class).newInstance(plan);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to generate class for ApiMapParam.", e);
+		}
+	}
+
+	private static Class<?> defineHiddenClass(byte[] classBytes) throws ReflectiveOperationException {
+		if (DEFINE_HIDDEN_CLASS == null) {
+			throw new UnsupportedOperationException("Hidden classes are not supported before Java 15.");
+		}
+		MethodHandles.Lookup lookup =
+			(MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), classBytes, true, NO_CLASS_OPTIONS);
+		return lookup.lookupClass();
+	}
+
+	private static final class GeneratedClassLoader extends ClassLoader {
+
+		GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] classBytes) {
+			return defineClass(name, classBytes, 0, classBytes.length);
+		}
+
+	}
+
+	/*
+	 *
+	 * CLASS GENERATION
+	 *
+	 * */
+
+	static byte[] generateClassBytes(ApiMapParamPlan plan, String className) {
+		ClassWriter cw = new ClassWriter(className, BASE_CLASS);
+
+		// constructor that just calls super(plan)
+		MethodWriter constructor = cw.addMethod(ACC_PUBLIC, "<init>", "(L" + PLAN_CLASS + ";)V", 2, 2);
+		constructor.op(ALOAD_0);
+		constructor.op(ALOAD_1);
+		constructor.invoke(INVOKESPECIAL, BASE_CLASS, "<init>", "(L" + PLAN_CLASS + ";)V");
+		constructor.op(RETURN);
+
+		int instructionCount = plan.opcodes.length;
+		for (int pc = 0; pc < instructionCount; pc++) {
+			if (plan.opcodes[pc] == ApiMapParamPlan.OP_SINGLE) {
+				writeSingleParamMethod(cw, plan, pc);
+			}
+		}
+
+		int chunkCount = Math.max(1, (instructionCount + DISPATCH_CHUNK_SIZE - 1) >> DISPATCH_CHUNK_BITS);
+		MethodWriter dispatch = cw.addMethod(ACC_PROTECTED, "checkSingle", DISPATCH_DESC, 3, 3);
+		int[] chunkLabels = new int[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			chunkLabels[i] = dispatch.newLabel();
+		}
+		int interpret = dispatch.newLabel();
+		dispatch.op(ILOAD_1);
+		dispatch.pushInt(DISPATCH_CHUNK_BITS);
+		dispatch.op(ISHR);
+		dispatch.tableSwitch(0, chunkLabels, interpret);
+		for (int i = 0; i < chunkCount; i++) {
+			dispatch.mark(chunkLabels[i]);
+			dispatch.op(ALOAD_0);
+			dispatch.op(ILOAD_1);
+			dispatch.op(ALOAD_2);
+			dispatch.invoke(INVOKESPECIAL, className, "dispatch" + i, DISPATCH_DESC);
+			dispatch.op(ARETURN);
+			writeDispatchChunkMethod(cw, plan, className, i);
+		}
+		writeInterpret(dispatch, interpret);
+
+		return cw.toByteArray();
+	}
+
+	private static void writeInterpret(MethodWriter mw, int label) {
+		mw.mark(label);
+		mw.op(ALOAD_0);
+		mw.op(ILOAD_1);
+		mw.op(ALOAD_2);
+		mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "interpretSingle", DISPATCH_DESC);
+		mw.op(ARETURN);
+	}
+
+	private static void writeDispatchChunkMethod(ClassWriter cw, ApiMapParamPlan plan, String className, int chunk) {
+		MethodWriter mw = cw.addMethod(ACC_PRIVATE, "dispatch" + chunk, DISPATCH_DESC, 3, 3);
+		int from = chunk * DISPATCH_CHUNK_SIZE;
+		int to = Math.min(plan.opcodes.length, from + DISPATCH_CHUNK_SIZE);
+		int interpret = mw.newLabel();
+		if (to <= from) {
+			// no instructions at all
+			writeInterpret(mw, interpret);
+			return;
+		}
+		int[] labels = new int[to - from];
+		for (int pc = from; pc < to; pc++) {
+			labels[pc - from] = plan.opcodes[pc] == ApiMapParamPlan.OP_SINGLE ? mw.newLabel() : interpret;
+		}
+		mw.op(ILOAD_1);
+		mw.tableSwitch(from, labels, interpret);
+		for (int pc = from; pc < to; pc++) {
+			if (plan.opcodes[pc] == ApiMapParamPlan.OP_SINGLE) {
+				mw.mark(labels[pc - from]);
+				mw.op(ALOAD_0);
+				mw.op(ALOAD_2);
+				mw.invoke(INVOKESPECIAL, className, "single" + pc, SINGLE_DESC);
+				mw.op(ARETURN);
+			}
+		}
+		writeInterpret(mw, interpret);
+	}
+
+	/*
+	 * Locals: 0 = this, 1 = params, 2 = value, 3 = check result or error.
+	 * */
+	private static void writeSingleParamMethod(ClassWriter cw, ApiMapParamPlan plan, int pc) {
+		MethodWriter mw = cw.addMethod(ACC_PRIVATE, "single" + pc, SINGLE_DESC, 6, 4);
+		String keyName = plan.keyNames[pc];
+
+		// Object value = params.get(keyName);
+		mw.op(ALOAD_1);
+		mw.ldcString(keyName);
+		mw.invokeInterface("java/util/Map", "get", "(Ljava/lang/Object;)Ljava/lang/Object;", 2);
+		mw.op(ASTORE_2);
+
+		// if (value == null) return nullOrMissing(pc, params);
+		int notNull = mw.newLabel();
+		mw.op(ALOAD_2);
+		mw.jump(IFNONNULL, notNull);
+		mw.op(ALOAD_0);
+		mw.pushInt(pc);
+		mw.op(ALOAD_1);
+		mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "nullOrMissing", DISPATCH_DESC);
+		mw.op(ARETURN);
+		mw.mark(notNull);
+
+		boolean formatted = plan.formattersFrom[pc] < plan.formattersTo[pc];
+		if (formatted) {
+			// value = format(pc, value);
+			mw.op(ALOAD_0);
+			mw.pushInt(pc);
+			mw.op(ALOAD_2);
+			mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "format", "(ILjava/lang/Object;)Ljava/lang/Object;");
+			mw.op(ASTORE_2);
+			// if (formatFailed(value)) return formatError(value);
+			int formatSucceeded = mw.newLabel();
+			mw.op(ALOAD_2);
+			mw.invoke(INVOKESTATIC, BASE_CLASS, "formatFailed", "(Ljava/lang/Object;)Z");
+			mw.jump(IFEQ, formatSucceeded);
+			mw.op(ALOAD_2);
+			mw.invoke(INVOKESTATIC, BASE_CLASS, "formatError", "(Ljava/lang/Object;)" + ERROR_DESC);
+			mw.op(ARETURN);
+			mw.mark(formatSucceeded);
+			// if (value == null) return nullValue(pc);
+			int formattedNotNull = mw.newLabel();
+			mw.op(ALOAD_2);
+			mw.jump(IFNONNULL, formattedNotNull);
+			mw.op(ALOAD_0);
+			mw.pushInt(pc);
+			mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "nullValue", "(I)" + ERROR_DESC);
+			mw.op(ARETURN);
+			mw.mark(formattedNotNull);
+		}
+
+		if (((ApiSingleParam<?>) plan.operands[pc]).paramType != null) {
+			// ApiParamError error = typeError(pc, value); if (error != null) return error;
+			int typeMatches = mw.newLabel();
+			mw.op(ALOAD_0);
+			mw.pushInt(pc);
+			mw.op(ALOAD_2);
+			mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "typeError", "(ILjava/lang/Object;)" + ERROR_DESC);
+			mw.op(ASTORE_3);
+			mw.op(ALOAD_3);
+			mw.jump(IFNULL, typeMatches);
+			mw.op(ALOAD_3);
+			mw.op(ARETURN);
+			mw.mark(typeMatches);
+		}
+
+		for (int i = plan.checksFrom[pc]; i < plan.checksTo[pc]; i++) {
+			Check<Object> check = plan.checks[i];
+			if (check instanceof LibraryCheck) {
+				writeLibraryCheck(mw, pc, i, (LibraryCheck<?>) check);
+			} else {
+				writeCheck(mw, pc, i);
+			}
+		}
+
+		if (formatted) {
+			// params.put(keyName, value);
+			mw.op(ALOAD_1);
+			mw.ldcString(keyName);
+			mw.op(ALOAD_2);
+			mw.invokeInterface("java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", 3);
+			mw.op(POP);
+		}
+		mw.op(ACONST_NULL);
+		mw.op(ARETURN);
+	}
+
+	private static void writeCheck(MethodWriter mw, int pc, int checkIndex) {
+		// Check.Result result = this.checks[checkIndex].check(value);
+		mw.op(ALOAD_0);
+		mw.field(GETFIELD, BASE_CLASS, "checks", "[L" + CHECK_CLASS + ";");
+		mw.pushInt(checkIndex);
+		mw.op(AALOAD);
+		mw.op(ALOAD_2);
+		mw.invokeInterface(CHECK_CLASS, "check", "(Ljava/lang/Object;)L" + CHECK_RESULT_CLASS + ";", 2);
+		mw.op(ASTORE_3);
+		// if (result.failed()) return checkFailed(pc, result);
+		int passed = mw.newLabel();
+		mw.op(ALOAD_3);
+		mw.invoke(INVOKEVIRTUAL, CHECK_RESULT_CLASS, "failed", "()Z");
+		mw.jump(IFEQ, passed);
+		mw.op(ALOAD_0);
+		mw.pushInt(pc);
+		mw.op(ALOAD_3);
+		mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "checkFailed", "(IL" + CHECK_RESULT_CLASS + ";)" + ERROR_DESC);
+		mw.op(ARETURN);
+		mw.mark(passed);
+	}
+
+	private static void writeLibraryCheck(MethodWriter mw, int pc, int checkIndex, LibraryCheck<?> check) {
+		switch (check.getSubject()) {
+			case INTEGER_VALUE:
+				mw.op(ALOAD_2);
+				mw.type(CHECKCAST, "java/lang/Integer");
+				mw.invoke(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I");
+				break;
+			case STRING_LENGTH:
+				mw.op(ALOAD_2);
+				mw.type(CHECKCAST, "java/lang/String");
+				mw.invoke(INVOKEVIRTUAL, "java/lang/String", "length", "()I");
+				break;
+			case STRING_CODE_POINT_COUNT:
+				mw.op(ALOAD_2);
+				mw.type(CHECKCAST, "java/lang/String");
+				mw.pushInt(0);
+				mw.op(ALOAD_2);
+				mw.type(CHECKCAST, "java/lang/String");
+				mw.invoke(INVOKEVIRTUAL, "java/lang/String", "length", "()I");
+				mw.invoke(INVOKEVIRTUAL, "java/lang/String", "codePointCount", "(II)I");
+				break;
+			default:
+				// not known, just call it
+				writeCheck(mw, pc, checkIndex);
+				return;
+		}
+		mw.pushInt(check.getOperand());
+		int passed = mw.newLabel();
+		switch (check.getComparison()) {
+			case GREATER_THAN:
+				mw.jump(IF_ICMPGT, passed);
+				break;
+			case GREATER_THAN_OR_EQUAL_TO:
+				mw.jump(IF_ICMPGE, passed);
+				break;
+			case LESS_THAN:
+				mw.jump(IF_ICMPLT, passed);
+				break;
+			case LESS_THAN_OR_EQUAL_TO:
+				mw.jump(IF_ICMPLE, passed);
+				break;
+			case EQUAL_TO:
+				mw.jump(IF_ICMPEQ, passed);
+				break;
+			default:
+				throw new IllegalStateException("Unknown comparison: " + check.getComparison());
+		}
+		// ApiParamError error = libraryCheckFailed(pc, checkIndex, value); if (error != null) return error;
+		mw.op(ALOAD_0);
+		mw.pushInt(pc);
+		mw.pushInt(checkIndex);
+		mw.op(ALOAD_2);
+		mw.invoke(INVOKEVIRTUAL, BASE_CLASS, "libraryCheckFailed", "(IILjava/lang/Object;)" + ERROR_DESC);
+		mw.op(ASTORE_3);
+		mw.op(ALOAD_3);
+		mw.jump(IFNULL, passed);
+		mw.op(ALOAD_3);
+		mw.op(ARETURN);
+		mw.mark(passed);
+	}
+
+	/*
+	 *
+	 * CLASS FILE WRITING
+	 *
+	 * Only what is needed for the generated class is supported.
+	 *
+	 * */
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_PROTECTED = 0x0004;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int ACONST_NULL = 0x01;
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC = 0x12;
+	private static final int LDC_W = 0x13;
+	private static final int ILOAD_1 = 0x1b;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int ALOAD_2 = 0x2c;
+	private static final int ALOAD_3 = 0x2d;
+	private static final int AALOAD = 0x32;
+	private static final int ASTORE_2 = 0x4d;
+	private static final int ASTORE_3 = 0x4e;
+	private static final int POP = 0x57;
+	private static final int ISHR = 0x7a;
+	private static final int IFEQ = 0x99;
+	private static final int IF_ICMPEQ = 0x9f;
+	private static final int IF_ICMPLT = 0xa1;
+	private static final int IF_ICMPGE = 0xa2;
+	private static final int IF_ICMPGT = 0xa3;
+	private static final int IF_ICMPLE = 0xa4;
+	private static final int TABLESWITCH = 0xaa;
+	private static final int ARETURN = 0xb0;
+	private static final int RETURN = 0xb1;
+	private static final int GETFIELD = 0xb4;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+	private static final int INVOKEINTERFACE = 0xb9;
+	private static final int CHECKCAST = 0xc0;
+	private static final int IFNULL = 0xc6;
+	private static final int IFNONNULL = 0xc7;
+
+	private static final class ClassWriter {
+
+		private final ConstantPool constantPool = new ConstantPool();
+		private final List<MethodWriter> methods = new ArrayList<>();
+		private final int thisClass, superClass;
+
+		ClassWriter(String className, String superClassName) {
+			this.thisClass = this.constantPool.classRef(className);
+			this.superClass = this.constantPool.classRef(superClassName);
+		}
+
+		MethodWriter addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+			MethodWriter mw = new MethodWriter(this.constantPool, access, name, descriptor, maxStack, maxLocals);
+			this.methods.add(mw);
+			return mw;
+		}
+
+		byte[] toByteArray() {
+			try {
+				int codeAttribute = this.constantPool.utf8("Code");
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bytes);
+				out.writeInt(0xCAFEBABE);
+				out.writeShort(0);
+				// Java 5. does not require stack map frames
+				out.writeShort(49);
+				this.constantPool.write(out);
+				out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+				out.writeShort(this.thisClass);
+				out.writeShort(this.superClass);
+				out.writeShort(0);  // interfaces
+				out.writeShort(0);  // fields
+				out.writeShort(this.methods.size());
+				for (MethodWriter mw : this.methods) {
+					mw.write(out, codeAttribute);
+				}
+				out.writeShort(0);  // attributes
+				out.flush();
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				// cannot happen with ByteArrayOutputStream
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}
+
+	private static final class ConstantPool {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+		private final Map<String, Integer> entries = new HashMap<>();
+		private int count = 1;
+
+		private int entry(String key, int tag, int first, int second) {
+			Integer index = this.entries.get(key);
+			if (index != null) {
+				return index;
+			}
+			try {
+				this.out.writeByte(tag);
+				if (tag == 3) {
+					this.out.writeInt(first);
+				} else {
+					this.out.writeShort(first);
+					if (second >= 0) {
+						this.out.writeShort(second);
+					}
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			this.entries.put(key, this.count);
+			return this.count++;
+		}
+
+		int utf8(String value) {
+			String key = "1:" + value;
+			Integer index = this.entries.get(key);
+			if (index != null) {
+				return index;
+			}
+			try {
+				this.out.writeByte(1);
+				this.out.writeUTF(value);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			this.entries.put(key, this.count);
+			return this.count++;
+		}
+
+		int integer(int value) {
+			return entry("3:" + value, 3, value, -1);
+		}
+
+		int classRef(String internalName) {
+			return entry("7:" + internalName, 7, utf8(internalName), -1);
+		}
+
+		int string(String value) {
+			return entry("8:" + value, 8, utf8(value), -1);
+		}
+
+		int nameAndType(String name, String descriptor) {
+			return entry("12:" + name + ":" + descriptor, 12, utf8(name), utf8(descriptor));
+		}
+
+		int memberRef(int tag, String owner, String name, String descriptor) {
+			return entry(tag + ":" + owner + "." + name + ":" + descriptor,
+			             tag,
+			             classRef(owner),
+			             nameAndType(name, descriptor));
+		}
+
+		void write(DataOutputStream classOut) throws IOException {
+			if (this.count > 0xFFFF) {
+				throw new IllegalStateException("Too many constants in generated class.");
+			}
+			this.out.flush();
+			classOut.writeShort(this.count);
+			this.bytes.writeTo(classOut);
+		}
+
+	}
+
+	private static final class MethodWriter {
+
+		private final ConstantPool constantPool;
+		private final int access, name, descriptor, maxStack, maxLocals;
+		private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+		private final List<Integer> labelPositions = new ArrayList<>();
+		// each is {label, position of offset, position of instruction, offset width}
+		private final List<int[]> fixups = new ArrayList<>();
+
+		MethodWriter(ConstantPool constantPool, int access, String name, String descriptor, int maxStack, int maxLocals) {
+			this.constantPool = constantPool;
+			this.access = access;
+			this.name = constantPool.utf8(name);
+			this.descriptor = constantPool.utf8(descriptor);
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+		}
+
+		void op(int opcode) {
+			this.code.write(opcode);
+		}
+
+		private void u2(int value) {
+			this.code.write(value >>> 8);
+			this.code.write(value);
+		}
+
+		private void u4(int value) {
+			u2(value >>> 16);
+			u2(value);
+		}
+
+		void pushInt(int value) {
+			if (value >= -1 && value <= 5) {
+				op(ICONST_0 + value);
+			} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				op(BIPUSH);
+				this.code.write(value);
+			} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+				op(SIPUSH);
+				u2(value);
+			} else {
+				ldc(this.constantPool.integer(value));
+			}
+		}
+
+		void ldcString(String value) {
+			ldc(this.constantPool.string(value));
+		}
+
+		private void ldc(int index) {
+			if (index <= 0xFF) {
+				op(LDC);
+				this.code.write(index);
+			} else {
+				op(LDC_W);
+				u2(index);
+			}
+		}
+
+		void type(int opcode, String internalName) {
+			op(opcode);
+			u2(this.constantPool.classRef(internalName));
+		}
+
+		void field(int opcode, String owner, String name, String descriptor) {
+			op(opcode);
+			u2(this.constantPool.memberRef(9, owner, name, descriptor));
+		}
+
+		void invoke(int opcode, String owner, String name, String descriptor) {
+			op(opcode);
+			u2(this.constantPool.memberRef(10, owner, name, descriptor));
+		}
+
+		void invokeInterface(String owner, String name, String descriptor, int argumentSlots) {
+			op(INVOKEINTERFACE);
+			u2(this.constantPool.memberRef(11, owner, name, descriptor));
+			this.code.write(argumentSlots);
+			this.code.write(0);
+		}
+
+		int newLabel() {
+			this.labelPositions.add(-1);
+			return this.labelPositions.size() - 1;
+		}
+
+		void mark(int label) {
+			this.labelPositions.set(label, this.code.size());
+		}
+
+		void jump(int opcode, int label) {
+			int instruction = this.code.size();
+			op(opcode);
+			this.fixups.add(new int[]{label, this.code.size(), instruction, 2});
+			u2(0);
+		}
+
+		void tableSwitch(int low, int[] labels, int defaultLabel) {
+			int instruction = this.code.size();
+			op(TABLESWITCH);
+			while (this.code.size() % 4 != 0) {
+				this.code.write(0);
+			}
+			this.fixups.add(new int[]{defaultLabel, this.code.size(), instruction, 4});
+			u4(0);
+			u4(low);
+			u4(low + labels.length - 1);
+			for (int label : labels) {
+				this.fixups.add(new int[]{label, this.code.size(), instruction, 4});
+				u4(0);
+			}
+		}
+
+		void write(DataOutputStream out, int codeAttribute) throws IOException {
+			byte[] bytecode = this.code.toByteArray();
+			for (int[] fixup : this.fixups) {
+				int offset = this.labelPositions.get(fixup[0]) - fixup[2];
+				int position = fixup[1];
+				if (fixup[3] == 2) {
+					if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+						throw new IllegalStateException("Generated method is too large.");
+					}
+					bytecode[position] = (byte) (offset >>> 8);
+					bytecode[position + 1] = (byte) offset;
+				} else {
+					bytecode[position] = (byte) (offset >>> 24);
+					bytecode[position + 1] = (byte) (offset >>> 16);
+					bytecode[position + 2] = (byte) (offset >>> 8);
+					bytecode[position + 3] = (byte) offset;
+				}
+			}
+			out.writeShort(this.access);
+			out.writeShort(this.name);
+			out.writeShort(this.descriptor);
+			out.writeShort(1);
+			out.writeShort(codeAttribute);
+			out.writeInt(12 + bytecode.length);
+			out.writeShort(this.maxStack);
+			out.writeShort(this.maxLocals);
+			out.writeInt(bytecode.length);
+			out.write(bytecode);
+			out.writeShort(0);  // exception table
+			out.writeShort(0);  // attributes
+		}
+
+	}
+
+}
@@ -4,7 +4,11 @@ package io.github.bhowell2.apilib;
 import io.github.bhowell2.apilib.errors.ApiErrorType;
 import io.github.bhowell2.apilib.errors.ApiParamError;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Called at the end of a {@link ApiMapParam#check(Map)} to ensure that some
@@ -66,6 +70,39 @@ public interface ApiMapParamConditionalCheck {
 	 */
 	Result check(Map<String, Object> params, ApiMapParam.Result mapCheckResult);
 
+	/**
+	 * The key names of the map that this conditional check reads (from the params
+	 * or the result). This is used by {@link ApiMapParam#checkDelta(Map, Map)} to only
+	 * run the conditional check again when a key that it reads was changed.
+	 *
+	 * @return the key names or null if they are not known (the default), in which
+	 * case the conditional check is run again on every change
+	 */
+	default Set<String> getReadKeyNames() {
+		return null;
+	}
+
+	/**
+	 * @param readKeyNames the key names of the map that this conditional check reads
+	 * @return this conditional check, declaring the key names that it reads (see
+	 * {@link #getReadKeyNames()})
+	 */
+	default ApiMapParamConditionalCheck withReadKeyNames(String... readKeyNames) {
+		ApiMapParamConditionalCheck conditionalCheck = this;
+		Set<String> keyNames = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(readKeyNames)));
+		return new ApiMapParamConditionalCheck() {
+			@Override
+			public Result check(Map<String, Object> params, ApiMapParam.Result mapCheckResult) {
+				return conditionalCheck.check(params, mapCheckResult);
+			}
+
+			@Override
+			public Set<String> getReadKeyNames() {
+				return keyNames;
+			}
+		};
+	}
+
 	final class Result {
 
 		/**
@@ -0,0 +1,573 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import io.github.bhowell2.apilib.formatters.Formatter;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled form of an {@link ApiMapParam} (see {@link ApiMapParam#compile()}).
+ *
+ * The whole parameter tree (nested {@link ApiMapParam}s, the maps within
+ * {@link ApiCollectionParam}s, {@link ApiSingleParam}s and
+ * {@link ApiMapParamConditionalCheck}s) is flattened into arrays of opcodes
+ * and indices, which are then run by a single interpreter loop. Each map is
+ * compiled into a contiguous block of instructions (block 0 is the map that
+ * was compiled) and the instructions within a block are ordered exactly as
+ * {@link ApiMapParam#check(Map)} would check them. The checks and formatters
+ * of all single parameters are flattened into one array each, so that a
+ * single parameter is checked inline without creating an
+ * {@link ApiSingleParam.Result}.
+ *
+ * The plan returns the same {@link ApiMapParam.Result} (and errors) as
+ * {@link ApiMapParam#check(Map)} and, like the parameters it was compiled
+ * from, is immutable and thread-safe.
+ *
+ * @author Blake Howell
+ */
+public final class ApiMapParamPlan implements ApiParam<Map<String, Object>, ApiMapParam.Result> {
+
+	static final byte OP_SINGLE = 0;
+	static final byte OP_MAP = 1;
+	static final byte OP_COLLECTION = 2;
+	static final byte OP_CUSTOM = 3;
+	static final byte OP_CONDITIONAL = 4;
+
+	/*
+	 * Instructions. All of these are indexed by the instruction's position.
+	 * */
+	final byte[] opcodes;
+	final boolean[] optional;
+	final String[] keyNames;
+	/*
+	 * OP_SINGLE, OP_MAP and OP_COLLECTION: the slot of the parameter in its map
+	 * (see ApiMapParam#keyedParams).
+	 * */
+	final int[] slots;
+	/*
+	 * The parameter (or conditional check) for the instruction. Single params are
+	 * only needed for error creation and custom/collection/conditional checks are
+	 * called directly.
+	 * */
+	final Object[] operands;
+	/*
+	 * OP_MAP: the block of the nested map.
+	 * */
+	final int[] targetBlocks;
+	/*
+	 * OP_SINGLE: [from, to) ranges into checks and formatters.
+	 * */
+	final int[] checksFrom, checksTo, formattersFrom, formattersTo;
+	final Check<Object>[] checks;
+	final Formatter<Object, Object>[] formatters;
+
+	/*
+	 * Blocks. Indexed by block number.
+	 * */
+	final int[] blocksFrom, blocksTo;
+	final ApiMapParam[] blockParams;
+
+	/*
+	 * Used to find the block for maps within collections.
+	 * */
+	private final IdentityHashMap<ApiMapParam, Integer> blocks;
+	private final MapParamEvaluator collectionMapEvaluator = (mapParam, params) -> checkCollectionMap(mapParam, params, false);
+	private final MapParamEvaluator overlayCollectionMapEvaluator =
+		(mapParam, params) -> checkCollectionMap(mapParam, params, true);
+
+	/*
+	 * Set when a class was generated for the single params (see ApiMapParam#generate()).
+	 * */
+	private final GeneratedSingleParamChecks generatedSingleParamChecks;
+
+	@SuppressWarnings("unchecked")
+	private ApiMapParamPlan(Compiler compiler) {
+		int instructionCount = compiler.opcodes.size();
+		this.opcodes = new byte[instructionCount];
+		this.optional = new boolean[instructionCount];
+		this.keyNames = compiler.keyNames.toArray(new String[0]);
+		this.slots = toIntArray(compiler.slots);
+		this.operands = compiler.operands.toArray();
+		this.targetBlocks = toIntArray(compiler.targetBlocks);
+		this.checksFrom = toIntArray(compiler.checksFrom);
+		this.checksTo = toIntArray(compiler.checksTo);
+		this.formattersFrom = toIntArray(compiler.formattersFrom);
+		this.formattersTo = toIntArray(compiler.formattersTo);
+		for (int i = 0; i < instructionCount; i++) {
+			this.opcodes[i] = compiler.opcodes.get(i);
+			this.optional[i] = compiler.optional.get(i);
+		}
+		this.checks = compiler.checks.toArray(new Check[0]);
+		this.formatters = compiler.formatters.toArray(new Formatter[0]);
+		this.blocksFrom = toIntArray(compiler.blocksFrom);
+		this.blocksTo = toIntArray(compiler.blocksTo);
+		this.blockParams = compiler.blockParams.toArray(new ApiMapParam[0]);
+		this.blocks = compiler.blocks;
+		this.generatedSingleParamChecks = null;
+	}
+
+	/**
+	 * Creates a copy of the plan that checks single params with the generated class.
+	 */
+	private ApiMapParamPlan(ApiMapParamPlan plan, GeneratedSingleParamChecks generatedSingleParamChecks) {
+		this.opcodes = plan.opcodes;
+		this.optional = plan.optional;
+		this.keyNames = plan.keyNames;
+		this.slots = plan.slots;
+		this.operands = plan.operands;
+		this.targetBlocks = plan.targetBlocks;
+		this.checksFrom = plan.checksFrom;
+		this.checksTo = plan.checksTo;
+		this.formattersFrom = plan.formattersFrom;
+		this.formattersTo = plan.formattersTo;
+		this.checks = plan.checks;
+		this.formatters = plan.formatters;
+		this.blocksFrom = plan.blocksFrom;
+		this.blocksTo = plan.blocksTo;
+		this.blockParams = plan.blockParams;
+		this.blocks = plan.blocks;
+		this.generatedSingleParamChecks = generatedSingleParamChecks;
+	}
+
+	/**
+	 * Compiles the map parameter (and everything nested within it) into a plan.
+	 * @param mapParam the map to compile
+	 * @return the compiled plan
+	 */
+	static ApiMapParamPlan compile(ApiMapParam mapParam) {
+		Compiler compiler = new Compiler();
+		compiler.addBlock(mapParam);
+		// blocks are added as nested maps are encountered, so cannot use for-each
+		for (int i = 0; i < compiler.blockParams.size(); i++) {
+			compiler.compileBlock(i);
+		}
+		return new ApiMapParamPlan(compiler);
+	}
+
+	/**
+	 * Compiles the map parameter and generates a class to check its single parameters.
+	 * @param mapParam the map to compile
+	 * @return the compiled plan that uses the generated class
+	 */
+	static ApiMapParamPlan generate(ApiMapParam mapParam) {
+		ApiMapParamPlan plan = compile(mapParam);
+		return new ApiMapParamPlan(plan, ApiMapParamClassGenerator.generate(plan));
+	}
+
+	/**
+	 * Allows for choosing whether the generated class is a hidden class (Java 15+) or
+	 * is defined with its own class loader.
+	 */
+	static ApiMapParamPlan generate(ApiMapParam mapParam, boolean hiddenClass) {
+		ApiMapParamPlan plan = compile(mapParam);
+		return new ApiMapParamPlan(plan, ApiMapParamClassGenerator.generate(plan, hiddenClass));
+	}
+
+	/**
+	 * @return the number of instructions in the plan
+	 */
+	public int getInstructionCount() {
+		return this.opcodes.length;
+	}
+
+	/**
+	 * @return the number of maps (blocks) in the plan
+	 */
+	public int getBlockCount() {
+		return this.blockParams.length;
+	}
+
+	/**
+	 * @return whether or not a class was generated to check the single parameters
+	 */
+	public boolean hasGeneratedClass() {
+		return this.generatedSingleParamChecks != null;
+	}
+
+	/**
+	 * Checks the parameters with the compiled plan. This returns the same result
+	 * as {@link ApiMapParam#check(Map)} would for the map that was compiled.
+	 * @param params the map to check
+	 * @return the result of the check
+	 */
+	@Override
+	public ApiMapParam.Result check(Map<String, Object> params) {
+		return runBlock(0, params, false);
+	}
+
+	private ApiMapParam.Result checkCollectionMap(ApiMapParam mapParam, Map<String, Object> params, boolean overlay) {
+		Integer block = this.blocks.get(mapParam);
+		// every map is compiled, but fall back just in case
+		return block != null ? runBlock(block, params, overlay) : mapParam.check(params, null, false, overlay);
+	}
+
+	/**
+	 * The interpreter. Mirrors {@link ApiMapParam#check(Map)} for the block's map.
+	 * @param overlay whether or not the formatted values are overlaid (see
+	 *                {@link ApiMapParam.Builder#setFormattedValueOverlay(boolean)})
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private ApiMapParam.Result runBlock(int block, Map<String, Object> params, boolean overlay) {
+		ApiMapParam mapParam = this.blockParams[block];
+		overlay |= mapParam.formattedValueOverlay;
+		try {
+			Map<String, Object> mapParamToCheck;
+			if (mapParam.keyName == null) {
+				mapParamToCheck = params;
+			} else {
+				Object value = params.get(mapParam.keyName);
+				if (value != null && !(value instanceof Map)) {
+					return mapParam.castResult;
+				}
+				mapParamToCheck = (Map<String, Object>) value;
+			}
+
+			if (mapParamToCheck == null) {
+				return mapParam.canBeNull ? mapParam.nullResult : mapParam.missingResult;
+			}
+
+			if (mapParam.inputBudget != null) {
+				ApiParamError budgetError = mapParam.inputBudget.check(mapParamToCheck);
+				if (budgetError != null) {
+					return mapParam.returnFailedCheckResult(budgetError);
+				}
+			}
+
+			MapResultAccumulator accumulator = new MapResultAccumulator(mapParam.resultLayout);
+			// created before the first conditional check (or at the end if there are none)
+			ApiMapParam.Result thisMapCheckResult = null;
+
+			for (int pc = this.blocksFrom[block], end = this.blocksTo[block]; pc < end; pc++) {
+				ApiParamError error;
+				switch (this.opcodes[pc]) {
+					case OP_SINGLE: {
+						/*
+						 * The generated methods put the formatted value back in the map, so a
+						 * formatted parameter is interpreted when the formatted values are overlaid.
+						 * */
+						if (overlay && this.formattersFrom[pc] < this.formattersTo[pc]) {
+							error = runSingle(pc, mapParamToCheck, accumulator);
+						} else if (this.generatedSingleParamChecks != null) {
+							error = this.generatedSingleParamChecks.check(pc, mapParamToCheck);
+						} else {
+							error = runSingle(pc, mapParamToCheck);
+						}
+						if (error == null) {
+							accumulator.addKeyName(this.slots[pc]);
+							continue;
+						}
+						break;
+					}
+					case OP_MAP: {
+						ApiMapParam.Result checkResult;
+						try {
+							checkResult = runBlock(this.targetBlocks[pc], mapParamToCheck, overlay);
+						} catch (Exception e) {
+							return mapParam.returnFailedCheckResult((ApiParamBase<?, ?>) this.operands[pc], e);
+						}
+						if (checkResult.successful()) {
+							accumulator.addMapResult(this.slots[pc], checkResult);
+							continue;
+						}
+						error = checkResult.error;
+						break;
+					}
+					case OP_COLLECTION: {
+						ApiCollectionParam param = (ApiCollectionParam) this.operands[pc];
+						ApiCollectionParam.Result checkResult;
+						try {
+							checkResult = param.check(mapParamToCheck,
+							                          overlay ? this.overlayCollectionMapEvaluator : this.collectionMapEvaluator);
+						} catch (Exception e) {
+							return mapParam.returnFailedCheckResult(param, e);
+						}
+						if (checkResult.successful()) {
+							accumulator.addCollectionResult(this.slots[pc], checkResult);
+							continue;
+						}
+						error = checkResult.error;
+						break;
+					}
+					case OP_CUSTOM: {
+						ApiCustomParam.Result checkResult;
+						try {
+							checkResult = ((ApiCustomParam) this.operands[pc])
+								.check(mapParam.withFormattedValues(mapParamToCheck, accumulator));
+						} catch (Exception e) {
+							// custom parameters do not have names, so error is considered to be with the map itself
+							return mapParam.returnFailedCheckResult(mapParam, e);
+						}
+						if (checkResult.successful()) {
+							accumulator.addCustomResult(checkResult);
+							continue;
+						}
+						error = checkResult.error;
+						break;
+					}
+					case OP_CONDITIONAL: {
+						if (thisMapCheckResult == null) {
+							thisMapCheckResult = accumulator.toResult(mapParam.keyName);
+						}
+						ApiMapParamConditionalCheck.Result checkResult =
+							((ApiMapParamConditionalCheck) this.operands[pc])
+								.check(mapParam.withFormattedValues(mapParamToCheck, accumulator), thisMapCheckResult);
+						if (checkResult.successful()) {
+							continue;
+						}
+						// conditional checks are never optional
+						return ApiMapParam.Result.failure(mapParam.wrapCheckError(checkResult.error));
+					}
+					default:
+						throw new IllegalStateException("Unknown opcode: " + this.opcodes[pc]);
+				}
+				if (this.optional[pc] && mapParam.skipsOptionalFailure(error)) {
+					continue;
+				}
+				return ApiMapParam.Result.failure(mapParam.wrapCheckError(error));
+			}
+
+			if (thisMapCheckResult == null) {
+				thisMapCheckResult = accumulator.toResult(mapParam.keyName);
+			}
+			if (mapParam.asyncCustomParams != null) {
+				return mapParam.checkAsyncCustomParams(mapParamToCheck, thisMapCheckResult);
+			}
+			return thisMapCheckResult;
+		} catch (ClassCastException e) {
+			return ApiMapParam.Result.failure(ApiParamError.cast(mapParam, e));
+		} catch (Exception e) {
+			return ApiMapParam.Result.failure(ApiParamError.exceptional(mapParam, e));
+		}
+	}
+
+	/**
+	 * Mirrors {@link ApiSingleParam#check(Map)}, but returns null on success
+	 * rather than creating a result.
+	 */
+	ApiParamError runSingle(int pc, Map<String, Object> params) {
+		return runSingle(pc, params, null);
+	}
+
+	/**
+	 * @param overlay if not null, the formatted value is added to it rather than
+	 *                put back in the map
+	 */
+	private ApiParamError runSingle(int pc, Map<String, Object> params, MapResultAccumulator overlay) {
+		ApiSingleParam<?> param = (ApiSingleParam<?>) this.operands[pc];
+		String keyName = this.keyNames[pc];
+		try {
+			Object value = params.get(keyName);
+			if (value == null) {
+				if (params.containsKey(keyName)) {
+					// was SET to null, not just null because it was not set at all
+					return param.canBeNull ? null : param.invalidError(ApiLibSettings.DEFAULT_CANNOT_BE_NULL_MESSAGE);
+				}
+				return ApiParamError.missing(param);
+			}
+
+			int formattersFrom = this.formattersFrom[pc], formattersTo = this.formattersTo[pc];
+			for (int i = formattersFrom; i < formattersTo; i++) {
+				Formatter.Result<Object> formatResult = this.formatters[i].format(value);
+				if (formatResult.failed()) {
+					return formatResult.hasFailureMessage()
+						?
+						ApiParamError.format(param, formatResult.getFailureMessage())
+						:
+						ApiParamError.format(param);
+				}
+				value = formatResult.getFormattedValue();
+			}
+
+			if (value == null) {
+				return param.canBeNull ? null : param.invalidError(ApiLibSettings.DEFAULT_CANNOT_BE_NULL_MESSAGE);
+			}
+
+			ApiParamError typeError = param.typeError(value);
+			if (typeError != null) {
+				return typeError;
+			}
+
+			for (int i = this.checksFrom[pc], checksTo = this.checksTo[pc]; i < checksTo; i++) {
+				Check.Result checkResult = this.checks[i].check(value);
+				if (checkResult.failed()) {
+					return param.invalidError(checkResult.failureMessage());
+				}
+			}
+
+			// formatted value is only put back in the map once all checks pass
+			if (formattersFrom < formattersTo) {
+				if (overlay != null) {
+					overlay.addFormattedValue(this.slots[pc], value);
+				} else {
+					params.put(keyName, value);
+				}
+			}
+			return null;
+		} catch (ClassCastException e) {
+			return ApiParamError.cast(param, e);
+		} catch (Exception e) {
+			return ApiParamError.exceptional(param, e);
+		}
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Builds up the instructions (and blocks) of the plan.
+	 */
+	private static final class Compiler {
+
+		final List<Byte> opcodes = new ArrayList<>();
+		final List<Boolean> optional = new ArrayList<>();
+		final List<String> keyNames = new ArrayList<>();
+		final List<Integer> slots = new ArrayList<>();
+		final List<Object> operands = new ArrayList<>();
+		final List<Integer> targetBlocks = new ArrayList<>();
+		final List<Integer> checksFrom = new ArrayList<>();
+		final List<Integer> checksTo = new ArrayList<>();
+		final List<Integer> formattersFrom = new ArrayList<>();
+		final List<Integer> formattersTo = new ArrayList<>();
+		final List<Check<?>> checks = new ArrayList<>();
+		final List<Formatter<?, ?>> formatters = new ArrayList<>();
+
+		final List<Integer> blocksFrom = new ArrayList<>();
+		final List<Integer> blocksTo = new ArrayList<>();
+		final List<ApiMapParam> blockParams = new ArrayList<>();
+		final IdentityHashMap<ApiMapParam, Integer> blocks = new IdentityHashMap<>();
+
+		// slot of the next keyed parameter in the block being compiled
+		private int nextSlot;
+
+		/**
+		 * Returns the block of the map, adding it (to be compiled later) if it has
+		 * not been seen before. The same map instance may be used in multiple places
+		 * and only needs to be compiled once.
+		 */
+		int addBlock(ApiMapParam mapParam) {
+			Integer block = this.blocks.get(mapParam);
+			if (block == null) {
+				block = this.blockParams.size();
+				this.blocks.put(mapParam, block);
+				this.blockParams.add(mapParam);
+				this.blocksFrom.add(-1);
+				this.blocksTo.add(-1);
+			}
+			return block;
+		}
+
+		void compileBlock(int block) {
+			ApiMapParam mapParam = this.blockParams.get(block);
+			this.blocksFrom.set(block, this.opcodes.size());
+			this.nextSlot = 0;
+			// same order as ApiMapParam#check
+			addSingles(mapParam.requiredSingleParams, false);
+			addMaps(mapParam.requiredMapParams, false);
+			addCollections(mapParam.requiredCollectionParams, false);
+			addCustoms(mapParam.requiredCustomParams, false);
+			addSingles(mapParam.optionalSingleParams, true);
+			addMaps(mapParam.optionalMapParams, true);
+			addCollections(mapParam.optionalCollectionParams, true);
+			addCustoms(mapParam.optionalCustomParams, true);
+			if (mapParam.conditionalChecks != null) {
+				for (ApiMapParamConditionalCheck conditionalCheck : mapParam.conditionalChecks) {
+					addInstruction(OP_CONDITIONAL, false, null, conditionalCheck);
+				}
+			}
+			this.blocksTo.set(block, this.opcodes.size());
+		}
+
+		private int addInstruction(byte opcode, boolean optional, String keyName, Object operand) {
+			this.opcodes.add(opcode);
+			this.optional.add(optional);
+			this.keyNames.add(keyName);
+			this.slots.add(opcode == OP_CUSTOM || opcode == OP_CONDITIONAL ? -1 : this.nextSlot++);
+			this.operands.add(operand);
+			this.targetBlocks.add(-1);
+			this.checksFrom.add(0);
+			this.checksTo.add(0);
+			this.formattersFrom.add(0);
+			this.formattersTo.add(0);
+			return this.opcodes.size() - 1;
+		}
+
+		private void addSingles(ApiSingleParam<?>[] params, boolean optional) {
+			if (params == null) {
+				return;
+			}
+			for (ApiSingleParam<?> param : params) {
+				int pc = addInstruction(OP_SINGLE, optional, param.keyName, param);
+				if (param.formatters != null) {
+					this.formattersFrom.set(pc, this.formatters.size());
+					for (Formatter<?, ?> formatter : param.formatters) {
+						this.formatters.add(formatter);
+					}
+					this.formattersTo.set(pc, this.formatters.size());
+				}
+				this.checksFrom.set(pc, this.checks.size());
+				for (Check<?> check : param.checks) {
+					this.checks.add(check);
+				}
+				this.checksTo.set(pc, this.checks.size());
+			}
+		}
+
+		private void addMaps(ApiMapParam[] params, boolean optional) {
+			if (params == null) {
+				return;
+			}
+			for (ApiMapParam param : params) {
+				int pc = addInstruction(OP_MAP, optional, param.keyName, param);
+				this.targetBlocks.set(pc, addBlock(param));
+			}
+		}
+
+		private void addCollections(ApiCollectionParam<?, ?, ?>[] params, boolean optional) {
+			if (params == null) {
+				return;
+			}
+			for (ApiCollectionParam<?, ?, ?> param : params) {
+				addInstruction(OP_COLLECTION, optional, param.keyName, param);
+				addCollectionMaps(param);
+			}
+		}
+
+		/*
+		 * The maps within a collection are checked by the collection itself, but they
+		 * are compiled so that the collection can call back into the plan for them.
+		 * */
+		private void addCollectionMaps(ApiCollectionParam<?, ?, ?> param) {
+			if (param.indexMapCheck != null) {
+				addBlock(param.indexMapCheck);
+			}
+			if (param.individualIndexMapChecks != null) {
+				for (ApiMapParam mapParam : param.individualIndexMapChecks) {
+					addBlock(mapParam);
+				}
+			}
+			if (param.innerCollectionParam != null) {
+				addCollectionMaps(param.innerCollectionParam);
+			}
+		}
+
+		private void addCustoms(ApiCustomParam[] params, boolean optional) {
+			if (params == null) {
+				return;
+			}
+			for (ApiCustomParam param : params) {
+				addInstruction(OP_CUSTOM, optional, null, param);
+			}
+		}
+
+	}
+
+}
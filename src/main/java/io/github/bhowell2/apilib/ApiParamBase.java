@@ -120,6 +120,34 @@ public abstract class ApiParamBase<In, Result extends ApiParamBase.Result> imple
 			: null;
 	}
 
+	/*
+	 * A primitive class is never an instance of anything, but the values in the
+	 * map would be of its wrapper class.
+	 * */
+	static Class<?> wrapperType(Class<?> paramType) {
+		if (!paramType.isPrimitive()) {
+			return paramType;
+		} else if (paramType == int.class) {
+			return Integer.class;
+		} else if (paramType == long.class) {
+			return Long.class;
+		} else if (paramType == double.class) {
+			return Double.class;
+		} else if (paramType == boolean.class) {
+			return Boolean.class;
+		} else if (paramType == float.class) {
+			return Float.class;
+		} else if (paramType == short.class) {
+			return Short.class;
+		} else if (paramType == byte.class) {
+			return Byte.class;
+		} else if (paramType == char.class) {
+			return Character.class;
+		}
+		// void.class
+		return null;
+	}
+
 	protected ApiParamBase(Builder<?, ?> builder) {
 		this.keyName = builder.keyName;
 		this.displayName = builder.displayName;
@@ -1,14 +1,18 @@
 package io.github.bhowell2.apilib;
 
 import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.FusedStringCheck;
 import io.github.bhowell2.apilib.errors.ApiParamError;
 import io.github.bhowell2.apilib.formatters.Formatter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Used to check a single parameter. The value of the parameter is retrieved from the map
@@ -49,14 +53,20 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 	 * displayName defaults to null
 	 * invalidErrorMessage defaults to null
 	 *
+	 * The parameter's value (after it has been formatted, if there are formatters)
+	 * must be an instance of the param type or the check fails with
+	 * {@link io.github.bhowell2.apilib.errors.ApiErrorType#CASTING_ERROR} before
+	 * any check is run.
+	 *
 	 * @param keyName name used to retrieve the parameter from a Map. cannot be null.
-	 * @param paramType allows for providing the param type as a parameter rather than
-	 *                  parameterizing the method call or casting.
+	 * @param paramType the type of the parameter. this also allows for providing the
+	 *                  param type as a parameter rather than parameterizing the method
+	 *                  call or casting.
 	 * @param <Param> the parameter's type (will be the Class provided as parameter)
 	 * @return a builder for the parameter
 	 */
 	public static <Param> Builder<Param> builder(String keyName, Class<Param> paramType) {
-		return builder(keyName);
+		return new Builder<>(keyName, paramType);
 	}
 
 	/**
@@ -96,6 +106,14 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 
 	final Formatter<? super Object, ? super Object>[] formatters;
 	final Check<Param>[] checks;
+	// null if the type was not provided, in which case a wrong type is only found when a check fails to cast
+	final Class<?> paramType;
+	// results are immutable, so every successful (or missing/wrong type) check can return the same one
+	private final Result successResult, missingResult, castResult;
+	// null if the checks are run in the order they were added. the nodes are the indices of the checks
+	final AdaptiveOrder adaptiveOrder;
+	// the profile name that was set, rather than defaulted to the key name
+	final String adaptiveProfileName;
 
 	public static class Builder<Param> extends ApiParamBase.Builder<
 		ApiSingleParam<Param>,
@@ -104,6 +122,11 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 
 		private List<Check<Param>> checks;
 		private List<Formatter<?,?>> formatters;
+		private Class<?> paramType;
+		private AdaptiveOrdering adaptiveOrdering;
+		private String adaptiveProfileName;
+		private Set<Check<Param>> pinnedChecks = Collections.newSetFromMap(new IdentityHashMap<>());
+		private Map<Check<Param>, Integer> checkPriorities = new IdentityHashMap<>();
 
 		public Builder(String keyName) {
 			super(keyName);
@@ -112,13 +135,36 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 			this.formatters = new ArrayList<>();
 		}
 
+		/**
+		 * @param keyName name used to retrieve the parameter from a Map. cannot be null.
+		 * @param paramType the type the parameter must be an instance of (after formatting)
+		 */
+		public Builder(String keyName, Class<Param> paramType) {
+			this(keyName);
+			Objects.requireNonNull(paramType, "paramType for ApiSingleParam cannot be null.");
+			this.paramType = wrapperType(paramType);
+		}
+
 		public Builder(String keyName, ApiSingleParam<Param> copyFrom) {
 			this(keyName);
-			// checks can never be null or empty
-			this.checks = new ArrayList<>(Arrays.asList(copyFrom.checks));
+			this.paramType = copyFrom.paramType;
+			// checks can never be null or empty. the fused checks are fused again when built
+			this.checks = FusedStringCheck.unfuse(Arrays.asList(copyFrom.checks));
 			this.formatters = arrayIsNotNullOrEmpty(copyFrom.formatters)
 				? new ArrayList<>(Arrays.asList(copyFrom.formatters))
 				: new ArrayList<>();
+			if (copyFrom.adaptiveOrder != null) {
+				this.adaptiveOrdering = copyFrom.adaptiveOrder.ordering;
+				this.adaptiveProfileName = copyFrom.adaptiveProfileName;
+				for (int i = 0; i < copyFrom.checks.length; i++) {
+					if (copyFrom.adaptiveOrder.pinned[i]) {
+						this.pinnedChecks.add(copyFrom.checks[i]);
+					}
+					if (copyFrom.adaptiveOrder.priorities[i] != 0) {
+						this.checkPriorities.put(copyFrom.checks[i], copyFrom.adaptiveOrder.priorities[i]);
+					}
+				}
+			}
 		}
 
 		@SafeVarargs
@@ -129,6 +175,62 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 			return this;
 		}
 
+		/**
+		 * Adds checks that are always run first (in the order they are added) when the
+		 * checks are reordered (see {@link #setAdaptiveOrdering(AdaptiveOrdering)}).
+		 * Otherwise these are the same as {@link #addChecks(Check[])}.
+		 */
+		@SafeVarargs
+		@SuppressWarnings("varargs")
+		public final Builder<Param> addPinnedChecks(Check<Param>... checks) {
+			addChecks(checks);
+			this.pinnedChecks.addAll(Arrays.asList(checks));
+			return this;
+		}
+
+		/**
+		 * Sets the priority of an added check when the checks are reordered (see
+		 * {@link #setAdaptiveOrdering(AdaptiveOrdering)}). Checks with a higher priority
+		 * are always run before checks with a lower priority, regardless of their cost
+		 * or failure rate. Defaults to 0.
+		 *
+		 * @param check a check that has been (or will be) added
+		 * @param priority the check's priority
+		 * @return this builder
+		 */
+		public Builder<Param> setCheckPriority(Check<Param> check, int priority) {
+			if (check == null) {
+				throw new IllegalArgumentException("Check cannot be null.");
+			}
+			this.checkPriorities.put(check, priority);
+			return this;
+		}
+
+		/**
+		 * Set the ordering that learns in which order to run the checks (see
+		 * {@link AdaptiveOrdering}). The profile name is the key name.
+		 *
+		 * @param adaptiveOrdering the ordering. null to run the checks in the order they were added
+		 * @return this builder
+		 */
+		public Builder<Param> setAdaptiveOrdering(AdaptiveOrdering adaptiveOrdering) {
+			return setAdaptiveOrdering(adaptiveOrdering, null);
+		}
+
+		/**
+		 * Same as {@link #setAdaptiveOrdering(AdaptiveOrdering)}, with the name of the
+		 * parameter's statistics in the ordering's profile.
+		 *
+		 * @param adaptiveOrdering the ordering. null to run the checks in the order they were added
+		 * @param profileName the profile name. null to use the key name
+		 * @return this builder
+		 */
+		public Builder<Param> setAdaptiveOrdering(AdaptiveOrdering adaptiveOrdering, String profileName) {
+			this.adaptiveOrdering = adaptiveOrdering;
+			this.adaptiveProfileName = profileName;
+			return this;
+		}
+
 		/**
 		 * Formatters are applied in the order they are added, so if a later formatter
 		 * depends on the parameter being of a different type then it must come after
@@ -157,6 +259,12 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 					                           + "has been provided for this case and Check.alwaysFail() has been "
 					                           + "provided if the parameter check should always fail.");
 			}
+			Set<Check<Param>> addedChecks = Collections.newSetFromMap(new IdentityHashMap<>());
+			addedChecks.addAll(checks);
+			if (!addedChecks.containsAll(this.checkPriorities.keySet())) {
+				throw new IllegalArgumentException("A priority was set for a check that was not added to parameter "
+					                                   + "(key name) '" + keyName + "'.");
+			}
 			return new ApiSingleParam<>(this);
 		}
 
@@ -166,28 +274,82 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 	@SuppressWarnings("unchecked")
 	private ApiSingleParam(Builder<Param> builder) {
 		super(builder);
-		this.checks = builder.checks.toArray(new Check[0]);
+		/*
+		 * Consecutive string checks of the library are fused so the string is scanned once
+		 * for all of them (see FusedStringCheck), unless the checks are reordered, in which
+		 * case each check needs to be run (and measured) separately.
+		 * */
+		this.checks = builder.adaptiveOrdering == null
+			? FusedStringCheck.fuse(builder.checks).toArray(new Check[0])
+			: builder.checks.toArray(new Check[0]);
 		this.formatters = listIsNotNullOrEmpty(builder.formatters)
 			? builder.formatters.toArray(new Formatter[0])
 			: null;
+		this.paramType = builder.paramType;
+		this.successResult = Result.success(this.keyName);
+		this.missingResult = Result.failure(ApiParamError.missing(this));
+		this.castResult = Result.failure(ApiParamError.cast(this, null));
+		this.adaptiveProfileName = builder.adaptiveProfileName;
+		if (builder.adaptiveOrdering != null) {
+			String[] nodeNames = new String[this.checks.length];
+			boolean[] pinned = new boolean[this.checks.length];
+			int[] priorities = new int[this.checks.length];
+			for (int i = 0; i < this.checks.length; i++) {
+				nodeNames[i] = Integer.toString(i);
+				pinned[i] = builder.pinnedChecks.contains(this.checks[i]);
+				Integer priority = builder.checkPriorities.get(this.checks[i]);
+				priorities[i] = priority != null ? priority : 0;
+			}
+			this.adaptiveOrder = new AdaptiveOrder(builder.adaptiveOrdering,
+			                                       builder.adaptiveProfileName != null
+				                                       ? builder.adaptiveProfileName
+				                                       : this.keyName,
+			                                       nodeNames,
+			                                       new int[]{this.checks.length},
+			                                       pinned,
+			                                       priorities);
+		} else {
+			this.adaptiveOrder = null;
+		}
 	}
 
-	private Result returnInvalidErrorMessage(String errMsg) {
+	/**
+	 * @return null if the (formatted and non-null) value is of the parameter's type
+	 * (or the type was not provided), otherwise the casting error
+	 */
+	ApiParamError typeError(Object value) {
+		return this.paramType == null || this.paramType.isInstance(value) ? null : this.castResult.error;
+	}
+
+	ApiParamError invalidError(String errMsg) {
 		// if invalid error message is set it overrides all other error messages
 		if (this.invalidErrorMessage != null) {
-			return Result.failure(ApiParamError.invalid(this, this.invalidErrorMessage));
+			return ApiParamError.invalid(this, this.invalidErrorMessage);
 		} else {
 			return errMsg == null
 				?
-				Result.failure(ApiParamError.invalid(this))
+				ApiParamError.invalid(this)
 				:
-				Result.failure(ApiParamError.invalid(this, errMsg));
+				ApiParamError.invalid(this, errMsg);
 		}
 	}
 
+	private Result returnInvalidErrorMessage(String errMsg) {
+		return Result.failure(invalidError(errMsg));
+	}
+
 	@Override
-	@SuppressWarnings("unchecked")
 	public Result check(Map<String, Object> params) {
+		return check(params, true);
+	}
+
+	/**
+	 * @param putFormattedValue whether the formatted value is put back into the map
+	 *                          or returned in {@link Result#formattedValue} (in which
+	 *                          case the map is never modified)
+	 */
+	@SuppressWarnings("unchecked")
+	Result check(Map<String, Object> params, boolean putFormattedValue) {
 		try {
 			/*
 			 * Due to type erasure this is really just (Object) here. Will not see any casting issues until param is
@@ -198,13 +360,13 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 				if (params.containsKey(this.keyName)) {
 					// was SET to null, not just null because it was not set at all
 					if (canBeNull) {
-						return Result.success(this.keyName);
+						return this.successResult;
 					} else {
 						return returnInvalidErrorMessage(ApiLibSettings.DEFAULT_CANNOT_BE_NULL_MESSAGE);
 					}
 				} else {
 					// param is null, but was not SET to null. therefore it is missing.
-					return Result.failure(ApiParamError.missing(this));
+					return this.missingResult;
 				}
 			}
 
@@ -239,24 +401,42 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 			 * */
 			if (param == null) {
 				if (canBeNull) {
-					return Result.success(this.keyName);
+					return this.successResult;
 				} else {
 					return returnInvalidErrorMessage(ApiLibSettings.DEFAULT_CANNOT_BE_NULL_MESSAGE);
 				}
 			}
 
-			for (Check<Param> check : checks) {
-				Check.Result checkResult = check.check(param);
-				if (checkResult.failed()) {
-					return returnInvalidErrorMessage(checkResult.failureMessage);
+			/*
+			 * Checking the type here avoids relying on a check throwing a ClassCastException,
+			 * which is expensive (and causes the JIT to give up on inlining the check).
+			 * */
+			if (this.paramType != null && !this.paramType.isInstance(param)) {
+				return this.castResult;
+			}
+
+			if (this.adaptiveOrder != null) {
+				Check.Result checkResult = runChecksInAdaptiveOrder(param);
+				if (checkResult != null) {
+					return returnInvalidErrorMessage(checkResult.failureMessage());
+				}
+			} else {
+				for (Check<Param> check : checks) {
+					Check.Result checkResult = check.check(param);
+					if (checkResult.failed()) {
+						return returnInvalidErrorMessage(checkResult.failureMessage());
+					}
 				}
 			}
 
 			// parameter was formatted in some way and successfully passed all checks. put back in map for user to access later
 			if (formatted) {
+				if (!putFormattedValue) {
+					return Result.success(this.keyName, param);
+				}
 				params.put(this.keyName, param);
 			}
-			return Result.success(this.keyName);
+			return this.successResult;
 		} catch (ClassCastException e) {
 			return Result.failure(ApiParamError.cast(this, e));
 		} catch (Exception e) {
@@ -264,6 +444,37 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 		}
 	}
 
+	/**
+	 * Runs the checks in the order learned by {@link #adaptiveOrder}, measuring them if
+	 * this check is sampled.
+	 * @return the result of the first check that failed, or null
+	 */
+	private Check.Result runChecksInAdaptiveOrder(Param param) {
+		int[] order = this.adaptiveOrder.order();
+		if (!this.adaptiveOrder.sample()) {
+			for (int i = 0; i < order.length; i++) {
+				Check.Result checkResult = this.checks[order[i]].check(param);
+				if (checkResult.failed()) {
+					return checkResult;
+				}
+			}
+			return null;
+		}
+		try {
+			for (int i = 0; i < order.length; i++) {
+				long start = System.nanoTime();
+				Check.Result checkResult = this.checks[order[i]].check(param);
+				this.adaptiveOrder.record(order[i], System.nanoTime() - start, checkResult.failed());
+				if (checkResult.failed()) {
+					return checkResult;
+				}
+			}
+			return null;
+		} finally {
+			this.adaptiveOrder.sampled();
+		}
+	}
+
 	/**
 	 * Copies all settings (checks, formatters, and canBeNull) from this ApiSingleParam
 	 * and overwrites the keyName and displayName.
@@ -281,18 +492,39 @@ public class ApiSingleParam<Param> extends ApiParamBase<Map<String, Object>, Api
 	 */
 	public static class Result extends ApiParamBase.Result {
 
+		/**
+		 * The value of the parameter after it was formatted, when the formatted value
+		 * was not put back into the checked map (see
+		 * {@link ApiMapParam.Builder#setFormattedValueOverlay(boolean)}). Otherwise null.
+		 */
+		public final Object formattedValue;
+
 		public Result(String keyName) {
+			this(keyName, null);
+		}
+
+		public Result(String keyName, Object formattedValue) {
 			super(keyName);
+			this.formattedValue = formattedValue;
 		}
 
 		public Result(ApiParamError error) {
 			super(error);
+			this.formattedValue = null;
+		}
+
+		public boolean hasFormattedValue() {
+			return this.formattedValue != null;
 		}
 
 		public static Result success(String keyName) {
 			return new Result(keyName);
 		}
 
+		public static Result success(String keyName, Object formattedValue) {
+			return new Result(keyName, formattedValue);
+		}
+
 		public static Result failure(ApiParamError error) {
 			return new Result(error);
 		}
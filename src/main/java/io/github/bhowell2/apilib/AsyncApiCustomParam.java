@@ -0,0 +1,50 @@
+package io.github.bhowell2.apilib;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link ApiCustomParam} that completes asynchronously. This is for checks
+ * that are I/O-bound (e.g., checking that a value is unique or references an
+ * existing row in a database), which would otherwise block the calling thread
+ * for each round trip and be run one after the other.
+ *
+ * Asynchronous custom parameters are only started after all of the synchronous
+ * parameters and conditional checks of the {@link ApiMapParam} have passed, and
+ * then run concurrently (up to {@link ApiMapParam.Builder#setAsyncConcurrencyLimit(int)}).
+ * See {@link ApiMapParam#checkAsync(Map)}. The result is the same as a
+ * synchronous {@link ApiCustomParam}'s, and is merged into the map's result in the
+ * same way.
+ *
+ * The future should not be completed exceptionally for an invalid parameter, but
+ * with {@link ApiCustomParam.Result#failure(io.github.bhowell2.apilib.errors.ApiParamError)}.
+ * If it is completed exceptionally (or this throws), the error is considered to be
+ * with the map that the parameter belongs to.
+ *
+ * @author Blake Howell
+ */
+@FunctionalInterface
+public interface AsyncApiCustomParam {
+
+	/**
+	 * @param params the map being checked (with the formatted values, if they are
+	 *               overlaid. see {@link ApiMapParam.Builder#setFormattedValueOverlay(boolean)})
+	 * @return a future completed with the result of the check
+	 */
+	CompletableFuture<ApiCustomParam.Result> checkAsync(Map<String, Object> params);
+
+	/**
+	 * Called instead of {@link #checkAsync(Map)} by the map, with the deadline of the
+	 * check (see {@link ApiMapParam#checkWithDeadline(Map, Deadline)}). Override this to use the
+	 * remaining time (e.g., as the timeout of a query). The map does not wait for the
+	 * future past the deadline and cancels it.
+	 *
+	 * @param params the map being checked
+	 * @param deadline the deadline of the check or null if it does not have one
+	 * @return a future completed with the result of the check
+	 */
+	default CompletableFuture<ApiCustomParam.Result> checkAsync(Map<String, Object> params, Deadline deadline) {
+		return checkAsync(params);
+	}
+
+}
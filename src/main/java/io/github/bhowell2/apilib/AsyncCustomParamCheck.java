@@ -0,0 +1,258 @@
+package io.github.bhowell2.apilib;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs the {@link AsyncApiCustomParam}s of an {@link ApiMapParam} once its
+ * synchronous checks have passed and merges their results into the map's result.
+ *
+ * The parameters are started in order (required, then optional), each when the
+ * map's {@link Limiter} allows. As with the synchronous custom parameters the
+ * error of the first parameter (in that order) that fails the map is returned,
+ * so the result does not depend on which check completes first. Once a parameter
+ * has failed, the parameters after it are not started and the futures of those
+ * that have started are cancelled. They are also cancelled if the returned future
+ * is cancelled (e.g., when the {@link Deadline} of the check has passed).
+ *
+ * @author Blake Howell
+ */
+final class AsyncCustomParamCheck {
+
+	private final ApiMapParam mapParam;
+	private final Map<String, Object> params;
+	private final ApiMapParam.Result syncResult;
+	// the deadline of the check that started the parameters (may be null)
+	private final Deadline deadline;
+	private final AsyncApiCustomParam[] asyncParams;
+	private final CompletableFuture<ApiCustomParam.Result>[] futures;
+	private final ApiCustomParam.Result[] results;
+	private final Throwable[] exceptions;
+	private final boolean[] completed;
+	private final CompletableFuture<ApiMapParam.Result> result = new CompletableFuture<>();
+	// guarded by this. the first index that fails the map
+	private int failedIndex;
+	private boolean done;
+
+	@SuppressWarnings("unchecked")
+	private AsyncCustomParamCheck(ApiMapParam mapParam, Map<String, Object> params, ApiMapParam.Result syncResult) {
+		this.mapParam = mapParam;
+		this.params = params;
+		this.syncResult = syncResult;
+		this.deadline = Deadline.current();
+		this.asyncParams = mapParam.asyncCustomParams;
+		this.futures = new CompletableFuture[this.asyncParams.length];
+		this.results = new ApiCustomParam.Result[this.asyncParams.length];
+		this.exceptions = new Throwable[this.asyncParams.length];
+		this.completed = new boolean[this.asyncParams.length];
+		this.failedIndex = this.asyncParams.length;
+	}
+
+	/**
+	 * @param mapParamToCheck the map that was checked (not the map containing it)
+	 * @param syncResult the successful result of the synchronous checks
+	 * @return a future that is always completed normally, with the failed result if
+	 * a parameter failed
+	 */
+	static CompletableFuture<ApiMapParam.Result> check(ApiMapParam mapParam,
+	                                                   Map<String, Object> mapParamToCheck,
+	                                                   ApiMapParam.Result syncResult) {
+		AsyncCustomParamCheck check =
+			new AsyncCustomParamCheck(mapParam,
+			                          syncResult.hasFormattedValues()
+				                          ? syncResult.withFormattedValues(mapParamToCheck)
+				                          : mapParamToCheck,
+			                          syncResult);
+		check.result.whenComplete((mapResult, exception) -> {
+			if (check.result.isCancelled()) {
+				check.cancel();
+			}
+		});
+		for (int i = 0; i < check.asyncParams.length; i++) {
+			int index = i;
+			mapParam.asyncLimiter.run(() -> check.start(index));
+		}
+		return check.result;
+	}
+
+	private void start(int index) {
+		synchronized (this) {
+			if (index > this.failedIndex) {
+				this.mapParam.asyncLimiter.release();
+				return;
+			}
+		}
+		CompletableFuture<ApiCustomParam.Result> future;
+		try {
+			future = this.asyncParams[index].checkAsync(this.params, this.deadline);
+			if (future == null) {
+				throw new NullPointerException("AsyncApiCustomParam returned a null future.");
+			}
+		} catch (Exception e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		synchronized (this) {
+			this.futures[index] = future;
+		}
+		// completed before releasing, so that a failure is known before the next parameter starts
+		future.whenComplete((checkResult, exception) -> {
+			try {
+				complete(index, checkResult, exception);
+			} finally {
+				this.mapParam.asyncLimiter.release();
+			}
+		});
+	}
+
+	private boolean failsMap(int index, ApiCustomParam.Result checkResult, Throwable exception) {
+		if (exception != null) {
+			return true;
+		}
+		return checkResult.failed()
+			&& (index < this.mapParam.requiredAsyncCustomParamCount
+			|| !this.mapParam.skipsOptionalFailure(checkResult.error));
+	}
+
+	private void complete(int index, ApiCustomParam.Result checkResult, Throwable exception) {
+		ApiMapParam.Result mapResult = null;
+		CompletableFuture<ApiCustomParam.Result>[] toCancel = null;
+		synchronized (this) {
+			if (this.done) {
+				return;
+			}
+			this.results[index] = checkResult;
+			this.exceptions[index] = exception;
+			this.completed[index] = true;
+			if (index < this.failedIndex && failsMap(index, checkResult, exception)) {
+				this.failedIndex = index;
+				toCancel = this.futures.clone();
+			}
+			// done once every parameter up to the failed one (or all of them) has completed
+			boolean allCompleted = true;
+			for (int i = 0; i < Math.min(this.failedIndex + 1, this.completed.length) && allCompleted; i++) {
+				allCompleted = this.completed[i];
+			}
+			if (allCompleted) {
+				this.done = true;
+				try {
+					mapResult = createResult();
+				} catch (Exception e) {
+					mapResult = this.mapParam.returnFailedCheckResult(this.mapParam, e);
+				}
+			}
+		}
+		/*
+		 * Cancelled outside of the lock, since cancelling completes the future (and
+		 * calls this) on the current thread.
+		 * */
+		if (toCancel != null) {
+			for (int i = index + 1; i < toCancel.length; i++) {
+				if (toCancel[i] != null) {
+					toCancel[i].cancel(false);
+				}
+			}
+		}
+		if (mapResult != null) {
+			this.result.complete(mapResult);
+		}
+	}
+
+	/**
+	 * The returned future was cancelled, so the parameters that have not been started
+	 * are not started and the futures of those that have are cancelled.
+	 */
+	private void cancel() {
+		CompletableFuture<ApiCustomParam.Result>[] toCancel;
+		synchronized (this) {
+			this.done = true;
+			this.failedIndex = -1;
+			toCancel = this.futures.clone();
+		}
+		for (CompletableFuture<ApiCustomParam.Result> future : toCancel) {
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	private ApiMapParam.Result createResult() {
+		if (this.failedIndex < this.results.length) {
+			Throwable exception = this.exceptions[this.failedIndex];
+			if (exception != null) {
+				if (exception instanceof CompletionException && exception.getCause() != null) {
+					exception = exception.getCause();
+				}
+				// custom parameters do not have names, so error is considered to be with the map itself
+				return this.mapParam.returnFailedCheckResult(this.mapParam,
+				                                             exception instanceof Exception
+					                                             ? (Exception) exception
+					                                             : new CompletionException(exception));
+			}
+			return this.mapParam.returnFailedCheckResult(this.results[this.failedIndex].error);
+		}
+		MapResultAccumulator accumulator = null;
+		for (ApiCustomParam.Result checkResult : this.results) {
+			if (checkResult.failed()) {
+				// skipped optional parameter
+				continue;
+			}
+			if (accumulator == null) {
+				accumulator = new MapResultAccumulator(this.mapParam.resultLayout);
+				accumulator.addResult(this.syncResult);
+			}
+			accumulator.addCustomResult(checkResult);
+		}
+		return accumulator != null ? accumulator.toResult(this.mapParam.keyName) : this.syncResult;
+	}
+
+	/**
+	 * Limits the number of asynchronous custom parameters of an {@link ApiMapParam}
+	 * that are running at once, across all of its checks. A parameter that cannot
+	 * be started is queued and started when a running parameter completes.
+	 */
+	static final class Limiter {
+
+		private final int limit;
+		private final ArrayDeque<Runnable> queued = new ArrayDeque<>();
+		private int running;
+
+		Limiter(int limit) {
+			this.limit = limit;
+		}
+
+		int limit() {
+			return this.limit;
+		}
+
+		void run(Runnable start) {
+			synchronized (this) {
+				if (this.running >= this.limit) {
+					this.queued.add(start);
+					return;
+				}
+				this.running++;
+			}
+			start.run();
+		}
+
+		/**
+		 * Called when a started parameter has completed (or was skipped).
+		 */
+		void release() {
+			Runnable next;
+			synchronized (this) {
+				next = this.queued.poll();
+				if (next == null) {
+					this.running--;
+					return;
+				}
+			}
+			// the slot is handed to the next parameter
+			next.run();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package io.github.bhowell2.apilib;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks many maps with an {@link ApiMapParam}'s plan (see {@link ApiMapParam#checkAll(List)}).
+ *
+ * When checking in parallel the maps are split into contiguous chunks (a few per
+ * thread of the executor, so that a chunk of slow maps does not hold up the batch),
+ * which each write their results into their range of one array. The first chunk
+ * is checked on the calling thread.
+ *
+ * @author Blake Howell
+ */
+final class BatchCheck {
+
+	// fewer maps than this are not worth handing to another thread
+	static final int MIN_CHUNK_SIZE = 16;
+	static final int CHUNKS_PER_THREAD = 4;
+
+	private BatchCheck() {}
+
+	static ApiMapParam.BatchResult check(ApiMapParamPlan plan, Iterator<? extends Map<String, Object>> paramsIterator) {
+		List<ApiMapParam.Result> results = new ArrayList<>();
+		while (paramsIterator.hasNext()) {
+			results.add(plan.check(paramsIterator.next()));
+		}
+		return new ApiMapParam.BatchResult(results.toArray(new ApiMapParam.Result[0]));
+	}
+
+	static ApiMapParam.BatchResult check(ApiMapParamPlan plan,
+	                                     List<? extends Map<String, Object>> paramsList,
+	                                     Executor executor) {
+		if (!(paramsList instanceof RandomAccess)) {
+			paramsList = new ArrayList<>(paramsList);
+		}
+		ApiMapParam.Result[] results = new ApiMapParam.Result[paramsList.size()];
+		int parallelism = executor instanceof ForkJoinPool
+			? ((ForkJoinPool) executor).getParallelism()
+			: Runtime.getRuntime().availableProcessors();
+		int chunkCount = Math.min(results.length / MIN_CHUNK_SIZE, parallelism * CHUNKS_PER_THREAD);
+		if (chunkCount <= 1) {
+			checkRange(plan, paramsList, 0, results.length, results);
+			return new ApiMapParam.BatchResult(results);
+		}
+		List<? extends Map<String, Object>> list = paramsList;
+		CompletableFuture<?>[] futures = new CompletableFuture[chunkCount - 1];
+		for (int chunk = 1; chunk < chunkCount; chunk++) {
+			int from = chunkFrom(chunk, chunkCount, results.length);
+			int to = chunkFrom(chunk + 1, chunkCount, results.length);
+			futures[chunk - 1] = CompletableFuture.runAsync(() -> checkRange(plan, list, from, to, results), executor);
+		}
+		checkRange(plan, list, 0, chunkFrom(1, chunkCount, results.length), results);
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			// the plan returns exceptions as results, so only an error thrown by a check ends up here
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		return new ApiMapParam.BatchResult(results);
+	}
+
+	private static int chunkFrom(int chunk, int chunkCount, int length) {
+		return (int) ((long) chunk * length / chunkCount);
+	}
+
+	private static void checkRange(ApiMapParamPlan plan,
+	                               List<? extends Map<String, Object>> paramsList,
+	                               int from,
+	                               int to,
+	                               ApiMapParam.Result[] results) {
+		for (int i = from; i < to; i++) {
+			results[i] = plan.check(paramsList.get(i));
+		}
+	}
+
+}
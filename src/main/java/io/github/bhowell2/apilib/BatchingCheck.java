@@ -0,0 +1,360 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Batches the lookups of I/O-bound checks across concurrent calls. This is for
+ * checks that each look up a single key (e.g., "does user X exist") from a backend
+ * that can look up many keys at once (e.g., {@code WHERE id IN (...)}).
+ *
+ * The keys requested with {@link #load(Object)} (or {@link #get(Object)}) are
+ * collected until the batch window has elapsed since the first key of the batch was
+ * requested, or until the batch has reached the maximum batch size, and are then
+ * resolved with a single call to the batch function. Each caller's future is
+ * completed with the value that was returned for its key (or null if the key was
+ * not returned). A key that is requested more than once while the batch is being
+ * collected is only looked up once. Values are not cached once their batch has been
+ * resolved.
+ *
+ * This can be used in {@link ApiCustomParam}s and {@link ApiMapParamConditionalCheck}s
+ * (with {@link #get(Object)}, which blocks), {@link AsyncApiCustomParam}s (with
+ * {@link #load(Object)}), or as the check of an {@link ApiSingleParam} (with
+ * {@link #toCheck(Function)}). It is thread-safe and should be shared by all checks.
+ *
+ * E.g.,
+ * <pre>
+ * {@code
+ *  BatchingCheck<Integer, Boolean> userExists =
+ *    BatchingCheck.<Integer, Boolean>builder(ids -> database.findExistingUserIds(ids))
+ *                 .setBatchWindow(2, TimeUnit.MILLISECONDS)
+ *                 .setMaxBatchSize(500)
+ *                 .build();
+ *  ApiSingleParam<Integer> userId =
+ *    ApiSingleParam.builder("user_id", Integer.class)
+ *                  .addChecks(userExists.toCheck(exists -> exists != null
+ *                                                          ? Check.Result.success()
+ *                                                          : Check.Result.failure("User does not exist.")))
+ *                  .build();
+ * }
+ * </pre>
+ *
+ * @param <K> the key that is looked up
+ * @param <V> the value that the key is resolved to
+ * @author Blake Howell
+ */
+public final class BatchingCheck<K, V> {
+
+	/*
+	 * Daemon threads, so that they do not keep the application from exiting. The
+	 * scheduler only dispatches batches, so one thread suffices.
+	 * */
+	private static final ScheduledExecutorService DEFAULT_SCHEDULER = createDefaultScheduler();
+
+	private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "apilib-batching-check");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static ScheduledExecutorService createDefaultScheduler() {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "apilib-batching-check-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// batches dispatched by size cancel their scheduled dispatch
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	public static final long DEFAULT_BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Creates a builder for a batch function that blocks. The batch function is
+	 * called on the {@link Builder#setExecutor(Executor)}.
+	 *
+	 * @param batchFunction returns the values of the keys (keys that are not in the
+	 *                      returned map are resolved to null)
+	 */
+	public static <K, V> Builder<K, V> builder(Function<Set<K>, Map<K, V>> batchFunction) {
+		if (batchFunction == null) {
+			throw new IllegalArgumentException("Batch function cannot be null.");
+		}
+		return new Builder<>(null, batchFunction);
+	}
+
+	/**
+	 * Creates a builder for a batch function that completes asynchronously (e.g.,
+	 * with an asynchronous database driver). The batch function is called on the
+	 * thread that dispatches the batch, so it should not block.
+	 *
+	 * @param batchFunction returns a future completed with the values of the keys
+	 *                      (keys that are not in the returned map are resolved to null)
+	 */
+	public static <K, V> Builder<K, V> asyncBuilder(Function<Set<K>, CompletableFuture<Map<K, V>>> batchFunction) {
+		if (batchFunction == null) {
+			throw new IllegalArgumentException("Batch function cannot be null.");
+		}
+		return new Builder<>(batchFunction, null);
+	}
+
+	final Function<Set<K>, CompletableFuture<Map<K, V>>> asyncBatchFunction;
+	final Function<Set<K>, Map<K, V>> batchFunction;
+	final long batchWindowNanos;
+	final int maxBatchSize;
+	final ScheduledExecutorService scheduler;
+	final Executor executor;
+
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder batchCount = new LongAdder();
+	private final LongAdder batchedKeyCount = new LongAdder();
+
+	// guarded by this. the batch that keys are currently being added to
+	private Batch<K, V> collecting;
+
+	private BatchingCheck(Builder<K, V> builder) {
+		this.asyncBatchFunction = builder.asyncBatchFunction;
+		this.batchFunction = builder.batchFunction;
+		this.batchWindowNanos = builder.batchWindowNanos;
+		this.maxBatchSize = builder.maxBatchSize;
+		this.scheduler = builder.scheduler;
+		this.executor = builder.executor;
+	}
+
+	/**
+	 * Adds the key to the batch that is being collected.
+	 *
+	 * @param key the key to look up
+	 * @return a future completed with the key's value once its batch is resolved, or
+	 * exceptionally if the batch function failed
+	 */
+	public CompletableFuture<V> load(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("Key cannot be null.");
+		}
+		this.requestCount.increment();
+		CompletableFuture<V> future;
+		Batch<K, V> fullBatch = null;
+		synchronized (this) {
+			Batch<K, V> batch = this.collecting;
+			if (batch == null) {
+				batch = new Batch<>();
+				this.collecting = batch;
+				Batch<K, V> scheduledBatch = batch;
+				batch.scheduledDispatch =
+					this.scheduler.schedule(() -> dispatchIfCollecting(scheduledBatch),
+					                        this.batchWindowNanos,
+					                        TimeUnit.NANOSECONDS);
+			}
+			future = batch.futures.get(key);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				batch.futures.put(key, future);
+				if (batch.futures.size() >= this.maxBatchSize) {
+					this.collecting = null;
+					fullBatch = batch;
+				}
+			}
+		}
+		if (fullBatch != null) {
+			fullBatch.scheduledDispatch.cancel(false);
+			dispatch(fullBatch);
+		}
+		return future;
+	}
+
+	/**
+	 * Adds the key to the batch that is being collected and waits for the batch
+	 * to be resolved. If the batch function failed, its exception is rethrown (as
+	 * a {@link CompletionException} if it is checked).
+	 *
+	 * @param key the key to look up
+	 * @return the key's value
+	 */
+	public V get(K key) {
+		try {
+			return load(key).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a check that looks up the parameter with {@link #get(Object)}.
+	 *
+	 * @param resultFunction creates the check's result from the parameter's value
+	 *                       (which is null if it was not returned by the batch function)
+	 */
+	public Check<K> toCheck(Function<? super V, Check.Result> resultFunction) {
+		if (resultFunction == null) {
+			throw new IllegalArgumentException("Result function cannot be null.");
+		}
+		return key -> resultFunction.apply(get(key));
+	}
+
+	/**
+	 * @return the number of keys that have been requested (including duplicates)
+	 */
+	public long getRequestCount() {
+		return this.requestCount.sum();
+	}
+
+	/**
+	 * @return the number of times the batch function has been called
+	 */
+	public long getBatchCount() {
+		return this.batchCount.sum();
+	}
+
+	/**
+	 * @return the number of keys that have been passed to the batch function
+	 */
+	public long getBatchedKeyCount() {
+		return this.batchedKeyCount.sum();
+	}
+
+	private void dispatchIfCollecting(Batch<K, V> batch) {
+		synchronized (this) {
+			if (this.collecting != batch) {
+				// already dispatched, because it reached the max batch size
+				return;
+			}
+			this.collecting = null;
+		}
+		dispatch(batch);
+	}
+
+	private void dispatch(Batch<K, V> batch) {
+		this.batchCount.increment();
+		this.batchedKeyCount.add(batch.futures.size());
+		Set<K> keys = Collections.unmodifiableSet(batch.futures.keySet());
+		CompletableFuture<Map<K, V>> values;
+		try {
+			values = this.asyncBatchFunction != null
+				? this.asyncBatchFunction.apply(keys)
+				: CompletableFuture.supplyAsync(() -> this.batchFunction.apply(keys), this.executor);
+			if (values == null) {
+				throw new NullPointerException("Batch function returned a null future.");
+			}
+		} catch (Exception e) {
+			values = new CompletableFuture<>();
+			values.completeExceptionally(e);
+		}
+		values.whenComplete((valueMap, exception) -> {
+			if (exception == null && valueMap == null) {
+				exception = new NullPointerException("Batch function returned null.");
+			}
+			for (Map.Entry<K, CompletableFuture<V>> entry : batch.futures.entrySet()) {
+				if (exception != null) {
+					entry.getValue().completeExceptionally(exception);
+				} else {
+					entry.getValue().complete(valueMap.get(entry.getKey()));
+				}
+			}
+		});
+	}
+
+	/**
+	 * The keys (and their callers' futures) of a batch, in the order they were
+	 * first requested.
+	 */
+	private static final class Batch<K, V> {
+		final LinkedHashMap<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+		ScheduledFuture<?> scheduledDispatch;
+	}
+
+	public static final class Builder<K, V> {
+
+		Function<Set<K>, CompletableFuture<Map<K, V>>> asyncBatchFunction;
+		Function<Set<K>, Map<K, V>> batchFunction;
+		long batchWindowNanos = DEFAULT_BATCH_WINDOW_NANOS;
+		int maxBatchSize = Integer.MAX_VALUE;
+		ScheduledExecutorService scheduler = DEFAULT_SCHEDULER;
+		Executor executor = DEFAULT_EXECUTOR;
+
+		private Builder(Function<Set<K>, CompletableFuture<Map<K, V>>> asyncBatchFunction,
+		                Function<Set<K>, Map<K, V>> batchFunction) {
+			this.asyncBatchFunction = asyncBatchFunction;
+			this.batchFunction = batchFunction;
+		}
+
+		/**
+		 * Sets how long keys are collected, from the first key of a batch, before the
+		 * batch is resolved. A longer window results in fewer (larger) batches, but
+		 * every caller waits up to the window before its key is looked up. Defaults to
+		 * 1 millisecond.
+		 */
+		public Builder<K, V> setBatchWindow(long duration, TimeUnit unit) {
+			if (duration < 0) {
+				throw new IllegalArgumentException("Batch window cannot be negative.");
+			}
+			if (unit == null) {
+				throw new IllegalArgumentException("Time unit cannot be null.");
+			}
+			this.batchWindowNanos = unit.toNanos(duration);
+			return this;
+		}
+
+		/**
+		 * Sets the number of (unique) keys at which a batch is resolved without waiting
+		 * for the rest of the batch window. Defaults to no maximum.
+		 */
+		public Builder<K, V> setMaxBatchSize(int maxBatchSize) {
+			if (maxBatchSize < 1) {
+				throw new IllegalArgumentException("Max batch size must be greater than 0.");
+			}
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		/**
+		 * Sets the scheduler that resolves batches once their window has elapsed.
+		 * Defaults to a single daemon thread that is shared by all batching checks.
+		 */
+		public Builder<K, V> setScheduler(ScheduledExecutorService scheduler) {
+			if (scheduler == null) {
+				throw new IllegalArgumentException("Scheduler cannot be null.");
+			}
+			this.scheduler = scheduler;
+			return this;
+		}
+
+		/**
+		 * Sets the executor that a blocking batch function (see {@link #builder(Function)})
+		 * is called on. Defaults to a cached pool of daemon threads that is shared by all
+		 * batching checks.
+		 */
+		public Builder<K, V> setExecutor(Executor executor) {
+			if (executor == null) {
+				throw new IllegalArgumentException("Executor cannot be null.");
+			}
+			this.executor = executor;
+			return this;
+		}
+
+		public BatchingCheck<K, V> build() {
+			return new BatchingCheck<>(this);
+		}
+
+	}
+
+}
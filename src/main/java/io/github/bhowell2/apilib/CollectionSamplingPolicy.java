@@ -0,0 +1,197 @@
+package io.github.bhowell2.apilib;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which indices of a large collection are fully checked by an {@link ApiCollectionParam}
+ * (see {@link ApiCollectionParam.Builder#setSamplingPolicy(CollectionSamplingPolicy)}).
+ * This is for very large collections from trusted producers (e.g., internal services
+ * that have already validated the values), where checking every index costs more than
+ * it is worth.
+ *
+ * The first {@link Builder#setHeadCount(int)} and the last {@link Builder#setTailCount(int)}
+ * indices are always checked, as is a sample of the indices between them: every
+ * {@link Builder#setStride(int)}-th index or {@link Builder#setRandomSampleCount(int)}
+ * random indices (one from each of that many equal ranges, so the sample is spread
+ * over the whole collection). A collection that is not larger than the indices that
+ * would be checked is checked fully. With {@link Builder#setFullCheckRate(int)} one in
+ * every N checks (chosen at random) checks the collection fully regardless of its size.
+ *
+ * When a collection is sampled the collection checks are still run on the whole
+ * collection and the type of every index is still checked: the index type (see
+ * {@link ApiCollectionParam.Builder#setIndexType(Class)}) when there are index checks,
+ * that every index is a map (or null) when there is an index map check and that every
+ * index is a list or array when there is an inner collection. Only the index checks,
+ * the index map check and the inner collection are sampled. Individual index checks
+ * and individual index map checks, which are for a fixed number of indices, are always
+ * run on every index.
+ *
+ * The results of a sampled collection have the same positions as the collection's
+ * indices, but the results of the indices that were not checked are null. Indices
+ * that are not checked are not formatted either, so sampling should not be used
+ * with maps that format their values when the formatted values are needed.
+ *
+ * @author Blake Howell
+ */
+public final class CollectionSamplingPolicy {
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	final int headCount;
+	final int tailCount;
+	// 0 if not sampling by stride
+	final int stride;
+	// 0 if not sampling at random
+	final int randomSampleCount;
+	// 0 if the collection is never fully checked (unless it is small enough)
+	final int fullCheckRate;
+
+	private CollectionSamplingPolicy(Builder builder) {
+		this.headCount = builder.headCount;
+		this.tailCount = builder.tailCount;
+		this.stride = builder.stride;
+		this.randomSampleCount = builder.randomSampleCount;
+		this.fullCheckRate = builder.fullCheckRate;
+	}
+
+	/**
+	 * @param length the size of the collection
+	 * @return the (ascending) indices to check or null if every index should be checked
+	 */
+	int[] sampleIndices(int length) {
+		if ((long) this.headCount + this.tailCount >= length) {
+			return null;
+		}
+		if (this.fullCheckRate == 1
+			|| (this.fullCheckRate > 1 && ThreadLocalRandom.current().nextInt(this.fullCheckRate) == 0)) {
+			return null;
+		}
+		int middleFrom = this.headCount, middleTo = length - this.tailCount, middleLength = middleTo - middleFrom;
+		int sampleCount = 0;
+		if (this.stride > 0) {
+			sampleCount = (int) (((long) middleLength + this.stride - 1) / this.stride);
+		} else if (this.randomSampleCount > 0) {
+			sampleCount = Math.min(this.randomSampleCount, middleLength);
+		}
+		if (sampleCount == middleLength) {
+			return null;
+		}
+		int[] indices = new int[this.headCount + sampleCount + this.tailCount];
+		int i = 0;
+		for (int index = 0; index < middleFrom; index++) {
+			indices[i++] = index;
+		}
+		if (this.stride > 0) {
+			for (int index = middleFrom; index < middleTo; index += this.stride) {
+				indices[i++] = index;
+			}
+		} else {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int k = 0; k < sampleCount; k++) {
+				int rangeFrom = middleFrom + (int) ((long) k * middleLength / sampleCount);
+				int rangeTo = middleFrom + (int) ((long) (k + 1) * middleLength / sampleCount);
+				indices[i++] = rangeFrom + random.nextInt(rangeTo - rangeFrom);
+			}
+		}
+		for (int index = middleTo; index < length; index++) {
+			indices[i++] = index;
+		}
+		return indices;
+	}
+
+	public static final class Builder {
+
+		private int headCount;
+		private int tailCount;
+		private int stride;
+		private int randomSampleCount;
+		private int fullCheckRate;
+
+		private Builder() {}
+
+		/**
+		 * Set the number of indices at the start of the collection that are always checked.
+		 *
+		 * @param headCount the number of indices
+		 * @return this builder
+		 */
+		public Builder setHeadCount(int headCount) {
+			if (headCount < 0) {
+				throw new IllegalArgumentException("Head count cannot be negative.");
+			}
+			this.headCount = headCount;
+			return this;
+		}
+
+		/**
+		 * Set the number of indices at the end of the collection that are always checked.
+		 *
+		 * @param tailCount the number of indices
+		 * @return this builder
+		 */
+		public Builder setTailCount(int tailCount) {
+			if (tailCount < 0) {
+				throw new IllegalArgumentException("Tail count cannot be negative.");
+			}
+			this.tailCount = tailCount;
+			return this;
+		}
+
+		/**
+		 * Set the stride with which the indices between the head and the tail are
+		 * checked (i.e., the first of them and then every stride-th). Replaces
+		 * {@link #setRandomSampleCount(int)}.
+		 *
+		 * @param stride 1 to check every index
+		 * @return this builder
+		 */
+		public Builder setStride(int stride) {
+			if (stride < 1) {
+				throw new IllegalArgumentException("Stride must be greater than 0.");
+			}
+			this.stride = stride;
+			this.randomSampleCount = 0;
+			return this;
+		}
+
+		/**
+		 * Set the number of random indices between the head and the tail that are
+		 * checked. Replaces {@link #setStride(int)}.
+		 *
+		 * @param randomSampleCount the number of indices. 0 to only check the head and tail
+		 * @return this builder
+		 */
+		public Builder setRandomSampleCount(int randomSampleCount) {
+			if (randomSampleCount < 0) {
+				throw new IllegalArgumentException("Random sample count cannot be negative.");
+			}
+			this.randomSampleCount = randomSampleCount;
+			this.stride = 0;
+			return this;
+		}
+
+		/**
+		 * Set how often the collection is checked fully: one in every fullCheckRate
+		 * checks (chosen at random). E.g., to fully check the collections of 1 in 100
+		 * requests of a telemetry stream.
+		 *
+		 * @param fullCheckRate 0 to never check fully, 1 to always check fully
+		 * @return this builder
+		 */
+		public Builder setFullCheckRate(int fullCheckRate) {
+			if (fullCheckRate < 0) {
+				throw new IllegalArgumentException("Full check rate cannot be negative.");
+			}
+			this.fullCheckRate = fullCheckRate;
+			return this;
+		}
+
+		public CollectionSamplingPolicy build() {
+			return new CollectionSamplingPolicy(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,194 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.DeadlineExceededException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The time by which a check must have completed (see
+ * {@link ApiMapParam#checkWithDeadline(Map, Deadline)}). Checking stops once the deadline
+ * has passed and the check fails with {@link ApiErrorType#TIMEOUT}, so that a single
+ * pathological payload (e.g., a huge collection or a string that makes a regex
+ * backtrack) cannot hold the checking thread for longer than the deadline allows.
+ *
+ * Cancellation is cooperative: the deadline is checked before each parameter of a map
+ * is checked, periodically while checking the indices of a collection and while
+ * scanning the code points of a string or matching a regex in
+ * {@link io.github.bhowell2.apilib.checks.StringChecks}. The deadline of the check
+ * being run on the current thread is returned by {@link #current()}, so custom
+ * parameters and checks can use the remaining time (e.g., as the timeout of a query)
+ * and long running checks can call {@link #checkNotExpired()} themselves.
+ * {@link AsyncApiCustomParam}s receive the deadline with
+ * {@link AsyncApiCustomParam#checkAsync(Map, Deadline)} and the map does not wait for
+ * them past the deadline.
+ *
+ * @author Blake Howell
+ */
+public final class Deadline {
+
+	/**
+	 * The number of chars (or code points) the checks of the library that scan strings
+	 * (e.g., in {@link io.github.bhowell2.apilib.checks.StringChecks}) scan between checks
+	 * of the current deadline: rarely enough not to matter for common strings and often
+	 * enough to stop scanning a huge one soon after the deadline has passed. Custom checks
+	 * that scan strings can poll {@link #checkCurrent()} as often.
+	 */
+	public static final int CHARS_PER_CHECK = 4096;
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+	// the number of threads with a bound deadline, so that the others do not need to look it up
+	private static final AtomicInteger BOUND_THREAD_COUNT = new AtomicInteger();
+
+	/**
+	 * @param duration the time from now until the deadline
+	 * @param unit the unit of the duration
+	 * @return a deadline that has passed once the duration has elapsed
+	 */
+	public static Deadline after(long duration, TimeUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("Deadline duration cannot be negative.");
+		}
+		return new Deadline(System.nanoTime() + unit.toNanos(duration));
+	}
+
+	/**
+	 * @return the deadline of the check running on the current thread or null if
+	 * it does not have one
+	 */
+	public static Deadline current() {
+		return BOUND_THREAD_COUNT.get() == 0 ? null : CURRENT.get();
+	}
+
+	/**
+	 * Checks the deadline of the check running on the current thread, if it has one.
+	 *
+	 * @throws DeadlineExceededException if the deadline has passed
+	 */
+	public static void checkCurrent() {
+		Deadline deadline = current();
+		if (deadline != null) {
+			deadline.checkNotExpired();
+		}
+	}
+
+	/**
+	 * Binds the deadline to the current thread, keeping the current deadline if it
+	 * is earlier (a nested check cannot extend the deadline of the check it is in).
+	 * @param deadline the deadline to bind. if null nothing is bound
+	 * @return the previously bound deadline, to pass to {@link #unbind(Deadline)}
+	 */
+	static Deadline bind(Deadline deadline) {
+		Deadline previous = CURRENT.get();
+		if (deadline == null) {
+			return previous;
+		}
+		if (previous == null) {
+			BOUND_THREAD_COUNT.incrementAndGet();
+			CURRENT.set(deadline);
+		} else if (deadline.nanoTime - previous.nanoTime < 0) {
+			CURRENT.set(deadline);
+		}
+		return previous;
+	}
+
+	/**
+	 * Restores the deadline that was bound before {@link #bind(Deadline)}.
+	 */
+	static void unbind(Deadline previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		} else if (CURRENT.get() != null) {
+			CURRENT.remove();
+			BOUND_THREAD_COUNT.decrementAndGet();
+		}
+	}
+
+	// in System.nanoTime()
+	final long nanoTime;
+
+	private Deadline(long nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * @return the time remaining until the deadline in nanoseconds (0 if it has passed)
+	 */
+	public long remainingNanos() {
+		return Math.max(0, this.nanoTime - System.nanoTime());
+	}
+
+	/**
+	 * @param unit the unit to return the remaining time in
+	 * @return the time remaining until the deadline (0 if it has passed)
+	 */
+	public long remaining(TimeUnit unit) {
+		return unit.convert(remainingNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	public boolean isExpired() {
+		return this.nanoTime - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * @throws DeadlineExceededException if the deadline has passed
+	 */
+	public void checkNotExpired() {
+		if (isExpired()) {
+			throw new DeadlineExceededException();
+		}
+	}
+
+	/**
+	 * Wraps the character sequence so that the deadline is checked (every few thousand
+	 * characters read) while it is being read. This is for code that reads the sequence
+	 * many more times than its length, e.g., a backtracking {@link java.util.regex.Matcher}.
+	 *
+	 * @param charSequence the sequence to wrap
+	 * @return a sequence that throws {@link DeadlineExceededException} from
+	 * {@link CharSequence#charAt(int)} once the deadline has passed
+	 */
+	public CharSequence guard(CharSequence charSequence) {
+		return new DeadlineCharSequence(charSequence, this);
+	}
+
+	private static final class DeadlineCharSequence implements CharSequence {
+
+		private final CharSequence charSequence;
+		private final Deadline deadline;
+		private int readsUntilCheck = CHARS_PER_CHECK;
+
+		private DeadlineCharSequence(CharSequence charSequence, Deadline deadline) {
+			this.charSequence = charSequence;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public int length() {
+			return this.charSequence.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (--this.readsUntilCheck == 0) {
+				this.readsUntilCheck = CHARS_PER_CHECK;
+				this.deadline.checkNotExpired();
+			}
+			return this.charSequence.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new DeadlineCharSequence(this.charSequence.subSequence(start, end), this.deadline);
+		}
+
+		@Override
+		public String toString() {
+			return this.charSequence.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package io.github.bhowell2.apilib;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of a checked map with the formatted values of its
+ * {@link ApiMapParam.Result} in place of the map's values (see
+ * {@link ApiMapParam.Result#withFormattedValues(Map)}). Nested maps that have
+ * formatted values are overlaid with their own result when retrieved.
+ *
+ * Nothing is copied, so the view reflects the checked map (and the result's
+ * formatted values) as they are when the view is read.
+ *
+ * @author Blake Howell
+ */
+final class FormattedValueOverlay extends AbstractMap<String, Object> {
+
+	private final Map<String, Object> params;
+	private final ApiMapParam.Result result;
+
+	FormattedValueOverlay(Map<String, Object> params, ApiMapParam.Result result) {
+		this.params = params;
+		this.result = result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object overlay(Object key, Object value) {
+		if (this.result.formattedValues != null) {
+			Object formattedValue = this.result.formattedValues.get(key);
+			if (formattedValue != null) {
+				return formattedValue;
+			}
+		}
+		if (value instanceof Map && this.result.checkedMapResults != null) {
+			ApiMapParam.Result mapResult = this.result.checkedMapResults.get(key);
+			if (mapResult != null && mapResult.hasFormattedValues()) {
+				return new FormattedValueOverlay((Map<String, Object>) value, mapResult);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public Object get(Object key) {
+		return overlay(key, this.params.get(key));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.params.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return this.params.size();
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public int size() {
+				return params.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				Iterator<Entry<String, Object>> entries = params.entrySet().iterator();
+				return new Iterator<Entry<String, Object>>() {
+					@Override
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						Entry<String, Object> entry = entries.next();
+						return new SimpleImmutableEntry<>(entry.getKey(), overlay(entry.getKey(), entry.getValue()));
+					}
+				};
+			}
+		};
+	}
+
+}
@@ -0,0 +1,158 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import io.github.bhowell2.apilib.formatters.Formatter;
+
+import java.util.Map;
+
+/**
+ * Base class of the classes generated by {@link ApiMapParam#generate()}. The
+ * generated class checks each {@link ApiSingleParam} of an {@link ApiMapParamPlan}
+ * with its own straight-line method: the key name is a constant, known library
+ * checks (see {@link io.github.bhowell2.apilib.checks.LibraryCheck}) are inlined
+ * and every other check is called from its own call site. Everything else (i.e.,
+ * creating errors and running formatters) is done by the methods here, so that
+ * the generated code stays small.
+ *
+ * Generated classes may be defined by a different class loader (on Java 8), so
+ * they only use the public and protected members of this class. This should not
+ * be extended except by the generated classes.
+ *
+ * @author Blake Howell
+ */
+public abstract class GeneratedSingleParamChecks {
+
+	/**
+	 * All checks of the plan's single parameters. Generated code loads the check
+	 * by index for any check that is not inlined.
+	 */
+	protected final Check<Object>[] checks;
+
+	private final ApiMapParamPlan plan;
+
+	protected GeneratedSingleParamChecks(ApiMapParamPlan plan) {
+		this.plan = plan;
+		this.checks = plan.checks;
+	}
+
+	/**
+	 * Implemented by the generated class. Dispatches to the generated method for
+	 * the single parameter at the instruction (pc), which returns null when the
+	 * parameter is successfully checked or the error otherwise.
+	 *
+	 * Exceptions do not need to be handled here.
+	 */
+	protected abstract ApiParamError checkSingle(int pc, Map<String, Object> params);
+
+	/**
+	 * Same as {@link ApiMapParamPlan} checking a single parameter (i.e., also handles
+	 * any exceptions thrown like {@link ApiSingleParam#check(Map)}).
+	 */
+	final ApiParamError check(int pc, Map<String, Object> params) {
+		try {
+			return checkSingle(pc, params);
+		} catch (ClassCastException e) {
+			return ApiParamError.cast(param(pc), e);
+		} catch (Exception e) {
+			return ApiParamError.exceptional(param(pc), e);
+		}
+	}
+
+	private ApiSingleParam<?> param(int pc) {
+		return (ApiSingleParam<?>) this.plan.operands[pc];
+	}
+
+	/**
+	 * Used if there is not a generated method for the instruction.
+	 */
+	protected final ApiParamError interpretSingle(int pc, Map<String, Object> params) {
+		return this.plan.runSingle(pc, params);
+	}
+
+	/**
+	 * Called when the value retrieved from the map is null.
+	 * @return null if successful (set to null and can be null), otherwise the error
+	 */
+	protected final ApiParamError nullOrMissing(int pc, Map<String, Object> params) {
+		ApiSingleParam<?> param = param(pc);
+		if (params.containsKey(param.keyName)) {
+			// was SET to null, not just null because it was not set at all
+			return nullValue(pc);
+		}
+		return ApiParamError.missing(param);
+	}
+
+	/**
+	 * Called when the value is null after formatting.
+	 * @return null if successful (can be null), otherwise the error
+	 */
+	protected final ApiParamError nullValue(int pc) {
+		ApiSingleParam<?> param = param(pc);
+		return param.canBeNull ? null : param.invalidError(ApiLibSettings.DEFAULT_CANNOT_BE_NULL_MESSAGE);
+	}
+
+	/**
+	 * Runs all of the parameter's formatters.
+	 * @return the formatted value or, if a formatter failed, an object for which
+	 * {@link #formatFailed(Object)} returns true
+	 */
+	protected final Object format(int pc, Object value) {
+		for (int i = this.plan.formattersFrom[pc], formattersTo = this.plan.formattersTo[pc]; i < formattersTo; i++) {
+			Formatter.Result<Object> formatResult = this.plan.formatters[i].format(value);
+			if (formatResult.failed()) {
+				ApiSingleParam<?> param = param(pc);
+				return new FormatFailure(formatResult.hasFailureMessage()
+					                         ?
+					                         ApiParamError.format(param, formatResult.getFailureMessage())
+					                         :
+					                         ApiParamError.format(param));
+			}
+			value = formatResult.getFormattedValue();
+		}
+		return value;
+	}
+
+	protected static boolean formatFailed(Object formatted) {
+		return formatted instanceof FormatFailure;
+	}
+
+	protected static ApiParamError formatError(Object formatted) {
+		return ((FormatFailure) formatted).error;
+	}
+
+	/**
+	 * Called before the checks when the parameter's type was provided.
+	 * @return null if the value is of the parameter's type, otherwise the error
+	 */
+	protected final ApiParamError typeError(int pc, Object value) {
+		return param(pc).typeError(value);
+	}
+
+	/**
+	 * Called when a (not inlined) check fails.
+	 */
+	protected final ApiParamError checkFailed(int pc, Check.Result checkResult) {
+		return param(pc).invalidError(checkResult.failureMessage());
+	}
+
+	/**
+	 * Called when an inlined library check fails. The check itself is run to
+	 * create the failure, so that the error is exactly the same as it would
+	 * be without inlining.
+	 * @return the error, or null if the check actually passed
+	 */
+	protected final ApiParamError libraryCheckFailed(int pc, int checkIndex, Object value) {
+		Check.Result checkResult = this.checks[checkIndex].check(value);
+		return checkResult.failed() ? checkFailed(pc, checkResult) : null;
+	}
+
+	private static final class FormatFailure {
+		final ApiParamError error;
+
+		FormatFailure(ApiParamError error) {
+			this.error = error;
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Structural limits on the input of an {@link ApiMapParam} (see
+ * {@link ApiMapParam.Builder#setMaxKeyCount(int)} and the other limits). The input
+ * is walked once, before any of the map's parameters are checked, and the walk
+ * stops at the first value that exceeds a limit. This is a walk of the raw input,
+ * regardless of the parameters of the map, so that values that would be ignored
+ * (keys without parameters) cannot be used to get around the limits either.
+ *
+ * The checked map is at depth 1 and each nested map or collection (or array) is
+ * one deeper than the map or collection containing it.
+ *
+ * The error is created the same way as the errors of the parameters: with the key
+ * name of each map and the index of each collection on the way to the value that
+ * exceeded the limit.
+ *
+ * @author Blake Howell
+ */
+final class InputBudget {
+
+	static final int UNLIMITED = Integer.MAX_VALUE;
+
+	final int maxKeyCount;
+	final int maxDepth;
+	final int maxCollectionElementCount;
+	final int maxStringLength;
+
+	InputBudget(int maxKeyCount, int maxDepth, int maxCollectionElementCount, int maxStringLength) {
+		this.maxKeyCount = maxKeyCount;
+		this.maxDepth = maxDepth;
+		this.maxCollectionElementCount = maxCollectionElementCount;
+		this.maxStringLength = maxStringLength;
+	}
+
+	/**
+	 * @return null if there are no limits
+	 */
+	static InputBudget of(int maxKeyCount, int maxDepth, int maxCollectionElementCount, int maxStringLength) {
+		if (maxKeyCount == UNLIMITED
+			&& maxDepth == UNLIMITED
+			&& maxCollectionElementCount == UNLIMITED
+			&& maxStringLength == UNLIMITED) {
+			return null;
+		}
+		return new InputBudget(maxKeyCount, maxDepth, maxCollectionElementCount, maxStringLength);
+	}
+
+	/**
+	 * @param map the map that is about to be checked (not the map containing it)
+	 * @return the error for the first value that exceeded a limit, or null if none did
+	 */
+	ApiParamError check(Map<?, ?> map) {
+		return checkMap(map, 1, new int[1]);
+	}
+
+	/**
+	 * @param collectionElementCount the number of collection elements walked so far
+	 */
+	private ApiParamError checkMap(Map<?, ?> map, int depth, int[] collectionElementCount) {
+		if (map.size() > this.maxKeyCount) {
+			return exceeded(null, "Exceeded maximum of " + this.maxKeyCount + " keys.");
+		}
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			Object key = entry.getKey();
+			if (key instanceof String && ((String) key).length() > this.maxStringLength) {
+				// not returned as the key name, since it is too long
+				return exceeded(null, "Key exceeded maximum length of " + this.maxStringLength + ".");
+			}
+			ApiParamError error = checkValue(key instanceof String ? (String) key : null,
+			                                 entry.getValue(),
+			                                 depth,
+			                                 collectionElementCount);
+			if (error != null) {
+				return error;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param keyName the key name of the value (null for collection elements)
+	 * @param containerDepth the depth of the map or collection containing the value
+	 */
+	private ApiParamError checkValue(String keyName, Object value, int containerDepth, int[] collectionElementCount) {
+		if (value instanceof String) {
+			return ((String) value).length() > this.maxStringLength
+				? exceeded(keyName, "Exceeded maximum length of " + this.maxStringLength + ".")
+				: null;
+		}
+		boolean isMap = value instanceof Map;
+		if (!isMap && !(value instanceof Collection) && !(value instanceof Object[])) {
+			return null;
+		}
+		int depth = containerDepth + 1;
+		if (depth > this.maxDepth) {
+			return exceeded(keyName, "Exceeded maximum depth of " + this.maxDepth + ".");
+		}
+		if (isMap) {
+			ApiParamError error = checkMap((Map<?, ?>) value, depth, collectionElementCount);
+			return error != null ? wrap(keyName, null, error) : null;
+		}
+		Collection<?> collection = value instanceof Collection ? (Collection<?>) value : null;
+		Object[] array = collection == null ? (Object[]) value : null;
+		int size = collection != null ? collection.size() : array.length;
+		// checked before walking the elements, so that an oversized collection is not walked at all
+		if (size > this.maxCollectionElementCount - collectionElementCount[0]) {
+			return exceeded(keyName,
+			                "Exceeded maximum of " + this.maxCollectionElementCount + " collection elements in total.");
+		}
+		collectionElementCount[0] += size;
+		if (collection != null) {
+			int i = 0;
+			for (Object element : collection) {
+				ApiParamError error = checkValue(null, element, depth, collectionElementCount);
+				if (error != null) {
+					return wrap(keyName, i, error);
+				}
+				i++;
+			}
+		} else {
+			for (int i = 0; i < array.length; i++) {
+				ApiParamError error = checkValue(null, array[i], depth, collectionElementCount);
+				if (error != null) {
+					return wrap(keyName, i, error);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static ApiParamError exceeded(String keyName, String errorMessage) {
+		return new ApiParamError(keyName, null, ApiErrorType.INVALID_PARAMETER, errorMessage);
+	}
+
+	/**
+	 * Same as the errors of nested maps and collections. The error of a value
+	 * without a key name or index (i.e., a collection element) is not kept as a
+	 * child, since it does not add anything to the error that wraps it.
+	 */
+	private static ApiParamError wrap(String keyName, Integer index, ApiParamError childError) {
+		if (keyName == null && index == null) {
+			return childError;
+		}
+		ApiParamError child = childError.keyName == null && childError.index == null
+			? childError.childParamError
+			: childError;
+		return new ApiParamError(keyName,
+		                         null,
+		                         childError.errorType,
+		                         childError.errorMessage,
+		                         null,
+		                         index,
+		                         child);
+	}
+
+}
@@ -0,0 +1,17 @@
+package io.github.bhowell2.apilib;
+
+import java.util.Map;
+
+/**
+ * Used by {@link ApiCollectionParam} to check the {@link ApiMapParam} at an
+ * index of a collection. By default this is just {@link ApiMapParam#check(Map)},
+ * but allows for {@link ApiMapParamPlan} to evaluate the map with its own plan.
+ *
+ * @author Blake Howell
+ */
+@FunctionalInterface
+interface MapParamEvaluator {
+
+	ApiMapParam.Result check(ApiMapParam mapParam, Map<String, Object> params);
+
+}
@@ -0,0 +1,427 @@
+package io.github.bhowell2.apilib;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the successfully checked parameters of a single {@link ApiMapParam}
+ * check and creates the {@link ApiMapParam.Result}. This is shared by
+ * {@link ApiMapParam#check(Map)} and {@link ApiMapParamPlan} so that both
+ * create exactly the same result.
+ *
+ * The single, map and collection parameters are added by their slot (see
+ * {@link MapResultLayout}) and are only recorded in a bitmap and a slot-indexed
+ * array of nested results, which the {@link ApiMapParam.Result} views. Custom
+ * parameters may return any key names (and nested results), so once a custom
+ * parameter adds something everything is moved to sets/maps by key name (as is
+ * the case when the map's key names are not unique).
+ *
+ * Nothing is allocated until something is actually added, so that an
+ * {@link ApiMapParam.Result} without checked key names (or nested results)
+ * still returns null for them (e.g., {@link ApiMapParam.Result#hasCheckedKeyNames()}).
+ *
+ * @author Blake Howell
+ */
+final class MapResultAccumulator {
+
+	private final MapResultLayout layout;
+	private boolean bySlot;
+
+	private long[] slots;
+	private int slotCount;
+	private Object[] nestedResults;
+	private int mapResultCount, collectionResultCount;
+
+	private Set<String> checkedKeyNames;
+	private Map<String, ApiMapParam.Result> checkedMapResults;
+	private Map<String, ApiCollectionParam.Result> checkedCollectionResults;
+	private Map<String, Object> customValues;
+
+	/*
+	 * Formatted values of single parameters that are not put back into the checked
+	 * map (by slot, or by key name when the key names are not unique).
+	 * */
+	private Object[] formattedValues;
+	private int formattedValueCount;
+	private Map<String, Object> formattedValuesByKeyName;
+	// whether or not this map or a nested map has formatted values
+	private boolean hasFormattedValues;
+
+	/*
+	 * Only set when reusable. The results are indexed by which of the checked key
+	 * names, map results and collection results are set (so that they are null when
+	 * there are none, as with a result that is not reused).
+	 * */
+	private final ApiMapParam.Result[] reusableResults;
+	private MapResultLayout.KeySet reusableKeySet;
+	private MapResultLayout.ResultMap<ApiMapParam.Result> reusableMapResults;
+	private MapResultLayout.ResultMap<ApiCollectionParam.Result> reusableCollectionResults;
+	private MapResultLayout.ResultMap<Object> reusableFormattedValues;
+	private long[] scratchSlots;
+
+	MapResultAccumulator(MapResultLayout layout) {
+		this(layout, false);
+	}
+
+	/**
+	 * @param reusable whether or not the accumulator will be {@link #reset()} and
+	 *                 reused (see {@link ValidationContext}), in which case the
+	 *                 result is reused as well
+	 */
+	MapResultAccumulator(MapResultLayout layout, boolean reusable) {
+		this.layout = layout;
+		this.bySlot = layout.hasSlots();
+		this.reusableResults = reusable ? new ApiMapParam.Result[16] : null;
+	}
+
+	/**
+	 * @return a copy of the slots (in a reused array, if reusable) that the caller
+	 * may modify until the accumulator is reset
+	 */
+	long[] scratchSlots(long[] slots) {
+		if (this.reusableResults == null) {
+			return slots.clone();
+		}
+		if (this.scratchSlots == null) {
+			this.scratchSlots = new long[slots.length];
+		}
+		System.arraycopy(slots, 0, this.scratchSlots, 0, slots.length);
+		return this.scratchSlots;
+	}
+
+	/**
+	 * Clears everything that was added, so that the accumulator can be reused.
+	 * This invalidates the last result if it was reused.
+	 */
+	void reset() {
+		if (this.slots != null) {
+			for (int i = 0; i < this.slots.length; i++) {
+				long bits = this.slots[i];
+				// only need to clear the nested results of the slots that were set
+				while (bits != 0 && this.nestedResults != null) {
+					this.nestedResults[(i << 6) + Long.numberOfTrailingZeros(bits)] = null;
+					bits &= bits - 1;
+				}
+				this.slots[i] = 0;
+			}
+		}
+		if (this.formattedValueCount > 0) {
+			Arrays.fill(this.formattedValues, null);
+			this.formattedValueCount = 0;
+		}
+		this.formattedValuesByKeyName = null;
+		this.hasFormattedValues = false;
+		this.slotCount = 0;
+		this.mapResultCount = 0;
+		this.collectionResultCount = 0;
+		this.bySlot = this.layout.hasSlots();
+		this.checkedKeyNames = null;
+		this.checkedMapResults = null;
+		this.checkedCollectionResults = null;
+		this.customValues = null;
+	}
+
+	void addKeyName(int slot) {
+		if (!this.bySlot) {
+			addKeyName(this.layout.keyNames[slot]);
+			return;
+		}
+		if (this.slots == null) {
+			this.slots = new long[(this.layout.slotCount() + 63) >>> 6];
+		}
+		long bit = 1L << slot;
+		if ((this.slots[slot >>> 6] & bit) == 0) {
+			this.slots[slot >>> 6] |= bit;
+			this.slotCount++;
+		}
+	}
+
+	private void addKeyName(String keyName) {
+		if (this.checkedKeyNames == null) {
+			this.checkedKeyNames = new HashSet<>();
+		}
+		this.checkedKeyNames.add(keyName);
+	}
+
+	/**
+	 * Adds the formatted value of the (successfully checked) single parameter in
+	 * the slot, which was not put back into the checked map.
+	 */
+	void addFormattedValue(int slot, Object formattedValue) {
+		this.hasFormattedValues = true;
+		if (!this.layout.hasSlots()) {
+			if (this.formattedValuesByKeyName == null) {
+				this.formattedValuesByKeyName = new HashMap<>();
+			}
+			this.formattedValuesByKeyName.put(this.layout.keyNames[slot], formattedValue);
+			return;
+		}
+		if (this.formattedValues == null) {
+			this.formattedValues = new Object[this.layout.slotCount()];
+		}
+		if (this.formattedValues[slot] == null) {
+			this.formattedValueCount++;
+		}
+		this.formattedValues[slot] = formattedValue;
+	}
+
+	/**
+	 * @return whether or not a formatted value has been added for this map or any
+	 * nested map
+	 */
+	boolean hasFormattedValues() {
+		return this.hasFormattedValues;
+	}
+
+	private void setNestedResult(int slot, Object result) {
+		if (this.nestedResults == null) {
+			this.nestedResults = new Object[this.layout.slotCount()];
+		}
+		this.nestedResults[slot] = result;
+	}
+
+	/**
+	 * All maps within maps are required to have key names (per constructor),
+	 * so do not need to check for this here.
+	 */
+	void addMapResult(int slot, ApiMapParam.Result mapResult) {
+		if (!this.hasFormattedValues && mapResult.hasFormattedValues()) {
+			this.hasFormattedValues = true;
+		}
+		if (!this.bySlot) {
+			addMapResult(mapResult);
+			return;
+		}
+		addKeyName(slot);
+		setNestedResult(slot, mapResult);
+		this.mapResultCount++;
+	}
+
+	private void addMapResult(ApiMapParam.Result mapResult) {
+		addKeyName(mapResult.keyName);
+		if (this.checkedMapResults == null) {
+			this.checkedMapResults = new HashMap<>();
+		}
+		this.checkedMapResults.put(mapResult.keyName, mapResult);
+	}
+
+	/*
+	 * Do not want to add if the array did not provide an inner array (which
+	 * also requires either another inner array or map check results - per
+	 * ApiArrayParam/ApiListParam)
+	 * */
+	private static boolean hasNestedResults(ApiCollectionParam.Result collectionResult) {
+		return collectionResult.hasInnerCollectionResults() || collectionResult.hasMapResults();
+	}
+
+	void addCollectionResult(int slot, ApiCollectionParam.Result collectionResult) {
+		if (!this.bySlot) {
+			addCollectionResult(collectionResult);
+			return;
+		}
+		addKeyName(slot);
+		if (hasNestedResults(collectionResult)) {
+			setNestedResult(slot, collectionResult);
+			this.collectionResultCount++;
+		}
+	}
+
+	private void addCollectionResult(ApiCollectionParam.Result collectionResult) {
+		addKeyName(collectionResult.keyName);
+		if (hasNestedResults(collectionResult)) {
+			if (this.checkedCollectionResults == null) {
+				this.checkedCollectionResults = new HashMap<>();
+			}
+			this.checkedCollectionResults.put(collectionResult.keyName, collectionResult);
+		}
+	}
+
+	/*
+	 * Moves everything added by slot to the key name sets/maps.
+	 * */
+	private void stopAddingBySlot() {
+		if (!this.bySlot) {
+			return;
+		}
+		this.bySlot = false;
+		for (int slot = 0; this.slots != null && slot < this.layout.slotCount(); slot++) {
+			if ((this.slots[slot >>> 6] & (1L << slot)) == 0) {
+				continue;
+			}
+			Object nestedResult = this.nestedResults != null ? this.nestedResults[slot] : null;
+			if (nestedResult instanceof ApiMapParam.Result) {
+				addMapResult((ApiMapParam.Result) nestedResult);
+			} else if (nestedResult instanceof ApiCollectionParam.Result) {
+				addCollectionResult((ApiCollectionParam.Result) nestedResult);
+			} else {
+				addKeyName(this.layout.keyNames[slot]);
+			}
+		}
+	}
+
+	void addCustomResult(ApiCustomParam.Result customResult) {
+		if (customResult.hasKeyName() || customResult.hasCheckedKeyNames() || customResult.hasCheckedCollectionParams()
+			|| customResult.hasCheckedMapParams() || customResult.hasCustomValue()) {
+			stopAddingBySlot();
+		}
+		if (customResult.hasKeyName()) {
+			addKeyName(customResult.keyName);
+		}
+		if (customResult.hasCheckedKeyNames()) {
+			if (this.checkedKeyNames == null) {
+				this.checkedKeyNames = new HashSet<>();
+			}
+			this.checkedKeyNames.addAll(customResult.checkedKeyNames);
+		}
+		if (customResult.hasCheckedCollectionParams()) {
+			if (this.checkedCollectionResults == null) {
+				this.checkedCollectionResults = new HashMap<>();
+			}
+			this.checkedCollectionResults.putAll(customResult.checkedCollectionParams);
+		}
+		if (customResult.hasCheckedMapParams()) {
+			if (this.checkedMapResults == null) {
+				this.checkedMapResults = new HashMap<>();
+			}
+			this.checkedMapResults.putAll(customResult.checkedMapParams);
+		}
+		if (customResult.hasCustomValue()) {
+			if (this.customValues == null) {
+				this.customValues = new HashMap<>();
+			}
+			/*
+			 * Must have keyName if returning a custom value or else would not be
+			 * able to retrieve the custom value.
+			 * */
+			this.customValues.put(customResult.keyName, customResult.customValue);
+		}
+	}
+
+	/**
+	 * Adds everything from the successful result (which was not created by this
+	 * accumulator). This is used to add the results of the asynchronous custom
+	 * parameters to the result of the synchronous checks.
+	 */
+	void addResult(ApiMapParam.Result result) {
+		stopAddingBySlot();
+		if (result.hasCheckedKeyNames()) {
+			if (this.checkedKeyNames == null) {
+				this.checkedKeyNames = new HashSet<>();
+			}
+			this.checkedKeyNames.addAll(result.checkedKeyNames);
+		}
+		if (result.hasCheckedMapResults()) {
+			if (this.checkedMapResults == null) {
+				this.checkedMapResults = new HashMap<>();
+			}
+			this.checkedMapResults.putAll(result.checkedMapResults);
+		}
+		if (result.hasCheckedCollectionResults()) {
+			if (this.checkedCollectionResults == null) {
+				this.checkedCollectionResults = new HashMap<>();
+			}
+			this.checkedCollectionResults.putAll(result.checkedCollectionResults);
+		}
+		if (result.customValues != null) {
+			if (this.customValues == null) {
+				this.customValues = new HashMap<>();
+			}
+			this.customValues.putAll(result.customValues);
+		}
+		if (result.formattedValues != null) {
+			if (this.formattedValuesByKeyName == null) {
+				this.formattedValuesByKeyName = new HashMap<>();
+			}
+			this.formattedValuesByKeyName.putAll(result.formattedValues);
+		}
+		if (result.hasFormattedValues()) {
+			this.hasFormattedValues = true;
+		}
+	}
+
+	private Map<String, Object> formattedValues() {
+		if (this.formattedValueCount > 0) {
+			return new MapResultLayout.ResultMap<>(this.layout, this.formattedValues, Object.class, this.formattedValueCount);
+		}
+		return this.formattedValuesByKeyName;
+	}
+
+	ApiMapParam.Result toResult(String keyName) {
+		if (this.bySlot && this.reusableResults != null) {
+			return toReusableResult(keyName);
+		}
+		if (this.bySlot) {
+			return ApiMapParam.Result.success(
+				keyName,
+				this.slotCount > 0 ? this.layout.keySet(this.slots, this.slotCount) : null,
+				this.mapResultCount > 0
+					? new MapResultLayout.ResultMap<>(this.layout, this.nestedResults, ApiMapParam.Result.class, this.mapResultCount)
+					: null,
+				this.collectionResultCount > 0
+					? new MapResultLayout.ResultMap<>(this.layout,
+					                                  this.nestedResults,
+					                                  ApiCollectionParam.Result.class,
+					                                  this.collectionResultCount)
+					: null,
+				null,
+				formattedValues());
+		}
+		return ApiMapParam.Result.success(keyName,
+		                                  this.checkedKeyNames,
+		                                  this.checkedMapResults,
+		                                  this.checkedCollectionResults,
+		                                  this.customValues,
+		                                  formattedValues());
+	}
+
+	private ApiMapParam.Result toReusableResult(String keyName) {
+		int i = (this.slotCount > 0 ? 1 : 0)
+			| (this.mapResultCount > 0 ? 2 : 0)
+			| (this.collectionResultCount > 0 ? 4 : 0)
+			| (this.formattedValueCount > 0 ? 8 : 0);
+		if (this.slotCount > 0) {
+			if (this.reusableKeySet == null) {
+				this.reusableKeySet = new MapResultLayout.KeySet(this.layout, this.slots, this.slotCount);
+			}
+			this.reusableKeySet.set(this.slots, this.slotCount);
+		}
+		if (this.mapResultCount > 0) {
+			if (this.reusableMapResults == null) {
+				this.reusableMapResults =
+					new MapResultLayout.ResultMap<>(this.layout, this.nestedResults, ApiMapParam.Result.class, 0);
+			}
+			this.reusableMapResults.set(this.nestedResults, this.mapResultCount);
+		}
+		if (this.collectionResultCount > 0) {
+			if (this.reusableCollectionResults == null) {
+				this.reusableCollectionResults =
+					new MapResultLayout.ResultMap<>(this.layout, this.nestedResults, ApiCollectionParam.Result.class, 0);
+			}
+			this.reusableCollectionResults.set(this.nestedResults, this.collectionResultCount);
+		}
+		if (this.formattedValueCount > 0) {
+			if (this.reusableFormattedValues == null) {
+				this.reusableFormattedValues =
+					new MapResultLayout.ResultMap<>(this.layout, this.formattedValues, Object.class, 0);
+			}
+			this.reusableFormattedValues.set(this.formattedValues, this.formattedValueCount);
+		}
+		if (this.reusableResults[i] == null) {
+			this.reusableResults[i] = ApiMapParam.Result.success(keyName,
+			                                                     this.slotCount > 0 ? this.reusableKeySet : null,
+			                                                     this.mapResultCount > 0 ? this.reusableMapResults : null,
+			                                                     this.collectionResultCount > 0
+				                                                     ? this.reusableCollectionResults
+				                                                     : null,
+			                                                     null,
+			                                                     this.formattedValueCount > 0
+				                                                     ? this.reusableFormattedValues
+				                                                     : null);
+		}
+		return this.reusableResults[i];
+	}
+
+}
@@ -0,0 +1,239 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.utils.StringPerfectHash;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The slots of an {@link ApiMapParam}'s single, map and collection parameters
+ * (see {@link ApiMapParam#keyedParams}), used to represent the successfully
+ * checked parameters of an {@link ApiMapParam.Result} as a bitmap of slots
+ * rather than as a set of key names (and the nested results as an array indexed
+ * by slot rather than as maps).
+ *
+ * {@link ApiMapParam.Result#checkedKeyNames} is then an immutable {@link KeySet}
+ * view over the bitmap. Checks of the same map that succeed with the same
+ * parameters have the same key pattern, so the key sets are interned (in a small,
+ * fixed size table) and shared by their results.
+ *
+ * @author Blake Howell
+ */
+final class MapResultLayout {
+
+	// must be a power of 2
+	private static final int INTERNED_KEY_SETS = 64;
+
+	final String[] keyNames;
+	// null if a key name is used by more than one parameter
+	final StringPerfectHash keyIndex;
+	private final AtomicReferenceArray<KeySet> internedKeySets = new AtomicReferenceArray<>(INTERNED_KEY_SETS);
+
+	/**
+	 * @param keyNames the key names of the parameters by slot
+	 * @param keyIndex perfect hash of the key names (index is the slot) or null if
+	 *                 the key names are not unique, in which case the result can
+	 *                 not be represented by slots
+	 */
+	MapResultLayout(String[] keyNames, StringPerfectHash keyIndex) {
+		this.keyNames = keyNames;
+		this.keyIndex = keyIndex;
+	}
+
+	boolean hasSlots() {
+		return this.keyIndex != null;
+	}
+
+	int slotCount() {
+		return this.keyNames.length;
+	}
+
+	/**
+	 * @return the key set for the slots, which is shared with any previous result
+	 * with the same slots if it is still interned
+	 */
+	KeySet keySet(long[] slots, int size) {
+		int i = hash(slots) & (INTERNED_KEY_SETS - 1);
+		KeySet keySet = this.internedKeySets.get(i);
+		if (keySet != null && Arrays.equals(keySet.slots, slots)) {
+			return keySet;
+		}
+		// slots may be reused by the caller
+		keySet = new KeySet(this, slots.clone(), size);
+		this.internedKeySets.set(i, keySet);
+		return keySet;
+	}
+
+	private static int hash(long[] slots) {
+		long h = 0;
+		for (long s : slots) {
+			h = (h ^ s) * 0x9E3779B97F4A7C15L;
+		}
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int slotOf(Object keyName) {
+		return keyName instanceof String ? this.keyIndex.indexOf((String) keyName) : -1;
+	}
+
+	private static boolean isSet(long[] slots, int slot) {
+		return (slots[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	/**
+	 * Immutable set of the key names of the slots set in the bitmap.
+	 *
+	 * Only the key sets of results created with a {@link ValidationContext} are
+	 * ever {@link #set(long[], int)} (i.e., reused), interned key sets are not.
+	 */
+	static final class KeySet extends AbstractSet<String> {
+
+		private final MapResultLayout layout;
+		private long[] slots;
+		private int size;
+
+		KeySet(MapResultLayout layout, long[] slots, int size) {
+			this.layout = layout;
+			this.slots = slots;
+			this.size = size;
+		}
+
+		void set(long[] slots, int size) {
+			this.slots = slots;
+			this.size = size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			int slot = this.layout.slotOf(o);
+			return slot >= 0 && isSet(this.slots, slot);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				int slot = nextSlot(0);
+
+				int nextSlot(int from) {
+					for (int i = from; i < layout.keyNames.length; i++) {
+						if (isSet(slots, i)) {
+							return i;
+						}
+					}
+					return -1;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return this.slot >= 0;
+				}
+
+				@Override
+				public String next() {
+					if (this.slot < 0) {
+						throw new NoSuchElementException();
+					}
+					String keyName = layout.keyNames[this.slot];
+					this.slot = nextSlot(this.slot + 1);
+					return keyName;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Immutable map (by key name) of the results of the given type in the
+	 * slot-indexed results array. As with {@link KeySet}, only maps of results
+	 * created with a {@link ValidationContext} are ever {@link #set(Object[], int)}.
+	 */
+	static final class ResultMap<R> extends AbstractMap<String, R> {
+
+		private final MapResultLayout layout;
+		private final Class<R> resultType;
+		private Object[] results;
+		private int size;
+
+		ResultMap(MapResultLayout layout, Object[] results, Class<R> resultType, int size) {
+			this.layout = layout;
+			this.results = results;
+			this.resultType = resultType;
+			this.size = size;
+		}
+
+		void set(Object[] results, int size) {
+			this.results = results;
+			this.size = size;
+		}
+
+		@Override
+		public R get(Object key) {
+			int slot = this.layout.slotOf(key);
+			return slot >= 0 && this.resultType.isInstance(this.results[slot])
+				? this.resultType.cast(this.results[slot])
+				: null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public Set<Entry<String, R>> entrySet() {
+			return new AbstractSet<Entry<String, R>>() {
+				@Override
+				public int size() {
+					return ResultMap.this.size;
+				}
+
+				@Override
+				public Iterator<Entry<String, R>> iterator() {
+					return new Iterator<Entry<String, R>>() {
+						int slot = nextSlot(0);
+
+						int nextSlot(int from) {
+							for (int i = from; i < results.length; i++) {
+								if (resultType.isInstance(results[i])) {
+									return i;
+								}
+							}
+							return -1;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return this.slot >= 0;
+						}
+
+						@Override
+						public Entry<String, R> next() {
+							if (this.slot < 0) {
+								throw new NoSuchElementException();
+							}
+							Entry<String, R> entry =
+								new SimpleImmutableEntry<>(layout.keyNames[this.slot], resultType.cast(results[this.slot]));
+							this.slot = nextSlot(this.slot + 1);
+							return entry;
+						}
+					};
+				}
+			};
+		}
+	}
+
+}
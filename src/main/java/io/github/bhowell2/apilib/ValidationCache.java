@@ -0,0 +1,521 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.utils.BoundedCache;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the results of checking whole payloads with {@link ApiMapParam#check(Map)}
+ * (see {@link ApiMapParam.Builder#setValidationCache(ValidationCache)}), so that a
+ * payload that is identical to one that was checked recently (e.g., a client retrying
+ * with the same body, or a bot replaying the same malformed payload) is not checked
+ * again. Failed results are cached too (unless {@link Builder#setCacheFailures(boolean)}
+ * is false), so replayed invalid payloads are rejected cheaply.
+ *
+ * The structural hash of the payload is computed when it is checked, and a cached
+ * payload is compared with the payload being checked without copying it, so a cache
+ * hit does not allocate. When a result is cached, the payload is copied (the nested
+ * maps, collections and arrays, not the values in them), so a cached result is only
+ * returned for a payload that is equal to the one that was checked (i.e., a hash
+ * collision never returns the result of a different payload) and modifying a payload
+ * after checking it does not affect the cache. The keys and values of the payload
+ * (e.g., strings and numbers) are compared with {@link Object#equals(Object)} and are
+ * expected to be immutable.
+ *
+ * Since every cached result holds a copy of its payload, the memory of the cache is
+ * about the maximum size times the size of the payloads' containers. Payloads with
+ * more than {@link Builder#setMaximumPayloadWeight(int)} containers and values are
+ * checked without being cached, which bounds the memory of each entry.
+ *
+ * When the same payload is checked concurrently it is only checked once: the other
+ * threads wait for (and return) the result of the thread that is checking it.
+ *
+ * This should only be used with maps of which the result only depends on the payload
+ * (i.e., the checks and custom parameters do not depend on external state that
+ * changes, or it is acceptable for their results to be stale for
+ * {@link Builder#setExpireAfterWrite(long, TimeUnit)}). A cache can be shared by
+ * more than one map, as the results are cached by map and payload. Results that
+ * failed because the {@link Deadline} of the check passed are never cached.
+ *
+ * @author Blake Howell
+ */
+public final class ValidationCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+	public static final int DEFAULT_MAXIMUM_PAYLOAD_WEIGHT = 1_000;
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	final boolean cacheFailures;
+	final int maximumPayloadWeight;
+	// 0 if entries do not expire
+	final long expireAfterWriteNanos;
+
+	private final BoundedCache<PayloadKey, Entry> cache;
+	private final ConcurrentHashMap<PayloadKey, CompletableFuture<ApiMapParam.Result>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder hitCount = new LongAdder(),
+		missCount = new LongAdder(),
+		coalescedCount = new LongAdder();
+
+	private ValidationCache(Builder builder) {
+		this.cacheFailures = builder.cacheFailures;
+		this.maximumPayloadWeight = builder.maximumPayloadWeight;
+		this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+		this.cache = new BoundedCache<>(builder.policy);
+	}
+
+	/**
+	 * @param mapParam the map being checked, which has this cache
+	 * @param params the params that {@link ApiMapParam#check(Map)} was called with
+	 * @param mapParamToCheck the map that is checked by the map param (the payload), which
+	 *                        has already been checked against the map param's input budget
+	 */
+	ApiMapParam.Result check(ApiMapParam mapParam, Map<String, Object> params, Map<String, Object> mapParamToCheck) {
+		PayloadKey key = new PayloadKey(mapParam, mapParamToCheck);
+		if (key.weight > this.maximumPayloadWeight) {
+			this.missCount.increment();
+			return mapParam.checkWithinBudget(params);
+		}
+		Entry entry = this.cache.getIfPresent(key);
+		if (entry != null && (this.expireAfterWriteNanos == 0 || System.nanoTime() - entry.writeNanos < this.expireAfterWriteNanos)) {
+			this.hitCount.increment();
+			return entry.result;
+		}
+		// only copied when it is (or may be) cached
+		key = key.copy();
+		CompletableFuture<ApiMapParam.Result> future = new CompletableFuture<>();
+		CompletableFuture<ApiMapParam.Result> checking = this.inFlight.putIfAbsent(key, future);
+		if (checking != null) {
+			this.coalescedCount.increment();
+			try {
+				ApiMapParam.Result result = checking.join();
+				// the other thread's deadline passed, which this thread's may not have
+				return isTimeout(result) ? mapParam.checkWithinBudget(params) : result;
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		this.missCount.increment();
+		try {
+			ApiMapParam.Result result = mapParam.checkWithinBudget(params);
+			if (isCacheable(result)) {
+				this.cache.put(key, new Entry(result, System.nanoTime()));
+			}
+			future.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.inFlight.remove(key, future);
+		}
+	}
+
+	private boolean isCacheable(ApiMapParam.Result result) {
+		return result.successful() || (this.cacheFailures && !isTimeout(result));
+	}
+
+	// a result that timed out depends on the deadline of the check, not just the payload
+	private static boolean isTimeout(ApiMapParam.Result result) {
+		return result.failed() && result.error.errorType == ApiErrorType.TIMEOUT;
+	}
+
+	/**
+	 * Removes every cached result. Does not reset the counts.
+	 */
+	public void clear() {
+		this.cache.clear();
+	}
+
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * @return the number of checks that returned a cached result
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * @return the number of checks that checked the payload
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * @return the number of checks that waited for the result of another thread
+	 * checking the same payload
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.sum();
+	}
+
+	/**
+	 * @return the number of results that were evicted to keep the cache within its
+	 * maximum size
+	 */
+	public long getEvictionCount() {
+		return this.cache.getEvictionCount();
+	}
+
+	private static final class Entry {
+
+		final ApiMapParam.Result result;
+		final long writeNanos;
+
+		Entry(ApiMapParam.Result result, long writeNanos) {
+			this.result = result;
+			this.writeNanos = writeNanos;
+		}
+
+	}
+
+	/**
+	 * The map and a payload it checked, with the structural hash of the payload. The key
+	 * that is looked up holds the (live) payload being checked, so a hit neither copies
+	 * nor allocates. The key that is cached holds a copy of the payload (see
+	 * {@link #copy()}), which is compared with the live payloads of the lookups.
+	 */
+	static final class PayloadKey {
+
+		// distinguishes the containers (e.g., an empty list from an empty array)
+		private static final int MAP_SEED = 0x5bd1e995, LIST_SEED = 0x1b873593, SET_SEED = 0x27d4eb2f, ARRAY_SEED = 0x165667b1;
+
+		final ApiMapParam mapParam;
+		final Object payload;
+		final int hash;
+		// the number of containers and values of the payload
+		final int weight;
+		// whether the payload is a copy, rather than the payload being checked
+		final boolean copied;
+
+		// set by hash(Object) for the value that was last hashed
+		private int hashedWeight;
+
+		PayloadKey(ApiMapParam mapParam, Map<String, Object> payload) {
+			this.mapParam = mapParam;
+			this.payload = payload;
+			this.hash = System.identityHashCode(mapParam) * 31 + hash(payload);
+			this.weight = this.hashedWeight;
+			this.copied = false;
+		}
+
+		private PayloadKey(PayloadKey key) {
+			this.mapParam = key.mapParam;
+			this.payload = copy(key.payload);
+			this.hash = key.hash;
+			this.weight = key.weight;
+			this.copied = true;
+		}
+
+		/**
+		 * @return the key with a copy of the payload (the nested maps, collections and
+		 * arrays, not the values in them), so that modifying the payload after it was
+		 * checked does not affect the cache
+		 */
+		PayloadKey copy() {
+			return this.copied ? this : new PayloadKey(this);
+		}
+
+		// the structural hash of the value, which is the same for the value and its copy
+		private int hash(Object value) {
+			if (value instanceof Map) {
+				int hash = MAP_SEED, weight = 1;
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					int valueHash = hash(entry.getValue());
+					weight += this.hashedWeight;
+					// order-independent, as maps are
+					hash += mix(Objects.hashCode(entry.getKey())) ^ valueHash;
+				}
+				this.hashedWeight = weight;
+				return hash;
+			}
+			if (value instanceof Collection) {
+				boolean isSet = value instanceof Set;
+				int hash = isSet ? SET_SEED : LIST_SEED, weight = 1;
+				for (Object element : (Collection<?>) value) {
+					int elementHash = hash(element);
+					weight += this.hashedWeight;
+					// order-independent for sets
+					hash = isSet ? hash + elementHash : hash * 31 + elementHash;
+				}
+				this.hashedWeight = weight;
+				return hash;
+			}
+			if (value instanceof Object[]) {
+				int hash = ARRAY_SEED, weight = 1;
+				for (Object element : (Object[]) value) {
+					hash = hash * 31 + hash(element);
+					weight += this.hashedWeight;
+				}
+				this.hashedWeight = weight;
+				return hash;
+			}
+			this.hashedWeight = 1;
+			return value != null ? value.hashCode() : 0;
+		}
+
+		private static Object copy(Object value) {
+			if (value instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) value;
+				Map<Object, Object> copy = new HashMap<>(Math.max(4, (int) (map.size() / 0.75f) + 1));
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					copy.put(entry.getKey(), copy(entry.getValue()));
+				}
+				return copy;
+			}
+			if (value instanceof Collection) {
+				Collection<?> collection = (Collection<?>) value;
+				Collection<Object> copy = value instanceof Set ? new HashSet<>() : new ArrayList<>(collection.size());
+				for (Object element : collection) {
+					copy.add(copy(element));
+				}
+				return copy;
+			}
+			if (value instanceof Object[]) {
+				Object[] array = (Object[]) value;
+				List<Object> copy = new ArrayList<>(array.length);
+				for (Object element : array) {
+					copy.add(copy(element));
+				}
+				return new ArrayCopy(copy);
+			}
+			return value;
+		}
+
+		/*
+		 * Whether the (live) value is equal to the copy, i.e., whether copying it would
+		 * create a value that is equal to the copy.
+		 * */
+		private static boolean equalsCopy(Object value, Object copy) {
+			if (copy instanceof Map) {
+				if (!(value instanceof Map) || ((Map<?, ?>) value).size() != ((Map<?, ?>) copy).size()) {
+					return false;
+				}
+				Map<?, ?> copyMap = (Map<?, ?>) copy;
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					Object copyValue = copyMap.get(entry.getKey());
+					if (!equalsCopy(entry.getValue(), copyValue)
+						|| (copyValue == null && !copyMap.containsKey(entry.getKey()))) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (copy instanceof Set) {
+				if (!(value instanceof Set) || ((Set<?>) value).size() != ((Set<?>) copy).size()) {
+					return false;
+				}
+				for (Object element : (Set<?>) value) {
+					if (!setCopyContains((Set<?>) copy, element)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (copy instanceof List) {
+				if (!(value instanceof Collection) || value instanceof Set
+					|| ((Collection<?>) value).size() != ((List<?>) copy).size()) {
+					return false;
+				}
+				int i = 0;
+				for (Object element : (Collection<?>) value) {
+					if (!equalsCopy(element, ((List<?>) copy).get(i++))) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (copy instanceof ArrayCopy) {
+				List<Object> elements = ((ArrayCopy) copy).elements;
+				if (!(value instanceof Object[]) || ((Object[]) value).length != elements.size()) {
+					return false;
+				}
+				Object[] array = (Object[]) value;
+				for (int i = 0; i < array.length; i++) {
+					if (!equalsCopy(array[i], elements.get(i))) {
+						return false;
+					}
+				}
+				return true;
+			}
+			return !(value instanceof Map || value instanceof Collection || value instanceof Object[])
+				&& Objects.equals(value, copy);
+		}
+
+		private static boolean setCopyContains(Set<?> copy, Object element) {
+			if (!(element instanceof Map || element instanceof Collection || element instanceof Object[])) {
+				return copy.contains(element);
+			}
+			// the copies of containers are not equal to the containers, so they are compared one by one
+			for (Object copyElement : copy) {
+				if (equalsCopy(element, copyElement)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int mix(int hash) {
+			hash *= 0x9e3779b9;
+			return hash ^ (hash >>> 16);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PayloadKey)) {
+				return false;
+			}
+			PayloadKey other = (PayloadKey) obj;
+			if (this.hash != other.hash || this.mapParam != other.mapParam) {
+				return false;
+			}
+			if (this.copied && other.copied) {
+				return this.payload.equals(other.payload);
+			}
+			return this.copied
+				? equalsCopy(other.payload, this.payload)
+				: equalsCopy(this.payload, other.copied ? other.payload : copy(other.payload));
+		}
+
+	}
+
+	/**
+	 * The copy of an array, which is not equal to the copy of a list.
+	 */
+	private static final class ArrayCopy {
+
+		final List<Object> elements;
+
+		ArrayCopy(List<Object> elements) {
+			this.elements = elements;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.elements.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ArrayCopy && this.elements.equals(((ArrayCopy) obj).elements);
+		}
+
+	}
+
+	public static final class Builder {
+
+		private CachePolicy policy = CachePolicy.maximumSize(DEFAULT_MAXIMUM_SIZE);
+		private boolean cacheFailures = true;
+		private long expireAfterWriteNanos = 0;
+		private int maximumPayloadWeight = DEFAULT_MAXIMUM_PAYLOAD_WEIGHT;
+
+		private Builder() {}
+
+		/**
+		 * Set the maximum weight of a payload whose result is cached, where the weight is
+		 * the number of maps, collections, arrays and values in the payload (e.g.,
+		 * {"name": "blake", "tags": ["a", "b"]} weighs 5). Heavier payloads are checked
+		 * every time. Defaults to {@link #DEFAULT_MAXIMUM_PAYLOAD_WEIGHT}.
+		 *
+		 * @param maximumPayloadWeight the maximum weight of a cached payload
+		 * @return this builder
+		 */
+		public Builder setMaximumPayloadWeight(int maximumPayloadWeight) {
+			if (maximumPayloadWeight < 1) {
+				throw new IllegalArgumentException("Maximum payload weight must be greater than 0.");
+			}
+			this.maximumPayloadWeight = maximumPayloadWeight;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of results that are cached (see {@link BoundedCache}
+		 * for how results are evicted). Defaults to {@link #DEFAULT_MAXIMUM_SIZE}.
+		 *
+		 * @param maximumSize the maximum number of results
+		 * @return this builder
+		 */
+		public Builder setMaximumSize(int maximumSize) {
+			this.policy = CachePolicy.maximumSize(maximumSize);
+			return this;
+		}
+
+		/**
+		 * Set the policy of the cache, when more than the maximum size needs to be set.
+		 *
+		 * @param policy the policy of the cache
+		 * @return this builder
+		 */
+		public Builder setCachePolicy(CachePolicy policy) {
+			if (policy == null) {
+				throw new IllegalArgumentException("Cache policy cannot be null.");
+			}
+			this.policy = policy;
+			return this;
+		}
+
+		/**
+		 * Set whether or not failed results are cached. Defaults to true.
+		 *
+		 * @param cacheFailures false to only cache successful results
+		 * @return this builder
+		 */
+		public Builder setCacheFailures(boolean cacheFailures) {
+			this.cacheFailures = cacheFailures;
+			return this;
+		}
+
+		/**
+		 * Set how long a result is cached after the payload was checked. By default
+		 * results do not expire (they are only evicted).
+		 *
+		 * @param duration how long results are cached (0 to not expire)
+		 * @param unit the unit of the duration
+		 * @return this builder
+		 */
+		public Builder setExpireAfterWrite(long duration, TimeUnit unit) {
+			if (duration < 0) {
+				throw new IllegalArgumentException("Expire after write duration cannot be negative.");
+			}
+			this.expireAfterWriteNanos = unit.toNanos(duration);
+			return this;
+		}
+
+		public ValidationCache build() {
+			return new ValidationCache(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,142 @@
+package io.github.bhowell2.apilib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reusable state for {@link ApiMapParam#check(Map, ValidationContext)}. The context
+ * holds the storage of the results of each (nested) map and collection checked,
+ * which is reset at the start of every check rather than reallocated. Once the
+ * context has been used to check a given map, checking it again (successfully)
+ * does not allocate anything, as long as the map's parameters do not have
+ * formatters and none of its custom parameters or checks allocate (note that the
+ * iterator of the map's keys may be allocated with input key dispatch, see
+ * {@link ApiMapParam.Builder#setInputKeyDispatch(boolean)}).
+ *
+ * The results returned by a check with a context belong to the context and are
+ * only valid until the context is used for another check. If a result is needed
+ * after that, then the map should be checked with {@link ApiMapParam#check(Map)}.
+ *
+ * A context is not thread-safe and should only be used by one check at a time.
+ * It does not rely on {@link ThreadLocal}, so contexts may be pooled however is
+ * most appropriate (e.g., per event loop or in an object pool shared by virtual
+ * threads).
+ *
+ * @author Blake Howell
+ */
+public final class ValidationContext {
+
+	/*
+	 * The same parameter may be checked multiple times in one check (e.g., the map
+	 * checked at each index of a collection), so each parameter has a pool of the
+	 * storage that is used in the order it is needed.
+	 * */
+	private final IdentityHashMap<ApiParamBase<?, ?>, Pool> pools = new IdentityHashMap<>();
+	// pools used since the last reset
+	private final List<Pool> usedPools = new ArrayList<>();
+
+	// checks the maps within collections with this context
+	final MapParamEvaluator mapParamEvaluator = (mapParam, params) -> mapParam.check(params, this, false, false);
+	final MapParamEvaluator overlayMapParamEvaluator = (mapParam, params) -> mapParam.check(params, this, false, true);
+
+	public ValidationContext() {}
+
+	/**
+	 * Called at the start of every check. All results previously returned
+	 * with the context are invalidated.
+	 */
+	void reset() {
+		for (int i = 0; i < this.usedPools.size(); i++) {
+			this.usedPools.get(i).next = 0;
+		}
+		this.usedPools.clear();
+	}
+
+	private Pool pool(ApiParamBase<?, ?> param) {
+		Pool pool = this.pools.get(param);
+		if (pool == null) {
+			pool = new Pool();
+			this.pools.put(param, pool);
+		}
+		if (pool.next == 0) {
+			this.usedPools.add(pool);
+		}
+		return pool;
+	}
+
+	/**
+	 * @return a reset accumulator for the map, of which the result is reused
+	 */
+	MapResultAccumulator mapAccumulator(ApiMapParam mapParam) {
+		Pool pool = pool(mapParam);
+		MapResultAccumulator accumulator;
+		if (pool.next < pool.storage.size()) {
+			accumulator = (MapResultAccumulator) pool.storage.get(pool.next);
+			accumulator.reset();
+		} else {
+			accumulator = new MapResultAccumulator(mapParam.resultLayout, true);
+			pool.storage.add(accumulator);
+		}
+		pool.next++;
+		return accumulator;
+	}
+
+	/**
+	 * @return a cleared storage for the results of the collection
+	 */
+	CollectionResults collectionResults(ApiCollectionParam<?, ?, ?> collectionParam) {
+		Pool pool = pool(collectionParam);
+		CollectionResults results;
+		if (pool.next < pool.storage.size()) {
+			results = (CollectionResults) pool.storage.get(pool.next);
+			results.clear();
+		} else {
+			results = new CollectionResults(collectionParam.keyName);
+			pool.storage.add(results);
+		}
+		pool.next++;
+		return results;
+	}
+
+	private static final class Pool {
+		final List<Object> storage = new ArrayList<>(1);
+		int next;
+	}
+
+	/**
+	 * Reusable storage for the nested results of an {@link ApiCollectionParam} and
+	 * the results that return them.
+	 */
+	static final class CollectionResults {
+
+		final List<ApiCollectionParam.Result> innerCollectionResults = new ArrayList<>();
+		final List<ApiMapParam.Result> mapResults = new ArrayList<>();
+		private final ApiCollectionParam.Result innerCollectionResult, mapResult;
+
+		private CollectionResults(String keyName) {
+			this.innerCollectionResult =
+				ApiCollectionParam.Result.successWithNestedList(keyName,
+				                                                Collections.unmodifiableList(this.innerCollectionResults));
+			this.mapResult =
+				ApiCollectionParam.Result.successWithMapCheckResults(keyName,
+				                                                     Collections.unmodifiableList(this.mapResults));
+		}
+
+		private void clear() {
+			this.innerCollectionResults.clear();
+			this.mapResults.clear();
+		}
+
+		ApiCollectionParam.Result innerCollectionResult() {
+			return this.innerCollectionResult;
+		}
+
+		ApiCollectionParam.Result mapResult() {
+			return this.mapResult;
+		}
+	}
+
+}
@@ -34,11 +34,12 @@ public final class ArrayChecks {
 	 * @return the created check to ensure the retrieved value at each index is unique
 	 */
 	public static <T, R> Check<T[]> checkUnique(Function<T, R> uniqueValRetriever, String failureMessage) {
+		Check.Result failure = Check.Result.failure(failureMessage);
 		return array -> {
 			Set<R> uniqueSet = new HashSet<>();
 			for (T idx : array) {
 				if (!uniqueSet.add(uniqueValRetriever.apply(idx))) {
-					return Check.Result.failure(failureMessage);
+					return failure;
 				}
 			}
 			return Check.Result.success();
@@ -7,6 +7,9 @@ public final class BooleanChecks {
 
 	private BooleanChecks() {}
 
+	private static final Check.Result MUST_BE_TRUE_FAILURE = Check.Result.failure("Must be 'true'.");
+	private static final Check.Result MUST_BE_FALSE_FAILURE = Check.Result.failure("Must be 'false'.");
+
 	/**
 	 * Check to ensure the Boolean value is always true.
 	 */
@@ -14,7 +17,7 @@ public final class BooleanChecks {
 		?
 		Check.Result.success()
 		:
-		Check.Result.failure("Must be 'true'.");
+		MUST_BE_TRUE_FAILURE;
 
 	/**
 	 * Check to ensure the Boolean value is always false.
@@ -23,7 +26,7 @@ public final class BooleanChecks {
 		?
 		Check.Result.success()
 		:
-		Check.Result.failure("Must be 'false'.");
+		MUST_BE_FALSE_FAILURE;
 
 	/**
 	 * Check to ensure the parameter is a Boolean.
@@ -2,8 +2,11 @@ package io.github.bhowell2.apilib.checks;
 
 import io.github.bhowell2.apilib.ApiLibSettings;
 import io.github.bhowell2.apilib.ApiSingleParam;
+import io.github.bhowell2.apilib.checks.utils.BoundedCache;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Intended to be used to check the value of a single parameter - a parameter that does not contain
@@ -57,11 +60,12 @@ public interface Check<T> {
 	 * @return
 	 */
 	static <T> Check<T> alwaysPass(Class<T> clazz, String invalidClassErrorMessage) {
+		Check.Result failure = Check.Result.failure(invalidClassErrorMessage);
 		return param -> clazz.isInstance(param)
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure(invalidClassErrorMessage);
+			failure;
 
 	}
 
@@ -88,7 +92,28 @@ public interface Check<T> {
 	 * @return a check that always fails
 	 */
 	static <T> Check<T> alwaysFail(String failureMessage) {
-		return (T t) -> Result.failure(failureMessage);
+		Result failure = Result.failure(failureMessage);
+		return (T t) -> failure;
+	}
+
+	/**
+	 * Caches the results of the check by the checked value in a bounded cache (see
+	 * {@link BoundedCache}), so that values that are checked often (e.g., country
+	 * codes or SKUs checked with a regex or a lookup) are only checked once while
+	 * they are cached. This should only be used with pure checks (i.e., the result
+	 * only depends on the value) and values that have a proper
+	 * {@link Object#equals(Object)} and {@link Object#hashCode()} and are not
+	 * modified after being checked. Failures are cached as well and their messages
+	 * are shared, so a lazy failure message should only depend on the value. If the
+	 * check throws an exception nothing is cached.
+	 *
+	 * @param check the check to memoize
+	 * @param policy the size of the cache
+	 * @param <T> type of the parameter
+	 * @return the memoized check, which provides the hit, miss and eviction counts of its cache
+	 */
+	static <T> MemoizedCheck<T> memoized(Check<T> check, CachePolicy policy) {
+		return new MemoizedCheck<>(check, policy);
 	}
 
 	/**
@@ -101,38 +126,62 @@ public interface Check<T> {
 	/**
 	 * Allows for returning whether or not the parameter's value was successfully
 	 * checked or that it failed and an failure message can optionally be returned.
+	 *
+	 * Results are immutable, so a check should create its failure result(s) once
+	 * (when the check is created) and return the same result every time it fails,
+	 * as the library's checks do. When the message depends on the value that was
+	 * checked, {@link #lazyFailure(Supplier)} defers creating the message until it is
+	 * actually read (which generally only happens when the check's failure is
+	 * returned as an {@link io.github.bhowell2.apilib.errors.ApiParamError}).
 	 */
 	final class Result {
 
-		public String failureMessage;
+		private final boolean failed;
+		// when both are null the failure message is the (current) default message
+		private final String failureMessage;
+		private final Supplier<String> failureMessageSupplier;
 
 		/**
 		 * Requiring use of static creation methods to disambiguate a successful result
-		 * (no param in constructor) and a failure (requiring value for failure message).
+		 * and a failure.
 		 */
-		private Result() {}
-
-		// for failure
-		private Result(String failureMessage) {
-			/*
-			 * this cannot be null due to successful and failed methods below
-			 * would need to add additional boolean for success status otherwise
-			 * */
+		private Result(boolean failed, String failureMessage, Supplier<String> failureMessageSupplier) {
+			this.failed = failed;
 			this.failureMessage = failureMessage;
+			this.failureMessageSupplier = failureMessageSupplier;
 		}
 
 		/**
 		 * Whether or not the check was successful.
 		 */
 		public boolean successful() {
-			return this.failureMessage == null;
+			return !this.failed;
 		}
 
 		/**
 		 * Whether or not the check failed.
 		 */
 		public boolean failed() {
-			return this.failureMessage != null;
+			return this.failed;
+		}
+
+		/**
+		 * The message of a failed check. If the result was created with a supplier
+		 * the message is created by the supplier every time this is called. If no
+		 * message was provided (or the supplier returns null) this is
+		 * {@link ApiLibSettings#DEFAULT_INVALID_PARAMETER_MESSAGE}.
+		 *
+		 * @return the failure message or null if the check was successful
+		 */
+		public String failureMessage() {
+			if (!this.failed) {
+				return null;
+			}
+			String message = this.failureMessage;
+			if (message == null && this.failureMessageSupplier != null) {
+				message = this.failureMessageSupplier.get();
+			}
+			return message != null ? message : ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE;
 		}
 
 		/* Static Creation Methods */
@@ -140,7 +189,13 @@ public interface Check<T> {
 		/**
 		 * Avoid creating a new object every time a check is successful.
 		 */
-		private static Result SUCCESSFUL = new Result();
+		private static final Result SUCCESSFUL = new Result(false, null, null);
+
+		/**
+		 * The message is resolved when read, so that changes to
+		 * {@link ApiLibSettings#DEFAULT_INVALID_PARAMETER_MESSAGE} are still used.
+		 */
+		private static final Result DEFAULT_FAILURE = new Result(true, null, null);
 
 		/* Implementation  */
 		public static Result success() {
@@ -148,11 +203,11 @@ public interface Check<T> {
 		}
 
 		/**
-		 * Creates a failed check result with the default failure message:
+		 * Returns a failed check result with the default failure message:
 		 * {@link ApiLibSettings#DEFAULT_INVALID_PARAMETER_MESSAGE}.
 		 */
 		public static Result failure() {
-			return new Result(ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE);
+			return DEFAULT_FAILURE;
 		}
 
 		/**
@@ -162,13 +217,27 @@ public interface Check<T> {
 		 */
 		public static Result failure(String failureMessage) {
 			if (failureMessage == null) {
-				/*
-				 * Cannot be null or would need to add a boolean to differentiate a failure
-				 * from success, due to how successful and failure methods are implemented.
-				 * */
-				return new Result(ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE);
+				return DEFAULT_FAILURE;
+			}
+			return new Result(true, failureMessage, null);
+		}
+
+		/**
+		 * Creates a failed check result of which the failure message is not created
+		 * until it is read with {@link #failureMessage()}. This should be used by
+		 * checks that need the checked value in the message, rather than building
+		 * the message every time the check fails. The supplier should not have side
+		 * effects, as it may be called any number of times (including not at all).
+		 *
+		 * @param failureMessageSupplier supplies the failure message (if it supplies
+		 *                               null the message will be
+		 *                               {@link ApiLibSettings#DEFAULT_INVALID_PARAMETER_MESSAGE})
+		 */
+		public static Result lazyFailure(Supplier<String> failureMessageSupplier) {
+			if (failureMessageSupplier == null) {
+				return DEFAULT_FAILURE;
 			}
-			return new Result(failureMessage);
+			return new Result(true, null, failureMessageSupplier);
 		}
 
 		/**
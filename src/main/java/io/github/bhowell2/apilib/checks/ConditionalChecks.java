@@ -4,6 +4,7 @@ import io.github.bhowell2.apilib.checks.utils.CollectionUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Provides conditional functionality for checks. Note, there is no AND conditional check, because
@@ -38,20 +39,22 @@ public final class ConditionalChecks {
 	@SafeVarargs
 	static <T> Check<T> orConditionalCheck(String failureMessage, Check<T>... checks) {
 		CollectionUtils.requireNonNullEntries(checks);
+		Check.Result failure = Check.Result.failure(failureMessage);
 		return param -> {
 			/*
 			 * Used to combine error messages if an explicit failure message is not provided.
-			 * If a failure
+			 * The results are immutable, so they are kept and their messages are only combined
+			 * if the message is actually read.
 			 * */
-			List<String> combinedErrorMessages = null;
+			List<Check.Result> failedResults = null;
 			for (int i = 0; i < checks.length; i++) {
 				Check.Result result = checks[i].check(param);
 				if (result.failed()) {
 					if (failureMessage == null) {
-						if (combinedErrorMessages == null) {
-							combinedErrorMessages = new ArrayList<>();
+						if (failedResults == null) {
+							failedResults = new ArrayList<>(checks.length);
 						}
-						combinedErrorMessages.add(result.failureMessage);
+						failedResults.add(result);
 					}
 				} else {
 					// if any single check passes this is successful
@@ -59,9 +62,12 @@ public final class ConditionalChecks {
 				}
 			}
 			if (failureMessage != null) {
-				return Check.Result.failure(failureMessage);
+				return failure;
 			}
-			return Check.Result.failure(String.join(" OR ", combinedErrorMessages));
+			List<Check.Result> combinedResults = failedResults;
+			return Check.Result.lazyFailure(() -> combinedResults.stream()
+			                                                     .map(Check.Result::failureMessage)
+			                                                     .collect(Collectors.joining(" OR ")));
 		};
 	}
 
@@ -101,18 +107,19 @@ public final class ConditionalChecks {
 	@SafeVarargs
 	static <T> Check<T> exclusiveConditionalCheck(String failureMessage, Check<T>... checks) {
 		CollectionUtils.requireNonNullEntries(checks);
+		Check.Result failure = Check.Result.failure(failureMessage);
 		return param -> {
 			boolean successfulResult = false;
 			for (Check<T> c : checks) {
 				Check.Result result = c.check(param);
 				if (result.successful()) {
 					if (successfulResult) {
-						return Check.Result.failure(failureMessage);
+						return failure;
 					}
 					successfulResult = true;
 				}
 			}
-			return successfulResult ? Check.Result.success() : Check.Result.failure(failureMessage);
+			return successfulResult ? Check.Result.success() : failure;
 		};
 	}
 
@@ -20,41 +20,45 @@ public final class DoubleChecks {
 	public static final Check<Double> IS_DOUBLE = Check.alwaysPass(Double.class);
 
 	public static Check<Double> valueGreaterThan(double d) {
+		Check.Result failure = Check.Result.failure("Must be greater than " + d + ".");
 		return input -> {
 			if (input > d) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be greater than " + d + ".");
+				return failure;
 			}
 		};
 	}
 
 	public static Check<Double> valueGreaterThanOrEqualTo(double d) {
+		Check.Result failure = Check.Result.failure("Must be greater than or equal to " + d + ".");
 		return input -> {
 			if (input >= d) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be greater than or equal to " + d + ".");
+				return failure;
 			}
 		};
 	}
 
 	public static Check<Double> valueLessThan(double d) {
+		Check.Result failure = Check.Result.failure("Must be less than " + d + ".");
 		return input -> {
 			if (input < d) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be less than " + d + ".");
+				return failure;
 			}
 		};
 	}
 
 	public static Check<Double> valueLessThanOrEqualTo(double d) {
+		Check.Result failure = Check.Result.failure("Must be less than or equal to " + d + ".");
 		return input -> {
 			if (input <= d) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be less than or equal to " + d + ".");
+				return failure;
 			}
 		};
 	}
@@ -66,12 +70,13 @@ public final class DoubleChecks {
 	 * @return
 	 */
 	public static Check<Double> valueEqualTo(double d) {
+		Check.Result failure = Check.Result.failure("Must be equal to " + d + ".");
 		return input -> {
 			// this will result in -0.0 == 0.0, whereas Double.valueOf(0.0).equals(Double.valueOf(-0.0)) = false
 			if (input == d) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be equal to " + d + ".");
+				return failure;
 			}
 		};
 	}
@@ -82,24 +87,26 @@ public final class DoubleChecks {
 	 * @return
 	 */
 	public static Check<Double> valueEqualToUniquePosAndNegZero(double d) {
+		Check.Result failure = Check.Result.failure("Must be equal to " + d + ".");
 		return input -> {
 			if (input.equals(d)) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be equal to " + d + ".");
+				return failure;
 			}
 		};
 	}
 
 	public static Check<Double> valueEqualTo(double[] acceptableDoubles) {
 		String acceptableListForFailureMsg = Arrays.stream(acceptableDoubles).mapToObj(Double::toString).collect(Collectors.joining(", "));
+		Check.Result failure = Check.Result.failure("Must equal one of the following: " + acceptableListForFailureMsg +".");
 		return input -> {
 			for (int i = 0; i < acceptableDoubles.length; i++) {
 				if (acceptableDoubles[i] == input) {
 					return Check.Result.success();
 				}
 			}
-			return Check.Result.failure("Must equal one of the following: " + acceptableListForFailureMsg +".");
+			return failure;
 		};
 	}
 
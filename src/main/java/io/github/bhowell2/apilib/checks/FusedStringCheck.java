@@ -0,0 +1,273 @@
+package io.github.bhowell2.apilib.checks;
+
+import io.github.bhowell2.apilib.Deadline;
+import io.github.bhowell2.apilib.checks.utils.CodePointSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs consecutive string checks created by the library (see {@link LibraryCheck})
+ * with one pass over the string, rather than each check scanning the string itself.
+ * The pass counts the code points of the string, the code points in (or not in) each
+ * check's code point set and the longest run of the same code point, and then each
+ * check's comparison is evaluated against those counts in the order the checks were
+ * added. The first check that fails is run by itself to create its failure, so the
+ * result is the same as running the checks one after another. Length checks do not need
+ * the pass, so they are evaluated before it and a length check that fails before any
+ * check that scans returns without the string being scanned.
+ *
+ * The checks of an {@link io.github.bhowell2.apilib.ApiSingleParam} are fused when it
+ * is built (unless they are reordered, see
+ * {@link io.github.bhowell2.apilib.AdaptiveOrdering}). Only consecutive checks are fused,
+ * so that any other check runs in the same position relative to them.
+ *
+ * @author Blake Howell
+ */
+public final class FusedStringCheck implements Check<String> {
+
+	// the most distinct code point sets of the checks of a fused check, whose counts are kept in locals
+	private static final int MAX_CODE_POINT_SETS = 4;
+
+	/**
+	 * Replaces each run of (at least two) consecutive string checks of the library that
+	 * scan the string with a {@link FusedStringCheck}. Length checks in the run are
+	 * included, as they do not add to the pass. Runs that count the code points of more
+	 * than four distinct code point sets are not fused.
+	 *
+	 * @param checks the checks in the order they are run
+	 * @param <T> the parameter's type (String, if any checks are fused)
+	 * @return the checks with the runs replaced (the same list if none were)
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<Check<T>> fuse(List<Check<T>> checks) {
+		List<Check<T>> fused = null;
+		int runStart = 0;
+		for (int i = 0; i <= checks.size(); i++) {
+			if (i < checks.size() && isFusible(checks.get(i))) {
+				continue;
+			}
+			// the run is [runStart, i)
+			int scanning = 0;
+			for (int j = runStart; j < i; j++) {
+				if (((LibraryCheck<?>) checks.get(j)).getSubject() != LibraryCheck.Subject.STRING_LENGTH) {
+					scanning++;
+				}
+			}
+			if (scanning >= 2 && countCodePointSets(checks.subList(runStart, i)) <= MAX_CODE_POINT_SETS) {
+				if (fused == null) {
+					fused = new ArrayList<>(checks.subList(0, runStart));
+				}
+				LibraryCheck<String>[] run = new LibraryCheck[i - runStart];
+				for (int j = runStart; j < i; j++) {
+					run[j - runStart] = (LibraryCheck<String>) checks.get(j);
+				}
+				fused.add((Check<T>) (Check<?>) new FusedStringCheck(run));
+			} else if (fused != null) {
+				fused.addAll(checks.subList(runStart, i));
+			}
+			if (fused != null && i < checks.size()) {
+				fused.add(checks.get(i));
+			}
+			runStart = i + 1;
+		}
+		return fused != null ? fused : checks;
+	}
+
+	/**
+	 * The reverse of {@link #fuse(List)}.
+	 *
+	 * @param checks the checks, which may contain fused checks
+	 * @param <T> the parameter's type
+	 * @return the checks with each fused check replaced by the checks it fused
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<Check<T>> unfuse(List<Check<T>> checks) {
+		List<Check<T>> unfused = new ArrayList<>(checks.size());
+		for (Check<T> check : checks) {
+			if (check instanceof FusedStringCheck) {
+				for (LibraryCheck<String> fusedCheck : ((FusedStringCheck) check).checks) {
+					unfused.add((Check<T>) (Check<?>) fusedCheck);
+				}
+			} else {
+				unfused.add(check);
+			}
+		}
+		return unfused;
+	}
+
+	private static int countCodePointSets(List<? extends Check<?>> checks) {
+		List<CodePointSet> codePointSets = new ArrayList<>();
+		for (Check<?> check : checks) {
+			CodePointSet codePoints = ((LibraryCheck<?>) check).getCodePoints();
+			if (codePoints != null && !codePointSets.contains(codePoints)) {
+				codePointSets.add(codePoints);
+			}
+		}
+		return codePointSets.size();
+	}
+
+	private static boolean isFusible(Check<?> check) {
+		if (!(check instanceof LibraryCheck)) {
+			return false;
+		}
+		switch (((LibraryCheck<?>) check).getSubject()) {
+			case STRING_LENGTH:
+			case STRING_CODE_POINT_COUNT:
+			case STRING_CODE_POINTS_IN_SET:
+			case STRING_CODE_POINTS_NOT_IN_SET:
+			case STRING_LONGEST_CODE_POINT_RUN:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private final LibraryCheck<String>[] checks;
+	// the distinct code point sets of the checks and the index of each check's set (-1 if none)
+	private final CodePointSet[] codePointSets;
+	private final int[] checkSets;
+	private final boolean countsRuns;
+	// the index of the first check that needs the pass (checks.length if none do)
+	private final int firstScanningCheck;
+
+	private FusedStringCheck(LibraryCheck<String>[] checks) {
+		this.checks = checks;
+		this.checkSets = new int[checks.length];
+		List<CodePointSet> codePointSets = new ArrayList<>();
+		boolean countsRuns = false;
+		int firstScanningCheck = checks.length;
+		for (int i = 0; i < checks.length; i++) {
+			CodePointSet codePoints = checks[i].getCodePoints();
+			if (codePoints == null) {
+				this.checkSets[i] = -1;
+			} else {
+				int index = codePointSets.indexOf(codePoints);
+				if (index == -1) {
+					index = codePointSets.size();
+					codePointSets.add(codePoints);
+				}
+				this.checkSets[i] = index;
+			}
+			countsRuns |= checks[i].getSubject() == LibraryCheck.Subject.STRING_LONGEST_CODE_POINT_RUN;
+			if (checks[i].getSubject() != LibraryCheck.Subject.STRING_LENGTH && i < firstScanningCheck) {
+				firstScanningCheck = i;
+			}
+		}
+		this.codePointSets = codePointSets.toArray(new CodePointSet[0]);
+		this.countsRuns = countsRuns;
+		this.firstScanningCheck = firstScanningCheck;
+	}
+
+	/**
+	 * @return the checks that were fused, in the order they are run
+	 */
+	public List<LibraryCheck<String>> getChecks() {
+		return Arrays.asList(this.checks);
+	}
+
+	@Override
+	public Result check(String s) {
+		/*
+		 * The length checks are evaluated before the pass, in order. If one fails before any
+		 * check that scans, it is the result without scanning the string. Otherwise, the
+		 * checks before it (but not after) are evaluated after the pass.
+		 * */
+		int checkCount = this.checks.length;
+		for (int i = 0; i < checkCount; i++) {
+			LibraryCheck<String> check = this.checks[i];
+			if (check.getSubject() == LibraryCheck.Subject.STRING_LENGTH && fails(check, s.length(), s)) {
+				if (i < this.firstScanningCheck) {
+					return failure(check, s);
+				}
+				checkCount = i + 1;
+			}
+		}
+		// the counts of the code points in each of the code point sets
+		int inSet0 = 0, inSet1 = 0, inSet2 = 0, inSet3 = 0;
+		int codePointCount = 0;
+		int longestRun = 0, run = 0, previousCodePoint = -1;
+		int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+		for (int i = 0; i < s.length(); ) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
+			}
+			// most strings are ASCII (or at least BMP), which do not need to be decoded
+			char c = s.charAt(i);
+			int codePoint = Character.isHighSurrogate(c) ? s.codePointAt(i) : c;
+			i += Character.charCount(codePoint);
+			codePointCount++;
+			switch (this.codePointSets.length) {
+				// falls through to count each of the sets
+				case 4:
+					if (this.codePointSets[3].contains(codePoint)) {
+						inSet3++;
+					}
+				case 3:
+					if (this.codePointSets[2].contains(codePoint)) {
+						inSet2++;
+					}
+				case 2:
+					if (this.codePointSets[1].contains(codePoint)) {
+						inSet1++;
+					}
+				case 1:
+					if (this.codePointSets[0].contains(codePoint)) {
+						inSet0++;
+					}
+			}
+			if (this.countsRuns) {
+				run = codePoint == previousCodePoint ? run + 1 : 1;
+				if (run > longestRun) {
+					longestRun = run;
+				}
+				previousCodePoint = codePoint;
+			}
+		}
+		for (int i = 0; i < checkCount; i++) {
+			LibraryCheck<String> check = this.checks[i];
+			int set = this.checkSets[i];
+			int inSet = set == 0 ? inSet0 : set == 1 ? inSet1 : set == 2 ? inSet2 : inSet3;
+			int value;
+			switch (check.getSubject()) {
+				case STRING_LENGTH:
+					value = s.length();
+					break;
+				case STRING_CODE_POINT_COUNT:
+					value = codePointCount;
+					break;
+				case STRING_CODE_POINTS_IN_SET:
+					value = inSet;
+					break;
+				case STRING_CODE_POINTS_NOT_IN_SET:
+					value = codePointCount - inSet;
+					break;
+				case STRING_LONGEST_CODE_POINT_RUN:
+					value = longestRun;
+					break;
+				default:
+					throw new IllegalStateException("Cannot fuse check of subject: " + check.getSubject());
+			}
+			if (fails(check, value, s)) {
+				return failure(check, s);
+			}
+		}
+		return Result.success();
+	}
+
+	private static boolean fails(LibraryCheck<String> check, int value, String s) {
+		return (check.isFailedWhenEmpty() && s.isEmpty()) || !check.getComparison().test(value, check.getOperand());
+	}
+
+	// the failure is created by the check itself, which only runs when the string fails
+	private static Result failure(LibraryCheck<String> check, String s) {
+		Result result = check.check(s);
+		if (result.successful()) {
+			throw new IllegalStateException("Check of subject " + check.getSubject() + " succeeded, but failed when fused.");
+		}
+		return result;
+	}
+
+}
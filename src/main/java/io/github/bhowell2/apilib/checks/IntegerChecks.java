@@ -16,53 +16,58 @@ public final class IntegerChecks {
 	public static final Check<Integer> IS_INTEGER = Check.alwaysPass(Integer.class);
 
 	public static Check<Integer> valueGreaterThan(int i) {
-		return input -> {
+		Check.Result failure = Check.Result.failure("Must be greater than " + i + ".");
+		return LibraryCheck.integerValue(LibraryCheck.Comparison.GREATER_THAN, i, input -> {
 			if (input > i) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be greater than " + i + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	public static Check<Integer> valueGreaterThanOrEqualTo(int i) {
-		return input -> {
+		Check.Result failure = Check.Result.failure("Must be greater than or equal to " + i + ".");
+		return LibraryCheck.integerValue(LibraryCheck.Comparison.GREATER_THAN_OR_EQUAL_TO, i, input -> {
 			if (input >= i) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be greater than or equal to " + i + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	public static Check<Integer> valueLessThan(int i) {
-		return input -> {
+		Check.Result failure = Check.Result.failure("Must be less than " + i + ".");
+		return LibraryCheck.integerValue(LibraryCheck.Comparison.LESS_THAN, i, input -> {
 			if (input < i) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be less than " + i + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	public static Check<Integer> valueLessThanOrEqualTo(int i) {
-		return input -> {
+		Check.Result failure = Check.Result.failure("Must be less than or equal to " + i + ".");
+		return LibraryCheck.integerValue(LibraryCheck.Comparison.LESS_THAN_OR_EQUAL_TO, i, input -> {
 			if (input <= i) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be less than or equal to " + i + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	public static Check<Integer> valueEqualTo(int i) {
-		return input -> {
+		Check.Result failure = Check.Result.failure("Must be equal to " + i + ".");
+		return LibraryCheck.integerValue(LibraryCheck.Comparison.EQUAL_TO, i, input -> {
 			if (input == i) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Must be equal to " + i + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -74,30 +79,33 @@ public final class IntegerChecks {
 		String acceptableListForFailureMsg = Arrays.stream(acceptableInts)
 		                                           .mapToObj(Integer::toString)
 		                                           .collect(Collectors.joining(", "));
+		Check.Result failure = Check.Result.failure("Does not equal any of the acceptable integers: " + acceptableListForFailureMsg + ".");
 		return input -> {
 			for (int i : acceptableInts) {
 				if (input == i) {
 					return Check.Result.success();
 				}
 			}
-			return Check.Result.failure("Does not equal any of the acceptable integers: " + acceptableListForFailureMsg + ".");
+			return failure;
 		};
 	}
 
 	public static Check<Integer> valueIsEven() {
+		Check.Result failure = Check.Result.failure("Must be an even integer.");
 		return input -> input % 2 == 0
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure("Must be an even integer.");
+			failure;
 	}
 
 	public static Check<Integer> valueIsOdd() {
+		Check.Result failure = Check.Result.failure("Must be an odd integer.");
 		return input -> input % 2 != 0
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure("Must be an odd integer.");
+			failure;
 	}
 
 }
@@ -0,0 +1,176 @@
+package io.github.bhowell2.apilib.checks;
+
+import io.github.bhowell2.apilib.checks.utils.CodePointSet;
+
+/**
+ * A check created by the library (e.g., {@link IntegerChecks#valueGreaterThan(int)}
+ * or {@link StringChecks#lengthLessThan(int)}) that compares some integer value
+ * of the parameter (the {@link Subject}) with an operand. Since the check is fully
+ * described by its subject, comparison and operand (and the code point set of the
+ * subjects that count code points in a set) it can be recognized and specialized
+ * (e.g., when generating a class for an {@link io.github.bhowell2.apilib.ApiMapParam}
+ * or fusing the string checks of a parameter, see {@link FusedStringCheck}). The
+ * check itself behaves exactly as the check that it wraps.
+ *
+ * @author Blake Howell
+ */
+public final class LibraryCheck<T> implements Check<T> {
+
+	/**
+	 * The value of the parameter that is compared to the operand.
+	 */
+	public enum Subject {
+		/**
+		 * {@link Integer#intValue()}.
+		 */
+		INTEGER_VALUE,
+		/**
+		 * {@link String#length()}.
+		 */
+		STRING_LENGTH,
+		/**
+		 * {@link String#codePointCount(int, int)} of the whole string.
+		 */
+		STRING_CODE_POINT_COUNT,
+		/**
+		 * The number of code points of the string that are in the check's code point
+		 * set (see {@link LibraryCheck#getCodePoints()}).
+		 */
+		STRING_CODE_POINTS_IN_SET,
+		/**
+		 * The number of code points of the string that are not in the check's code point
+		 * set (see {@link LibraryCheck#getCodePoints()}).
+		 */
+		STRING_CODE_POINTS_NOT_IN_SET,
+		/**
+		 * The length of the longest run of the same code point in the string (0 for the
+		 * empty string).
+		 */
+		STRING_LONGEST_CODE_POINT_RUN
+	}
+
+	/**
+	 * How the subject's value is compared to the operand. The check is
+	 * successful when {@code value <comparison> operand} is true.
+	 */
+	public enum Comparison {
+		GREATER_THAN,
+		GREATER_THAN_OR_EQUAL_TO,
+		LESS_THAN,
+		LESS_THAN_OR_EQUAL_TO,
+		EQUAL_TO;
+
+		public boolean test(int value, int operand) {
+			switch (this) {
+				case GREATER_THAN:
+					return value > operand;
+				case GREATER_THAN_OR_EQUAL_TO:
+					return value >= operand;
+				case LESS_THAN:
+					return value < operand;
+				case LESS_THAN_OR_EQUAL_TO:
+					return value <= operand;
+				case EQUAL_TO:
+					return value == operand;
+				default:
+					throw new IllegalStateException("Unknown comparison: " + this);
+			}
+		}
+	}
+
+	private final Subject subject;
+	private final Comparison comparison;
+	private final int operand;
+	// null unless the subject counts the code points in (or not in) a set
+	private final CodePointSet codePoints;
+	private final boolean failedWhenEmpty;
+	private final Check<T> check;
+
+	LibraryCheck(Subject subject, Comparison comparison, int operand, Check<T> check) {
+		this(subject, comparison, operand, null, false, check);
+	}
+
+	LibraryCheck(Subject subject,
+	             Comparison comparison,
+	             int operand,
+	             CodePointSet codePoints,
+	             boolean failedWhenEmpty,
+	             Check<T> check) {
+		this.subject = subject;
+		this.comparison = comparison;
+		this.operand = operand;
+		this.codePoints = codePoints;
+		this.failedWhenEmpty = failedWhenEmpty;
+		this.check = check;
+	}
+
+	static LibraryCheck<Integer> integerValue(Comparison comparison, int operand, Check<Integer> check) {
+		return new LibraryCheck<>(Subject.INTEGER_VALUE, comparison, operand, check);
+	}
+
+	static LibraryCheck<String> stringLength(Comparison comparison, int operand, Check<String> check) {
+		return new LibraryCheck<>(Subject.STRING_LENGTH, comparison, operand, check);
+	}
+
+	static LibraryCheck<String> stringCodePointCount(Comparison comparison, int operand, Check<String> check) {
+		return new LibraryCheck<>(Subject.STRING_CODE_POINT_COUNT, comparison, operand, check);
+	}
+
+	static LibraryCheck<String> stringCodePointsInSet(Comparison comparison,
+	                                                  int operand,
+	                                                  CodePointSet codePoints,
+	                                                  Check<String> check) {
+		return new LibraryCheck<>(Subject.STRING_CODE_POINTS_IN_SET, comparison, operand, codePoints, false, check);
+	}
+
+	static LibraryCheck<String> stringCodePointsNotInSet(Comparison comparison,
+	                                                     int operand,
+	                                                     CodePointSet codePoints,
+	                                                     boolean failedWhenEmpty,
+	                                                     Check<String> check) {
+		return new LibraryCheck<>(Subject.STRING_CODE_POINTS_NOT_IN_SET,
+		                          comparison,
+		                          operand,
+		                          codePoints,
+		                          failedWhenEmpty,
+		                          check);
+	}
+
+	static LibraryCheck<String> stringLongestCodePointRun(Comparison comparison, int operand, Check<String> check) {
+		return new LibraryCheck<>(Subject.STRING_LONGEST_CODE_POINT_RUN, comparison, operand, check);
+	}
+
+	public Subject getSubject() {
+		return subject;
+	}
+
+	public Comparison getComparison() {
+		return comparison;
+	}
+
+	public int getOperand() {
+		return operand;
+	}
+
+	/**
+	 * @return the code point set of {@link Subject#STRING_CODE_POINTS_IN_SET} and
+	 * {@link Subject#STRING_CODE_POINTS_NOT_IN_SET}, otherwise null
+	 */
+	public CodePointSet getCodePoints() {
+		return codePoints;
+	}
+
+	/**
+	 * @return whether the check also fails on the empty string, whatever the comparison
+	 * (e.g., {@link StringChecks#limitCodePointsToRange(int, int, boolean)})
+	 */
+	public boolean isFailedWhenEmpty() {
+		return failedWhenEmpty;
+	}
+
+	@Override
+	public Result check(T param) {
+		return this.check.check(param);
+	}
+
+}
@@ -0,0 +1,49 @@
+package io.github.bhowell2.apilib.checks;
+
+import io.github.bhowell2.apilib.checks.utils.BoundedCache;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
+
+/**
+ * Caches the results of a pure check by the checked value (see
+ * {@link Check#memoized(Check, CachePolicy)}).
+ *
+ * @author Blake Howell
+ */
+public final class MemoizedCheck<T> implements Check<T> {
+
+	final Check<T> check;
+	final BoundedCache<T, Result> cache;
+
+	MemoizedCheck(Check<T> check, CachePolicy policy) {
+		if (check == null) {
+			throw new IllegalArgumentException("Check cannot be null.");
+		}
+		this.check = check;
+		this.cache = new BoundedCache<>(policy);
+	}
+
+	@Override
+	public Result check(T param) {
+		Result result = this.cache.getIfPresent(param);
+		if (result == null) {
+			result = this.check.check(param);
+			this.cache.put(param, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the check that is memoized
+	 */
+	public Check<T> getCheck() {
+		return this.check;
+	}
+
+	/**
+	 * @return the cache of results, which provides the hit, miss and eviction counts
+	 */
+	public BoundedCache<T, Result> getCache() {
+		return this.cache;
+	}
+
+}
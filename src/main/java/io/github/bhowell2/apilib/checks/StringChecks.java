@@ -1,8 +1,14 @@
 package io.github.bhowell2.apilib.checks;
 
+import io.github.bhowell2.apilib.Deadline;
+import io.github.bhowell2.apilib.checks.utils.AhoCorasick;
+import io.github.bhowell2.apilib.checks.utils.CodePointSet;
 import io.github.bhowell2.apilib.checks.utils.CodePointUtils;
 import io.github.bhowell2.apilib.checks.utils.CollectionUtils;
 import io.github.bhowell2.apilib.checks.utils.IntegerUtils;
+import io.github.bhowell2.apilib.checks.utils.LinearRegex;
+import io.github.bhowell2.apilib.checks.utils.StringPerfectHash;
+import io.github.bhowell2.apilib.checks.utils.StringPrefixTrie;
 import io.github.bhowell2.apilib.checks.utils.StringUtils;
 
 import java.util.Arrays;
@@ -78,6 +84,49 @@ public final class StringChecks {
 
 	private StringChecks() {} // no instantiation
 
+	// the string to match a regex against, which checks the deadline of the check (if any) while it is matched
+	private static CharSequence deadlineGuarded(String s) {
+		Deadline deadline = Deadline.current();
+		return deadline != null ? deadline.guard(s) : s;
+	}
+
+	/*
+	 * The failure results of the constant checks below. These are held by a nested class
+	 * because a (static) field cannot be referenced by a lambda before it is defined.
+	 * */
+	private static final class Failures {
+		static final Check.Result IS_EMPTY = Check.Result.failure("Must be empty.");
+		static final Check.Result IS_NOT_EMPTY = Check.Result.failure("Cannot be empty.");
+		static final Check.Result IS_EMPTY_OR_ONLY_WHITESPACE =
+			Check.Result.failure("Must be empty or contain only whitespace.");
+		static final Check.Result IS_NOT_EMPTY_OR_ONLY_WHITESPACE =
+			Check.Result.failure("Cannot be empty or only contain whitespace.");
+		static final Check.Result ONLY_ALLOW_UNRESERVED_URL_CHARS =
+			Check.Result.failure("Contains reserved URL characters. May only contain A-Z, " +
+				                     "a-z, 0-9, '-', '.', '_', and '~'");
+		static final Check.Result MATCHES_BASIC_EMAIL_PATTERN = Check.Result.failure("Is not a valid email address.");
+	}
+
+	// the code points of Character.isWhitespace(int), which are all in the BMP
+	private static final CodePointSet WHITESPACE = whitespaceCodePoints();
+
+	private static final CodePointSet UNRESERVED_URL_CHARS = CodePointSet.builder()
+	                                                                     .addRange('A', 'Z')
+	                                                                     .addRange('a', 'z')
+	                                                                     .addRange('0', '9')
+	                                                                     .addCodePoints("-._~")
+	                                                                     .build();
+
+	private static CodePointSet whitespaceCodePoints() {
+		CodePointSet.Builder builder = CodePointSet.builder();
+		for (int codePoint = 0; codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT; codePoint++) {
+			if (Character.isWhitespace(codePoint)) {
+				builder.addCodePoints(codePoint);
+			}
+		}
+		return builder.build();
+	}
+
 	/**
 	 * Check to ensure that the parameter is a String.
 	 */
@@ -86,81 +135,96 @@ public final class StringChecks {
 	/**
 	 * Check to ensure that the string is empty (i.e., length = 0).
 	 */
-	public static final Check<String> IS_EMPTY = s -> s.isEmpty()
-		?
-		Check.Result.success()
-		:
-		Check.Result.failure("Must be empty.");
-
-	public static final Check<String> IS_NOT_EMPTY = s -> !s.isEmpty()
-		?
-		Check.Result.success()
-		:
-		Check.Result.failure("Cannot be empty.");
+	public static final Check<String> IS_EMPTY =
+		LibraryCheck.stringLength(LibraryCheck.Comparison.EQUAL_TO, 0, s -> s.isEmpty()
+			?
+			Check.Result.success()
+			:
+			Failures.IS_EMPTY);
+
+	public static final Check<String> IS_NOT_EMPTY =
+		LibraryCheck.stringLength(LibraryCheck.Comparison.GREATER_THAN, 0, s -> !s.isEmpty()
+			?
+			Check.Result.success()
+			:
+			Failures.IS_NOT_EMPTY);
 
 	/**
 	 * Check to ensure the string is empty or only contains whitespace.
 	 * This supports supplementary unicode characters.
 	 */
-	public static final Check<String> IS_EMPTY_OR_ONLY_WHITESPACE = s -> {
-		if (s.length() == 0) {
-			return Check.Result.success();
-		}
-		boolean isOnlyWhitespace = true;
-		for (int i = 0; i < s.length(); i++) {
-			/*
-			 * This should not be run for the second part of the surrogate pair, but even if the position is a low-end
-			 * surrogate pair it will not be whitespace due to the low-end being U+DC00 to U+DFFF, which is not whitespace.
-			 * */
-			int codePoint = s.codePointAt(i);
-			if (!Character.isWhitespace(codePoint)) {
-				isOnlyWhitespace = false;
-				break;
+	public static final Check<String> IS_EMPTY_OR_ONLY_WHITESPACE =
+		LibraryCheck.stringCodePointsNotInSet(LibraryCheck.Comparison.EQUAL_TO, 0, WHITESPACE, false, s -> {
+			if (s.length() == 0) {
+				return Check.Result.success();
 			}
-		}
-		return isOnlyWhitespace
-			?
-			Check.Result.success()
-			:
-			Check.Result.failure("Must be empty or contain only whitespace.");
-	};
+			boolean isOnlyWhitespace = true;
+			int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+			for (int i = 0; i < s.length(); i++) {
+				if (--untilDeadlineCheck == 0) {
+					untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+					Deadline.checkCurrent();
+				}
+				/*
+				 * This should not be run for the second part of the surrogate pair, but even if the position is a low-end
+				 * surrogate pair it will not be whitespace due to the low-end being U+DC00 to U+DFFF, which is not whitespace.
+				 * */
+				int codePoint = s.codePointAt(i);
+				if (!Character.isWhitespace(codePoint)) {
+					isOnlyWhitespace = false;
+					break;
+				}
+			}
+			return isOnlyWhitespace
+				?
+				Check.Result.success()
+				:
+				Failures.IS_EMPTY_OR_ONLY_WHITESPACE;
+		});
 
 	/**
 	 * Check to ensure the string is NOT empty or contains only whitespace.
 	 */
-	public static final Check<String> IS_NOT_EMPTY_OR_ONLY_WHITESPACE = s ->
-		IS_EMPTY_OR_ONLY_WHITESPACE.check(s).successful()
-			?
-			Check.Result.failure("Cannot be empty or only contain whitespace.")
-			:
-			Check.Result.success();
+	public static final Check<String> IS_NOT_EMPTY_OR_ONLY_WHITESPACE =
+		LibraryCheck.stringCodePointsNotInSet(LibraryCheck.Comparison.GREATER_THAN, 0, WHITESPACE, false, s ->
+			IS_EMPTY_OR_ONLY_WHITESPACE.check(s).successful()
+				?
+				Failures.IS_NOT_EMPTY_OR_ONLY_WHITESPACE
+				:
+				Check.Result.success());
 
 
 	/**
 	 * Only permits unreserved URL characters in the string (i.e., a-z, 0-9, '-', '.', '_', '~').
 	 * Successful if the string only contains unreserved URL characters, fails otherwise.
 	 */
-	public static final Check<String> ONLY_ALLOW_UNRESERVED_URL_CHARS = s -> {
-		for (int i = 0; i < s.length(); i++) {
-			/*
-			 * Can just use a character here, because even if the string provided contains 2-character codepoints
-			 * they will be outside of the range of unreserved url characters (U+D8000 to U+DFFFF in each position).
-			 * */
-			char c = s.charAt(i);
-			if (
-				(c < 'A' || c > 'Z') &&
-					(c < 'a' || c > 'z') &&
-					(c < '0' || c > '9') &&
-					(c != '-' && c != '.' && c != '_' && c != '~')
-			) {
-				return Check.Result.failure("Contains reserved URL characters. May only contain A-Z, " +
-					                            "a-z, 0-9, '-', '.', '_', and '~'");
+	public static final Check<String> ONLY_ALLOW_UNRESERVED_URL_CHARS =
+		LibraryCheck.stringCodePointsNotInSet(LibraryCheck.Comparison.EQUAL_TO, 0, UNRESERVED_URL_CHARS, false, s -> {
+			int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+			for (int i = 0; i < s.length(); i++) {
+				if (--untilDeadlineCheck == 0) {
+					untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+					Deadline.checkCurrent();
+				}
+				/*
+				 * Can just use a character here, because even if the string provided contains 2-character codepoints
+				 * they will be outside of the range of unreserved url characters (U+D8000 to U+DFFFF in each position).
+				 * */
+				char c = s.charAt(i);
+				if (
+					(c < 'A' || c > 'Z') &&
+						(c < 'a' || c > 'z') &&
+						(c < '0' || c > '9') &&
+						(c != '-' && c != '.' && c != '_' && c != '~')
+				) {
+					return Failures.ONLY_ALLOW_UNRESERVED_URL_CHARS;
+				}
 			}
-		}
-		return Check.Result.success();
-	};
+			return Check.Result.success();
+		});
 
-	private static final Pattern BASIC_EMAIL_PATTERN = Pattern.compile(".+@.+\\..{2,}$");
+	// matched in linear time, as the pattern backtracks polynomially with java.util.regex
+	private static final LinearRegex BASIC_EMAIL_PATTERN = LinearRegex.compile(".+@.+\\..{2,}$");
 
 	/**
 	 * A very basic email check. This only limits the email string to the form X@Y.Z,
@@ -172,11 +236,11 @@ public final class StringChecks {
 	 * sending a verification email.
 	 */
 	public static final Check<String> MATCHES_BASIC_EMAIL_PATTERN = s ->
-		BASIC_EMAIL_PATTERN.matcher(s).matches()
+		BASIC_EMAIL_PATTERN.matches(s)
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure("Is not a valid email address.");
+			Failures.MATCHES_BASIC_EMAIL_PATTERN;
 
 	/**
 	 * Creates check which ensures the length of the string is greater than min.
@@ -192,13 +256,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> lengthGreaterThan(int min) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, min);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be greater than " + min + ".");
+		return LibraryCheck.stringLength(LibraryCheck.Comparison.GREATER_THAN, min, s -> {
 			if (s.length() > min) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be greater than " + min + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -211,13 +276,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> codePointCountGreaterThan(int min) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, min);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be greater than " + min + ".");
+		return LibraryCheck.stringCodePointCount(LibraryCheck.Comparison.GREATER_THAN, min, s -> {
 			if (s.codePointCount(0, s.length()) > min) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be greater than " + min + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -234,13 +300,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> lengthGreaterThanOrEqualTo(int min) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, min);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be greater than or equal to " + min + ".");
+		return LibraryCheck.stringLength(LibraryCheck.Comparison.GREATER_THAN_OR_EQUAL_TO, min, s -> {
 			if (s.length() >= min) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be greater than or equal to " + min + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -254,13 +321,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> codePointCountGreaterThanOrEqualTo(int min) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, min);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be greater than or equal to " + min + ".");
+		return LibraryCheck.stringCodePointCount(LibraryCheck.Comparison.GREATER_THAN_OR_EQUAL_TO, min, s -> {
 			if (s.codePointCount(0, s.length()) >= min) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be greater than or equal to " + min + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -277,13 +345,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> lengthLessThan(int max) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(1, max, "String length cannot be less than 0.");
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be less than " + max + ".");
+		return LibraryCheck.stringLength(LibraryCheck.Comparison.LESS_THAN, max, s -> {
 			if (s.length() < max) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be less than " + max + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -296,13 +365,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> codePointCountLessThan(int max) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(1, max, "String length cannot be less than 0.");
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be less than " + max + ".");
+		return LibraryCheck.stringCodePointCount(LibraryCheck.Comparison.LESS_THAN, max, s -> {
 			if (s.codePointCount(0, s.length()) < max) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be less than " + max + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -319,13 +389,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> lengthLessThanOrEqualTo(int max) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, max);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be less than of equal to " + max + ".");
+		return LibraryCheck.stringLength(LibraryCheck.Comparison.LESS_THAN_OR_EQUAL_TO, max, s -> {
 			if (s.length() <= max) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be less than of equal to " + max + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -339,13 +410,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> codePointCountLessThanOrEqualTo(int max) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, max);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be less than of equal to " + max + ".");
+		return LibraryCheck.stringCodePointCount(LibraryCheck.Comparison.LESS_THAN_OR_EQUAL_TO, max, s -> {
 			if (s.codePointCount(0, s.length()) <= max) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be less than of equal to " + max + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -362,13 +434,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> lengthEqualTo(int length) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, length);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be equal to " + length + ".");
+		return LibraryCheck.stringLength(LibraryCheck.Comparison.EQUAL_TO, length, s -> {
 			if (s.length() == length) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be equal to " + length + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -381,13 +454,14 @@ public final class StringChecks {
 	 */
 	public static Check<String> codePointCountEqualTo(int length) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, length);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Length must be equal to " + length + ".");
+		return LibraryCheck.stringCodePointCount(LibraryCheck.Comparison.EQUAL_TO, length, s -> {
 			if (s.codePointCount(0, s.length()) == length) {
 				return Check.Result.success();
 			} else {
-				return Check.Result.failure("Length must be equal to " + length + ".");
+				return failure;
 			}
-		};
+		});
 	}
 
 	/**
@@ -396,12 +470,9 @@ public final class StringChecks {
 	 * not matched as that could aid user exploitation.
 	 */
 	public static Check<String> matchesRegex(Pattern pattern) {
-		if (pattern.pattern().equals("")) {
-			throw new IllegalArgumentException(
-				"Cannot create check with empty regex. If an empty string is desired use "
-					+ "StringChecks.lengthEqualTo(0) or StringChecks.IS_EMPTY.");
-		}
-		return s -> pattern.matcher(s).matches()
+		requireNonEmptyRegex(pattern.pattern());
+		Check.Result failure = Check.Result.failure("Is not of correct form.");
+		return s -> pattern.matcher(deadlineGuarded(s)).matches()
 			?
 			Check.Result.success()
 			:
@@ -409,7 +480,41 @@ public final class StringChecks {
 			 * Regexes are fickle so not returning the regex pattern here to avoid the developer
 			 * accidentally sending it back to the user, leading to easier exploitation.
 			 * */
-			Check.Result.failure("Is not of correct form.");
+			failure;
+	}
+
+	/**
+	 * Creates check which ensures the param string matches the regex or returns a failure,
+	 * like {@link #matchesRegex(Pattern)}, but the regex is matched by {@link LinearRegex}
+	 * in time linear in the length of the string. This should be preferred for regexes that
+	 * are matched against user input, as a backtracking {@link Pattern} can take exponential
+	 * time to fail to match some strings (e.g., {@code (.*a){20}b}).
+	 *
+	 * @param regex the regex. only the subset of the {@link Pattern} syntax described by
+	 *              {@link LinearRegex} is supported
+	 * @throws IllegalArgumentException if the regex is empty or cannot be matched in linear
+	 * time (e.g., it has backreferences)
+	 */
+	public static Check<String> matchesRegexLinear(String regex) {
+		requireNonEmptyRegex(regex);
+		return matchesRegexLinear(LinearRegex.compile(regex));
+	}
+
+	/**
+	 * @see #matchesRegexLinear(String)
+	 */
+	public static Check<String> matchesRegexLinear(LinearRegex regex) {
+		requireNonEmptyRegex(regex.pattern());
+		Check.Result failure = Check.Result.failure("Is not of correct form.");
+		return s -> regex.matches(s) ? Check.Result.success() : failure;
+	}
+
+	private static void requireNonEmptyRegex(String regex) {
+		if (regex.equals("")) {
+			throw new IllegalArgumentException(
+				"Cannot create check with empty regex. If an empty string is desired use "
+					+ "StringChecks.lengthEqualTo(0) or StringChecks.IS_EMPTY.");
+		}
 	}
 
 	/**
@@ -425,21 +530,29 @@ public final class StringChecks {
 		StringUtils.requireNonEmptyString(codePoints);
 		StringUtils.requireUniqueCodePoints(codePoints);
 		StringUtils.requireCodePointCountGreaterThanOrEqualTo(1, codePoints);
-		return s -> {
-			if (s.isEmpty()) {
-				return Check.Result.failure("Must begin with one of the following characters: '" + codePoints + "'.");
-			}
-			for (int i = 0; i < codePoints.length(); i++) {
-				int shouldBeginWithCodepoint = codePoints.codePointAt(i);
-				if (shouldBeginWithCodepoint == s.codePointAt(0)) {
-					return Check.Result.success();
-				} else if (Character.isSupplementaryCodePoint(shouldBeginWithCodepoint)) {
-					// skip next position, because it is 2nd char making up the single code point
-					i++;
-				}
-			}
-			return Check.Result.failure("Must begin with one of the following characters: '" + codePoints + "'.");
-		};
+		Check.Result failure = Check.Result.failure("Must begin with one of the following characters: '" + codePoints + "'.");
+		return beginsWithCodePoints(CodePointSet.of(codePoints), failure);
+	}
+
+	/**
+	 * Creates check that ensures the first "character" in the string is in the set of code points.
+	 *
+	 * Fails on empty string.
+	 *
+	 * @param codePoints the code points the string may begin with
+	 */
+	public static Check<String> beginsWithCodePoints(CodePointSet codePoints) {
+		Objects.requireNonNull(codePoints);
+		Check.Result failure = Check.Result.failure("Must begin with one of the following characters: '" + codePoints + "'.");
+		return beginsWithCodePoints(codePoints, failure);
+	}
+
+	private static Check<String> beginsWithCodePoints(CodePointSet codePoints, Check.Result failure) {
+		return s -> !s.isEmpty() && codePoints.contains(s.codePointAt(0))
+			?
+			Check.Result.success()
+			:
+			failure;
 	}
 
 	/**
@@ -468,21 +581,18 @@ public final class StringChecks {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, minCodePoint);
 		IntegerUtils.requireIntGreaterThanOrEqualTo(minCodePoint, maxCodePoint,
 		                                            "max code point must be greater than or equal to min code point.");
+		Check.Result failure = Check.Result.failure("First character must be within range '" +
+		                                            String.valueOf(Character.toChars(minCodePoint)) +
+		                                            "' to '" +
+		                                            String.valueOf(Character.toChars(maxCodePoint)) +
+		                                            "'.");
 		return s -> {
 			if (s.isEmpty()) {
-				return Check.Result.failure("First character must be within range '" +
-					                            String.valueOf(Character.toChars(minCodePoint)) +
-					                            "' to '" +
-					                            String.valueOf(Character.toChars(maxCodePoint)) +
-					                            "'.");
+				return failure;
 			}
 			int codePoint = s.codePointAt(0);
 			if (codePoint < minCodePoint || codePoint > maxCodePoint) {
-				return Check.Result.failure("First character must be within range '" +
-					                            String.valueOf(Character.toChars(minCodePoint)) +
-					                            "' to '" +
-					                            String.valueOf(Character.toChars(maxCodePoint)) +
-					                            "'.");
+				return failure;
 			}
 			return Check.Result.success();
 		};
@@ -499,21 +609,29 @@ public final class StringChecks {
 		StringUtils.requireNonEmptyString(codePoints);
 		StringUtils.requireCodePointCountGreaterThanOrEqualTo(1, codePoints);
 		StringUtils.requireUniqueCodePoints(codePoints);
-		return s -> {
-			if (s.length() > 0) {
-				int beginningCodePoint = s.codePointAt(0);
-				for (int i = 0; i < codePoints.length(); i++) {
-					int shouldNotBeginWithCodepoint = codePoints.codePointAt(i);
-					if (shouldNotBeginWithCodepoint == beginningCodePoint) {
-						return Check.Result.failure("Must begin with one of the following characters: '" + codePoints + "'.");
-					} else if (Character.isSupplementaryCodePoint(shouldNotBeginWithCodepoint)) {
-						// skip next position, because it is 2nd char making up the single code point
-						i++;
-					}
-				}
-			}
-			return Check.Result.success();
-		};
+		Check.Result failure = Check.Result.failure("Cannot begin with any of the following characters: '" + codePoints + "'.");
+		return doesNotBeginWithCodePoints(CodePointSet.of(codePoints), failure);
+	}
+
+	/**
+	 * Creates check that ensures the string does not begin with any code point in the set.
+	 *
+	 * Does not fail on empty string.
+	 *
+	 * @param codePoints the code points the string may not begin with
+	 */
+	public static Check<String> doesNotBeginWithCodePoints(CodePointSet codePoints) {
+		Objects.requireNonNull(codePoints);
+		Check.Result failure = Check.Result.failure("Cannot begin with any of the following characters: '" + codePoints + "'.");
+		return doesNotBeginWithCodePoints(codePoints, failure);
+	}
+
+	private static Check<String> doesNotBeginWithCodePoints(CodePointSet codePoints, Check.Result failure) {
+		return s -> !s.isEmpty() && codePoints.contains(s.codePointAt(0))
+			?
+			failure
+			:
+			Check.Result.success();
 	}
 
 	/**
@@ -544,15 +662,16 @@ public final class StringChecks {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, minCodePoint);
 		IntegerUtils.requireIntGreaterThanOrEqualTo(minCodePoint, maxCodePoint,
 		                                            "max code point must be greater than or equal to min code point.");
+		Check.Result failure = Check.Result.failure("First character cannot be within range '" +
+		                                            String.valueOf(Character.toChars(minCodePoint)) +
+		                                            "' to '" +
+		                                            String.valueOf(Character.toChars(maxCodePoint)) +
+		                                            "'.");
 		return s -> {
 			if (s.length() > 0) {
 				int beginCodePoint = s.codePointAt(0);
 				if (beginCodePoint >= minCodePoint && beginCodePoint <= maxCodePoint) {
-					return Check.Result.failure("First character cannot be within range '" +
-						                            String.valueOf(Character.toChars(minCodePoint)) +
-						                            "' to '" +
-						                            String.valueOf(Character.toChars(maxCodePoint)) +
-						                            "'.");
+					return failure;
 				}
 			}
 			return Check.Result.success();
@@ -561,6 +680,8 @@ public final class StringChecks {
 
 	/**
 	 * Creates check that ensures the string begins with one of the strings supplied.
+	 * The strings are put in a {@link StringPrefixTrie}, so the check takes the same time
+	 * however many strings there are.
 	 *
 	 * Fails on empty string.
 	 *
@@ -569,27 +690,16 @@ public final class StringChecks {
 	public static Check<String> beginsWithStrings(String... strings) {
 		Objects.requireNonNull(strings);
 		CollectionUtils.requireNonNullEntries(strings);
-		return s -> {
-			for (int i = 0; i < strings.length; i++) {
-				String beginWithString = strings[i];
-				if (s.length() < beginWithString.length()) {
-					continue; // cannot begin with this string if it is longer than param string
-				}
-				for (int j = 0; j < beginWithString.length(); j++) {
-					if (beginWithString.charAt(j) != s.charAt(j)) {
-						break;    // does not equal this current beginWithString, break to go to next.
-					}
-					if (j == beginWithString.length() - 1) {
-						// all characters checked and matched
-						return Check.Result.success();
-					}
-				}
-			}
-			String joinedStringsErrMsg = Arrays.stream(strings)
-			                                   .map(str -> "\"" + str + "\"")
-			                                   .collect(Collectors.joining(","));
-			return Check.Result.failure("Must begin with one of the following strings: " + joinedStringsErrMsg + ".");
-		};
+		String joinedStringsErrMsg = Arrays.stream(strings)
+		                                   .map(str -> "\"" + str + "\"")
+		                                   .collect(Collectors.joining(","));
+		Check.Result failure = Check.Result.failure("Must begin with one of the following strings: " + joinedStringsErrMsg + ".");
+		StringPrefixTrie prefixes = StringPrefixTrie.of(strings);
+		return s -> prefixes.beginsWithAny(s)
+			?
+			Check.Result.success()
+			:
+			failure;
 	}
 
 	/**
@@ -602,32 +712,16 @@ public final class StringChecks {
 	public static Check<String> doesNotBeginWithStrings(String... strings) {
 		Objects.requireNonNull(strings);
 		CollectionUtils.requireNonNullEntries(strings);
-		return s -> {
-			// checking this here, because loop below iterates over strings to check against and not the param string supplied
-			if (s.isEmpty()) {
-				return Check.Result.success();
-			}
-			for (int i = 0; i < strings.length; i++) {
-				String beginWithString = strings[i];
-				if (s.length() < beginWithString.length()) {
-					continue;
-				}
-				for (int j = 0; j < beginWithString.length(); j++) {
-					if (beginWithString.charAt(j) != s.charAt(j)) {
-						break;
-					}
-					if (j == beginWithString.length() - 1) {
-						// all characters checked and matched. should not have. fail.
-						String joinedStringsErrMsg = Arrays.stream(strings)
-						                                   .map(str -> "\"" + str + "\"")
-						                                   .collect(Collectors.joining(","));
-						return Check.Result.failure("Must begin with one of the following strings: " + joinedStringsErrMsg + ".");
-					}
-				}
-			}
-			// nothing matched
-			return Check.Result.success();
-		};
+		String joinedStringsErrMsg = Arrays.stream(strings)
+		                                   .map(str -> "\"" + str + "\"")
+		                                   .collect(Collectors.joining(","));
+		Check.Result failure = Check.Result.failure("Cannot begin with any of the following strings: " + joinedStringsErrMsg + ".");
+		StringPrefixTrie prefixes = StringPrefixTrie.of(strings);
+		return s -> prefixes.beginsWithAny(s)
+			?
+			failure
+			:
+			Check.Result.success();
 	}
 
 	/**
@@ -660,23 +754,30 @@ public final class StringChecks {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(0, minCodePoint);
 		IntegerUtils.requireIntGreaterThanOrEqualTo(minCodePoint, maxCodePoint,
 		                                            "max code point must be greater than or equal to min code point.");
-		return s -> {
+		Check.Result failure = Check.Result.failure("Characters must be within range '" +
+		                                            String.valueOf(Character.toChars(minCodePoint)) +
+		                                            "' to '" +
+		                                            String.valueOf(Character.toChars(maxCodePoint)) +
+		                                            "'.");
+		CodePointSet codePoints = CodePointSet.range(minCodePoint, maxCodePoint);
+		return LibraryCheck.stringCodePointsNotInSet(LibraryCheck.Comparison.EQUAL_TO,
+		                                             0,
+		                                             allowWhitespace ? codePoints.union(WHITESPACE) : codePoints,
+		                                             true,
+		                                             s -> {
 			if (s.isEmpty()) {
-				return Check.Result.failure("Characters must be within range '" +
-					                            String.valueOf(Character.toChars(minCodePoint)) +
-					                            "' to '" +
-					                            String.valueOf(Character.toChars(maxCodePoint)) +
-					                            "'.");
+				return failure;
 			}
+			int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
 			for (int i = 0; i < s.length(); i++) {
+				if (--untilDeadlineCheck == 0) {
+					untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+					Deadline.checkCurrent();
+				}
 				int codePoint = s.codePointAt(i);
 				if (!(allowWhitespace && Character.isWhitespace(codePoint)) &&
 					(codePoint < minCodePoint || codePoint > maxCodePoint)) {
-					return Check.Result.failure("Characters must be within range '" +
-						                            String.valueOf(Character.toChars(minCodePoint)) +
-						                            "' to '" +
-						                            String.valueOf(Character.toChars(maxCodePoint)) +
-						                            "'.");
+					return failure;
 				}
 				if (Character.isSupplementaryCodePoint(codePoint)) {
 					// skip next position, because it is 2nd char making up the single code point
@@ -684,7 +785,43 @@ public final class StringChecks {
 				}
 			}
 			return Check.Result.success();
-		};
+		});
+	}
+
+	/**
+	 * Creates check that ensures all code points in the string are in the set of code points.
+	 *
+	 * Fails on empty string.
+	 *
+	 * @param codePoints the code points the string may contain (e.g.,
+	 *                   {@code CodePointSet.scripts(Character.UnicodeScript.LATIN)})
+	 * @param allowWhitespace whether or not whitespace is allowed even if it is not in the set
+	 */
+	public static Check<String> limitCodePointsToRange(CodePointSet codePoints, boolean allowWhitespace) {
+		Objects.requireNonNull(codePoints);
+		Check.Result failure = Check.Result.failure("Characters must be one of '" + codePoints + "'.");
+		return LibraryCheck.stringCodePointsNotInSet(LibraryCheck.Comparison.EQUAL_TO,
+		                                             0,
+		                                             allowWhitespace ? codePoints.union(WHITESPACE) : codePoints,
+		                                             true,
+		                                             s -> {
+			if (s.isEmpty()) {
+				return failure;
+			}
+			int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+			for (int i = 0; i < s.length(); ) {
+				if (--untilDeadlineCheck == 0) {
+					untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+					Deadline.checkCurrent();
+				}
+				int codePoint = s.codePointAt(i);
+				if (!codePoints.contains(codePoint) && !(allowWhitespace && Character.isWhitespace(codePoint))) {
+					return failure;
+				}
+				i += Character.charCount(codePoint);
+			}
+			return Check.Result.success();
+		});
 	}
 
 	/**
@@ -770,51 +907,19 @@ public final class StringChecks {
 					+ "code points if the count must be unique."
 			);
 		}
-		return s -> {
-			if (s.length() < min) {
-				return minCodePoint == maxCodePoint
-					?
-					Check.Result.failure("Must contain '" + String.valueOf(Character.toChars(minCodePoint)) + "' " +
-						                     "at least " + min + " times in the provided string.")
-					:
-					Check.Result.failure("Must contain at least " + min + " characters within the range '" +
-						                     CodePointUtils.codePointToString(minCodePoint) +
-						                     "' to '" +
-						                     CodePointUtils.codePointToString(maxCodePoint) + "'.");
-			}
-			Set<Integer> uniqueSet = null;
-			if (unique) {
-				uniqueSet = new HashSet<>();
-			}
-			int counter = 0;
-			for (int i = 0; i < s.length(); i++) {
-				int curCodePoint = s.codePointAt(i);
-				if (curCodePoint >= minCodePoint && curCodePoint <= maxCodePoint) {
-					if (unique && uniqueSet.add(curCodePoint)) {
-						// increment if unique and was successfully added (returns true if it was not already in set)
-						counter++;
-					} else if (!unique) {
-						// always increment if not unique
-						counter++;
-					}
-					if (counter >= min) {
-						return Check.Result.success();
-					} else if (Character.isSupplementaryCodePoint(curCodePoint)) {
-						// skip next position, because it is 2nd char making up the single code point
-						i++;
-					}
-				}
-			}
-			return minCodePoint == maxCodePoint
-				?
-				Check.Result.failure("Must contain '" + String.valueOf(Character.toChars(minCodePoint)) + "' " +
-					                     "at least " + min + " times in the provided string.")
-				:
-				Check.Result.failure("Must contain at least " + min + " characters within the range '" +
-					                     CodePointUtils.codePointToString(minCodePoint) +
-					                     "' to '" +
-					                     CodePointUtils.codePointToString(maxCodePoint) + "'.");
-		};
+		Check.Result failure = Check.Result.failure("Must contain '" + String.valueOf(Character.toChars(minCodePoint)) + "' " +
+		                                            "at least " + min + " times in the provided string.");
+		Check.Result failure2 = Check.Result.failure("Must contain at least " + min + " characters within the range '" +
+		                                             CodePointUtils.codePointToString(minCodePoint) +
+		                                             "' to '" +
+		                                             CodePointUtils.codePointToString(maxCodePoint) + "'.");
+		Check.Result rangeFailure = minCodePoint == maxCodePoint ? failure : failure2;
+		CodePointSet codePoints = CodePointSet.range(minCodePoint, maxCodePoint);
+		return containsCodePoints(min, codePoints, unique, s -> s.length() >= min && containsCodePoints(s, codePoints, min, unique)
+			?
+			Check.Result.success()
+			:
+			rangeFailure);
 	}
 
 	/**
@@ -842,34 +947,121 @@ public final class StringChecks {
 						+ "code points must be unique as the check would always fail.");
 			}
 		}
-		return s -> {
-			int counter = 0;
-			for (int i = 0; i < mustContainCodePoints.length(); i++) {
-				int codePoint = mustContainCodePoints.codePointAt(i);
-				if (Character.isSupplementaryCodePoint(codePoint)) {
-					// skip next position, because it is 2nd char making up the single code point
-					i++;
-				}
-				for (int k = 0; k < s.length(); k++) {
-					int inputCodePoint = s.codePointAt(k);
-					if (Character.isSupplementaryCodePoint(inputCodePoint)) {
-						// skip next position, because it is 2nd char making up the single code point
-						k++;
-					}
-					if (codePoint == inputCodePoint) {
-						counter++;
-						if (counter >= min) {
-							return Check.Result.success();
-						} else if (unique) {
-							// since code point has been matched and count has not been met yet move on to next code point
-							break;
-						}
-					}
-				}
+		Check.Result failure = Check.Result.failure("Must contain at least " + min + " of the following: '" +
+		                                            mustContainCodePoints + "'.");
+		CodePointSet codePoints = CodePointSet.of(mustContainCodePoints);
+		return containsCodePoints(min, codePoints, unique, s -> containsCodePoints(s, codePoints, min, unique)
+			?
+			Check.Result.success()
+			:
+			failure);
+	}
+
+	/**
+	 * Creates check that ensures the string contains code points in the set (at least) a
+	 * minimum number of times. {@code unique = true} will only count a code point once.
+	 *
+	 * Fails on empty string.
+	 *
+	 * @param min minimum number of times the code points in the set must appear in the string
+	 * @param mustContainCodePoints the code points to count (e.g.,
+	 *                              {@code CodePointSet.categories(Character.DECIMAL_DIGIT_NUMBER)})
+	 * @param unique true if a code point should only be counted once, false otherwise
+	 */
+	public static Check<String> containsCodePoints(int min, CodePointSet mustContainCodePoints, boolean unique) {
+		IntegerUtils.requireIntGreaterThanOrEqualTo(1, min);
+		Objects.requireNonNull(mustContainCodePoints);
+		if (unique && min > mustContainCodePoints.size()) {
+			throw new IllegalArgumentException(
+				"Cannot have N greater than the maximum number of code points when the "
+					+ "code points must be unique as the check would always fail.");
+		}
+		Check.Result failure = Check.Result.failure("Must contain at least " + min + " of the following: '" +
+		                                            mustContainCodePoints + "'.");
+		return containsCodePoints(min, mustContainCodePoints, unique, s -> containsCodePoints(s, mustContainCodePoints, min, unique)
+			?
+			Check.Result.success()
+			:
+			failure);
+	}
+
+	/**
+	 * Creates check that ensures the string does not contain any code point in the set.
+	 *
+	 * Does not fail on empty string.
+	 *
+	 * @param mustNotContainCodePoints the code points the string cannot contain
+	 */
+	public static Check<String> doesNotContainCodePoints(CodePointSet mustNotContainCodePoints) {
+		Objects.requireNonNull(mustNotContainCodePoints);
+		Check.Result failure = Check.Result.failure("Cannot contain any of the following: '" +
+		                                            mustNotContainCodePoints + "'.");
+		return LibraryCheck.stringCodePointsInSet(LibraryCheck.Comparison.EQUAL_TO, 0, mustNotContainCodePoints, s ->
+			containsCodePoints(s, mustNotContainCodePoints, 1, false)
+				?
+				failure
+				:
+				Check.Result.success());
+	}
+
+	/*
+	 * Counting code points that are not unique is described by the number of code points in
+	 * the set, so the check can be fused with the other string checks (see FusedStringCheck).
+	 * Counting unique code points is not.
+	 * */
+	private static Check<String> containsCodePoints(int min, CodePointSet codePoints, boolean unique, Check<String> check) {
+		return unique
+			?
+			check
+			:
+			LibraryCheck.stringCodePointsInSet(LibraryCheck.Comparison.GREATER_THAN_OR_EQUAL_TO, min, codePoints, check);
+	}
+
+	// the largest min of unique code points that are tracked in a table rather than a set (see below)
+	private static final int MAX_UNIQUE_CODE_POINTS_IN_TABLE = 256;
+
+	/*
+	 * Whether the string contains (at least) min code points of the set, with one pass over
+	 * the string. The code points counted when unique are tracked in a small open addressing
+	 * table (of code point + 1, so 0 is empty) rather than a set of boxed integers, unless
+	 * min is so large that the table would be too.
+	 * */
+	private static boolean containsCodePoints(String s, CodePointSet codePoints, int min, boolean unique) {
+		if (s.length() < min) {
+			// the string has fewer than min code points
+			return false;
+		}
+		int[] counted = unique && min <= MAX_UNIQUE_CODE_POINTS_IN_TABLE ? new int[Integer.highestOneBit(min) << 2] : null;
+		Set<Integer> countedSet = unique && counted == null ? new HashSet<>() : null;
+		int counter = 0;
+		int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+		for (int i = 0; i < s.length(); ) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
 			}
-			return Check.Result.failure("Must contain at least " + min + " of the following: '" +
-				                            mustContainCodePoints + "'.");
-		};
+			int codePoint = s.codePointAt(i);
+			i += Character.charCount(codePoint);
+			if (codePoints.contains(codePoint)
+				&& (!unique || (counted != null ? addCodePoint(counted, codePoint) : countedSet.add(codePoint)))
+				&& ++counter >= min) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// adds the code point to the table, returning false if it was already added
+	private static boolean addCodePoint(int[] table, int codePoint) {
+		int mask = table.length - 1;
+		for (int i = (codePoint * 0x9E3779B9) >>> 16 & mask; ; i = (i + 1) & mask) {
+			if (table[i] == 0) {
+				table[i] = codePoint + 1;
+				return true;
+			} else if (table[i] == codePoint + 1) {
+				return false;
+			}
+		}
 	}
 
 	/**
@@ -897,8 +1089,9 @@ public final class StringChecks {
 	}
 
 	/**
-	 * Creates check that ensures the string contains (using {@link String#contains(CharSequence)})
-	 * the strings in the set (at least) a minimum number of times.
+	 * Creates check that ensures the string contains (like {@link String#contains(CharSequence)})
+	 * the strings in the set (at least) a minimum number of times. The strings are searched
+	 * for with one pass over the string (see {@link AhoCorasick}).
 	 *
 	 * E.g.,
 	 * min = 1, mustContainStrings = ["abc", "bb", "🤓"]
@@ -909,25 +1102,103 @@ public final class StringChecks {
 	 * "zyx\uD83E\uDD13" will pass, because it contains the unicode for the nerd face
 	 */
 	public static Check<String> containsStrings(int min, Set<String> mustContainStrings) {
-		IntegerUtils.requireIntGreaterThanOrEqualTo(1, min);
+		return containsStrings(min, mustContainStrings, false);
+	}
+
+	/**
+	 * Creates check that ensures the string contains the strings in the set (at least) a
+	 * minimum number of times, optionally ignoring case.
+	 *
+	 * @see #containsStrings(int, Set)
+	 */
+	public static Check<String> containsStrings(int min, Set<String> mustContainStrings, boolean ignoreCase) {
 		Objects.requireNonNull(mustContainStrings);
 		CollectionUtils.requireNonNullEntries(mustContainStrings);
 		CollectionUtils.requireSizeGreaterThan(0, mustContainStrings);
 		CollectionUtils.requireNonEmptyStrings(mustContainStrings);
-		String[] mustContainStringsArray = mustContainStrings.toArray(new String[0]);
+		return containsStrings(min, AhoCorasick.of(mustContainStrings, ignoreCase));
+	}
+
+	/**
+	 * Creates check that ensures the string contains the automaton's strings (at least) a
+	 * minimum number of times. The automaton can be shared with other checks, e.g.
+	 * {@link #doesNotContainStrings(AhoCorasick)}.
+	 *
+	 * @see #containsStrings(int, Set)
+	 */
+	public static Check<String> containsStrings(int min, AhoCorasick mustContainStrings) {
+		IntegerUtils.requireIntGreaterThanOrEqualTo(1, min);
+		Objects.requireNonNull(mustContainStrings);
+		String[] mustContainStringsArray = new String[mustContainStrings.size()];
+		for (int i = 0; i < mustContainStringsArray.length; i++) {
+			mustContainStringsArray[i] = mustContainStrings.needle(i);
+		}
+		String errorMsgChars = String.join(", ", mustContainStringsArray);
+		Check.Result failure = Check.Result.failure("Must contain at least " + min + " of the following strings: " +
+		                                            errorMsgChars + ".");
+		return s -> mustContainStrings.countContained(s, min) >= min
+			?
+			Check.Result.success()
+			:
+			failure;
+	}
+
+	/**
+	 * Creates check that ensures the string does not contain any of the strings.
+	 *
+	 * @see #doesNotContainStrings(Set, boolean)
+	 */
+	public static Check<String> doesNotContainStrings(String... mustNotContainStrings) {
+		return doesNotContainStrings(new HashSet<>(Arrays.asList(mustNotContainStrings)));
+	}
+
+	/**
+	 * Creates check that ensures the string does not contain any of the strings.
+	 *
+	 * @see #doesNotContainStrings(Set, boolean)
+	 */
+	public static Check<String> doesNotContainStrings(Set<String> mustNotContainStrings) {
+		return doesNotContainStrings(mustNotContainStrings, false);
+	}
+
+	/**
+	 * Creates check that ensures the string does not contain (like
+	 * {@link String#contains(CharSequence)}) any of the strings in the set (e.g., a list of
+	 * banned words), optionally ignoring case. The strings are searched for with one pass
+	 * over the string (see {@link AhoCorasick}), so the set can be large. The failure
+	 * message contains the string that was found.
+	 *
+	 * E.g.,
+	 * mustNotContainStrings = ["darn", "heck"], ignoreCase = true
+	 * "oh Heck" will fail with the message "Cannot contain 'heck'."
+	 * "check" will fail
+	 * "oh dear" will pass
+	 */
+	public static Check<String> doesNotContainStrings(Set<String> mustNotContainStrings, boolean ignoreCase) {
+		Objects.requireNonNull(mustNotContainStrings);
+		CollectionUtils.requireNonNullEntries(mustNotContainStrings);
+		CollectionUtils.requireSizeGreaterThan(0, mustNotContainStrings);
+		CollectionUtils.requireNonEmptyStrings(mustNotContainStrings);
+		return doesNotContainStrings(AhoCorasick.of(mustNotContainStrings, ignoreCase));
+	}
+
+	/**
+	 * Creates check that ensures the string does not contain any of the automaton's strings.
+	 * The automaton can be shared with other checks, e.g. {@link #containsStrings(int, AhoCorasick)}.
+	 *
+	 * @see #doesNotContainStrings(Set, boolean)
+	 */
+	public static Check<String> doesNotContainStrings(AhoCorasick mustNotContainStrings) {
+		Objects.requireNonNull(mustNotContainStrings);
+		// the message is only created if it is read
+		Check.Result[] failures = new Check.Result[mustNotContainStrings.size()];
+		for (int i = 0; i < failures.length; i++) {
+			String needle = mustNotContainStrings.needle(i);
+			failures[i] = Check.Result.lazyFailure(() -> "Cannot contain '" + needle + "'.");
+		}
 		return s -> {
-			int counter = 0;
-			for (int i = 0; i < mustContainStringsArray.length; i++) {
-				if (s.contains(mustContainStringsArray[i])) {
-					counter++;
-				}
-				if (counter >= min) {
-					return Check.Result.success();
-				}
-			}
-			String errorMsgChars = String.join(", ", mustContainStringsArray);
-			return Check.Result.failure("Must contain at least " + min + " of the following strings: " +
-				                            errorMsgChars + ".");
+			int found = mustNotContainStrings.find(s);
+			return found == -1 ? Check.Result.success() : failures[found];
 		};
 	}
 
@@ -946,11 +1217,18 @@ public final class StringChecks {
 	 */
 	public static Check<String> limitConsecutiveCodePoints(int max) {
 		IntegerUtils.requireIntGreaterThanOrEqualTo(1, max);
-		return s -> {
+		Check.Result failure = Check.Result.failure("Cannot contain a character that repeats (consecutively) more than " +
+		                                            max + " times.");
+		return LibraryCheck.stringLongestCodePointRun(LibraryCheck.Comparison.LESS_THAN_OR_EQUAL_TO, max, s -> {
 			// always start consecutive counter at 1. whatever is at the current position has occurred 1 time..!
 			int consecutiveCounter = 1;
 			int strLength = s.length() - 1;
+			int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
 			for (int i = 0; i < strLength; i++) {
+				if (--untilDeadlineCheck == 0) {
+					untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+					Deadline.checkCurrent();
+				}
 				int codePoint = s.codePointAt(i);
 				if (Character.isSupplementaryCodePoint(codePoint)) {
 					// skip next pos, because is part of current code point
@@ -971,15 +1249,14 @@ public final class StringChecks {
 				if (codePoint == codePointNext) {
 					consecutiveCounter++;
 					if (consecutiveCounter > max) {
-						return Check.Result.failure("Cannot contain a character that repeats (consecutively) more than " +
-							                            max + " times.");
+						return failure;
 					}
 				} else {
 					consecutiveCounter = 1;
 				}
 			}
 			return Check.Result.success();
-		};
+		});
 	}
 
 	/**
@@ -1040,7 +1317,8 @@ public final class StringChecks {
 	}
 
 	/**
-	 * Checks that the param string equals a string in the provided set.
+	 * Checks that the param string equals a string in the provided set. The strings are
+	 * looked up with a {@link StringPerfectHash} created when the check is created.
 	 *
 	 * @param strings
 	 * @return
@@ -1052,13 +1330,20 @@ public final class StringChecks {
 		String acceptableListForFailureMsg = strings.stream()
 		                                            .map(setStr -> "'" + setStr + "'")
 		                                            .collect(Collectors.joining(", "));
-		return s -> strings.contains(s)
+		Check.Result failure = Check.Result.failure("Must equal on of the following strings: " + acceptableListForFailureMsg + ".");
+		StringPerfectHash acceptable = StringPerfectHash.of(strings);
+		return s -> acceptable.contains(s)
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure("Must equal on of the following strings: " + acceptableListForFailureMsg + ".");
+			failure;
 	}
 
+	/**
+	 * Checks that the param string equals a string in the provided list ignoring case (as
+	 * {@link String#equalsIgnoreCase(String)} does). The param string is looked up without
+	 * creating its lower case copy.
+	 */
 	public static Check<String> equalsStringIgnoreCase(String... strings) {
 		return equalsStringIgnoreCase(new HashSet<>(Arrays.asList(strings)));
 	}
@@ -1071,11 +1356,13 @@ public final class StringChecks {
 		String acceptableListForFailureMsg = lowerCasedStrings.stream()
 		                                                      .map(setStr -> "'" + setStr + "'")
 		                                                      .collect(Collectors.joining(", "));
-		return s -> lowerCasedStrings.contains(s.toLowerCase())
+		Check.Result failure = Check.Result.failure("Must equal one of the following strings: " + acceptableListForFailureMsg + ".");
+		StringPerfectHash acceptable = perfectHashIgnoreCase(strings);
+		return s -> acceptable.contains(s)
 			?
 			Check.Result.success()
 			:
-			Check.Result.failure("Must equal one of the following strings: " + acceptableListForFailureMsg + ".");
+			failure;
 	}
 
 	/**
@@ -1094,10 +1381,12 @@ public final class StringChecks {
 		CollectionUtils.requireNonNullEntries(notEqualsSet);
 		String unacceptableListForFailureMsg = notEqualsSet.stream().map(setStr -> "'" + setStr + "'")
 		                                                   .collect(Collectors.joining(", "));
+		Check.Result failure = Check.Result.failure("Cannot be one of the following strings: " + unacceptableListForFailureMsg + ".");
+		StringPerfectHash unacceptable = StringPerfectHash.of(notEqualsSet);
 		return s ->
-			notEqualsSet.contains(s)
+			unacceptable.contains(s)
 				?
-				Check.Result.failure("Cannot be one of the following strings: " + unacceptableListForFailureMsg + ".")
+				failure
 				:
 				Check.Result.success();
 	}
@@ -1114,12 +1403,21 @@ public final class StringChecks {
 		String unacceptableListForFailureMsg = lowerCasedNotEqualsSet.stream()
 		                                                             .map(setStr -> "'" + setStr + "'")
 		                                                             .collect(Collectors.joining(", "));
+		Check.Result failure = Check.Result.failure("Cannot be one of the following strings: " + unacceptableListForFailureMsg + ".");
+		StringPerfectHash unacceptable = perfectHashIgnoreCase(notEqualsSet);
 		return s ->
-			lowerCasedNotEqualsSet.contains(s.toLowerCase())
+			unacceptable.contains(s)
 				?
-				Check.Result.failure("Cannot be one of the following strings: " + unacceptableListForFailureMsg + ".")
+				failure
 				:
 				Check.Result.success();
 	}
 
+	// the strings that only differ by case are the same string when looked up ignoring case
+	private static StringPerfectHash perfectHashIgnoreCase(Set<String> strings) {
+		return StringPerfectHash.ofIgnoreCase(strings.stream()
+		                                             .collect(Collectors.toMap(StringUtils::foldCase, s -> s, (a, b) -> a))
+		                                             .values());
+	}
+
 }
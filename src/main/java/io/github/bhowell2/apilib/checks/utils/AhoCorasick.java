@@ -0,0 +1,282 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import io.github.bhowell2.apilib.Deadline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An Aho-Corasick automaton over a fixed set of strings (the needles), which finds
+ * all of the needles in a string with one pass over its chars, rather than searching
+ * the string once per needle (e.g., with {@link String#contains(CharSequence)}).
+ * Searching does not allocate (except {@link #countContained(CharSequence, int)} with
+ * a limit greater than 1), so the automaton can be shared by any number of checks
+ * and threads.
+ *
+ * The needles are matched against the chars of the string like
+ * {@link String#contains(CharSequence)}. If the automaton ignores case, each char is
+ * compared ignoring case like {@link String#equalsIgnoreCase(String)} does.
+ *
+ * @author Blake Howell
+ */
+public final class AhoCorasick {
+
+	private static final int ROOT = 0;
+
+	/**
+	 * @see #of(Collection, boolean)
+	 */
+	public static AhoCorasick of(String... needles) {
+		if (needles == null) {
+			throw new IllegalArgumentException("Needles cannot be null.");
+		}
+		return of(Arrays.asList(needles), false);
+	}
+
+	/**
+	 * @see #of(Collection, boolean)
+	 */
+	public static AhoCorasick of(Collection<String> needles) {
+		return of(needles, false);
+	}
+
+	/**
+	 * Creates the automaton. The index of a needle (see {@link #find(CharSequence)}) is
+	 * its position in the iteration order of the collection, without duplicates (which,
+	 * if the case is ignored, includes the needles that only differ by case).
+	 *
+	 * @param needles the strings to search for (must not be null or empty)
+	 * @param ignoreCase whether the case of the chars is ignored
+	 * @return the automaton
+	 */
+	public static AhoCorasick of(Collection<String> needles, boolean ignoreCase) {
+		if (needles == null) {
+			throw new IllegalArgumentException("Needles cannot be null.");
+		}
+		if (needles.isEmpty()) {
+			throw new IllegalArgumentException("Needles cannot be empty.");
+		}
+		// the folded needle -> the needle
+		Map<String, String> uniqueNeedles = new LinkedHashMap<>();
+		for (String needle : needles) {
+			if (needle == null || needle.isEmpty()) {
+				throw new IllegalArgumentException("Needles cannot contain null or empty strings.");
+			}
+			uniqueNeedles.putIfAbsent(ignoreCase ? StringUtils.foldCase(needle) : needle, needle);
+		}
+		return new AhoCorasick(uniqueNeedles, ignoreCase);
+	}
+
+	private final String[] needles;
+	private final boolean ignoreCase;
+
+	/*
+	 * The trie of the needles, where the children of node i are at [childStarts[i],
+	 * childStarts[i + 1]) of childChars (sorted) and childNodes.
+	 * */
+	private final int[] childStarts;
+	private final char[] childChars;
+	private final int[] childNodes;
+	// the node of the longest proper suffix of the node's string that is in the trie
+	private final int[] failureNodes;
+	// the needle that ends at the node (-1 if none) and the next node on the failure path where one ends (-1 if none)
+	private final int[] nodeNeedles;
+	private final int[] outputNodes;
+
+	private AhoCorasick(Map<String, String> needles, boolean ignoreCase) {
+		this.needles = needles.values().toArray(new String[0]);
+		this.ignoreCase = ignoreCase;
+
+		// build the trie with maps and then flatten it
+		List<Map<Character, Integer>> children = new ArrayList<>();
+		List<Integer> nodeNeedles = new ArrayList<>();
+		children.add(new HashMap<>());
+		nodeNeedles.add(-1);
+		int needleIndex = 0;
+		for (String needle : needles.keySet()) {
+			int node = ROOT;
+			for (int i = 0; i < needle.length(); i++) {
+				Integer child = children.get(node).get(needle.charAt(i));
+				if (child == null) {
+					child = children.size();
+					children.get(node).put(needle.charAt(i), child);
+					children.add(new HashMap<>());
+					nodeNeedles.add(-1);
+				}
+				node = child;
+			}
+			nodeNeedles.set(node, needleIndex++);
+		}
+
+		int nodeCount = children.size();
+		this.childStarts = new int[nodeCount + 1];
+		this.childChars = new char[nodeCount - 1];
+		this.childNodes = new int[nodeCount - 1];
+		this.nodeNeedles = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			this.nodeNeedles[node] = nodeNeedles.get(node);
+			int start = this.childStarts[node];
+			Character[] chars = children.get(node).keySet().toArray(new Character[0]);
+			Arrays.sort(chars);
+			for (int i = 0; i < chars.length; i++) {
+				this.childChars[start + i] = chars[i];
+				this.childNodes[start + i] = children.get(node).get(chars[i]);
+			}
+			this.childStarts[node + 1] = start + chars.length;
+		}
+
+		/*
+		 * The failure node of a node is found from the failure node of its parent, so they
+		 * are set breadth first.
+		 * */
+		this.failureNodes = new int[nodeCount];
+		this.outputNodes = new int[nodeCount];
+		this.outputNodes[ROOT] = -1;
+		int[] queue = new int[nodeCount];
+		int head = 0, tail = 0;
+		queue[tail++] = ROOT;
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = this.childStarts[node]; i < this.childStarts[node + 1]; i++) {
+				int child = this.childNodes[i];
+				int failure = ROOT;
+				if (node != ROOT) {
+					failure = next(this.failureNodes[node], this.childChars[i]);
+				}
+				this.failureNodes[child] = failure;
+				this.outputNodes[child] = this.nodeNeedles[failure] != -1 ? failure : this.outputNodes[failure];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	private int child(int node, char c) {
+		int lo = this.childStarts[node], hi = this.childStarts[node + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			char midChar = this.childChars[mid];
+			if (c < midChar) {
+				hi = mid - 1;
+			} else if (c > midChar) {
+				lo = mid + 1;
+			} else {
+				return this.childNodes[mid];
+			}
+		}
+		return -1;
+	}
+
+	// the node after the char, following the failure nodes until a node has a child for the char
+	private int next(int node, char c) {
+		while (true) {
+			int child = child(node, c);
+			if (child != -1) {
+				return child;
+			}
+			if (node == ROOT) {
+				return ROOT;
+			}
+			node = this.failureNodes[node];
+		}
+	}
+
+	/**
+	 * @return the number of (unique) needles
+	 */
+	public int size() {
+		return this.needles.length;
+	}
+
+	/**
+	 * @param index the index of the needle
+	 * @return the needle
+	 */
+	public String needle(int index) {
+		return this.needles[index];
+	}
+
+	public boolean isIgnoreCase() {
+		return this.ignoreCase;
+	}
+
+	/**
+	 * Finds the needle that ends first in the string (the longest one if more than one
+	 * ends at the same char).
+	 *
+	 * @param s the string to search
+	 * @return the index of the needle (see {@link #needle(int)}) or -1 if the string does
+	 * not contain any of the needles
+	 */
+	public int find(CharSequence s) {
+		int node = ROOT;
+		int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+		for (int i = 0; i < s.length(); i++) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
+			}
+			char c = s.charAt(i);
+			node = next(node, this.ignoreCase ? StringUtils.foldCase(c) : c);
+			if (this.nodeNeedles[node] != -1) {
+				return this.nodeNeedles[node];
+			}
+			if (this.outputNodes[node] != -1) {
+				return this.nodeNeedles[this.outputNodes[node]];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param s the string to search
+	 * @return whether the string contains any of the needles
+	 */
+	public boolean containsAny(CharSequence s) {
+		return find(s) != -1;
+	}
+
+	/**
+	 * Counts the needles that the string contains (each needle is only counted once),
+	 * stopping once limit needles have been found.
+	 *
+	 * @param s the string to search
+	 * @param limit the count at which to stop searching
+	 * @return the number of needles the string contains, up to the limit
+	 */
+	public int countContained(CharSequence s, int limit) {
+		if (limit <= 1) {
+			return limit <= 0 || find(s) == -1 ? 0 : 1;
+		}
+		long[] found = new long[(this.needles.length + 63) >>> 6];
+		int count = 0;
+		int node = ROOT;
+		int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+		for (int i = 0; i < s.length(); i++) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
+			}
+			char c = s.charAt(i);
+			node = next(node, this.ignoreCase ? StringUtils.foldCase(c) : c);
+			for (int output = this.nodeNeedles[node] != -1 ? node : this.outputNodes[node];
+			     output != -1;
+			     output = this.outputNodes[output]) {
+				int needle = this.nodeNeedles[output];
+				long bit = 1L << needle;
+				if ((found[needle >>> 6] & bit) == 0) {
+					found[needle >>> 6] |= bit;
+					if (++count == limit) {
+						return count;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+}
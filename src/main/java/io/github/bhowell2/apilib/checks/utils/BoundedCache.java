@@ -0,0 +1,408 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded, concurrent cache with a frequency-aware eviction policy (similar to
+ * W-TinyLFU). It is used to memoize pure checks and formatters (see
+ * {@link io.github.bhowell2.apilib.checks.Check#memoized} and
+ * {@link io.github.bhowell2.apilib.formatters.Formatter#memoized}), where a small
+ * number of values (e.g., country codes or user agents) are repeated often, among
+ * many values that are only seen once.
+ *
+ * New entries are added to a small admission window (ordered by recency). When the
+ * window is full its least recently used entry competes with the least recently used
+ * entry of the main region, and whichever has been seen more often (estimated by a
+ * count-min sketch of 4-bit counters, which are halved periodically so that old
+ * popularity fades) is kept. The main region is a segmented LRU: entries that are
+ * read again are moved from its probation segment to its protected segment. This
+ * keeps values that are seen once from evicting the values that repeat.
+ *
+ * Entries are read from a {@link ConcurrentHashMap} without locking. Reads are
+ * recorded in lossy, striped buffers that are applied to the eviction policy (under
+ * a lock) in batches, when a buffer fills up or an entry is added; a read that is
+ * dropped from a full buffer only loses a little accuracy. Writes are serialized by
+ * the lock.
+ *
+ * Null keys and values are not cached.
+ *
+ * @author Blake Howell
+ */
+public final class BoundedCache<K, V> {
+
+	private static final int READ_BUFFER_STRIPES = 4;
+	private static final int READ_BUFFER_SIZE = 32;
+
+	private static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2, REMOVED = 3;
+
+	private final ConcurrentHashMap<K, Node<K, V>> entries;
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final ReadBuffer<K, V>[] readBuffers;
+
+	/*
+	 * Guarded by the eviction lock.
+	 * */
+	private final FrequencySketch sketch;
+	private final AccessOrder<K, V> window = new AccessOrder<>(),
+		probation = new AccessOrder<>(),
+		protectedOrder = new AccessOrder<>();
+	private final int maximumSize, maximumWindowSize, maximumMainSize, maximumProtectedSize;
+
+	private final LongAdder hitCount = new LongAdder(),
+		missCount = new LongAdder(),
+		evictionCount = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	public BoundedCache(CachePolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Cache policy cannot be null.");
+		}
+		this.maximumSize = policy.maximumSize;
+		this.maximumWindowSize = Math.max(1, (int) ((long) policy.maximumSize * policy.windowPercent / 100));
+		this.maximumMainSize = this.maximumSize - this.maximumWindowSize;
+		this.maximumProtectedSize = (int) (this.maximumMainSize * 0.8);
+		this.entries = new ConcurrentHashMap<>(Math.min(this.maximumSize, 1 << 16));
+		this.sketch = new FrequencySketch(this.maximumSize);
+		this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+		for (int i = 0; i < READ_BUFFER_STRIPES; i++) {
+			this.readBuffers[i] = new ReadBuffer<>();
+		}
+	}
+
+	/**
+	 * @return the cached value or null if the key is not cached
+	 */
+	public V getIfPresent(K key) {
+		Node<K, V> node = key != null ? this.entries.get(key) : null;
+		if (node == null) {
+			this.missCount.increment();
+			return null;
+		}
+		this.hitCount.increment();
+		recordRead(node);
+		return node.value;
+	}
+
+	/**
+	 * Returns the cached value or computes, caches and returns it if the key is not
+	 * cached. The value is computed by the calling thread without locking, so the
+	 * same value may be computed by more than one thread at the same time (only one
+	 * is kept), which is fine for the pure functions this is intended for.
+	 *
+	 * @param key the key (if null the value is computed and not cached)
+	 * @param compute computes the value of the key (if it returns null the value is not cached)
+	 * @return the cached or computed value
+	 */
+	public V get(K key, Function<? super K, ? extends V> compute) {
+		V value = getIfPresent(key);
+		if (value == null) {
+			value = compute.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+
+	public void put(K key, V value) {
+		if (key == null || value == null) {
+			return;
+		}
+		this.evictionLock.lock();
+		try {
+			drainReadBuffers();
+			Node<K, V> node = this.entries.get(key);
+			if (node != null) {
+				node.value = value;
+				onAccess(node);
+				return;
+			}
+			node = new Node<>(key, value);
+			this.entries.put(key, node);
+			this.sketch.increment(key);
+			this.window.addLast(node);
+			evict();
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes every entry. Does not reset the counters or the frequencies.
+	 */
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			drainReadBuffers();
+			clear(this.window);
+			clear(this.probation);
+			clear(this.protectedOrder);
+		} finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void clear(AccessOrder<K, V> order) {
+		for (Node<K, V> node = order.pollFirst(); node != null; node = order.pollFirst()) {
+			node.queue = REMOVED;
+			this.entries.remove(node.key, node);
+		}
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	private void recordRead(Node<K, V> node) {
+		ReadBuffer<K, V> buffer =
+			this.readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1)];
+		if (buffer.offer(node) && this.evictionLock.tryLock()) {
+			try {
+				drainReadBuffers();
+			} finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void drainReadBuffers() {
+		for (ReadBuffer<K, V> buffer : this.readBuffers) {
+			for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+				Node<K, V> node = buffer.nodes.getAndSet(i, null);
+				if (node != null) {
+					this.sketch.increment(node.key);
+					onAccess(node);
+				}
+			}
+		}
+	}
+
+	private void onAccess(Node<K, V> node) {
+		switch (node.queue) {
+			case WINDOW:
+				this.window.moveToEnd(node);
+				break;
+			case PROBATION:
+				this.probation.remove(node);
+				node.queue = PROTECTED;
+				this.protectedOrder.addLast(node);
+				// demoted entries get another chance in probation
+				while (this.protectedOrder.size > this.maximumProtectedSize) {
+					Node<K, V> demoted = this.protectedOrder.pollFirst();
+					demoted.queue = PROBATION;
+					this.probation.addLast(demoted);
+				}
+				break;
+			case PROTECTED:
+				this.protectedOrder.moveToEnd(node);
+				break;
+			default:
+				// evicted after the read was recorded
+		}
+	}
+
+	private void evict() {
+		while (this.window.size > this.maximumWindowSize) {
+			Node<K, V> candidate = this.window.pollFirst();
+			if (this.probation.size + this.protectedOrder.size < this.maximumMainSize) {
+				candidate.queue = PROBATION;
+				this.probation.addLast(candidate);
+				continue;
+			}
+			Node<K, V> victim = this.probation.size > 0 ? this.probation.first : this.protectedOrder.first;
+			if (victim != null && this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+				(victim.queue == PROBATION ? this.probation : this.protectedOrder).remove(victim);
+				evict(victim);
+				candidate.queue = PROBATION;
+				this.probation.addLast(candidate);
+			} else {
+				evict(candidate);
+			}
+		}
+	}
+
+	private void evict(Node<K, V> node) {
+		node.queue = REMOVED;
+		this.entries.remove(node.key, node);
+		this.evictionCount.increment();
+	}
+
+	private static final class Node<K, V> {
+
+		final K key;
+		volatile V value;
+		// guarded by the eviction lock
+		byte queue = WINDOW;
+		Node<K, V> previous, next;
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+	}
+
+	/**
+	 * A doubly-linked list of nodes from least to most recently used.
+	 */
+	private static final class AccessOrder<K, V> {
+
+		Node<K, V> first, last;
+		int size;
+
+		void addLast(Node<K, V> node) {
+			node.previous = this.last;
+			node.next = null;
+			if (this.last == null) {
+				this.first = node;
+			} else {
+				this.last.next = node;
+			}
+			this.last = node;
+			this.size++;
+		}
+
+		void remove(Node<K, V> node) {
+			if (node.previous == null) {
+				this.first = node.next;
+			} else {
+				node.previous.next = node.next;
+			}
+			if (node.next == null) {
+				this.last = node.previous;
+			} else {
+				node.next.previous = node.previous;
+			}
+			node.previous = node.next = null;
+			this.size--;
+		}
+
+		void moveToEnd(Node<K, V> node) {
+			if (node != this.last) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		Node<K, V> pollFirst() {
+			Node<K, V> node = this.first;
+			if (node != null) {
+				remove(node);
+			}
+			return node;
+		}
+
+	}
+
+	/**
+	 * A lossy ring buffer of reads. When the buffer wraps around the oldest reads that
+	 * have not been drained are overwritten.
+	 */
+	private static final class ReadBuffer<K, V> {
+
+		final AtomicReferenceArray<Node<K, V>> nodes = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+		final AtomicLong writeCount = new AtomicLong();
+
+		/**
+		 * @return whether or not the buffer should be drained
+		 */
+		boolean offer(Node<K, V> node) {
+			long count = this.writeCount.getAndIncrement();
+			this.nodes.lazySet((int) count & (READ_BUFFER_SIZE - 1), node);
+			return (count & (READ_BUFFER_SIZE - 1)) == READ_BUFFER_SIZE - 1;
+		}
+
+	}
+
+	/**
+	 * A count-min sketch with four 4-bit counters per key. Every counter is halved
+	 * after the sketch has been incremented ten times the maximum size of the cache,
+	 * so that the frequencies reflect recent popularity.
+	 */
+	static final class FrequencySketch {
+
+		private static final long[] SEEDS = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+		};
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+		private final int tableMask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int maximumSize) {
+			int length = Integer.highestOneBit(Math.max(8, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+			this.table = new long[length];
+			this.tableMask = length - 1;
+			this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+		}
+
+		int frequency(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int shift = (start + i) << 2;
+				frequency = Math.min(frequency, (int) ((this.table[indexOf(hash, i)] >>> shift) & 0xfL));
+			}
+			return frequency;
+		}
+
+		void increment(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				long mask = 0xfL << ((start + i) << 2);
+				if ((this.table[index] & mask) != mask) {
+					this.table[index] += 1L << ((start + i) << 2);
+					added = true;
+				}
+			}
+			if (added && ++this.additions >= this.sampleSize) {
+				for (int i = 0; i < this.table.length; i++) {
+					this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+				}
+				this.additions >>>= 1;
+			}
+		}
+
+		private int indexOf(int hash, int i) {
+			long h = (hash + SEEDS[i]) * SEEDS[i];
+			h += h >>> 32;
+			return (int) h & this.tableMask;
+		}
+
+		private static int spread(int hash) {
+			hash ^= hash >>> 17;
+			hash *= 0xed5ad4bb;
+			hash ^= hash >>> 11;
+			hash *= 0xac4c1b51;
+			hash ^= hash >>> 15;
+			return hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+/**
+ * The size of a {@link BoundedCache} and how it is split between its admission
+ * window and its main region (see {@link BoundedCache}).
+ *
+ * @author Blake Howell
+ */
+public final class CachePolicy {
+
+	public static final int DEFAULT_WINDOW_PERCENT = 1;
+
+	/**
+	 * @param maximumSize the maximum number of entries
+	 * @return a policy with the maximum size and the default window
+	 */
+	public static CachePolicy maximumSize(int maximumSize) {
+		return builder().setMaximumSize(maximumSize).build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	final int maximumSize;
+	final int windowPercent;
+
+	private CachePolicy(Builder builder) {
+		this.maximumSize = builder.maximumSize;
+		this.windowPercent = builder.windowPercent;
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public int getWindowPercent() {
+		return this.windowPercent;
+	}
+
+	public static final class Builder {
+
+		private int maximumSize = -1;
+		private int windowPercent = DEFAULT_WINDOW_PERCENT;
+
+		private Builder() {}
+
+		/**
+		 * Set the maximum number of entries that are cached. Required.
+		 *
+		 * @param maximumSize greater than 0
+		 * @return this builder
+		 */
+		public Builder setMaximumSize(int maximumSize) {
+			if (maximumSize < 1) {
+				throw new IllegalArgumentException("Maximum size must be greater than 0.");
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Set the percentage of the maximum size used by the admission window, where
+		 * new entries are kept (by recency) before they have to compete with the
+		 * entries of the main region (by frequency). A larger window favors recency,
+		 * e.g., for values that are repeated in bursts. Defaults to
+		 * {@link #DEFAULT_WINDOW_PERCENT}.
+		 *
+		 * @param windowPercent between 1 and 100
+		 * @return this builder
+		 */
+		public Builder setWindowPercent(int windowPercent) {
+			if (windowPercent < 1 || windowPercent > 100) {
+				throw new IllegalArgumentException("Window percent must be between 1 and 100.");
+			}
+			this.windowPercent = windowPercent;
+			return this;
+		}
+
+		public CachePolicy build() {
+			if (this.maximumSize < 1) {
+				throw new IllegalArgumentException("Maximum size must be set.");
+			}
+			return new CachePolicy(this);
+		}
+
+	}
+
+}
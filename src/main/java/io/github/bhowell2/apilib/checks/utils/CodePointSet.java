@@ -0,0 +1,361 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of code points, created when a check is created so that checking
+ * whether a code point is in the set takes constant time. The code points of the Basic
+ * Multilingual Plane (i.e., those that are one char) are held in a bitmap and the
+ * supplementary code points in sorted ranges, so a set of ASCII or BMP code points
+ * is a bit lookup and a set of emoji a short binary search.
+ *
+ * A set is created with {@link #builder()} or one of the shortcuts, e.g.,
+ * {@code CodePointSet.of("!@#$%")}, {@code CodePointSet.range('a', 'z')},
+ * {@code CodePointSet.categories(Character.UPPERCASE_LETTER)} or
+ * {@code CodePointSet.scripts(Character.UnicodeScript.LATIN)}.
+ *
+ * @author Blake Howell
+ */
+public final class CodePointSet {
+
+	private static final int MIN_SUPPLEMENTARY_CODE_POINT = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+
+	// the number of ranges shown by toString() (the set may have thousands of them)
+	private static final int MAX_TO_STRING_RANGES = 32;
+
+	/**
+	 * @param codePoints each code point of the string is in the set
+	 * @return the set
+	 */
+	public static CodePointSet of(String codePoints) {
+		return builder().addCodePoints(codePoints).build();
+	}
+
+	/**
+	 * @param codePoints the code points of the set
+	 * @return the set
+	 */
+	public static CodePointSet of(int... codePoints) {
+		return builder().addCodePoints(codePoints).build();
+	}
+
+	/**
+	 * @param minCodePoint inclusive minimum code point
+	 * @param maxCodePoint inclusive maximum code point
+	 * @return the set of the code points in the range
+	 */
+	public static CodePointSet range(int minCodePoint, int maxCodePoint) {
+		return builder().addRange(minCodePoint, maxCodePoint).build();
+	}
+
+	/**
+	 * @param categories the general categories of {@link Character#getType(int)} (e.g.,
+	 *                   {@link Character#UPPERCASE_LETTER})
+	 * @return the set of the code points in the categories
+	 */
+	public static CodePointSet categories(int... categories) {
+		return builder().addCategories(categories).build();
+	}
+
+	/**
+	 * @param scripts the scripts
+	 * @return the set of the code points of the scripts
+	 */
+	public static CodePointSet scripts(Character.UnicodeScript... scripts) {
+		return builder().addScripts(scripts).build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/*
+	 * Bit (codePoint & 63) of bmp[codePoint >>> 6] is set if the code point is in the
+	 * set. The bitmap only extends to the largest BMP code point in the set.
+	 * */
+	private final long[] bmp;
+	// sorted, non-overlapping pairs of inclusive bounds of the supplementary code points: {lo0, hi0, lo1, hi1, ...}
+	private final int[] supplementaryRanges;
+	// all the code points in the same form, for toString() and the set operations
+	private final int[] ranges;
+	private final int size;
+
+	private CodePointSet(int[] ranges) {
+		this.ranges = ranges;
+		int size = 0, maxBmpCodePoint = -1, firstSupplementary = ranges.length;
+		for (int i = 0; i < ranges.length; i += 2) {
+			size += ranges[i + 1] - ranges[i] + 1;
+			if (ranges[i] < MIN_SUPPLEMENTARY_CODE_POINT) {
+				maxBmpCodePoint = Math.min(ranges[i + 1], MIN_SUPPLEMENTARY_CODE_POINT - 1);
+			}
+			if (ranges[i + 1] >= MIN_SUPPLEMENTARY_CODE_POINT && firstSupplementary == ranges.length) {
+				firstSupplementary = i;
+			}
+		}
+		this.size = size;
+		this.bmp = new long[maxBmpCodePoint < 0 ? 0 : (maxBmpCodePoint >>> 6) + 1];
+		for (int i = 0; i < ranges.length && ranges[i] < MIN_SUPPLEMENTARY_CODE_POINT; i += 2) {
+			int hi = Math.min(ranges[i + 1], MIN_SUPPLEMENTARY_CODE_POINT - 1);
+			for (int codePoint = ranges[i]; codePoint <= hi; codePoint++) {
+				this.bmp[codePoint >>> 6] |= 1L << codePoint;
+			}
+		}
+		this.supplementaryRanges = Arrays.copyOfRange(ranges, firstSupplementary, ranges.length);
+		if (this.supplementaryRanges.length > 0 && this.supplementaryRanges[0] < MIN_SUPPLEMENTARY_CODE_POINT) {
+			// the range spans both planes
+			this.supplementaryRanges[0] = MIN_SUPPLEMENTARY_CODE_POINT;
+		}
+	}
+
+	/**
+	 * @param codePoint the code point
+	 * @return whether the code point is in the set
+	 */
+	public boolean contains(int codePoint) {
+		if (codePoint < MIN_SUPPLEMENTARY_CODE_POINT) {
+			int word = codePoint >>> 6;
+			return word < this.bmp.length && (this.bmp[word] & (1L << codePoint)) != 0;
+		}
+		int[] ranges = this.supplementaryRanges;
+		int lo = 0, hi = ranges.length / 2 - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (codePoint < ranges[2 * mid]) {
+				hi = mid - 1;
+			} else if (codePoint > ranges[2 * mid + 1]) {
+				lo = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of code points in the set
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @return the set of all the code points that are not in this set
+	 */
+	public CodePointSet complement() {
+		int[] complement = new int[this.ranges.length + 2];
+		int size = 0, next = 0;
+		for (int i = 0; i < this.ranges.length; i += 2) {
+			if (this.ranges[i] > next) {
+				complement[size++] = next;
+				complement[size++] = this.ranges[i] - 1;
+			}
+			next = this.ranges[i + 1] + 1;
+		}
+		if (next <= Character.MAX_CODE_POINT) {
+			complement[size++] = next;
+			complement[size++] = Character.MAX_CODE_POINT;
+		}
+		return new CodePointSet(Arrays.copyOf(complement, size));
+	}
+
+	/**
+	 * @param other the set to add
+	 * @return the set of the code points in either set
+	 */
+	public CodePointSet union(CodePointSet other) {
+		return builder().addSet(this).addSet(other).build();
+	}
+
+	/**
+	 * Shows the code points like a regex character class (without the brackets), e.g.,
+	 * {@code a-z0-9_}. Only the first ranges of a large set are shown.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < this.ranges.length; i += 2) {
+			if (i == 2 * MAX_TO_STRING_RANGES) {
+				builder.append("...");
+				break;
+			}
+			builder.appendCodePoint(this.ranges[i]);
+			if (this.ranges[i + 1] != this.ranges[i]) {
+				builder.append('-').appendCodePoint(this.ranges[i + 1]);
+			}
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CodePointSet && Arrays.equals(this.ranges, ((CodePointSet) o).ranges);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(this.ranges);
+	}
+
+	public static final class Builder {
+
+		// pairs of inclusive bounds, sorted and merged when built
+		private int[] ranges = new int[16];
+		private int size;
+
+		private Builder() {
+		}
+
+		private void add(int lo, int hi) {
+			if (this.size == this.ranges.length) {
+				this.ranges = Arrays.copyOf(this.ranges, this.size * 2);
+			}
+			this.ranges[this.size++] = lo;
+			this.ranges[this.size++] = hi;
+		}
+
+		private static void requireValidCodePoint(int codePoint) {
+			if (!Character.isValidCodePoint(codePoint)) {
+				throw new IllegalArgumentException("Invalid code point: " + codePoint + ".");
+			}
+		}
+
+		/**
+		 * @param codePoints each code point of the string is added
+		 */
+		public Builder addCodePoints(String codePoints) {
+			if (codePoints == null) {
+				throw new IllegalArgumentException("Code points cannot be null.");
+			}
+			for (int i = 0; i < codePoints.length(); ) {
+				int codePoint = codePoints.codePointAt(i);
+				add(codePoint, codePoint);
+				i += Character.charCount(codePoint);
+			}
+			return this;
+		}
+
+		public Builder addCodePoints(int... codePoints) {
+			if (codePoints == null) {
+				throw new IllegalArgumentException("Code points cannot be null.");
+			}
+			for (int codePoint : codePoints) {
+				requireValidCodePoint(codePoint);
+				add(codePoint, codePoint);
+			}
+			return this;
+		}
+
+		/**
+		 * @param minCodePoint inclusive minimum code point
+		 * @param maxCodePoint inclusive maximum code point
+		 */
+		public Builder addRange(int minCodePoint, int maxCodePoint) {
+			requireValidCodePoint(minCodePoint);
+			requireValidCodePoint(maxCodePoint);
+			if (maxCodePoint < minCodePoint) {
+				throw new IllegalArgumentException("Max code point must be greater than or equal to min code point.");
+			}
+			add(minCodePoint, maxCodePoint);
+			return this;
+		}
+
+		/**
+		 * Adds the code points of the general categories.
+		 *
+		 * @param categories values of {@link Character#getType(int)} (e.g., {@link Character#DECIMAL_DIGIT_NUMBER})
+		 */
+		public Builder addCategories(int... categories) {
+			if (categories == null) {
+				throw new IllegalArgumentException("Categories cannot be null.");
+			}
+			// bit i is set if category i is added
+			long categoryBits = 0;
+			for (int category : categories) {
+				if (category < 0 || category > Character.FINAL_QUOTE_PUNCTUATION) {
+					throw new IllegalArgumentException("Invalid category: " + category + ".");
+				}
+				categoryBits |= 1L << category;
+			}
+			int runStart = -1;
+			for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT + 1; codePoint++) {
+				boolean inCategory = codePoint <= Character.MAX_CODE_POINT
+					&& (categoryBits & (1L << Character.getType(codePoint))) != 0;
+				if (inCategory && runStart == -1) {
+					runStart = codePoint;
+				} else if (!inCategory && runStart != -1) {
+					add(runStart, codePoint - 1);
+					runStart = -1;
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Adds the code points of the scripts.
+		 */
+		public Builder addScripts(Character.UnicodeScript... scripts) {
+			if (scripts == null) {
+				throw new IllegalArgumentException("Scripts cannot be null.");
+			}
+			boolean[] added = new boolean[Character.UnicodeScript.values().length];
+			for (Character.UnicodeScript script : scripts) {
+				if (script == null) {
+					throw new IllegalArgumentException("Scripts cannot contain null.");
+				}
+				added[script.ordinal()] = true;
+			}
+			int runStart = -1;
+			for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT + 1; codePoint++) {
+				boolean inScript = codePoint <= Character.MAX_CODE_POINT
+					&& added[Character.UnicodeScript.of(codePoint).ordinal()];
+				if (inScript && runStart == -1) {
+					runStart = codePoint;
+				} else if (!inScript && runStart != -1) {
+					add(runStart, codePoint - 1);
+					runStart = -1;
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Adds the code points of the set.
+		 */
+		public Builder addSet(CodePointSet codePoints) {
+			if (codePoints == null) {
+				throw new IllegalArgumentException("Code point set cannot be null.");
+			}
+			for (int i = 0; i < codePoints.ranges.length; i += 2) {
+				add(codePoints.ranges[i], codePoints.ranges[i + 1]);
+			}
+			return this;
+		}
+
+		public CodePointSet build() {
+			// sort the pairs by their lower bound and merge the ones that overlap or are adjacent
+			long[] sorted = new long[this.size / 2];
+			for (int i = 0; i < sorted.length; i++) {
+				sorted[i] = ((long) this.ranges[2 * i] << 32) | this.ranges[2 * i + 1];
+			}
+			Arrays.sort(sorted);
+			int[] merged = new int[this.size];
+			int mergedSize = 0;
+			for (long pair : sorted) {
+				int lo = (int) (pair >>> 32), hi = (int) pair;
+				if (mergedSize > 0 && lo <= merged[mergedSize - 1] + 1) {
+					merged[mergedSize - 1] = Math.max(merged[mergedSize - 1], hi);
+				} else {
+					merged[mergedSize++] = lo;
+					merged[mergedSize++] = hi;
+				}
+			}
+			return new CodePointSet(Arrays.copyOf(merged, mergedSize));
+		}
+
+	}
+
+}
@@ -0,0 +1,982 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import io.github.bhowell2.apilib.Deadline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A regex that is matched in time linear in the length of the input, whatever the
+ * regex and the input are. {@link java.util.regex.Pattern} backtracks, so some regexes
+ * (e.g., {@code (.*a){20}b}) take exponential time to fail to match some inputs. This
+ * is not a concern here, because the regex is compiled to a Thompson NFA, which is
+ * matched with a DFA whose states are created as inputs reach them, so matching mostly
+ * reads one table entry per code point of the input. (Once the DFA has too many states,
+ * the NFA is simulated instead, which is still linear in the length of the input.)
+ *
+ * Only the common subset of the {@link java.util.regex.Pattern} syntax is supported:
+ * <ul>
+ *   <li>literals and escaped metacharacters, {@code \t \n \r \f \a \e \xhh \x{h...h} \\uhhhh}</li>
+ *   <li>{@code .} and the predefined classes {@code \d \D \s \S \w \W}</li>
+ *   <li>character classes, e.g. {@code [a-z_]} and {@code [^0-9]}</li>
+ *   <li>the anchors {@code ^ $ \A \z \Z}</li>
+ *   <li>groups {@code (...)}, {@code (?:...)} and {@code (?<name>...)} and alternation {@code |}</li>
+ *   <li>the quantifiers {@code * + ? {n} {n,} {n,m}} and their reluctant forms</li>
+ * </ul>
+ * Anything else (backreferences, lookarounds, possessive quantifiers, flags, word
+ * boundaries, nested classes, ...) cannot be matched in linear time or is not
+ * supported, so {@link #compile(String)} throws {@link IllegalArgumentException}.
+ *
+ * {@link #matches(CharSequence)} matches the entire input, like
+ * {@link java.util.regex.Matcher#matches()}, and matches the same inputs, except that
+ * {@code $} only matches at the end of the input (never before a final line terminator).
+ *
+ * @author Blake Howell
+ */
+public final class LinearRegex {
+
+	/*
+	 * Limits on the size of the compiled regex, so that compiling a regex (e.g., with large
+	 * nested repetitions) cannot take too much time or memory, and on the size of the DFA
+	 * that is built while matching (see DfaBuilder).
+	 * */
+	private static final int MAX_REPETITION = 1000;
+	private static final int MAX_NFA_NODES = 100_000;
+	private static final int MAX_DFA_STATES = 10_000;
+	private static final int MAX_DFA_TABLE_SIZE = 1 << 20;
+	private static final int MAX_DFA_STATE_SETS_SIZE = 1 << 20;
+
+	// the types of the NFA nodes
+	private static final byte MATCH = 0, CLASS = 1, SPLIT = 2, CARET = 3, DOLLAR = 4;
+
+	// the DFA state from which the input can no longer match and the state at the start of the input
+	private static final int DEAD = 0, START = 1;
+	// the transition of the DFA that has not been created yet
+	private static final int UNKNOWN = -1;
+
+	private static final int[] DIGIT = {'0', '9'};
+	private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+	private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+	// any code point except the line terminators
+	private static final int[] DOT = complement(normalize(new int[]{'\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029}));
+
+	/**
+	 * @param regex the regex (see the class doc for the supported syntax)
+	 * @return the compiled regex
+	 * @throws IllegalArgumentException if the regex is invalid or uses unsupported syntax
+	 */
+	public static LinearRegex compile(String regex) {
+		if (regex == null) {
+			throw new IllegalArgumentException("Regex cannot be null.");
+		}
+		Node root = new Parser(regex).parse();
+		NfaBuilder nfa = new NfaBuilder(regex);
+		int match = nfa.add(MATCH, null, -1, -1);
+		int start = nfa.compile(root, match);
+		return new LinearRegex(regex, nfa, start);
+	}
+
+	private final String pattern;
+
+	// the NFA, where node i has type types[i], the ranges of code points it consumes and its next node(s)
+	private final byte[] types;
+	private final int[][] ranges;
+	private final int[] outs, alts;
+	private final int start;
+
+	/*
+	 * The code points are divided into classes that every NFA node either consumes
+	 * entirely or not at all. Class i starts at classStarts[i] (and ends before the
+	 * next class starts) and asciiClasses holds the class of each ASCII code point.
+	 * */
+	private final int[] classStarts;
+	private final int[] asciiClasses;
+
+	/*
+	 * The DFA, which is built as inputs reach its states (see DfaBuilder) and shared by all
+	 * threads that match the regex. transitions holds stride (classStarts.length + 1) ints
+	 * per state: the next state for each class (UNKNOWN until it is first needed) and then
+	 * whether the input matches if it ends in the state (1 if it does). Only the builder
+	 * writes the table, which it replaces with a larger copy when it runs out of rows.
+	 * */
+	private final int stride;
+	private volatile AtomicIntegerArray transitions;
+	private final DfaBuilder dfaBuilder;
+
+	private LinearRegex(String pattern, NfaBuilder nfa, int start) {
+		this.pattern = pattern;
+		this.types = Arrays.copyOf(nfa.types, nfa.size);
+		this.ranges = Arrays.copyOf(nfa.ranges, nfa.size);
+		this.outs = Arrays.copyOf(nfa.outs, nfa.size);
+		this.alts = Arrays.copyOf(nfa.alts, nfa.size);
+		this.start = start;
+		this.classStarts = createClassStarts(this.types, this.ranges);
+		this.asciiClasses = new int[128];
+		for (int i = 0; i < this.asciiClasses.length; i++) {
+			this.asciiClasses[i] = classOf(this.classStarts, i);
+		}
+		this.stride = this.classStarts.length + 1;
+		this.dfaBuilder = new DfaBuilder();
+	}
+
+	/**
+	 * @return the regex this was compiled from
+	 */
+	public String pattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * @param input the input to match
+	 * @return whether the regex matches the entire input
+	 */
+	public boolean matches(CharSequence input) {
+		AtomicIntegerArray transitions = this.transitions;
+		int classCount = this.classStarts.length;
+		int state = START;
+		int length = input.length();
+		int untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+		for (int i = 0; i < length; ) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
+			}
+			int codePointStart = i;
+			char c = input.charAt(i++);
+			int codePoint = c;
+			if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(input.charAt(i))) {
+				codePoint = Character.toCodePoint(c, input.charAt(i++));
+			}
+			int codePointClass = codePoint < 128 ? this.asciiClasses[codePoint] : classOf(this.classStarts, codePoint);
+			int next = transitions.get(state * this.stride + codePointClass);
+			if (next == UNKNOWN) {
+				next = this.dfaBuilder.addTransition(state, codePointClass);
+				if (next == UNKNOWN) {
+					return simulateNfa(this.dfaBuilder.stateSet(state), input, codePointStart, untilDeadlineCheck);
+				}
+				// the builder may have replaced the table with a larger one
+				transitions = this.transitions;
+			}
+			if (next == DEAD) {
+				return false;
+			}
+			state = next;
+		}
+		return transitions.get(state * this.stride + classCount) == 1;
+	}
+
+	/*
+	 * Matches the input from the index on, where the input could be at the nodes of the
+	 * set, by tracking the set of NFA nodes the input could be at instead of the DFA state.
+	 * This is only used once the DFA cannot have more states.
+	 * */
+	private boolean simulateNfa(int[] set, CharSequence input, int from, int untilDeadlineCheck) {
+		NfaSets sets = NFA_SETS.get().forNodes(this.types.length);
+		int[] current = sets.current, next = sets.next;
+		System.arraycopy(set, 0, current, 0, set.length);
+		int size = set.length;
+		int length = input.length();
+		for (int i = from; i < length; ) {
+			if (--untilDeadlineCheck == 0) {
+				untilDeadlineCheck = Deadline.CHARS_PER_CHECK;
+				Deadline.checkCurrent();
+			}
+			int codePoint = Character.codePointAt(input, i);
+			i += Character.charCount(codePoint);
+			int mark = sets.nextMark();
+			int nextSize = 0;
+			for (int j = 0; j < size; j++) {
+				int node = current[j];
+				if (this.types[node] == CLASS && contains(this.ranges[node], codePoint)) {
+					nextSize = addClosure(this.outs[node], false, false, next, nextSize, sets.marks, mark, sets.stack);
+				}
+			}
+			if (nextSize == 0) {
+				return false;
+			}
+			int[] swap = current;
+			current = next;
+			next = swap;
+			size = nextSize;
+		}
+		// at least one code point was consumed, so the input is not at the start
+		return acceptsAtEnd(current, size, false, next, sets.marks, sets.nextMark(), sets.stack);
+	}
+
+	/*
+	 * Adds the nodes reachable from the node without consuming any input to the set and
+	 * returns the new size of the set. Only the nodes that consume input (or match or
+	 * assert the end of the input) are added. A node is only added once per mark.
+	 * */
+	private int addClosure(int node, boolean atStart, boolean atEnd,
+	                       int[] set, int size, int[] marks, int mark, int[] stack) {
+		int stackSize = 0;
+		stack[stackSize++] = node;
+		while (stackSize > 0) {
+			int n = stack[--stackSize];
+			if (marks[n] == mark) {
+				continue;
+			}
+			marks[n] = mark;
+			switch (this.types[n]) {
+				case SPLIT:
+					stack[stackSize++] = this.alts[n];
+					stack[stackSize++] = this.outs[n];
+					break;
+				case CARET:
+					if (atStart) {
+						stack[stackSize++] = this.outs[n];
+					}
+					break;
+				case DOLLAR:
+					set[size++] = n;
+					if (atEnd) {
+						stack[stackSize++] = this.outs[n];
+					}
+					break;
+				default:
+					set[size++] = n;
+			}
+		}
+		return size;
+	}
+
+	// whether the input matches if it ends while the NFA is at the nodes of the set
+	private boolean acceptsAtEnd(int[] set, int size, boolean atStart,
+	                             int[] scratch, int[] marks, int mark, int[] stack) {
+		int endSize = 0;
+		for (int i = 0; i < size; i++) {
+			endSize = addClosure(set[i], atStart, true, scratch, endSize, marks, mark, stack);
+		}
+		for (int i = 0; i < endSize; i++) {
+			if (this.types[scratch[i]] == MATCH) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return this.pattern;
+	}
+
+	/*
+	 * Builds the DFA by subset construction as inputs reach its states: each DFA state is
+	 * the (sorted) set of NFA nodes the input could be at and the next state from a state
+	 * for a class is created the first time an input needs it. The start state is never
+	 * shared with another state, because only at the start of the input can ^ be passed.
+	 *
+	 * The builder is locked while it adds a transition, and the table is read without
+	 * locking: a state's row is written before any transition to the state, and the
+	 * entries are written and read with volatile semantics, so a thread that reads a
+	 * state from the table also reads the state's row. Once the DFA is as large as it is
+	 * allowed to be, no states are added and the rest of an input that reaches a missing
+	 * transition is matched by simulating the NFA (see simulateNfa).
+	 * */
+	private final class DfaBuilder {
+
+		final List<int[]> stateSets = new ArrayList<>();
+		final Map<StateKey, Integer> stateIds = new HashMap<>();
+		final NfaSets sets = new NfaSets().forNodes(types.length);
+		int stateSetsSize;
+		boolean full;
+
+		DfaBuilder() {
+			int classCount = classStarts.length;
+			int[] table = new int[2 * stride];
+			// the dead state only has transitions to itself and does not accept
+			Arrays.fill(table, stride, stride + classCount, UNKNOWN);
+			this.stateSets.add(new int[0]);
+			this.stateIds.put(new StateKey(new int[0]), DEAD);
+			int size = addClosure(start, true, false, this.sets.next, 0, this.sets.marks, this.sets.nextMark(), this.sets.stack);
+			int[] startSet = toSortedSet(this.sets.next, size);
+			this.stateSets.add(startSet);
+			this.stateSetsSize = size;
+			table[START * stride + classCount] = acceptsAtEnd(startSet, size, true) ? 1 : 0;
+			transitions = new AtomicIntegerArray(table);
+		}
+
+		// returns the next state, or UNKNOWN if it is new and the DFA cannot have more states
+		synchronized int addTransition(int state, int codePointClass) {
+			AtomicIntegerArray table = transitions;
+			int index = state * stride + codePointClass;
+			if (table.get(index) != UNKNOWN) {
+				// added by another thread
+				return table.get(index);
+			}
+			if (this.full) {
+				return UNKNOWN;
+			}
+			int codePoint = classStarts[codePointClass];
+			int mark = this.sets.nextMark();
+			int size = 0;
+			for (int node : this.stateSets.get(state)) {
+				if (types[node] == CLASS && contains(ranges[node], codePoint)) {
+					size = addClosure(outs[node], false, false, this.sets.next, size, this.sets.marks, mark, this.sets.stack);
+				}
+			}
+			int[] nextSet = toSortedSet(this.sets.next, size);
+			StateKey key = new StateKey(nextSet);
+			Integer next = this.stateIds.get(key);
+			if (next == null) {
+				next = this.stateSets.size();
+				if (next == MAX_DFA_STATES
+					|| (long) (next + 1) * stride > MAX_DFA_TABLE_SIZE
+					|| this.stateSetsSize + size > MAX_DFA_STATE_SETS_SIZE) {
+					this.full = true;
+					return UNKNOWN;
+				}
+				if ((next + 1) * stride > table.length()) {
+					table = grow(table);
+				}
+				this.stateSets.add(nextSet);
+				this.stateIds.put(key, next);
+				this.stateSetsSize += size;
+				table.set(next * stride + classStarts.length, acceptsAtEnd(nextSet, size, false) ? 1 : 0);
+			}
+			table.set(index, next);
+			return next;
+		}
+
+		synchronized int[] stateSet(int state) {
+			return this.stateSets.get(state);
+		}
+
+		// copies the table to one with twice the rows (at most), whose new rows are all UNKNOWN
+		AtomicIntegerArray grow(AtomicIntegerArray table) {
+			int[] grown = new int[Math.min(2 * table.length(), MAX_DFA_TABLE_SIZE / stride * stride)];
+			for (int i = 0; i < table.length(); i++) {
+				grown[i] = table.get(i);
+			}
+			Arrays.fill(grown, table.length(), grown.length, UNKNOWN);
+			AtomicIntegerArray grownTable = new AtomicIntegerArray(grown);
+			transitions = grownTable;
+			return grownTable;
+		}
+
+		boolean acceptsAtEnd(int[] set, int size, boolean atStart) {
+			return LinearRegex.this.acceptsAtEnd(set, size, atStart, this.sets.current,
+			                                     this.sets.marks, this.sets.nextMark(), this.sets.stack);
+		}
+
+		int[] toSortedSet(int[] nodes, int size) {
+			int[] set = Arrays.copyOf(nodes, size);
+			Arrays.sort(set);
+			return set;
+		}
+
+	}
+
+	/*
+	 * The sets of NFA nodes used to simulate the NFA, which are pooled per thread (see
+	 * NFA_SETS) so that matching does not allocate them. They are not tied to a regex (and
+	 * do not reference one), but are grown for the regex with the most nodes that used them.
+	 * */
+	private static final ThreadLocal<NfaSets> NFA_SETS = ThreadLocal.withInitial(NfaSets::new);
+
+	private static final class NfaSets {
+
+		int[] current = new int[0], next = new int[0], marks = new int[0], stack = new int[1];
+		int mark;
+
+		NfaSets forNodes(int nodeCount) {
+			if (this.marks.length < nodeCount) {
+				this.current = new int[nodeCount];
+				this.next = new int[nodeCount];
+				this.marks = new int[nodeCount];
+				this.stack = new int[2 * nodeCount + 1];
+				this.mark = 0;
+			}
+			return this;
+		}
+
+		// a node is marked with a mark that it has not been marked with before
+		int nextMark() {
+			if (this.mark == Integer.MAX_VALUE) {
+				Arrays.fill(this.marks, 0);
+				this.mark = 0;
+			}
+			return ++this.mark;
+		}
+
+	}
+
+	private static final class StateKey {
+
+		final int[] nodes;
+		final int hash;
+
+		StateKey(int[] nodes) {
+			this.nodes = nodes;
+			this.hash = Arrays.hashCode(nodes);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof StateKey && Arrays.equals(this.nodes, ((StateKey) o).nodes);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+	/*
+	 * Ranges of code points are held as sorted, non-overlapping and non-adjacent pairs of
+	 * inclusive bounds: {lo0, hi0, lo1, hi1, ...}.
+	 * */
+
+	private static boolean contains(int[] ranges, int codePoint) {
+		int lo = 0, hi = ranges.length / 2 - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (codePoint < ranges[2 * mid]) {
+				hi = mid - 1;
+			} else if (codePoint > ranges[2 * mid + 1]) {
+				lo = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// sorts and merges the pairs
+	private static int[] normalize(int[] pairs) {
+		long[] sorted = new long[pairs.length / 2];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = ((long) pairs[2 * i] << 32) | pairs[2 * i + 1];
+		}
+		Arrays.sort(sorted);
+		int[] ranges = new int[pairs.length];
+		int size = 0;
+		for (long pair : sorted) {
+			int lo = (int) (pair >>> 32), hi = (int) pair;
+			if (size > 0 && lo <= ranges[size - 1] + 1) {
+				ranges[size - 1] = Math.max(ranges[size - 1], hi);
+			} else {
+				ranges[size++] = lo;
+				ranges[size++] = hi;
+			}
+		}
+		return Arrays.copyOf(ranges, size);
+	}
+
+	private static int[] complement(int[] ranges) {
+		int[] complement = new int[ranges.length + 2];
+		int size = 0, next = 0;
+		for (int i = 0; i < ranges.length; i += 2) {
+			if (ranges[i] > next) {
+				complement[size++] = next;
+				complement[size++] = ranges[i] - 1;
+			}
+			next = ranges[i + 1] + 1;
+		}
+		if (next <= Character.MAX_CODE_POINT) {
+			complement[size++] = next;
+			complement[size++] = Character.MAX_CODE_POINT;
+		}
+		return Arrays.copyOf(complement, size);
+	}
+
+	private static int[] createClassStarts(byte[] types, int[][] ranges) {
+		int count = 1;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == CLASS) {
+				count += ranges[i].length;
+			}
+		}
+		int[] starts = new int[count];
+		int size = 1;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == CLASS) {
+				for (int j = 0; j < ranges[i].length; j += 2) {
+					starts[size++] = ranges[i][j];
+					if (ranges[i][j + 1] < Character.MAX_CODE_POINT) {
+						starts[size++] = ranges[i][j + 1] + 1;
+					}
+				}
+			}
+		}
+		Arrays.sort(starts, 0, size);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (unique == 0 || starts[i] != starts[unique - 1]) {
+				starts[unique++] = starts[i];
+			}
+		}
+		return Arrays.copyOf(starts, unique);
+	}
+
+	private static int classOf(int[] classStarts, int codePoint) {
+		int i = Arrays.binarySearch(classStarts, codePoint);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/*
+	 * The parsed regex.
+	 * */
+	private static final class Node {
+
+		static final byte CLASS = 0, CONCAT = 1, ALTERNATION = 2, REPETITION = 3, CARET = 4, DOLLAR = 5;
+
+		final byte type;
+		final int[] ranges;
+		final List<Node> children;
+		final int min, max;
+
+		private Node(byte type, int[] ranges, List<Node> children, int min, int max) {
+			this.type = type;
+			this.ranges = ranges;
+			this.children = children;
+			this.min = min;
+			this.max = max;
+		}
+
+		static Node of(byte type) {
+			return new Node(type, null, null, 0, 0);
+		}
+
+		static Node charClass(int[] ranges) {
+			return new Node(CLASS, ranges, null, 0, 0);
+		}
+
+		static Node of(byte type, List<Node> children) {
+			return new Node(type, null, children, 0, 0);
+		}
+
+		// max is -1 if unbounded
+		static Node repetition(Node child, int min, int max) {
+			List<Node> children = new ArrayList<>(1);
+			children.add(child);
+			return new Node(REPETITION, null, children, min, max);
+		}
+
+	}
+
+	private static final class Parser {
+
+		final String regex;
+		final int[] codePoints;
+		int pos;
+
+		Parser(String regex) {
+			this.regex = regex;
+			this.codePoints = regex.codePoints().toArray();
+		}
+
+		Node parse() {
+			Node node = parseAlternation();
+			if (this.pos < this.codePoints.length) {
+				// only a ')' stops the alternation before the end
+				throw error("Unmatched closing ')'");
+			}
+			return node;
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at index " + this.pos + " of regex '" + this.regex + "'.");
+		}
+
+		IllegalArgumentException unsupported(String construct) {
+			return error("Cannot match " + construct + " in linear time (not supported)");
+		}
+
+		boolean hasNext() {
+			return this.pos < this.codePoints.length;
+		}
+
+		boolean peekIs(int codePoint) {
+			return hasNext() && this.codePoints[this.pos] == codePoint;
+		}
+
+		int next() {
+			if (!hasNext()) {
+				throw error("Unexpected end");
+			}
+			return this.codePoints[this.pos++];
+		}
+
+		Node parseAlternation() {
+			List<Node> alternatives = new ArrayList<>();
+			alternatives.add(parseConcatenation());
+			while (peekIs('|')) {
+				this.pos++;
+				alternatives.add(parseConcatenation());
+			}
+			return alternatives.size() == 1 ? alternatives.get(0) : Node.of(Node.ALTERNATION, alternatives);
+		}
+
+		Node parseConcatenation() {
+			List<Node> nodes = new ArrayList<>();
+			while (hasNext() && !peekIs('|') && !peekIs(')')) {
+				nodes.add(parseRepetition());
+			}
+			return nodes.size() == 1 ? nodes.get(0) : Node.of(Node.CONCAT, nodes);
+		}
+
+		Node parseRepetition() {
+			Node node = parseAtom();
+			while (hasNext()) {
+				int min, max;
+				int c = this.codePoints[this.pos];
+				if (c == '*') {
+					min = 0;
+					max = -1;
+					this.pos++;
+				} else if (c == '+') {
+					min = 1;
+					max = -1;
+					this.pos++;
+				} else if (c == '?') {
+					min = 0;
+					max = 1;
+					this.pos++;
+				} else if (c == '{') {
+					this.pos++;
+					min = parseCount();
+					max = min;
+					if (peekIs(',')) {
+						this.pos++;
+						max = peekIs('}') ? -1 : parseCount();
+					}
+					if (next() != '}') {
+						throw error("Illegal repetition");
+					}
+					if (max != -1 && max < min) {
+						throw error("Illegal repetition range");
+					}
+				} else {
+					break;
+				}
+				if (peekIs('?')) {
+					// reluctant, which matches the same inputs as greedy when the entire input must match
+					this.pos++;
+				} else if (peekIs('+')) {
+					throw unsupported("possessive quantifier");
+				}
+				node = Node.repetition(node, min, max);
+				// only a counted repetition can follow another one
+				if (!peekIs('{')) {
+					break;
+				}
+			}
+			return node;
+		}
+
+		int parseCount() {
+			int count = 0, digits = 0;
+			while (hasNext() && this.codePoints[this.pos] >= '0' && this.codePoints[this.pos] <= '9') {
+				count = count * 10 + this.codePoints[this.pos++] - '0';
+				if (count > MAX_REPETITION) {
+					throw error("Repetition cannot be greater than " + MAX_REPETITION);
+				}
+				digits++;
+			}
+			if (digits == 0) {
+				throw error("Illegal repetition");
+			}
+			return count;
+		}
+
+		Node parseAtom() {
+			int c = next();
+			switch (c) {
+				case '(':
+					return parseGroup();
+				case '[':
+					return Node.charClass(parseClass());
+				case '.':
+					return Node.charClass(DOT);
+				case '^':
+					return Node.of(Node.CARET);
+				case '$':
+					return Node.of(Node.DOLLAR);
+				case '\\':
+					return parseEscape();
+				case '*':
+				case '+':
+				case '?':
+					this.pos--;
+					throw error("Dangling meta character '" + (char) c + "'");
+				case '{':
+					this.pos--;
+					throw error("Illegal repetition");
+				default:
+					return Node.charClass(new int[]{c, c});
+			}
+		}
+
+		Node parseGroup() {
+			if (peekIs('?')) {
+				this.pos++;
+				int c = next();
+				if (c == '<' && hasNext() && Character.isLetter(this.codePoints[this.pos])) {
+					// named group, which is matched like any other group
+					while (next() != '>') {
+					}
+				} else if (c == '=' || c == '!' || (c == '<' && (peekIs('=') || peekIs('!')))) {
+					throw unsupported("lookaround");
+				} else if (c != ':') {
+					throw unsupported("group construct '(?" + new String(Character.toChars(c)) + "'");
+				}
+			}
+			Node node = parseAlternation();
+			if (!peekIs(')')) {
+				throw error("Unclosed group");
+			}
+			this.pos++;
+			return node;
+		}
+
+		Node parseEscape() {
+			int c = next();
+			int[] predefined = predefinedClass(c);
+			if (predefined != null) {
+				return Node.charClass(predefined);
+			}
+			switch (c) {
+				case 'A':
+					return Node.of(Node.CARET);
+				case 'z':
+				case 'Z':
+					return Node.of(Node.DOLLAR);
+				case 'b':
+				case 'B':
+				case 'G':
+					throw unsupported("boundary matcher '\\" + (char) c + "'");
+				default:
+					int literal = escapedLiteral(c);
+					return Node.charClass(new int[]{literal, literal});
+			}
+		}
+
+		int[] predefinedClass(int c) {
+			switch (c) {
+				case 'd':
+					return DIGIT;
+				case 'D':
+					return complement(DIGIT);
+				case 's':
+					return SPACE;
+				case 'S':
+					return complement(SPACE);
+				case 'w':
+					return WORD;
+				case 'W':
+					return complement(WORD);
+				default:
+					return null;
+			}
+		}
+
+		int escapedLiteral(int c) {
+			if (c >= '1' && c <= '9' || c == 'k') {
+				throw unsupported("backreference");
+			}
+			switch (c) {
+				case 't':
+					return '\t';
+				case 'n':
+					return '\n';
+				case 'r':
+					return '\r';
+				case 'f':
+					return '\f';
+				case 'a':
+					return '\u0007';
+				case 'e':
+					return '\u001B';
+				case 'x':
+					if (peekIs('{')) {
+						this.pos++;
+						int codePoint = parseHex(-1);
+						if (next() != '}') {
+							throw error("Unclosed hexadecimal escape sequence");
+						}
+						return codePoint;
+					}
+					return parseHex(2);
+				case 'u':
+					return parseHex(4);
+				default:
+					if (Character.isLetterOrDigit(c)) {
+						throw unsupported("escape '\\" + new String(Character.toChars(c)) + "'");
+					}
+					return c;
+			}
+		}
+
+		// parses exactly digits hex digits, or any number of them (up to the max code point) if digits is -1
+		int parseHex(int digits) {
+			int value = 0, count = 0;
+			while (hasNext() && (digits == -1 || count < digits) && Character.digit(this.codePoints[this.pos], 16) != -1) {
+				value = value * 16 + Character.digit(this.codePoints[this.pos++], 16);
+				count++;
+				if (value > Character.MAX_CODE_POINT) {
+					throw error("Hexadecimal code point is too big");
+				}
+			}
+			if (count == 0 || (digits != -1 && count != digits)) {
+				throw error("Illegal hexadecimal escape sequence");
+			}
+			return value;
+		}
+
+		// parses the class after the '['
+		int[] parseClass() {
+			boolean negated = false;
+			if (peekIs('^')) {
+				negated = true;
+				this.pos++;
+			}
+			List<Integer> pairs = new ArrayList<>();
+			boolean first = true;
+			while (true) {
+				if (!hasNext()) {
+					throw error("Unclosed character class");
+				}
+				int c = this.codePoints[this.pos++];
+				// ']' is a literal if it is first
+				if (c == ']' && !first) {
+					break;
+				}
+				first = false;
+				if (c == '[') {
+					throw unsupported("nested character class");
+				}
+				if (c == '&' && peekIs('&')) {
+					throw unsupported("character class intersection");
+				}
+				int lo = c;
+				if (c == '\\') {
+					int escaped = next();
+					int[] predefined = predefinedClass(escaped);
+					if (predefined != null) {
+						for (int bound : predefined) {
+							pairs.add(bound);
+						}
+						continue;
+					}
+					lo = escapedLiteral(escaped);
+				}
+				int hi = lo;
+				if (peekIs('-') && this.pos + 1 < this.codePoints.length && this.codePoints[this.pos + 1] != ']') {
+					this.pos++;
+					hi = next();
+					if (hi == '[') {
+						throw unsupported("nested character class");
+					}
+					if (hi == '\\') {
+						int escaped = next();
+						if (predefinedClass(escaped) != null) {
+							throw error("Illegal character range");
+						}
+						hi = escapedLiteral(escaped);
+					}
+					if (hi < lo) {
+						throw error("Illegal character range");
+					}
+				}
+				pairs.add(lo);
+				pairs.add(hi);
+			}
+			int[] ranges = new int[pairs.size()];
+			for (int i = 0; i < ranges.length; i++) {
+				ranges[i] = pairs.get(i);
+			}
+			ranges = normalize(ranges);
+			return negated ? complement(ranges) : ranges;
+		}
+
+	}
+
+	/*
+	 * Compiles the parsed regex to a Thompson NFA. The nodes are compiled backwards: each
+	 * node is compiled with the NFA node that follows it, so a repetition is compiled by
+	 * compiling its child once per repetition.
+	 * */
+	private static final class NfaBuilder {
+
+		final String regex;
+		byte[] types = new byte[16];
+		int[][] ranges = new int[16][];
+		int[] outs = new int[16], alts = new int[16];
+		int size;
+
+		NfaBuilder(String regex) {
+			this.regex = regex;
+		}
+
+		int add(byte type, int[] ranges, int out, int alt) {
+			if (this.size == MAX_NFA_NODES) {
+				throw new IllegalArgumentException("Regex '" + this.regex + "' is too large.");
+			}
+			if (this.size == this.types.length) {
+				int capacity = this.size * 2;
+				this.types = Arrays.copyOf(this.types, capacity);
+				this.ranges = Arrays.copyOf(this.ranges, capacity);
+				this.outs = Arrays.copyOf(this.outs, capacity);
+				this.alts = Arrays.copyOf(this.alts, capacity);
+			}
+			this.types[this.size] = type;
+			this.ranges[this.size] = ranges;
+			this.outs[this.size] = out;
+			this.alts[this.size] = alt;
+			return this.size++;
+		}
+
+		// returns the first node of the compiled node, which continues to next
+		int compile(Node node, int next) {
+			switch (node.type) {
+				case Node.CLASS:
+					return add(CLASS, node.ranges, next, -1);
+				case Node.CARET:
+					return add(CARET, null, next, -1);
+				case Node.DOLLAR:
+					return add(DOLLAR, null, next, -1);
+				case Node.CONCAT:
+					for (int i = node.children.size() - 1; i >= 0; i--) {
+						next = compile(node.children.get(i), next);
+					}
+					return next;
+				case Node.ALTERNATION:
+					int last = node.children.size() - 1;
+					int first = compile(node.children.get(last), next);
+					for (int i = last - 1; i >= 0; i--) {
+						first = add(SPLIT, null, compile(node.children.get(i), next), first);
+					}
+					return first;
+				case Node.REPETITION:
+					Node child = node.children.get(0);
+					if (node.max == -1) {
+						int loop = add(SPLIT, null, -1, next);
+						// (compiled first, as compiling may replace the array)
+						int body = compile(child, loop);
+						this.outs[loop] = body;
+						next = loop;
+					} else {
+						// each optional repetition can be skipped
+						for (int i = node.min; i < node.max; i++) {
+							next = add(SPLIT, null, compile(child, next), next);
+						}
+					}
+					for (int i = 0; i < node.min; i++) {
+						next = compile(child, next);
+					}
+					return next;
+				default:
+					throw new IllegalStateException("Unknown regex node type.");
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,261 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A minimal perfect hash over a fixed set of strings (hash and displace). Each
+ * string is mapped to a unique position of a table that is exactly the size
+ * of the set, so a lookup is two hashes and one {@link String#equals(Object)}
+ * without any probing or allocation. {@link #indexOf(String)} returns the
+ * position of the string in the array/collection it was created from (or -1).
+ *
+ * The hashes are derived from {@link String#hashCode()} (which is cached by the
+ * string) unless some of the strings have the same hash code, in which case the
+ * characters are hashed directly. A perfect hash created with
+ * {@link #ofIgnoreCase(String...)} hashes the case folded characters (see
+ * {@link StringUtils#foldCase(char)}) and compares with
+ * {@link String#equalsIgnoreCase(String)}, so looking up a string ignoring case does
+ * not create its lower case copy.
+ *
+ * @author Blake Howell
+ */
+public final class StringPerfectHash {
+
+	private static final int MAX_DISPLACEMENT_ATTEMPTS = 1 << 20;
+
+	private static final StringPerfectHash EMPTY = new StringPerfectHash(new String[0], new int[0], new int[0], false, false);
+
+	/**
+	 * Creates the perfect hash for the strings.
+	 * @param strings the strings (must be unique and not null)
+	 * @return the perfect hash, where {@link #indexOf(String)} returns the index of the string in strings
+	 */
+	public static StringPerfectHash of(String... strings) {
+		return create(strings, false);
+	}
+
+	/**
+	 * Creates the perfect hash for the strings, which are looked up ignoring case.
+	 * @param strings the strings (must be unique ignoring case and not null)
+	 * @return the perfect hash, where {@link #indexOf(String)} returns the index of the string in strings
+	 * that equals the looked up string ignoring case
+	 */
+	public static StringPerfectHash ofIgnoreCase(String... strings) {
+		return create(strings, true);
+	}
+
+	/**
+	 * @see #ofIgnoreCase(String...)
+	 */
+	public static StringPerfectHash ofIgnoreCase(Collection<String> strings) {
+		if (strings == null) {
+			throw new IllegalArgumentException("Strings cannot be null.");
+		}
+		return ofIgnoreCase(strings.toArray(new String[0]));
+	}
+
+	private static StringPerfectHash create(String[] strings, boolean ignoreCase) {
+		if (strings == null) {
+			throw new IllegalArgumentException("Strings cannot be null.");
+		}
+		if (strings.length == 0) {
+			return EMPTY;
+		}
+		Set<String> unique = new HashSet<>();
+		Set<Integer> hashCodes = new HashSet<>();
+		for (String s : strings) {
+			if (s == null) {
+				throw new IllegalArgumentException("Strings cannot contain null.");
+			}
+			if (!unique.add(ignoreCase ? StringUtils.foldCase(s) : s)) {
+				throw new IllegalArgumentException("Strings must be unique, but '" + s + "' was provided more than once.");
+			}
+			hashCodes.add(s.hashCode());
+		}
+		// strings with the same hash code can only be separated by hashing their chars
+		boolean hashChars = ignoreCase || hashCodes.size() != strings.length;
+		StringPerfectHash perfectHash = build(strings, hashChars, ignoreCase);
+		if (perfectHash == null && !hashChars) {
+			perfectHash = build(strings, true, false);
+		}
+		if (perfectHash == null) {
+			throw new IllegalStateException("Failed to create perfect hash for strings.");
+		}
+		return perfectHash;
+	}
+
+	/**
+	 * @see #of(String...)
+	 */
+	public static StringPerfectHash of(Collection<String> strings) {
+		if (strings == null) {
+			throw new IllegalArgumentException("Strings cannot be null.");
+		}
+		return of(strings.toArray(new String[0]));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static StringPerfectHash build(String[] strings, boolean hashChars, boolean ignoreCase) {
+		int size = strings.length;
+		List<Integer>[] buckets = new List[size];
+		for (int i = 0; i < size; i++) {
+			int bucket = reduce(hash(strings[i], 0, hashChars, ignoreCase), size);
+			if (buckets[bucket] == null) {
+				buckets[bucket] = new ArrayList<>(2);
+			}
+			buckets[bucket].add(i);
+		}
+		// place the largest buckets first, as they are the hardest to place
+		Integer[] bucketOrder = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			bucketOrder[i] = i;
+		}
+		Arrays.sort(bucketOrder, (a, b) -> Integer.compare(bucketSize(buckets[b]), bucketSize(buckets[a])));
+
+		String[] table = new String[size];
+		int[] indices = new int[size];
+		int[] displacements = new int[size];
+		int[] positions = new int[size];
+		int nextFree = 0;
+		for (int bucket : bucketOrder) {
+			List<Integer> members = buckets[bucket];
+			int bucketSize = bucketSize(members);
+			if (bucketSize == 0) {
+				break;
+			} else if (bucketSize == 1) {
+				// no need to search for a displacement, just use the next free position
+				while (table[nextFree] != null) {
+					nextFree++;
+				}
+				int i = members.get(0);
+				table[nextFree] = strings[i];
+				indices[nextFree] = i;
+				displacements[bucket] = -nextFree - 1;
+				continue;
+			}
+			boolean placed = false;
+			for (int displacement = 1; displacement < MAX_DISPLACEMENT_ATTEMPTS && !placed; displacement++) {
+				placed = true;
+				for (int m = 0; m < bucketSize && placed; m++) {
+					int position = reduce(hash(strings[members.get(m)], displacement, hashChars, ignoreCase), size);
+					if (table[position] != null) {
+						placed = false;
+					}
+					for (int p = 0; p < m && placed; p++) {
+						if (positions[p] == position) {
+							placed = false;
+						}
+					}
+					positions[m] = position;
+				}
+				if (placed) {
+					for (int m = 0; m < bucketSize; m++) {
+						int i = members.get(m);
+						table[positions[m]] = strings[i];
+						indices[positions[m]] = i;
+					}
+					displacements[bucket] = displacement;
+				}
+			}
+			if (!placed) {
+				return null;
+			}
+		}
+		return new StringPerfectHash(table, indices, displacements, hashChars, ignoreCase);
+	}
+
+	private static int bucketSize(List<Integer> bucket) {
+		return bucket == null ? 0 : bucket.size();
+	}
+
+	/*
+	 * Maps the hash to [0, size) without using modulo.
+	 * */
+	private static int reduce(int hash, int size) {
+		return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+	}
+
+	private static int hash(String s, int displacement, boolean hashChars, boolean ignoreCase) {
+		int h;
+		if (hashChars) {
+			h = 0x7F4A7C15 + displacement * 0x9E3779B9;
+			for (int i = 0; i < s.length(); i++) {
+				char c = ignoreCase ? StringUtils.foldCase(s.charAt(i)) : s.charAt(i);
+				h = Integer.rotateLeft((h ^ c) * 0x01000193, 7);
+			}
+		} else {
+			h = s.hashCode() + displacement * 0x9E3779B9;
+		}
+		return mix(h);
+	}
+
+	// murmur3 finalizer
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private final String[] table;
+	private final int[] indices;
+	/*
+	 * By bucket. A negative value is the (encoded) position of the only string in
+	 * the bucket, otherwise it is the displacement used to hash the bucket's strings.
+	 * */
+	private final int[] displacements;
+	private final boolean hashChars;
+	private final boolean ignoreCase;
+
+	private StringPerfectHash(String[] table, int[] indices, int[] displacements, boolean hashChars, boolean ignoreCase) {
+		this.table = table;
+		this.indices = indices;
+		this.displacements = displacements;
+		this.hashChars = hashChars;
+		this.ignoreCase = ignoreCase;
+	}
+
+	/**
+	 * @param s the string to look up
+	 * @return the index of the string in the strings the perfect hash was created
+	 * from, or -1 if it is not one of them
+	 */
+	public int indexOf(String s) {
+		int size = this.table.length;
+		if (size == 0 || s == null) {
+			return -1;
+		}
+		int displacement = this.displacements[reduce(hash(s, 0, this.hashChars, this.ignoreCase), size)];
+		int position = displacement < 0
+			? -displacement - 1
+			: reduce(hash(s, displacement, this.hashChars, this.ignoreCase), size);
+		String candidate = this.table[position];
+		if (this.ignoreCase) {
+			return candidate.equalsIgnoreCase(s) ? this.indices[position] : -1;
+		}
+		return candidate.hashCode() == s.hashCode() && candidate.equals(s) ? this.indices[position] : -1;
+	}
+
+	/**
+	 * @param s the string to look up
+	 * @return whether or not the string is one of the strings the perfect hash was created from
+	 */
+	public boolean contains(String s) {
+		return indexOf(s) >= 0;
+	}
+
+	/**
+	 * @return the number of strings
+	 */
+	public int size() {
+		return this.table.length;
+	}
+
+}
@@ -0,0 +1,160 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie over a fixed set of strings (the prefixes), which finds the prefix a string
+ * begins with by reading each char of the string at most once, rather than comparing
+ * the string with each prefix in turn. The children of each node are held in sorted
+ * arrays, so a lookup does not allocate and takes time proportional to the length of
+ * the matched prefix (times the log of the number of children of each node), however
+ * many prefixes there are.
+ *
+ * @author Blake Howell
+ */
+public final class StringPrefixTrie {
+
+	private static final int ROOT = 0;
+
+	/**
+	 * Creates the trie for the prefixes. An empty prefix is not added (it would be the
+	 * prefix of every string).
+	 *
+	 * @param prefixes the prefixes (must not be null)
+	 * @return the trie, where {@link #indexOfPrefix(CharSequence)} returns the index of the
+	 * prefix in prefixes
+	 */
+	public static StringPrefixTrie of(String... prefixes) {
+		if (prefixes == null) {
+			throw new IllegalArgumentException("Prefixes cannot be null.");
+		}
+		for (String prefix : prefixes) {
+			if (prefix == null) {
+				throw new IllegalArgumentException("Prefixes cannot contain null.");
+			}
+		}
+		return new StringPrefixTrie(prefixes);
+	}
+
+	/**
+	 * @see #of(String...)
+	 */
+	public static StringPrefixTrie of(Collection<String> prefixes) {
+		if (prefixes == null) {
+			throw new IllegalArgumentException("Prefixes cannot be null.");
+		}
+		return of(prefixes.toArray(new String[0]));
+	}
+
+	private final int size;
+
+	/*
+	 * The children of node i are at [childStarts[i], childStarts[i + 1]) of childChars
+	 * (sorted) and childNodes. nodePrefixes holds the index of the prefix that ends at
+	 * the node (-1 if none).
+	 * */
+	private final int[] childStarts;
+	private final char[] childChars;
+	private final int[] childNodes;
+	private final int[] nodePrefixes;
+
+	private StringPrefixTrie(String[] prefixes) {
+		this.size = prefixes.length;
+		// build the trie with maps and then flatten it
+		List<Map<Character, Integer>> children = new ArrayList<>();
+		List<Integer> nodePrefixes = new ArrayList<>();
+		children.add(new HashMap<>());
+		nodePrefixes.add(-1);
+		for (int p = 0; p < prefixes.length; p++) {
+			String prefix = prefixes[p];
+			if (prefix.isEmpty()) {
+				continue;
+			}
+			int node = ROOT;
+			for (int i = 0; i < prefix.length(); i++) {
+				Integer child = children.get(node).get(prefix.charAt(i));
+				if (child == null) {
+					child = children.size();
+					children.get(node).put(prefix.charAt(i), child);
+					children.add(new HashMap<>());
+					nodePrefixes.add(-1);
+				}
+				node = child;
+			}
+			// the first of duplicate prefixes is kept
+			if (nodePrefixes.get(node) == -1) {
+				nodePrefixes.set(node, p);
+			}
+		}
+		int nodeCount = children.size();
+		this.childStarts = new int[nodeCount + 1];
+		this.childChars = new char[nodeCount - 1];
+		this.childNodes = new int[nodeCount - 1];
+		this.nodePrefixes = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			this.nodePrefixes[node] = nodePrefixes.get(node);
+			int start = this.childStarts[node];
+			Character[] chars = children.get(node).keySet().toArray(new Character[0]);
+			Arrays.sort(chars);
+			for (int i = 0; i < chars.length; i++) {
+				this.childChars[start + i] = chars[i];
+				this.childNodes[start + i] = children.get(node).get(chars[i]);
+			}
+			this.childStarts[node + 1] = start + chars.length;
+		}
+	}
+
+	/**
+	 * @param s the string to look up
+	 * @return the index of the shortest prefix that the string begins with, or -1 if it
+	 * does not begin with any of the prefixes
+	 */
+	public int indexOfPrefix(CharSequence s) {
+		int node = ROOT;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			int lo = this.childStarts[node], hi = this.childStarts[node + 1] - 1;
+			node = -1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				char midChar = this.childChars[mid];
+				if (c < midChar) {
+					hi = mid - 1;
+				} else if (c > midChar) {
+					lo = mid + 1;
+				} else {
+					node = this.childNodes[mid];
+					break;
+				}
+			}
+			if (node == -1) {
+				return -1;
+			}
+			if (this.nodePrefixes[node] != -1) {
+				return this.nodePrefixes[node];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param s the string to look up
+	 * @return whether the string begins with any of the prefixes
+	 */
+	public boolean beginsWithAny(CharSequence s) {
+		return indexOfPrefix(s) != -1;
+	}
+
+	/**
+	 * @return the number of prefixes the trie was created from
+	 */
+	public int size() {
+		return this.size;
+	}
+
+}
@@ -70,4 +70,28 @@ public class StringUtils {
 		}
 	}
 
+	/**
+	 * Folds the case of the char, so that two chars are equal ignoring case (as compared
+	 * by {@link String#equalsIgnoreCase(String)}) if and only if their folded chars are
+	 * equal. This allows strings to be hashed or searched ignoring case without creating
+	 * the lower case string.
+	 */
+	public static char foldCase(char c) {
+		if (c < 128) {
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	/**
+	 * @return the string with the case of each char folded (see {@link #foldCase(char)})
+	 */
+	public static String foldCase(String s) {
+		char[] chars = s.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = foldCase(chars[i]);
+		}
+		return new String(chars);
+	}
+
 }
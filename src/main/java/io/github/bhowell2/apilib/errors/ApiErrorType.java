@@ -63,6 +63,14 @@ public enum ApiErrorType {
 	 * likely does not want to return the error message to the user but
 	 * may want to log it.
 	 */
-	EXCEPTIONAL
+	EXCEPTIONAL,
+
+	/**
+	 * The parameter was not checked before the deadline of the check passed
+	 * (see {@link ApiMapParam#checkWithDeadline(Map, io.github.bhowell2.apilib.Deadline)}).
+	 * This always fails the map, even if the parameter is optional.
+	 * Default message: {@link ApiLibSettings#DEFAULT_TIMEOUT_MESSAGE}.
+	 */
+	TIMEOUT
 
 }
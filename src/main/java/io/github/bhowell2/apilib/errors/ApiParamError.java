@@ -337,7 +337,8 @@ public class ApiParamError {
 	}
 
 	/**
-	 * Creates ApiParmError with {@link ApiErrorType#EXCEPTIONAL}
+	 * Creates ApiParmError with {@link ApiErrorType#EXCEPTIONAL} (or {@link ApiErrorType#TIMEOUT}
+	 * if the exception is a {@link DeadlineExceededException})
 	 * @param apiParam
 	 * @param exception
 	 * @return
@@ -347,6 +348,9 @@ public class ApiParamError {
 	}
 
 	public static ApiParamError exceptional(String keyName, String displayName, Exception exception) {
+		if (exception instanceof DeadlineExceededException) {
+			return timeout(keyName, displayName, exception);
+		}
 		return new ApiParamError(keyName,
 		                         displayName,
 		                         ApiErrorType.EXCEPTIONAL,
@@ -355,4 +359,17 @@ public class ApiParamError {
 		                         null,
 		                         null);
 	}
+
+	/**
+	 * Creates ApiParamError with {@link ApiErrorType#TIMEOUT}
+	 * and {@link ApiLibSettings#DEFAULT_TIMEOUT_MESSAGE}.
+	 */
+	public static ApiParamError timeout(String keyName, String displayName, Exception exception) {
+		return new ApiParamError(keyName,
+		                         displayName,
+		                         ApiErrorType.TIMEOUT,
+		                         ApiLibSettings.DEFAULT_TIMEOUT_MESSAGE,
+		                         exception);
+	}
+
 }
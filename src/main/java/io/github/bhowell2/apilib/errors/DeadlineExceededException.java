@@ -0,0 +1,20 @@
+package io.github.bhowell2.apilib.errors;
+
+import io.github.bhowell2.apilib.Deadline;
+
+/**
+ * Thrown when the {@link Deadline} of a check has passed, to stop checking. This is
+ * caught by the parameter being checked and returned as an {@link ApiParamError} with
+ * {@link ApiErrorType#TIMEOUT}.
+ *
+ * The stack trace is not filled in, as this is expected (and used for control flow).
+ *
+ * @author Blake Howell
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+	public DeadlineExceededException() {
+		super("Deadline exceeded.", null, false, false);
+	}
+
+}
@@ -1,6 +1,8 @@
 package io.github.bhowell2.apilib.formatters;
 
 import io.github.bhowell2.apilib.ApiLibSettings;
+import io.github.bhowell2.apilib.checks.utils.BoundedCache;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
 
 /**
  * @author Blake Howell
@@ -73,6 +75,27 @@ public interface Formatter<In, Out> {
 
 	}
 
+	/**
+	 * Caches the results of the formatter by the value that was formatted in a
+	 * bounded cache (see {@link BoundedCache}), so that values that are formatted
+	 * often (e.g., user agents normalized with
+	 * {@link StringFormatters#NORMALIZE_NFKC}) are only formatted once while they
+	 * are cached. This should only be used with pure formatters that return
+	 * immutable values (the same formatted value is returned for every equal value)
+	 * and values that have a proper {@link Object#equals(Object)} and
+	 * {@link Object#hashCode()}. If the formatter throws an exception nothing is
+	 * cached.
+	 *
+	 * @param formatter the formatter to memoize
+	 * @param policy the size of the cache
+	 * @param <In> type of the parameter
+	 * @param <Out> type of the formatted parameter
+	 * @return the memoized formatter, which provides the hit, miss and eviction counts of its cache
+	 */
+	static <In, Out> MemoizedFormatter<In, Out> memoized(Formatter<In, Out> formatter, CachePolicy policy) {
+		return new MemoizedFormatter<>(formatter, policy);
+	}
+
 	/**
 	 * Takes in a parameter of type In and formats it in someway, possibly changing
 	 * it to a different type of type Out.
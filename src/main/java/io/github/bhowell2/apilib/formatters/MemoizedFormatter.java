@@ -0,0 +1,49 @@
+package io.github.bhowell2.apilib.formatters;
+
+import io.github.bhowell2.apilib.checks.utils.BoundedCache;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
+
+/**
+ * Caches the results of a pure formatter by the value that was formatted (see
+ * {@link Formatter#memoized(Formatter, CachePolicy)}).
+ *
+ * @author Blake Howell
+ */
+public final class MemoizedFormatter<In, Out> implements Formatter<In, Out> {
+
+	final Formatter<In, Out> formatter;
+	final BoundedCache<In, Result<Out>> cache;
+
+	MemoizedFormatter(Formatter<In, Out> formatter, CachePolicy policy) {
+		if (formatter == null) {
+			throw new IllegalArgumentException("Formatter cannot be null.");
+		}
+		this.formatter = formatter;
+		this.cache = new BoundedCache<>(policy);
+	}
+
+	@Override
+	public Result<Out> format(In param) {
+		Result<Out> result = this.cache.getIfPresent(param);
+		if (result == null) {
+			result = this.formatter.format(param);
+			this.cache.put(param, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the formatter that is memoized
+	 */
+	public Formatter<In, Out> getFormatter() {
+		return this.formatter;
+	}
+
+	/**
+	 * @return the cache of results, which provides the hit, miss and eviction counts
+	 */
+	public BoundedCache<In, Result<Out>> getCache() {
+		return this.cache;
+	}
+
+}
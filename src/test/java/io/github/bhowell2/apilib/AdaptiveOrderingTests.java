@@ -0,0 +1,234 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link AdaptiveOrdering}.
+ *
+ * @author Blake Howell
+ */
+public class AdaptiveOrderingTests {
+
+	static AdaptiveOrdering ordering() {
+		return AdaptiveOrdering.builder().setSampleRate(1).setReorderInterval(20).build();
+	}
+
+	// spins for a while (i.e., a slow lookup) and then fails values starting with x
+	static Check<String> expensiveCheck(AtomicInteger callCount) {
+		return value -> {
+			callCount.incrementAndGet();
+			long end = System.nanoTime() + 50_000;
+			while (System.nanoTime() < end) {
+				// spin
+			}
+			return value.startsWith("x") ? Check.Result.failure("Expensive failed.") : Check.Result.success();
+		};
+	}
+
+	static Map<String, Object> params(String a, String b) {
+		Map<String, Object> params = new HashMap<>();
+		params.put("a", a);
+		params.put("b", b);
+		return params;
+	}
+
+	@Test
+	public void shouldRunCheapFailingChecksFirst() throws Exception {
+		AtomicInteger expensiveCount = new AtomicInteger();
+		AdaptiveOrdering ordering = ordering();
+		ApiSingleParam<String> param = ApiSingleParam.builder("a", String.class)
+		                                             .addChecks(expensiveCheck(expensiveCount),
+		                                                        StringChecks.lengthGreaterThan(3))
+		                                             .setAdaptiveOrdering(ordering)
+		                                             .build();
+		// fails both checks, so the first check's error is returned before reordering
+		assertEquals("Expensive failed.", param.check(params("xy", null)).error.errorMessage);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(param.check(params("ab", null)).failed());
+		}
+		expensiveCount.set(0);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(param.check(params("ab", null)).failed());
+		}
+		assertEquals(0, expensiveCount.get());
+		// opted in, so the error changes
+		assertNotEquals("Expensive failed.", param.check(params("xy", null)).error.errorMessage);
+		assertTrue(param.check(params("valid", null)).successful());
+
+		// the order is not learned without the ordering
+		ApiSingleParam<String> fixed = ApiSingleParam.builder("a", String.class)
+		                                             .addChecks(expensiveCheck(expensiveCount),
+		                                                        StringChecks.lengthGreaterThan(3))
+		                                             .build();
+		assertEquals("Expensive failed.", fixed.check(params("xy", null)).error.errorMessage);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldKeepPinnedAndPrioritizedChecksFirst() throws Exception {
+		AtomicInteger expensiveCount = new AtomicInteger();
+		Check<String> expensiveCheck = expensiveCheck(expensiveCount);
+		ApiSingleParam<String> pinned = ApiSingleParam.builder("a", String.class)
+		                                              .addPinnedChecks(expensiveCheck)
+		                                              .addChecks(StringChecks.lengthGreaterThan(3))
+		                                              .setAdaptiveOrdering(ordering())
+		                                              .build();
+		ApiSingleParam<String> prioritized = ApiSingleParam.builder("a", String.class)
+		                                                   .addChecks(StringChecks.lengthGreaterThan(3), expensiveCheck)
+		                                                   .setCheckPriority(expensiveCheck, 1)
+		                                                   .setAdaptiveOrdering(ordering())
+		                                                   .build();
+		for (ApiSingleParam<String> param : new ApiSingleParam[]{pinned, prioritized}) {
+			for (int i = 0; i < 100; i++) {
+				param.check(params("ab", null));
+			}
+			expensiveCount.set(0);
+			assertTrue(param.check(params("ab", null)).failed());
+			assertEquals(1, expensiveCount.get());
+		}
+		// copied
+		expensiveCount.set(0);
+		ApiSingleParam.builder("b", pinned).build().check(params(null, "ab"));
+		assertEquals(1, expensiveCount.get());
+	}
+
+	@Test
+	public void shouldCheckCheapFailingParamsFirst() throws Exception {
+		AtomicInteger expensiveCount = new AtomicInteger();
+		ApiMapParam.Builder builder =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(ApiSingleParam.builder("a", String.class)
+			                                                  .addChecks(expensiveCheck(expensiveCount))
+			                                                  .build(),
+			                                    ApiSingleParam.builder("b", String.class)
+			                                                  .addChecks(StringChecks.lengthGreaterThan(3))
+			                                                  .build(),
+			                                    ApiSingleParam.builder("c", String.class)
+			                                                  .addChecks(expensiveCheck(expensiveCount))
+			                                                  .build());
+		ApiMapParam adaptive = ApiMapParam.builder(builder.build())
+		                                  .setAdaptiveOrdering(ordering(), "signup")
+		                                  .build();
+		ApiMapParam prioritized = ApiMapParam.builder(builder.build())
+		                                     .setAdaptiveOrdering(ordering(), "signup")
+		                                     .setParamPriority("a", 1)
+		                                     .build();
+		Map<String, Object> params = params("valid", "ab");
+		params.put("c", "valid");
+		for (int i = 0; i < 100; i++) {
+			assertEquals("b", adaptive.check(params).error.keyName);
+			assertEquals("b", prioritized.check(params).error.keyName);
+		}
+		expensiveCount.set(0);
+		adaptive.check(params);
+		assertEquals(0, expensiveCount.get());
+		prioritized.check(params);
+		assertEquals(1, expensiveCount.get());
+
+		params.put("b", "valid");
+		ApiMapParam.Result result = adaptive.check(params);
+		assertTrue(result.successful());
+		assertEquals(3, result.checkedKeyNames.size());
+		ApiMapParamPlanTests.assertSameResult(adaptive.check(params, new ValidationContext()), result);
+	}
+
+	@Test
+	public void shouldCountEachSampledMapCheckOnce() throws Exception {
+		AtomicBoolean customFails = new AtomicBoolean();
+		// no optional keyed parameters, so the required ones are all of them
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("a", String.class)
+		                                                                      .addChecks(Check.alwaysPass(String.class))
+		                                                                      .build(),
+		                                                        ApiSingleParam.builder("b", String.class)
+		                                                                      .addChecks(StringChecks.lengthGreaterThan(3))
+		                                                                      .build())
+		                               .addRequiredCustomParams(params -> customFails.get()
+			                               ? ApiCustomParam.Result.failure(ApiParamError.invalid("c"))
+			                               : ApiCustomParam.Result.success())
+		                               .setAdaptiveOrdering(ordering(), "signup")
+		                               .build();
+		for (int i = 1; i < 20; i++) {
+			assertTrue(param.check(params("valid", "valid")).successful());
+			assertEquals(i, param.adaptiveOrder.sampledSinceReorder());
+		}
+		// reordered every 20 sampled checks
+		param.check(params("valid", "valid"));
+		assertEquals(0, param.adaptiveOrder.sampledSinceReorder());
+		// counted when a keyed parameter or a custom parameter fails
+		assertTrue(param.check(params("valid", "ab")).failed());
+		assertEquals(1, param.adaptiveOrder.sampledSinceReorder());
+		customFails.set(true);
+		assertTrue(param.check(params("valid", "valid")).failed());
+		assertEquals(2, param.adaptiveOrder.sampledSinceReorder());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldExportAndLoadProfile() throws Exception {
+		AtomicInteger expensiveCount = new AtomicInteger();
+		AdaptiveOrdering ordering = ordering();
+		ApiSingleParam<String> param = ApiSingleParam.builder("a", String.class)
+		                                             .addChecks(expensiveCheck(expensiveCount),
+		                                                        StringChecks.lengthGreaterThan(3))
+		                                             .setAdaptiveOrdering(ordering)
+		                                             .build();
+		for (int i = 0; i < 100; i++) {
+			param.check(params("ab", null));
+		}
+		Map<String, Object> profile = ordering.exportProfile();
+		Map<String, Object> checkStatistics = (Map<String, Object>) ((Map<String, Object>) profile.get("a")).get("1");
+		assertEquals(100L, checkStatistics.get(AdaptiveOrdering.SAMPLES));
+		assertEquals(100L, checkStatistics.get(AdaptiveOrdering.FAILURES));
+		// e.g., parsed from JSON
+		checkStatistics.put(AdaptiveOrdering.SAMPLES, 100);
+
+		// a fresh ordering starts with the learned order
+		AdaptiveOrdering freshOrdering = ordering();
+		freshOrdering.loadProfile(profile);
+		ApiSingleParam<String> freshParam = ApiSingleParam.builder("a", param)
+		                                                  .setAdaptiveOrdering(freshOrdering)
+		                                                  .build();
+		expensiveCount.set(0);
+		assertTrue(freshParam.check(params("ab", null)).failed());
+		assertEquals(0, expensiveCount.get());
+
+		Map<String, Object> invalidProfile = new HashMap<>();
+		invalidProfile.put("a", "not a map");
+		assertThrows(IllegalArgumentException.class, () -> freshOrdering.loadProfile(invalidProfile));
+	}
+
+	@Test
+	public void shouldNotAllowInvalidSettings() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> AdaptiveOrdering.builder().setSampleRate(0));
+		assertThrows(IllegalArgumentException.class, () -> AdaptiveOrdering.builder().setReorderInterval(0));
+		ApiSingleParam<String> a = ApiSingleParam.builder("a", String.class)
+		                                         .addChecks(Check.alwaysPass(String.class))
+		                                         .build();
+		// no profile name for a map without a key name
+		assertThrows(IllegalArgumentException.class,
+		             () -> ApiMapParam.builder().addRequiredSingleParams(a).setAdaptiveOrdering(ordering()).build());
+		assertThrows(IllegalArgumentException.class,
+		             () -> ApiMapParam.builder("map")
+		                              .addRequiredSingleParams(a)
+		                              .setAdaptiveOrdering(ordering())
+		                              .pinParams("b")
+		                              .build());
+		assertThrows(IllegalArgumentException.class,
+		             () -> ApiSingleParam.builder("a", String.class)
+		                                 .addChecks(Check.alwaysPass(String.class))
+		                                 .setCheckPriority(Check.alwaysFail(), 1)
+		                                 .build());
+	}
+
+}
@@ -0,0 +1,180 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.bhowell2.apilib.TestParamsBase.pointList;
+import static io.github.bhowell2.apilib.TestParamsBase.points;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiCollectionParam.Builder#setParallelIndexCheck(ForkJoinPool, int)}.
+ *
+ * @author Blake Howell
+ */
+public class ApiCollectionParamParallelIndexCheckTests {
+
+	// worker threads are daemon threads, so the pool does not need to be shutdown
+	static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	static final int POINT_COUNT = 200_000;
+
+	@Test
+	public void shouldReturnFirstFailingIndex() throws Exception {
+		ApiListParam<Map<String, Object>, Integer> sequential =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks(IntegerChecks.valueGreaterThan(0))
+			            .build();
+		ApiListParam<Map<String, Object>, Integer> parallel =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks(IntegerChecks.valueGreaterThan(0))
+			            .setParallelIndexCheck(POOL, 1000)
+			            .build();
+		Map<String, Object> params = points(POINT_COUNT);
+		assertTrue(parallel.check(params).successful());
+
+		pointList(params).set(150_000, -1);
+		pointList(params).set(199_999, -1);
+		ApiCollectionParam.Result result = parallel.check(params);
+		assertTrue(result.failed());
+		assertEquals(150_000, result.error.index);
+
+		pointList(params).set(3, -1);
+		for (int i = 0; i < 10; i++) {
+			result = parallel.check(params);
+			assertTrue(result.failed());
+			assertEquals(3, result.error.index);
+			assertEquals(sequential.check(params).error.errorMessage, result.error.errorMessage);
+		}
+
+		// wrong type is found at the same index as well
+		pointList(params).set(2, "not an integer");
+		result = parallel.check(params);
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+	}
+
+	@Test
+	public void shouldReturnFailureBeforeLaterException() throws Exception {
+		ApiListParam<Map<String, Object>, Integer> parallel =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks(point -> {
+				            if (point == 0) {
+					            throw new IllegalStateException("Thrown.");
+				            }
+				            return point > 0 ? Check.Result.success() : Check.Result.failure("Negative.");
+			            })
+			            .setParallelIndexCheck(POOL, 100)
+			            .build();
+		Map<String, Object> params = points(10_000);
+		pointList(params).set(9_000, 0);
+		pointList(params).set(5_000, -1);
+		ApiCollectionParam.Result result = parallel.check(params);
+		assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+		assertEquals(5_000, result.error.index);
+
+		pointList(params).set(5_000, 1);
+		result = parallel.check(params);
+		assertEquals(ApiErrorType.EXCEPTIONAL, result.error.errorType);
+	}
+
+	@Test
+	public void shouldStopCheckingAfterFailure() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiListParam<Map<String, Object>, Integer> parallel =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks(point -> {
+				            checkCount.incrementAndGet();
+				            return point > 0 ? Check.Result.success() : Check.Result.failure("Negative.");
+			            })
+			            .setParallelIndexCheck(POOL, 100)
+			            .build();
+		Map<String, Object> params = points(POINT_COUNT);
+		pointList(params).set(0, -1);
+		ApiCollectionParam.Result result = parallel.check(params);
+		assertEquals(0, result.error.index);
+		assertTrue(checkCount.get() < POINT_COUNT / 2, "Later chunks should have stopped.");
+	}
+
+	@Test
+	public void shouldRunCollectionChecksFirst() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiListParam<Map<String, Object>, Integer> parallel =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .setSizeCheck(IntegerChecks.valueLessThan(1000))
+			            .addIndexChecks(point -> {
+				            checkCount.incrementAndGet();
+				            return Check.Result.success();
+			            })
+			            .setParallelIndexCheck(POOL, 100)
+			            .build();
+		ApiCollectionParam.Result result = parallel.check(points(10_000));
+		assertTrue(result.failed());
+		assertNull(result.error.index);
+		assertEquals(0, checkCount.get());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldReturnMapResultsInOrder() throws Exception {
+		ApiMapParam pointParam =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(ApiSingleParam.builder("value", Integer.class)
+			                                                  .addChecks(IntegerChecks.valueGreaterThan(0))
+			                                                  .build())
+			           .build();
+		ApiListParam<Map<String, Object>, Map<String, Object>> parallel =
+			ApiListParam.<Map<String, Object>, Map<String, Object>>builder("points")
+				.setIndexMapCheck(pointParam)
+				.setParallelIndexCheck(POOL, 500)
+				.build();
+		List<Object> points = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			Map<String, Object> point = new HashMap<>();
+			point.put("value", i + 1);
+			points.add(point);
+		}
+		Map<String, Object> params = new HashMap<>();
+		params.put("points", points);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		ApiCollectionParam.Result result = parallel.check(params, (mapParam, map) -> {
+			threads.add(Thread.currentThread());
+			return mapParam.check(map);
+		});
+		assertTrue(result.successful());
+		assertTrue(threads.size() > 1);
+		assertEquals(points.size(), result.mapResults.size());
+		for (ApiMapParam.Result mapResult : result.mapResults) {
+			assertTrue(mapResult.containsParameter("value"));
+		}
+
+		((Map<String, Object>) points.get(12_345)).put("value", 0);
+		((Map<String, Object>) points.get(19_000)).put("value", 0);
+		result = parallel.check(params);
+		assertTrue(result.failed());
+		assertEquals(12_345, result.error.index);
+		assertEquals("value", result.error.childParamError.keyName);
+
+		// sequentially with a context
+		threads.clear();
+		((Map<String, Object>) points.get(12_345)).put("value", 1);
+		((Map<String, Object>) points.get(19_000)).put("value", 1);
+		result = parallel.check(params, (mapParam, map) -> {
+			threads.add(Thread.currentThread());
+			return mapParam.check(map);
+		}, new ValidationContext());
+		assertTrue(result.successful());
+		assertEquals(1, threads.size());
+	}
+
+}
@@ -0,0 +1,159 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static io.github.bhowell2.apilib.TestParamsBase.pointList;
+import static io.github.bhowell2.apilib.TestParamsBase.points;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiCollectionParam.Builder#setSamplingPolicy(CollectionSamplingPolicy)}.
+ *
+ * @author Blake Howell
+ */
+public class ApiCollectionParamSamplingTests {
+
+	static ApiListParam<Map<String, Object>, Integer> pointsParam(CollectionSamplingPolicy policy, Set<Integer> checked) {
+		return ApiListParam.mapInputBuilder("points", Integer.class)
+		                   .addIndexChecks((index, point) -> {
+			                   checked.add(index);
+			                   return point > 0 ? Check.Result.success() : Check.Result.failure("Not positive.");
+		                   })
+		                   .addCollectionChecks(points -> points.size() <= 1000
+			                   ? Check.Result.success()
+			                   : Check.Result.failure("Too many points."))
+		                   .setSamplingPolicy(policy)
+		                   .build();
+	}
+
+	@Test
+	public void shouldCheckHeadTailAndStride() throws Exception {
+		Set<Integer> checked = new TreeSet<>();
+		ApiListParam<Map<String, Object>, Integer> param =
+			pointsParam(CollectionSamplingPolicy.builder().setHeadCount(3).setTailCount(2).setStride(10).build(), checked);
+		Map<String, Object> params = points(30);
+		assertTrue(param.check(params).successful());
+		assertEquals(new TreeSet<>(Arrays.asList(0, 1, 2, 3, 13, 23, 28, 29)), checked);
+
+		// only sampled indices fail
+		pointList(params).set(5, -1);
+		assertTrue(param.check(params).successful());
+		pointList(params).set(13, -1);
+		ApiCollectionParam.Result result = param.check(params);
+		assertTrue(result.failed());
+		assertEquals(13, (int) result.error.index);
+
+		// type and collection checks still cover every index
+		params = points(30);
+		pointList(params).set(5, "not an integer");
+		assertEquals(ApiErrorType.CASTING_ERROR, param.check(params).error.errorType);
+		assertEquals("Too many points.", param.check(points(1001)).error.errorMessage);
+
+		// small collections are checked fully
+		checked.clear();
+		assertTrue(param.check(points(6)).successful());
+		assertEquals(6, checked.size());
+	}
+
+	@Test
+	public void shouldCheckRandomSample() throws Exception {
+		Set<Integer> checked = new TreeSet<>();
+		ApiListParam<Map<String, Object>, Integer> param =
+			pointsParam(CollectionSamplingPolicy.builder().setHeadCount(1).setTailCount(1).setRandomSampleCount(4).build(),
+			            checked);
+		assertTrue(param.check(points(402)).successful());
+		assertEquals(6, checked.size());
+		List<Integer> indices = new ArrayList<>(checked);
+		assertEquals(0, (int) indices.get(0));
+		assertEquals(401, (int) indices.get(5));
+		// one from each quarter of the middle
+		for (int k = 0; k < 4; k++) {
+			int index = indices.get(k + 1);
+			assertTrue(index >= 1 + k * 100 && index < 1 + (k + 1) * 100, "Index " + index + " not in range " + k);
+		}
+	}
+
+	@Test
+	public void shouldCheckFullyAtFullCheckRate() throws Exception {
+		Set<Integer> checked = new TreeSet<>();
+		ApiListParam<Map<String, Object>, Integer> param =
+			pointsParam(CollectionSamplingPolicy.builder().setHeadCount(1).setFullCheckRate(1).build(), checked);
+		assertTrue(param.check(points(100)).successful());
+		assertEquals(100, checked.size());
+
+		checked.clear();
+		ApiListParam<Map<String, Object>, Integer> sometimes =
+			pointsParam(CollectionSamplingPolicy.builder().setHeadCount(1).setFullCheckRate(4).build(), checked);
+		int fullChecks = 0;
+		for (int i = 0; i < 400; i++) {
+			checked.clear();
+			assertTrue(sometimes.check(points(10)).successful());
+			if (checked.size() == 10) {
+				fullChecks++;
+			} else {
+				assertEquals(1, checked.size());
+			}
+		}
+		assertTrue(fullChecks > 40 && fullChecks < 200, "Checked fully " + fullChecks + " times.");
+	}
+
+	@Test
+	public void shouldReturnMapResultsAtCheckedPositions() throws Exception {
+		ApiMapParam pointMap = ApiMapParam.builder()
+		                                  .addRequiredSingleParams(ApiSingleParam.builder("x", Integer.class)
+		                                                                         .addChecks(IntegerChecks.valueGreaterThan(0))
+		                                                                         .build())
+		                                  .build();
+		ApiListParam<Map<String, Object>, Map<String, Object>> param =
+			ApiListParam.<Map<String, Object>, Map<String, Object>>builder("points")
+				.setIndexMapCheck(pointMap)
+				.setSamplingPolicy(CollectionSamplingPolicy.builder().setHeadCount(1).setTailCount(1).build())
+				.build();
+		List<Object> points = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Map<String, Object> point = new HashMap<>();
+			point.put("x", i == 2 ? -1 : 1);
+			points.add(point);
+		}
+		Map<String, Object> params = new HashMap<>();
+		params.put("points", points);
+		ApiCollectionParam.Result result = param.check(params);
+		assertTrue(result.successful());
+		assertEquals(5, result.mapResults.size());
+		assertNotNull(result.mapResults.get(0));
+		assertNull(result.mapResults.get(2));
+		assertNotNull(result.mapResults.get(4));
+		// same with a context
+		ApiMapParam.Result contextResult =
+			ApiMapParam.builder().addRequiredCollectionParams(param).build().check(params, new ValidationContext());
+		List<ApiMapParam.Result> contextMapResults = contextResult.getCollectionResult("points").mapResults;
+		assertEquals(5, contextMapResults.size());
+		assertNotNull(contextMapResults.get(0));
+		assertNull(contextMapResults.get(2));
+
+		// still must be maps
+		points.set(2, "not a map");
+		assertEquals(ApiErrorType.CASTING_ERROR, param.check(params).error.errorType);
+	}
+
+	@Test
+	public void shouldNotAllowInvalidPolicy() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> CollectionSamplingPolicy.builder().setHeadCount(-1));
+		assertThrows(IllegalArgumentException.class, () -> CollectionSamplingPolicy.builder().setTailCount(-1));
+		assertThrows(IllegalArgumentException.class, () -> CollectionSamplingPolicy.builder().setStride(0));
+		assertThrows(IllegalArgumentException.class, () -> CollectionSamplingPolicy.builder().setRandomSampleCount(-1));
+		assertThrows(IllegalArgumentException.class, () -> CollectionSamplingPolicy.builder().setFullCheckRate(-1));
+	}
+
+}
@@ -706,4 +706,33 @@ public class ApiCollectionParamTests {
 		assertTrue(result4.failed());
 	}
 
+	@Test
+	public void shouldFailWithCastingErrorForWrongIndexType() throws Exception {
+		String keyName = "key";
+		// the check would throw a ClassCastException if the type was not checked first
+		ApiListParam<Map<String, Object>, String> listParam =
+			ApiListParam.mapInputBuilder(keyName, String.class)
+			            .addIndexChecks(StringChecks.lengthGreaterThan(1))
+			            .build();
+		Map<String, Object> requestParams = new HashMap<>();
+		requestParams.put(keyName, Arrays.asList("abc", 123));
+		ApiCollectionParam.Result result = listParam.check(requestParams);
+		assertTrue(result.failed());
+		assertEquals(keyName, result.error.keyName);
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+		assertNull(result.error.exception);
+
+		requestParams.put(keyName, "not a list");
+		assertEquals(ApiErrorType.CASTING_ERROR, listParam.check(requestParams).error.errorType);
+
+		ApiListParam<Map<String, Object>, Map<String, Object>> mapListParam =
+			ApiListParam.<Map<String, Object>, Map<String, Object>>builder(keyName)
+				.setIndexMapCheck(ApiMapParam.builder().build())
+				.build();
+		requestParams.put(keyName, Arrays.asList(new HashMap<>(), "not a map"));
+		ApiCollectionParam.Result mapListResult = mapListParam.check(requestParams);
+		assertTrue(mapListResult.failed());
+		assertEquals(ApiErrorType.CASTING_ERROR, mapListResult.error.errorType);
+	}
+
 }
@@ -0,0 +1,129 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam#checkAll(List)} and its overloads.
+ *
+ * @author Blake Howell
+ */
+public class ApiMapParamBatchCheckTests {
+
+	// worker threads are daemon threads, so the pool does not need to be shutdown
+	static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	static ApiMapParam eventParam(Check<Integer> sequenceCheck) {
+		return ApiMapParam.builder()
+		                  .addRequiredSingleParams(ApiSingleParam.builder("type", String.class)
+		                                                         .addChecks(StringChecks.lengthGreaterThan(0))
+		                                                         .build(),
+		                                           ApiSingleParam.builder("sequence", Integer.class)
+		                                                         .addChecks(sequenceCheck)
+		                                                         .build())
+		                  .addOptionalMapParams(ApiMapParam.builder("data")
+		                                                   .addRequiredSingleParams(
+			                                                   ApiSingleParam.builder("value", Integer.class)
+			                                                                 .addChecks(IntegerChecks.valueGreaterThan(0))
+			                                                                 .build())
+		                                                   .build())
+		                  .build();
+	}
+
+	static List<Map<String, Object>> events(int count) {
+		List<Map<String, Object>> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> event = new HashMap<>();
+			event.put("type", "click");
+			event.put("sequence", i);
+			Map<String, Object> data = new HashMap<>();
+			data.put("value", i + 1);
+			event.put("data", data);
+			events.add(event);
+		}
+		return events;
+	}
+
+	static void assertSameResults(ApiMapParam mapParam,
+	                              List<Map<String, Object>> events,
+	                              ApiMapParam.BatchResult batchResult) {
+		assertEquals(events.size(), batchResult.results.size());
+		for (int i = 0; i < events.size(); i++) {
+			ApiMapParamPlanTests.assertSameResult(mapParam.check(events.get(i)), batchResult.results.get(i));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldReturnResultsInOrderWithCounts() throws Exception {
+		ApiMapParam eventParam = eventParam(IntegerChecks.valueGreaterThanOrEqualTo(0));
+		List<Map<String, Object>> events = events(100);
+		events.get(10).put("sequence", -1);
+		events.get(20).remove("type");
+		events.get(30).put("type", 1);
+		((Map<String, Object>) events.get(40).get("data")).put("value", 0);
+		events.set(50, null);
+
+		ApiMapParam.BatchResult batchResult = eventParam.checkAll(events);
+		assertSameResults(eventParam, events, batchResult);
+		assertFalse(batchResult.allSuccessful());
+		assertEquals(95, batchResult.successCount);
+		assertEquals(5, batchResult.failureCount);
+		assertEquals(2, batchResult.getFailureCount(ApiErrorType.INVALID_PARAMETER));
+		assertEquals(2, batchResult.getFailureCount(ApiErrorType.MISSING_PARAMETER));
+		assertEquals(1, batchResult.getFailureCount(ApiErrorType.CASTING_ERROR));
+		assertEquals("data", batchResult.results.get(40).error.keyName);
+
+		assertSameResults(eventParam, events, eventParam.checkAll(events.iterator()));
+		assertSameResults(eventParam, events, eventParam.checkAll(events.stream()));
+		assertSameResults(eventParam, events, eventParam.checkAll(new LinkedList<>(events), POOL));
+		assertTrue(eventParam.checkAll(new ArrayList<>()).allSuccessful());
+	}
+
+	@Test
+	public void shouldCheckInParallelInOrder() throws Exception {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		ApiMapParam eventParam = eventParam(sequence -> {
+			threads.add(Thread.currentThread());
+			return sequence % 1000 == 999 ? Check.Result.failure("Dropped.") : Check.Result.success();
+		});
+		List<Map<String, Object>> events = events(10_000);
+		ApiMapParam.BatchResult batchResult = eventParam.checkAll(events, POOL);
+		assertTrue(threads.size() > 1);
+		assertTrue(threads.contains(Thread.currentThread()));
+		assertEquals(10, batchResult.failureCount);
+		for (int i = 0; i < events.size(); i++) {
+			assertEquals(i % 1000 == 999, batchResult.results.get(i).failed());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			assertSameResults(eventParam, events, eventParam.checkAll(events, executor));
+		} finally {
+			executor.shutdown();
+		}
+
+		// small batches are checked on the calling thread
+		threads.clear();
+		assertTrue(eventParam.checkAll(events.subList(0, 10), POOL).allSuccessful());
+		assertEquals(1, threads.size());
+		assertTrue(threads.contains(Thread.currentThread()));
+	}
+
+}
@@ -0,0 +1,224 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.formatters.StringFormatters;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.bhowell2.apilib.TestParamsBase.countingCheck;
+import static io.github.bhowell2.apilib.TestParamsBase.map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam#checkDelta(Map, ApiMapParam.Result, Map)}.
+ *
+ * @author Blake Howell
+ */
+public class ApiMapParamDeltaCheckTests {
+
+	@Test
+	public void shouldOnlyCheckChangedParams() throws Exception {
+		AtomicInteger nameChecks = new AtomicInteger(), emailChecks = new AtomicInteger();
+		ApiMapParam address = ApiMapParam.builder("address")
+		                                 .addRequiredSingleParams(ApiSingleParam.builder("zip", Integer.class)
+		                                                                        .addChecks(IntegerChecks.valueGreaterThan(0))
+		                                                                        .build())
+		                                 .build();
+		ApiMapParam user = ApiMapParam.builder()
+		                              .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                     .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                                     .addChecks(countingCheck(nameChecks))
+		                                                                     .build())
+		                              .addOptionalSingleParams(ApiSingleParam.builder("email", String.class)
+		                                                                     .addChecks(countingCheck(emailChecks))
+		                                                                     .build(),
+		                                                       ApiSingleParam.builder("age", Integer.class)
+		                                                                     .addChecks(IntegerChecks.valueGreaterThan(0))
+		                                                                     .build())
+		                              .addOptionalMapParams(address)
+		                              .build();
+		Map<String, Object> previous = map("name", "blake", "email", "b@h.io", "address", map("zip", 12345));
+		ApiMapParam.Result previousResult = user.check(previous);
+		assertTrue(previousResult.successful());
+		nameChecks.set(0);
+		emailChecks.set(0);
+
+		Map<String, Object> patch = map("name", " howell ", "age", 30);
+		ApiMapParam.Result result = user.checkDelta(previous, previousResult, patch);
+		assertTrue(result.successful());
+		assertEquals(1, nameChecks.get());
+		assertEquals(0, emailChecks.get());
+		assertEquals(new HashSet<>(Arrays.asList("name", "email", "age", "address")), result.checkedKeyNames);
+		assertSame(previousResult.getMapResult("address"), result.getMapResult("address"));
+		// formatted value returned in the result, neither map is modified
+		assertEquals("howell", result.formattedValues.get("name"));
+		assertEquals(" howell ", patch.get("name"));
+		assertEquals("blake", previous.get("name"));
+		assertFalse(previous.containsKey("age"));
+
+		// without the previous result only the unchanged single params are not checked
+		result = user.checkDelta(previous, map("age", 31));
+		assertTrue(result.successful());
+		assertEquals(1, nameChecks.get());
+		assertEquals(0, emailChecks.get());
+		assertTrue(result.containsParameter("email"));
+		assertTrue(result.getMapResult("address").containsParameter("zip"));
+
+		// the changed params can fail
+		result = user.checkDelta(previous, previousResult, map("address", map("zip", -1)));
+		assertTrue(result.failed());
+		assertEquals("zip", result.error.childParamError.keyName);
+		// null removes the key
+		result = user.checkDelta(previous, previousResult, map("email", null));
+		assertTrue(result.successful());
+		assertFalse(result.containsParameter("email"));
+		result = user.checkDelta(previous, previousResult, map("name", null));
+		assertEquals(ApiErrorType.MISSING_PARAMETER, result.error.errorType);
+	}
+
+	@Test
+	public void shouldOnlyRunCustomParamsAndConditionalChecksThatReadChangedKeys() throws Exception {
+		AtomicInteger customChecks = new AtomicInteger(), priceChecks = new AtomicInteger(), noteChecks = new AtomicInteger();
+		ApiMapParam order = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("price", Integer.class).addChecks(IntegerChecks.valueGreaterThan(0)).build(),
+		                                                        ApiSingleParam.builder("discount", Integer.class).addChecks(IntegerChecks.valueGreaterThanOrEqualTo(0)).build())
+		                               .addOptionalSingleParams(ApiSingleParam.builder("note", String.class).addChecks(Check.alwaysPass(String.class)).build())
+		                               .addRequiredCustomParams(((ApiCustomParam) params -> {
+			                               customChecks.incrementAndGet();
+			                               return ApiCustomParam.Result.successWithCustomResult("total",
+			                                                                                    (Integer) params.get("price")
+				                                                                                    - (Integer) params.get("discount"));
+		                               }).withReadKeyNames("price", "discount"))
+		                               .addConditionalChecks(((ApiMapParamConditionalCheck) (params, result) -> {
+			                               priceChecks.incrementAndGet();
+			                               return (Integer) params.get("discount") <= (Integer) params.get("price")
+				                               ? ApiMapParamConditionalCheck.Result.success()
+				                               : ApiMapParamConditionalCheck.Result.failure(null, null, "Discount too large.");
+		                               }).withReadKeyNames("price", "discount"),
+		                                                     (params, result) -> {
+			                                                     noteChecks.incrementAndGet();
+			                                                     return ApiMapParamConditionalCheck.Result.success();
+		                                                     })
+		                               .build();
+		Map<String, Object> previous = map("price", 100, "discount", 10, "note", "gift");
+		ApiMapParam.Result previousResult = order.check(previous);
+		assertEquals(90, previousResult.getCustomValue("total"));
+		assertEquals(1, customChecks.get());
+
+		// the custom param and the first conditional check do not read the note
+		ApiMapParam.Result result = order.checkDelta(previous, previousResult, map("note", "not a gift"));
+		assertTrue(result.successful());
+		assertEquals(90, result.getCustomValue("total"));
+		assertEquals(1, customChecks.get());
+		assertEquals(1, priceChecks.get());
+		// does not declare the keys it reads, so is always run
+		assertEquals(2, noteChecks.get());
+
+		result = order.checkDelta(previous, previousResult, map("discount", 20));
+		assertEquals(80, result.getCustomValue("total"));
+		assertEquals(2, customChecks.get());
+		assertEquals(2, priceChecks.get());
+
+		result = order.checkDelta(previous, previousResult, map("discount", 200));
+		assertTrue(result.failed());
+		assertEquals("Discount too large.", result.error.errorMessage);
+	}
+
+	@Test
+	public void shouldUsePreviousFormattedValuesWithOverlay() throws Exception {
+		ApiMapParam user = ApiMapParam.builder()
+		                              .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                     .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                                     .addChecks(Check.alwaysPass(String.class))
+		                                                                     .build(),
+		                                                       ApiSingleParam.builder("title", String.class)
+		                                                                     .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                                     .addChecks(Check.alwaysPass(String.class))
+		                                                                     .build())
+		                              .setFormattedValueOverlay(true)
+		                              .build();
+		Map<String, Object> previous = map("name", " blake ", "title", " dev ");
+		ApiMapParam.Result previousResult = user.check(previous);
+		Map<String, Object> patch = map("title", " lead ");
+		ApiMapParam.Result result = user.checkDelta(previous, previousResult, patch);
+		assertEquals("blake", result.formattedValues.get("name"));
+		assertEquals("lead", result.formattedValues.get("title"));
+		assertEquals(" lead ", patch.get("title"));
+		// checked again without the previous result
+		assertEquals("blake", user.checkDelta(previous, patch).formattedValues.get("name"));
+	}
+
+	@Test
+	public void shouldNotModifyPatch() throws Exception {
+		ApiMapParam address = ApiMapParam.builder("address")
+		                                 .addRequiredSingleParams(ApiSingleParam.builder("city", String.class)
+		                                                                        .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                                        .addChecks(Check.alwaysPass(String.class))
+		                                                                        .build())
+		                                 .build();
+		ApiMapParam user = ApiMapParam.builder()
+		                              .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                     .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                                     .addChecks(Check.alwaysPass(String.class))
+		                                                                     .build())
+		                              .addOptionalMapParams(address)
+		                              .build();
+		Map<String, Object> previous = map("name", "blake", "address", map("city", "austin"));
+		ApiMapParam.Result previousResult = user.check(previous);
+		Map<String, Object> patch = Collections.unmodifiableMap(
+			map("name", " howell ", "address", Collections.unmodifiableMap(map("city", " dallas "))));
+		ApiMapParam.Result result = user.checkDelta(previous, previousResult, patch);
+		assertTrue(result.successful(), () -> result.error.toString());
+		assertEquals("howell", result.formattedValues.get("name"));
+		Map<String, Object> formatted = result.withFormattedValues(map("name", " howell ", "address", map("city", " dallas ")));
+		assertEquals("dallas", ((Map<?, ?>) formatted.get("address")).get("city"));
+	}
+
+	@Test
+	public void shouldCheckUnchangedOptionalParamsWithoutPreviousResultWhenContinuingOnOptionalFailure() throws Exception {
+		AtomicInteger nameChecks = new AtomicInteger();
+		ApiMapParam user = ApiMapParam.builder()
+		                              .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                     .addChecks(countingCheck(nameChecks))
+		                                                                     .build())
+		                              .addOptionalSingleParams(ApiSingleParam.builder("age", Integer.class)
+		                                                                     .addChecks(IntegerChecks.valueGreaterThan(0))
+		                                                                     .build())
+		                              .setContinueOnOptionalFailure(true)
+		                              .build();
+		Map<String, Object> previous = map("name", "blake", "age", -5);
+		ApiMapParam.Result previousResult = user.check(previous);
+		assertTrue(previousResult.successful());
+		assertEquals(new HashSet<>(Collections.singletonList("name")), previousResult.checkedKeyNames);
+		Map<String, Object> patch = map("email", "b@h.io");
+		// the invalid optional value is skipped again, rather than reported as checked
+		ApiMapParam.Result result = user.checkDelta(previous, patch);
+		assertTrue(result.successful());
+		assertEquals(new HashSet<>(Collections.singletonList("name")), result.checkedKeyNames);
+		assertEquals(previousResult.checkedKeyNames, user.checkDelta(previous, previousResult, patch).checkedKeyNames);
+		// the unchanged required parameter is still not checked again
+		nameChecks.set(0);
+		user.checkDelta(previous, map("age", 30));
+		assertEquals(0, nameChecks.get());
+		assertEquals(new HashSet<>(Arrays.asList("name", "age")), user.checkDelta(previous, map("age", 30)).checkedKeyNames);
+	}
+
+	@Test
+	public void shouldNotAllowFailedPreviousResult() throws Exception {
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("name", String.class).addChecks(Check.alwaysPass(String.class)).build())
+		                               .build();
+		ApiMapParam.Result failed = param.check(map());
+		assertThrows(IllegalArgumentException.class, () -> param.checkDelta(map(), failed, map("name", "blake")));
+		assertThrows(IllegalArgumentException.class, () -> param.checkDelta(null, map("name", "blake")));
+		assertThrows(IllegalArgumentException.class, () -> param.checkDelta(map(), null));
+	}
+
+}
@@ -0,0 +1,195 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import io.github.bhowell2.apilib.formatters.StringFormatters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam.Builder#setFormattedValueOverlay(boolean)}.
+ *
+ * @author Blake Howell
+ */
+public class ApiMapParamFormattedValueOverlayTests {
+
+	static final ApiSingleParam<Integer> QUANTITY =
+		ApiSingleParam.builder("quantity", Integer.class)
+		              .addFormatters(StringFormatters.STRING_TO_INTEGER_FORMATTER)
+		              .addChecks(IntegerChecks.valueGreaterThan(0))
+		              .build();
+
+	static final ApiSingleParam<String> NAME =
+		ApiSingleParam.builder("name", String.class)
+		              .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		              .addChecks(StringChecks.lengthGreaterThan(0))
+		              .build();
+
+	static ApiMapParam.Builder orderBuilder() {
+		return ApiMapParam.builder()
+		                  .addRequiredSingleParams(NAME)
+		                  .addOptionalSingleParams(ApiSingleParam.builder("note", String.class).addChecks(Check.alwaysPass(String.class)).build())
+		                  .addRequiredMapParams(ApiMapParam.builder("customer")
+		                                                   .addRequiredSingleParams(NAME)
+		                                                   .build())
+		                  .addRequiredCollectionParams(
+			                  ApiListParam.<Map<String, Object>, Map<String, Object>>builder("line_items")
+				                  .setIndexMapCheck(ApiMapParam.builder()
+				                                               .addRequiredSingleParams(QUANTITY)
+				                                               .build())
+				                  .build());
+	}
+
+	static final ApiMapParam ORDER = orderBuilder().build();
+	static final ApiMapParam ORDER_OVERLAY = orderBuilder().setFormattedValueOverlay(true).build();
+
+	static Map<String, Object> order() {
+		Map<String, Object> customer = new HashMap<>();
+		customer.put("name", " Bob ");
+		Map<String, Object> lineItem = new HashMap<>();
+		lineItem.put("quantity", "2");
+		Map<String, Object> order = new HashMap<>();
+		order.put("name", "  order ");
+		order.put("note", "unformatted");
+		order.put("customer", Collections.unmodifiableMap(customer));
+		order.put("line_items", Collections.singletonList(Collections.unmodifiableMap(lineItem)));
+		return Collections.unmodifiableMap(order);
+	}
+
+	@Test
+	public void shouldNotModifyCheckedMap() throws Exception {
+		Map<String, Object> order = order();
+		ApiMapParam.Result inPlaceResult = ORDER.check(order);
+		assertTrue(inPlaceResult.failed());
+		assertEquals(ApiErrorType.EXCEPTIONAL, inPlaceResult.error.errorType);
+
+		ApiMapParam.Result result = ORDER_OVERLAY.check(order);
+		assertTrue(result.successful());
+		assertEquals(order(), order);
+		assertEquals(Collections.singletonMap("name", "order"), result.formattedValues);
+		assertTrue(result.hasFormattedValues());
+		assertEquals(Collections.singletonMap("name", "Bob"), result.getMapResult("customer").formattedValues);
+		ApiMapParam.Result lineItemResult = result.getCollectionResult("line_items").mapResults.get(0);
+		assertEquals(Collections.singletonMap("quantity", 2), lineItemResult.formattedValues);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldProvideMapWithFormattedValues() throws Exception {
+		Map<String, Object> order = order();
+		ApiMapParam.Result result = ORDER_OVERLAY.check(order);
+		Map<String, Object> formatted = result.withFormattedValues(order);
+		assertEquals("order", formatted.get("name"));
+		assertEquals("unformatted", formatted.get("note"));
+		assertEquals("Bob", ((Map<String, Object>) formatted.get("customer")).get("name"));
+		assertEquals(order.size(), formatted.size());
+		assertEquals(order.keySet(), formatted.keySet());
+		assertThrows(UnsupportedOperationException.class, () -> formatted.put("name", "other"));
+
+		// same as the map after the values are put back into it
+		@SuppressWarnings("unchecked")
+		Map<String, Object> inPlaceOrder = (Map<String, Object>) ApiMapParamPlanTests.deepCopy(order);
+		assertTrue(ORDER.check(inPlaceOrder).successful());
+		assertEquals(inPlaceOrder.get("name"), formatted.get("name"));
+		assertEquals(inPlaceOrder.get("customer"), formatted.get("customer"));
+	}
+
+	@Test
+	public void shouldNotHaveFormattedValuesWithoutFormatting() throws Exception {
+		Map<String, Object> params = new HashMap<>();
+		params.put("note", "abc");
+		ApiMapParam mapParam = ApiMapParam.builder()
+		                                  .setFormattedValueOverlay(true)
+		                                  .addRequiredSingleParams(ApiSingleParam.builder("note", String.class).addChecks(Check.alwaysPass(String.class)).build())
+		                                  .build();
+		ApiMapParam.Result result = mapParam.check(params);
+		assertTrue(result.successful());
+		assertNull(result.formattedValues);
+		assertFalse(result.hasFormattedValues());
+	}
+
+	@Test
+	public void shouldProvideFormattedValuesToCustomParamsAndConditionalChecks() throws Exception {
+		List<Object> seenByCustom = new ArrayList<>();
+		List<Object> seenByConditional = new ArrayList<>();
+		ApiMapParam mapParam =
+			ApiMapParam.builder()
+			           .setFormattedValueOverlay(true)
+			           .addRequiredSingleParams(QUANTITY)
+			           .addRequiredCustomParams(params -> {
+				           seenByCustom.add(params.get("quantity"));
+				           return ApiCustomParam.Result.success();
+			           })
+			           .addConditionalChecks((params, result) -> {
+				           seenByConditional.add(params.get("quantity"));
+				           return params.get("quantity").equals(3)
+					           ? ApiMapParamConditionalCheck.Result.success()
+					           : ApiMapParamConditionalCheck.Result.failure(ApiParamError.conditional("Must be 3."));
+			           })
+			           .build();
+		Map<String, Object> params = Collections.singletonMap("quantity", "3");
+		assertTrue(mapParam.check(params).successful());
+		assertEquals(Collections.singletonList(3), seenByCustom);
+		assertEquals(Collections.singletonList(3), seenByConditional);
+		assertEquals("3", params.get("quantity"));
+	}
+
+	@Test
+	public void shouldReturnSameResultWithPlansAndContext() throws Exception {
+		Map<String, Object> order = order();
+		ApiMapParam.Result expected = ORDER_OVERLAY.check(order);
+		List<ApiMapParamPlan> plans = new ArrayList<>();
+		plans.add(ORDER_OVERLAY.compile());
+		plans.add(ApiMapParamPlan.generate(ORDER_OVERLAY, false));
+		for (ApiMapParamPlan plan : plans) {
+			ApiMapParamPlanTests.assertSameResult(expected, plan.check(order));
+		}
+		ValidationContext context = new ValidationContext();
+		for (int i = 0; i < 3; i++) {
+			ApiMapParamPlanTests.assertSameResult(expected, ORDER_OVERLAY.check(order, context));
+		}
+		assertEquals(order(), order);
+	}
+
+	@Test
+	public void shouldCheckSameMapConcurrently() throws Exception {
+		Map<String, Object> order = order();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					boolean allSuccessful = true;
+					for (int j = 0; j < 1000; j++) {
+						ApiMapParam.Result result = ORDER_OVERLAY.check(order);
+						allSuccessful &= result.successful() && "order".equals(result.formattedValues.get("name"));
+					}
+					return allSuccessful;
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(order(), order);
+		assertEquals(Arrays.asList("  order ", " Bob "),
+		             Arrays.asList(order.get("name"), ((Map<?, ?>) order.get("customer")).get("name")));
+	}
+
+}
@@ -0,0 +1,176 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import io.github.bhowell2.apilib.formatters.Formatter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the input limits of {@link ApiMapParam.Builder} (e.g.,
+ * {@link ApiMapParam.Builder#setMaxStringLength(int)}).
+ *
+ * @author Blake Howell
+ */
+public class ApiMapParamInputBudgetTests {
+
+	static Map<String, Object> comment(String text, List<Object> tags) {
+		Map<String, Object> comment = new HashMap<>();
+		comment.put("text", text);
+		comment.put("tags", tags);
+		return comment;
+	}
+
+	static Map<String, Object> post(Object... comments) {
+		Map<String, Object> post = new HashMap<>();
+		post.put("title", "Title");
+		post.put("comments", new ArrayList<>(Arrays.asList(comments)));
+		return post;
+	}
+
+	static ApiMapParam.Builder postBuilder(AtomicInteger checkCount) {
+		Check<String> countCheck = text -> {
+			checkCount.incrementAndGet();
+			return Check.Result.success();
+		};
+		Formatter<String, String> countFormatter = text -> {
+			checkCount.incrementAndGet();
+			return Formatter.Result.success(text);
+		};
+		ApiMapParam comment = ApiMapParam.builder()
+		                                 .addRequiredSingleParams(ApiSingleParam.builder("text", String.class)
+		                                                                        .addChecks(countCheck)
+		                                                                        .build())
+		                                 .build();
+		return ApiMapParam.builder()
+		                  .addRequiredSingleParams(ApiSingleParam.builder("title", String.class)
+		                                                         .addFormatters(countFormatter)
+		                                                         .addChecks(countCheck)
+		                                                         .build())
+		                  .addRequiredCollectionParams(
+			                  ApiListParam.<Map<String, Object>, Map<String, Object>>builder("comments")
+				                  .setIndexMapCheck(comment)
+				                  .build())
+		                  .setMaxKeyCount(4)
+		                  .setMaxDepth(4)
+		                  .setMaxCollectionElementCount(10)
+		                  .setMaxStringLength(20);
+	}
+
+	static void assertBudgetError(ApiMapParam mapParam, Map<String, Object> params, String errorMessage) {
+		ApiMapParam.Result result = mapParam.check(params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+		assertEquals(errorMessage, result.error.errorMessage);
+		ApiMapParamPlanTests.assertSameResult(result, mapParam.compile().check(params));
+	}
+
+	@Test
+	public void shouldFailBeforeAnyChecksRun() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiMapParam postParam = postBuilder(checkCount).build();
+		List<Object> tags = new ArrayList<>(Arrays.asList("a", "b"));
+		assertTrue(postParam.check(post(comment("First", tags), comment("Second", tags))).successful());
+		assertEquals(4, checkCount.get());
+
+		checkCount.set(0);
+		char[] longText = new char[2_000_000];
+		Arrays.fill(longText, 'a');
+		Map<String, Object> post = post(comment("First", tags), comment(new String(longText), tags));
+		assertBudgetError(postParam, post, "Exceeded maximum length of 20.");
+		assertEquals(0, checkCount.get());
+		ApiParamError error = postParam.check(post).error;
+		assertEquals("comments", error.keyName);
+		assertEquals(1, (int) error.index);
+		assertEquals("text", error.childParamError.keyName);
+		assertNull(error.childParamError.childParamError);
+
+		// ignored keys count too
+		post = post(comment("First", tags));
+		post.put("ignored", Collections.singletonList(new String(longText)));
+		assertBudgetError(postParam, post, "Exceeded maximum length of 20.");
+		error = postParam.check(post).error;
+		assertEquals("ignored", error.keyName);
+		assertEquals(0, (int) error.index);
+		assertNull(error.childParamError);
+		assertEquals(0, checkCount.get());
+	}
+
+	@Test
+	public void shouldLimitTotalCollectionElements() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiMapParam postParam = postBuilder(checkCount).build();
+		List<Object> tags = new ArrayList<>(Arrays.asList("a", "b", "c", "d"));
+		// 2 comments with 4 tags each
+		assertTrue(postParam.check(post(comment("First", tags), comment("Second", tags))).successful());
+
+		Map<String, Object> post = post(comment("First", tags), comment("Second", tags), comment("Third", tags));
+		assertBudgetError(postParam, post, "Exceeded maximum of 10 collection elements in total.");
+		ApiParamError error = postParam.check(post).error;
+		assertEquals("comments", error.keyName);
+		assertEquals(1, (int) error.index);
+		assertEquals("tags", error.childParamError.keyName);
+
+		// not walked at all
+		List<Object> manyTags = new ArrayList<>(Collections.nCopies(1_000_000, "tag"));
+		assertBudgetError(postParam, post(comment("First", manyTags)), "Exceeded maximum of 10 collection elements in total.");
+		Map<String, Object> arrayComment = comment("First", null);
+		arrayComment.put("tags", new Object[11]);
+		assertBudgetError(postParam, post(arrayComment), "Exceeded maximum of 10 collection elements in total.");
+	}
+
+	@Test
+	public void shouldLimitDepthAndKeyCount() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiMapParam postParam = postBuilder(checkCount).build();
+		// post (1) -> comments (2) -> comment (3) -> tags (4) -> nested (5)
+		List<Object> nestedTags = new ArrayList<>(Collections.singletonList(new ArrayList<>()));
+		Map<String, Object> post = post(comment("First", nestedTags));
+		assertBudgetError(postParam, post, "Exceeded maximum depth of 4.");
+		ApiParamError error = postParam.check(post).error;
+		assertEquals("comments", error.keyName);
+		assertEquals("tags", error.childParamError.keyName);
+		assertEquals(0, (int) error.childParamError.index);
+
+		post = post(comment("First", new ArrayList<>()));
+		post.put("a", 1);
+		post.put("b", 2);
+		assertTrue(postParam.check(post).successful());
+		post.put("c", 3);
+		assertBudgetError(postParam, post, "Exceeded maximum of 4 keys.");
+		assertNull(postParam.check(post).error.keyName);
+
+		// key name of a nested map is returned
+		ApiMapParam rootParam = ApiMapParam.builder()
+		                                   .addRequiredMapParams(ApiMapParam.builder("post", postParam).build())
+		                                   .build();
+		Map<String, Object> root = new HashMap<>();
+		root.put("post", post);
+		ApiMapParam.Result result = rootParam.check(root);
+		assertEquals("post", result.error.keyName);
+		assertEquals("Exceeded maximum of 4 keys.", result.error.errorMessage);
+
+		// limits are copied, but can be changed
+		ApiMapParam noLimits = ApiMapParam.builder(postParam).setMaxKeyCount(Integer.MAX_VALUE).build();
+		assertTrue(noLimits.check(post).successful());
+	}
+
+	@Test
+	public void shouldNotAllowInvalidLimits() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> ApiMapParam.builder().setMaxDepth(0));
+		assertThrows(IllegalArgumentException.class, () -> ApiMapParam.builder().setMaxKeyCount(-1));
+		assertThrows(IllegalArgumentException.class, () -> ApiMapParam.builder().setMaxCollectionElementCount(-1));
+		assertThrows(IllegalArgumentException.class, () -> ApiMapParam.builder().setMaxStringLength(-1));
+	}
+
+}
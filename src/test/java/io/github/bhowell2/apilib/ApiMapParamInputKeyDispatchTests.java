@@ -0,0 +1,189 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam.Builder#setInputKeyDispatch(boolean)} by checking that
+ * the results are the same as checking without input key dispatch.
+ *
+ * @author Blake Howell
+ */
+public class ApiMapParamInputKeyDispatchTests {
+
+	static ApiMapParam.Builder settingsBuilder() {
+		ApiMapParam.Builder builder =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(
+				           ApiSingleParam.builder("user_id", String.class)
+				                         .addChecks(StringChecks.lengthGreaterThan(0))
+				                         .build(),
+				           ApiSingleParam.builder("nullable", String.class)
+				                         .setCanBeNull(true)
+				                         .addChecks(StringChecks.lengthGreaterThan(0))
+				                         .build())
+			           .addOptionalMapParams(
+				           ApiMapParam.builder("nullable_map")
+				                      .setCanBeNull(true)
+				                      .addRequiredSingleParams(
+					                      ApiSingleParam.builder("a", Integer.class)
+					                                    .addChecks(IntegerChecks.valueGreaterThan(0))
+					                                    .build())
+				                      .build(),
+				           ApiMapParam.builder("map")
+				                      .addRequiredSingleParams(
+					                      ApiSingleParam.builder("a", Integer.class)
+					                                    .addChecks(IntegerChecks.valueGreaterThan(0))
+					                                    .build())
+				                      .build())
+			           .addOptionalCollectionParams(
+				           ApiListParam.<Map<String, Object>, Integer>builder("nullable_list")
+					           .setCanBeNull(true)
+					           .addIndexChecks(IntegerChecks.valueGreaterThan(0))
+					           .build());
+		for (int i = 0; i < 300; i++) {
+			builder.addOptionalSingleParams(ApiSingleParam.builder("flag" + i, Integer.class)
+			                                              .addChecks(IntegerChecks.valueLessThan(10))
+			                                              .build());
+		}
+		return builder;
+	}
+
+	static final ApiMapParam SETTINGS = settingsBuilder().build();
+	static final ApiMapParam SETTINGS_INPUT_DISPATCH = settingsBuilder().setInputKeyDispatch(true).build();
+
+	static ApiMapParam.Result checkBothAndCompare(ApiMapParam mapParam, Map<String, Object> params) {
+		ApiMapParam dispatchMapParam = ApiMapParam.builder(mapParam.keyName, mapParam)
+		                                          .setInputKeyDispatch(true)
+		                                          .build();
+		return ApiMapParamPlanTests.checkAllAndCompare(mapParam, params, Collections.singletonList(dispatchMapParam::check));
+	}
+
+	@Test
+	public void shouldCreateKeyIndex() throws Exception {
+		assertNull(SETTINGS.keyedParamIndex);
+		assertNotNull(SETTINGS_INPUT_DISPATCH.keyedParamIndex);
+		assertEquals(305, SETTINGS_INPUT_DISPATCH.keyedParamIndex.size());
+		assertEquals(2, SETTINGS_INPUT_DISPATCH.requiredKeyedParamCount);
+		for (int slot = 0; slot < SETTINGS_INPUT_DISPATCH.keyedParams.length; slot++) {
+			assertEquals(slot,
+			             SETTINGS_INPUT_DISPATCH.keyedParamIndex.indexOf(SETTINGS_INPUT_DISPATCH.keyedParams[slot].keyName));
+		}
+		assertTrue(ApiMapParam.builder(SETTINGS_INPUT_DISPATCH).build().inputKeyDispatch);
+	}
+
+	@Test
+	public void shouldReturnSameResultForSparseInput() throws Exception {
+		Map<String, Object> params = new HashMap<>();
+		params.put("user_id", "abc");
+		params.put("nullable", null);
+		params.put("flag3", 1);
+		params.put("flag250", 2);
+		params.put("unknown", "not a parameter");
+		Map<String, Object> map = new HashMap<>();
+		map.put("a", 5);
+		params.put("map", map);
+		ApiMapParam.Result result = checkBothAndCompare(SETTINGS, params);
+		assertTrue(result.successful());
+		assertTrue(result.containsParameter("flag3"));
+		assertTrue(result.containsParameter("flag250"));
+		assertTrue(result.containsParameter("nullable"));
+		assertTrue(result.containsParameter("map"));
+		// can be null, so are successful when not provided
+		assertTrue(result.containsParameter("nullable_map"));
+		assertTrue(result.containsParameter("nullable_list"));
+		assertFalse(result.containsParameter("flag4"));
+		assertFalse(result.containsParameter("unknown"));
+		assertEquals(7, result.checkedKeyNames.size());
+	}
+
+	@Test
+	public void shouldReturnSameResultForMissingRequired() throws Exception {
+		Map<String, Object> params = new HashMap<>();
+		params.put("flag3", 1);
+		ApiMapParam.Result result = checkBothAndCompare(SETTINGS, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.MISSING_PARAMETER, result.error.errorType);
+		params.put("user_id", "abc");
+		result = checkBothAndCompare(SETTINGS, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.MISSING_PARAMETER, result.error.errorType);
+		assertEquals("nullable", result.error.keyName);
+		params.put("nullable", "a");
+		assertTrue(checkBothAndCompare(SETTINGS, params).successful());
+	}
+
+	@Test
+	public void shouldReturnSameResultForOptionalFailures() throws Exception {
+		Map<String, Object> params = new HashMap<>();
+		params.put("user_id", "abc");
+		params.put("nullable", "a");
+		params.put("flag1", 100);
+		params.put("flag299", 1);
+		ApiMapParam.Result result = checkBothAndCompare(SETTINGS, params);
+		assertTrue(result.failed());
+		assertEquals("flag1", result.error.keyName);
+		params.put("flag2", "not an integer");
+		checkBothAndCompare(SETTINGS, params);
+
+		ApiMapParam continueOnFailure = ApiMapParam.builder(SETTINGS).setContinueOnOptionalFailure(true).build();
+		result = checkBothAndCompare(continueOnFailure, params);
+		assertTrue(result.successful());
+		assertFalse(result.containsParameter("flag1"));
+		assertFalse(result.containsParameter("flag2"));
+		assertTrue(result.containsParameter("flag299"));
+	}
+
+	@Test
+	public void shouldReturnSameResultForRandomInput() throws Exception {
+		List<String> keys = new ArrayList<>();
+		for (ApiParamBase<Map<String, Object>, ?> param : SETTINGS.keyedParams) {
+			keys.add(param.keyName);
+		}
+		keys.add("unknown");
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			Map<String, Object> params = new HashMap<>();
+			int count = random.nextInt(10);
+			for (int j = 0; j < count; j++) {
+				int value = random.nextInt(12);
+				params.put(keys.get(random.nextInt(keys.size())), value == 11 ? null : value);
+			}
+			if (random.nextBoolean()) {
+				params.put("user_id", "abc");
+				params.put("nullable", "a");
+			}
+			checkBothAndCompare(SETTINGS, params);
+		}
+	}
+
+	@Test
+	public void shouldFallBackForDuplicateKeyNames() throws Exception {
+		ApiMapParam duplicate =
+			ApiMapParam.builder()
+			           .setInputKeyDispatch(true)
+			           .addRequiredParams(ApiSingleParam.builder("a", Integer.class)
+			                                            .addChecks(IntegerChecks.valueLessThan(10))
+			                                            .build())
+			           .addOptionalParams(ApiSingleParam.builder("a", Integer.class)
+			                                            .addChecks(IntegerChecks.valueLessThan(5))
+			                                            .build())
+			           .build();
+		assertNull(duplicate.keyedParamIndex);
+		Map<String, Object> params = new HashMap<>();
+		params.put("a", 7);
+		assertTrue(duplicate.check(params).failed());
+	}
+
+}
@@ -0,0 +1,199 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam.Builder#setParallelCheck(ForkJoinPool, int)}.
+ *
+ * @author Blake Howell
+ */
+@SuppressWarnings("unchecked")
+public class ApiMapParamParallelCheckTests {
+
+	// worker threads are daemon threads, so the pool does not need to be shutdown
+	static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	static ApiMapParam.Builder catalogBuilder(Check<Integer> quantityCheck) {
+		ApiMapParam product = ApiMapParam.builder()
+		                                 .addRequiredSingleParams(
+			                                 ApiSingleParam.builder("quantity", Integer.class)
+			                                               .addChecks(quantityCheck)
+			                                               .build())
+		                                 .build();
+		ApiMapParam.Builder builder = ApiMapParam.builder()
+		                                         .addRequiredSingleParams(
+			                                         ApiSingleParam.builder("id", Integer.class)
+			                                                       .addChecks(IntegerChecks.valueGreaterThan(0))
+			                                                       .build());
+		for (String keyName : new String[]{"a", "b", "c", "d"}) {
+			builder.addRequiredCollectionParams(
+				ApiListParam.<Map<String, Object>, Map<String, Object>>builder(keyName)
+					.setIndexMapCheck(product)
+					.build());
+		}
+		return builder.addOptionalMapParams(ApiMapParam.builder("settings")
+		                                               .addOptionalSingleParams(
+			                                               ApiSingleParam.builder("limit", Integer.class)
+			                                                             .addChecks(IntegerChecks.valueGreaterThan(0))
+			                                                             .build())
+		                                               .build());
+	}
+
+	static Map<String, Object> catalog(int productsPerList) {
+		Map<String, Object> catalog = new HashMap<>();
+		catalog.put("id", 1);
+		for (String keyName : new String[]{"a", "b", "c", "d"}) {
+			List<Map<String, Object>> products = new ArrayList<>();
+			for (int i = 0; i < productsPerList; i++) {
+				Map<String, Object> product = new HashMap<>();
+				product.put("quantity", i + 1);
+				products.add(product);
+			}
+			catalog.put(keyName, products);
+		}
+		Map<String, Object> settings = new HashMap<>();
+		settings.put("limit", 10);
+		catalog.put("settings", settings);
+		return catalog;
+	}
+
+	// the key name of the list that is checked first
+	static String firstListKeyName(ApiMapParam mapParam) {
+		for (ApiParamBase<Map<String, Object>, ?> param : mapParam.keyedParams) {
+			if (param instanceof ApiCollectionParam) {
+				return param.keyName;
+			}
+		}
+		throw new IllegalStateException("No lists.");
+	}
+
+	@Test
+	public void shouldReturnSameResultAsSequentialCheck() throws Exception {
+		ApiMapParam sequential = catalogBuilder(IntegerChecks.valueGreaterThan(0)).build();
+		ApiMapParam parallel = catalogBuilder(IntegerChecks.valueGreaterThan(0)).setParallelCheck(POOL, 100).build();
+		Map<String, Object> catalog = catalog(1000);
+		ApiMapParam.Result result = parallel.check(catalog);
+		assertTrue(result.successful());
+		ApiMapParamPlanTests.assertSameResult(sequential.check(catalog), result);
+
+		// failing
+		((Map<String, Object>) ((List<?>) catalog.get("c")).get(500)).put("quantity", -1);
+		((Map<String, Object>) catalog.get("settings")).put("limit", 0);
+		ApiMapParam.Result failedResult = parallel.check(catalog);
+		assertTrue(failedResult.failed());
+		ApiMapParamPlanTests.assertSameResult(sequential.check(catalog), failedResult);
+		assertEquals("c", failedResult.error.keyName);
+		assertEquals(500, failedResult.error.index);
+	}
+
+	@Test
+	public void shouldOnlyCheckInParallelAboveThreshold() throws Exception {
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		Check<Integer> recordThread = quantity -> {
+			threads.add(Thread.currentThread());
+			return Check.Result.success();
+		};
+		ApiMapParam parallel = catalogBuilder(recordThread).setParallelCheck(POOL, 100).build();
+		assertTrue(parallel.check(catalog(10)).successful());
+		assertEquals(1, threads.size());
+		assertTrue(threads.contains(Thread.currentThread()));
+
+		threads.clear();
+		assertTrue(parallel.check(catalog(100)).successful());
+		assertFalse(threads.contains(Thread.currentThread()));
+
+		// never in parallel with a context
+		threads.clear();
+		assertTrue(parallel.check(catalog(100), new ValidationContext()).successful());
+		assertEquals(1, threads.size());
+		assertTrue(threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void shouldReturnFirstErrorInSequentialOrder() throws Exception {
+		/*
+		 * The list checked first (sequentially) only fails once the list checked after
+		 * it has failed, so the later failure is always known first.
+		 * */
+		CountDownLatch laterFailed = new CountDownLatch(1);
+		Check<Integer> failFirstLast = quantity -> {
+			try {
+				if (quantity == -1) {
+					// the first list's product
+					laterFailed.await(5, TimeUnit.SECONDS);
+				} else {
+					laterFailed.countDown();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return Check.Result.failure("Fails.");
+		};
+		ApiMapParam parallel = catalogBuilder(failFirstLast).setParallelCheck(POOL, 0).build();
+		String firstKeyName = firstListKeyName(parallel);
+		Map<String, Object> catalog = catalog(1);
+		((Map<String, Object>) ((List<?>) catalog.get(firstKeyName)).get(0)).put("quantity", -1);
+		for (int i = 0; i < 5; i++) {
+			ApiMapParam.Result result = parallel.check(catalog);
+			assertTrue(result.failed());
+			assertEquals(firstKeyName, result.error.keyName);
+			assertEquals(0, laterFailed.getCount());
+		}
+	}
+
+	@Test
+	public void shouldNotRunTasksAfterFailure() throws Exception {
+		ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+		try {
+			AtomicInteger checkCount = new AtomicInteger();
+			Check<Integer> countCheck = quantity -> {
+				checkCount.incrementAndGet();
+				return Check.Result.success();
+			};
+			ApiMapParam parallel = catalogBuilder(countCheck).setParallelCheck(singleThreadPool, 0).build();
+			String firstKeyName = firstListKeyName(parallel);
+			Map<String, Object> catalog = catalog(10);
+			catalog.put(firstKeyName, "not a list");
+			ApiMapParam.Result result = parallel.check(catalog);
+			assertTrue(result.failed());
+			assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+			assertEquals(firstKeyName, result.error.keyName);
+			// the remaining lists are queued behind the first and skipped once it failed
+			assertEquals(0, checkCount.get());
+		} finally {
+			singleThreadPool.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldSkipFailedOptionalParams() throws Exception {
+		ApiMapParam parallel = catalogBuilder(IntegerChecks.valueGreaterThan(0))
+			.setContinueOnOptionalFailure(true)
+			.setParallelCheck(POOL, 0)
+			.build();
+		Map<String, Object> catalog = catalog(10);
+		((Map<String, Object>) catalog.get("settings")).put("limit", 0);
+		ApiMapParam.Result result = parallel.check(catalog);
+		assertTrue(result.successful());
+		assertFalse(result.containsParameter("settings"));
+		assertTrue(result.containsParameter("a"));
+		assertTrue(result.containsParameter("id"));
+	}
+
+}
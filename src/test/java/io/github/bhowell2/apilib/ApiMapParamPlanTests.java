@@ -0,0 +1,473 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import io.github.bhowell2.apilib.formatters.StringFormatters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ensures that {@link ApiMapParamPlan} returns the same results as {@link ApiMapParam#check(Map)}.
+ * @author Blake Howell
+ */
+public class ApiMapParamPlanTests {
+
+	/*
+	 * Order intake example. Has nested maps, a list of maps, a custom param, formatters and a
+	 * conditional check.
+	 * */
+	static final ApiSingleParam<String> NAME =
+		ApiSingleParam.builder("name", String.class)
+		              .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		              .addChecks(StringChecks.lengthGreaterThan(1), StringChecks.lengthLessThan(50))
+		              .build();
+
+	static final ApiSingleParam<Integer> QUANTITY =
+		ApiSingleParam.builder("quantity", Integer.class)
+		              .addChecks(IntegerChecks.valueGreaterThan(0), IntegerChecks.valueLessThan(100))
+		              .build();
+
+	static final ApiSingleParam<String> SKU =
+		ApiSingleParam.builder("sku", String.class)
+		              .addFormatters(StringFormatters.TO_UPPERCASE)
+		              .addChecks(StringChecks.lengthEqualTo(6))
+		              .build();
+
+	static final ApiSingleParam<String> NOTE =
+		ApiSingleParam.builder("note", String.class)
+		              .addChecks(StringChecks.lengthLessThan(10))
+		              .setCanBeNull(true)
+		              .build();
+
+	static final ApiMapParam LINE_ITEM =
+		ApiMapParam.builder()
+		           .addRequiredSingleParams(SKU, QUANTITY)
+		           .addOptionalSingleParams(NOTE)
+		           .build();
+
+	static final ApiListParam<Map<String, Object>, Map<String, Object>> LINE_ITEMS =
+		ApiListParam.<Map<String, Object>, Map<String, Object>>builder("line_items")
+			.setIndexMapCheck(LINE_ITEM)
+			.build();
+
+	static final ApiMapParam CUSTOMER =
+		ApiMapParam.builder("customer")
+		           .addRequiredSingleParams(NAME)
+		           .addOptionalMapParams(ApiMapParam.builder("address")
+		                                            .addRequiredSingleParams(ApiMapParamTests.ShippingAddress.LINE1,
+		                                                                     ApiMapParamTests.ShippingAddress.ZIP)
+		                                            .build())
+		           .build();
+
+	static final ApiCustomParam COUPON_OR_GIFT_CARD =
+		params -> {
+			if (params.containsKey("coupon") && params.containsKey("gift_card")) {
+				return ApiCustomParam.Result.failure(ApiParamError.invalid("coupon", "Cannot use both."));
+			}
+			return params.containsKey("coupon")
+				? ApiCustomParam.Result.successWithCustomResult("coupon", "custom")
+				: ApiCustomParam.Result.success();
+		};
+
+	static final ApiMapParamConditionalCheck REQUIRE_NOTE_FOR_LARGE_ORDERS =
+		(params, result) -> {
+			ApiListParam.Result lineItems = (ApiListParam.Result) result.getCollectionResult("line_items");
+			if (lineItems != null && lineItems.mapResults.size() > 2 && !result.containsParameter("gift_message")) {
+				return ApiMapParamConditionalCheck.Result.failure("gift_message", null, "Required for large orders.");
+			}
+			return ApiMapParamConditionalCheck.Result.success();
+		};
+
+	static final ApiMapParam ORDER =
+		ApiMapParam.builder()
+		           .addRequiredMapParams(CUSTOMER)
+		           .addRequiredCollectionParams(LINE_ITEMS)
+		           .addOptionalSingleParams(ApiSingleParam.builder("gift_message", String.class)
+		                                                  .addChecks(StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE)
+		                                                  .build())
+		           .addOptionalCustomParams(COUPON_OR_GIFT_CARD)
+		           .addConditionalChecks(REQUIRE_NOTE_FOR_LARGE_ORDERS)
+		           .build();
+
+	static Map<String, Object> lineItem(String sku, Object quantity) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("sku", sku);
+		map.put("quantity", quantity);
+		return map;
+	}
+
+	static Map<String, Object> order(int lineItemCount) {
+		Map<String, Object> customer = new HashMap<>();
+		customer.put("name", "  bob  ");
+		Map<String, Object> address = new HashMap<>();
+		address.put(ApiMapParamTests.ShippingAddress.BodyParamNames.LINE1, "123 street");
+		address.put(ApiMapParamTests.ShippingAddress.BodyParamNames.ZIP, "38117");
+		customer.put("address", address);
+		List<Map<String, Object>> lineItems = new ArrayList<>();
+		for (int i = 0; i < lineItemCount; i++) {
+			lineItems.add(lineItem("abc12" + i, i + 1));
+		}
+		Map<String, Object> order = new HashMap<>();
+		order.put("customer", customer);
+		order.put("line_items", lineItems);
+		return order;
+	}
+
+	/*
+	 * Deep copies the maps/lists so that the formatters of one check do not affect the other.
+	 * */
+	@SuppressWarnings("unchecked")
+	static Object deepCopy(Object value) {
+		if (value instanceof Map) {
+			Map<String, Object> copy = new HashMap<>();
+			((Map<String, Object>) value).forEach((k, v) -> copy.put(k, deepCopy(v)));
+			return copy;
+		} else if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			((List<Object>) value).forEach(v -> copy.add(deepCopy(v)));
+			return copy;
+		}
+		return value;
+	}
+
+	static void assertSameError(ApiParamError expected, ApiParamError actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.keyName, actual.keyName);
+		assertEquals(expected.displayName, actual.displayName);
+		assertEquals(expected.errorType, actual.errorType);
+		assertEquals(expected.errorMessage, actual.errorMessage);
+		assertEquals(expected.index, actual.index);
+		assertSameError(expected.childParamError, actual.childParamError);
+	}
+
+	static void assertSameResult(ApiMapParam.Result expected, ApiMapParam.Result actual) {
+		assertEquals(expected.successful(), actual.successful());
+		assertSameError(expected.error, actual.error);
+		assertEquals(expected.keyName, actual.keyName);
+		assertEquals(expected.checkedKeyNames, actual.checkedKeyNames);
+		assertEquals(expected.customValues, actual.customValues);
+		assertEquals(expected.formattedValues, actual.formattedValues);
+		assertEquals(expected.hasCheckedMapResults(), actual.hasCheckedMapResults());
+		if (expected.hasCheckedMapResults()) {
+			assertEquals(expected.checkedMapResults.keySet(), actual.checkedMapResults.keySet());
+			for (String key : expected.checkedMapResults.keySet()) {
+				assertSameResult(expected.getMapResult(key), actual.getMapResult(key));
+			}
+		}
+		assertEquals(expected.hasCheckedCollectionResults(), actual.hasCheckedCollectionResults());
+		if (expected.hasCheckedCollectionResults()) {
+			assertEquals(expected.checkedCollectionResults.keySet(), actual.checkedCollectionResults.keySet());
+			for (String key : expected.checkedCollectionResults.keySet()) {
+				ApiCollectionParam.Result expectedCollection = expected.getCollectionResult(key);
+				ApiCollectionParam.Result actualCollection = actual.getCollectionResult(key);
+				assertEquals(expectedCollection.hasMapResults(), actualCollection.hasMapResults());
+				if (expectedCollection.hasMapResults()) {
+					assertEquals(expectedCollection.mapResults.size(), actualCollection.mapResults.size());
+					for (int i = 0; i < expectedCollection.mapResults.size(); i++) {
+						assertSameResult(expectedCollection.mapResults.get(i), actualCollection.mapResults.get(i));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks a copy of the params with the map param, its plan and its plan with a
+	 * generated class (both hidden and class loader defined) and asserts that the
+	 * results and the (possibly formatted) params are the same.
+	 * @return the plan's result
+	 */
+	static ApiMapParam.Result checkBothAndCompare(ApiMapParam mapParam, Map<String, Object> params) {
+		List<Function<Map<String, Object>, ApiMapParam.Result>> plans = new ArrayList<>();
+		plans.add(mapParam.compile()::check);
+		plans.add(ApiMapParamPlan.generate(mapParam, false)::check);
+		if (isJava15OrLater()) {
+			plans.add(ApiMapParamPlan.generate(mapParam, true)::check);
+		}
+		return checkAllAndCompare(mapParam, params, plans);
+	}
+
+	/**
+	 * Checks a copy of the params with the map param and with each of the other ways of
+	 * checking it (e.g., its plan) and asserts that the results and the (possibly
+	 * formatted) params are the same.
+	 * @return the result of the first of the other ways
+	 */
+	@SuppressWarnings("unchecked")
+	static ApiMapParam.Result checkAllAndCompare(ApiMapParam mapParam,
+	                                             Map<String, Object> params,
+	                                             List<Function<Map<String, Object>, ApiMapParam.Result>> others) {
+		Map<String, Object> checkParams = (Map<String, Object>) deepCopy(params);
+		ApiMapParam.Result expected = mapParam.check(checkParams);
+		ApiMapParam.Result actual = null;
+		for (Function<Map<String, Object>, ApiMapParam.Result> other : others) {
+			Map<String, Object> otherParams = (Map<String, Object>) deepCopy(params);
+			ApiMapParam.Result otherResult = other.apply(otherParams);
+			assertSameResult(expected, otherResult);
+			assertEquals(checkParams, otherParams);
+			if (actual == null) {
+				actual = otherResult;
+			}
+		}
+		return actual;
+	}
+
+	static boolean isJava15OrLater() {
+		try {
+			Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	@Test
+	public void shouldCompileAllMaps() throws Exception {
+		ApiMapParamPlan plan = ORDER.compile();
+		// order, customer, address and line item
+		assertEquals(4, plan.getBlockCount());
+		// order: 1 map, 1 collection, 1 single, 1 custom, 1 conditional
+		// customer: 1 single, 1 map. address: 2 singles. line item: 3 singles
+		assertEquals(12, plan.getInstructionCount());
+	}
+
+	@Test
+	public void shouldReturnSameSuccessfulResult() throws Exception {
+		Map<String, Object> params = order(2);
+		ApiMapParam.Result result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.successful());
+		assertTrue(result.containsParameter("customer"));
+		assertTrue(result.containsParameter("line_items"));
+		assertEquals(1, result.getMapResult("customer").checkedMapResults.size());
+
+		// formatted values should be put back into the map
+		Map<String, Object> planParams = order(2);
+		assertTrue(ORDER.compile().check(planParams).successful());
+		assertEquals("bob", ((Map<?, ?>) planParams.get("customer")).get("name"));
+
+		params.put("coupon", "10OFF");
+		params.put("gift_message", "hello");
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.successful());
+		assertEquals("custom", result.getCustomValue("coupon"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldReturnSameFailedResult() throws Exception {
+		// missing required nested map
+		Map<String, Object> params = order(1);
+		params.remove("customer");
+		ApiMapParam.Result result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.MISSING_PARAMETER, result.error.errorType);
+
+		// failing check in a map in the collection
+		params = order(2);
+		((List<Map<String, Object>>) params.get("line_items")).get(1).put("quantity", 0);
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+		assertEquals(1, result.error.index);
+
+		// wrong type
+		params = order(1);
+		((List<Map<String, Object>>) params.get("line_items")).get(0).put("quantity", "not an int");
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.childParamError.errorType);
+
+		// nested map of the wrong type
+		params = order(1);
+		params.put("customer", "not a map");
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+
+		// null for a param that cannot be null
+		params = order(1);
+		((Map<String, Object>) params.get("customer")).put("name", null);
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+
+		// failing optional param (does not continue on optional failure)
+		params = order(1);
+		params.put("gift_message", "   ");
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+
+		// failing custom param
+		params = order(1);
+		params.put("coupon", "10OFF");
+		params.put("gift_card", "1234");
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+
+		// failing conditional check
+		params = order(3);
+		result = checkBothAndCompare(ORDER, params);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.CONDITIONAL_ERROR, result.error.errorType);
+	}
+
+	@Test
+	public void shouldReturnSameResultForOptionalFailures() throws Exception {
+		ApiMapParam continueOnFailure =
+			ApiMapParam.builder()
+			           .setContinueOnOptionalFailure(true)
+			           .addRequiredSingleParams(QUANTITY)
+			           .addOptionalSingleParams(NOTE, SKU)
+			           .addOptionalMapParams(CUSTOMER)
+			           .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put("quantity", 5);
+		params.put("note", "this note is too long");
+		params.put("sku", "abc");
+		params.put("customer", new HashMap<>());
+		ApiMapParam.Result result = checkBothAndCompare(continueOnFailure, params);
+		assertTrue(result.successful());
+		assertEquals(1, result.checkedKeyNames.size());
+
+		params.put("note", null);
+		result = checkBothAndCompare(continueOnFailure, params);
+		assertTrue(result.successful());
+		assertEquals(2, result.checkedKeyNames.size());
+	}
+
+	@Test
+	public void shouldReturnSameResultForExampleApi() throws Exception {
+		Map<String, Object> params = new HashMap<>();
+		params.put(ApiMapParamTests.PostAccountInfo.BodyParamNames.USERNAME, "user1");
+		params.put(ApiMapParamTests.PostAccountInfo.BodyParamNames.PASSWORD, "password11");
+		params.put(ApiMapParamTests.PostAccountInfo.BodyParamNames.E_BILLING, true);
+		// fails conditional check, because email is not provided
+		assertTrue(checkBothAndCompare(ApiMapParamTests.PostAccountInfo.BODY_MAP_PARAM, params).failed());
+
+		params.put(ApiMapParamTests.PostAccountInfo.BodyParamNames.EMAIL, "avalidemail@gmail.com");
+		params.put(ApiMapParamTests.PostAccountInfo.BodyParamNames.SHIPPING_ADDRESSES,
+		           Arrays.asList(ApiMapParamTests.generateShippingAddress("line1", "memphis", "tn", "38117"),
+		                         ApiMapParamTests.generateShippingAddress("line1", "memphis", "tn", "38117")));
+		ApiMapParam.Result result = checkBothAndCompare(ApiMapParamTests.PostAccountInfo.BODY_MAP_PARAM, params);
+		assertTrue(result.successful());
+		assertEquals(5, result.checkedKeyNames.size());
+	}
+
+	@Test
+	public void shouldReturnSameResultForNestedCollections() throws Exception {
+		ApiListParam<List<Map<String, Object>>, Map<String, Object>> inner =
+			ApiListParam.<List<Map<String, Object>>, Map<String, Object>>unnamedBuilder()
+				.setIndexMapCheck(LINE_ITEM)
+				.build();
+		ApiListParam<Map<String, Object>, List<Map<String, Object>>> outer =
+			ApiListParam.<Map<String, Object>, List<Map<String, Object>>>builder("nested")
+				.setInnerCollectionParam(inner)
+				.build();
+		ApiMapParam mapParam = ApiMapParam.builder()
+		                                  .addRequiredCollectionParams(outer)
+		                                  .addOptionalSingleParams(ApiSingleParam.builder("any", String.class)
+		                                                                         .addChecks(Check.alwaysPass(String.class))
+		                                                                         .build())
+		                                  .build();
+		assertEquals(2, mapParam.compile().getBlockCount());
+
+		List<List<Map<String, Object>>> nested = new ArrayList<>();
+		nested.add(Arrays.asList(lineItem("abc123", 1), lineItem("abc124", 2)));
+		nested.add(Arrays.asList(lineItem("abc125", 3)));
+		Map<String, Object> params = new HashMap<>();
+		params.put("nested", nested);
+		assertTrue(checkBothAndCompare(mapParam, params).successful());
+
+		nested.add(Arrays.asList(lineItem("abc126", 4), lineItem("abc", 5)));
+		ApiMapParam.Result result = checkBothAndCompare(mapParam, params);
+		assertTrue(result.failed());
+		assertEquals(2, result.error.index);
+		assertEquals(1, result.error.childParamError.index);
+	}
+
+	@Test
+	public void shouldGenerateClass() throws Exception {
+		assertFalse(ORDER.compile().hasGeneratedClass());
+		assertTrue(ORDER.generate().hasGeneratedClass());
+		assertTrue(ApiMapParamPlan.generate(ORDER, false).hasGeneratedClass());
+	}
+
+	@Test
+	public void shouldReturnSameResultForInlinedLibraryChecks() throws Exception {
+		ApiMapParam mapParam =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(
+				           ApiSingleParam.builder("int", Integer.class)
+				                         .addChecks(IntegerChecks.valueGreaterThanOrEqualTo(-10),
+				                                    IntegerChecks.valueLessThanOrEqualTo(100000),
+				                                    IntegerChecks.valueIsEven())
+				                         .build(),
+				           ApiSingleParam.builder("code_points", String.class)
+				                         .addChecks(StringChecks.codePointCountEqualTo(2))
+				                         .build(),
+				           ApiSingleParam.builder("formatted", Integer.class)
+				                         .addFormatters(StringFormatters.STRING_TO_INTEGER_FORMATTER)
+				                         .addChecks(IntegerChecks.valueEqualTo(5))
+				                         .setInvalidErrorMessage("Must be 5.")
+				                         .build())
+			           .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put("int", 100000);
+		params.put("code_points", "\uD83E\uDD13a");
+		params.put("formatted", "5");
+		ApiMapParam.Result result = checkBothAndCompare(mapParam, params);
+		assertTrue(result.successful());
+
+		params.put("int", -12);
+		assertEquals("Must be greater than or equal to -10.", checkBothAndCompare(mapParam, params).error.errorMessage);
+		params.put("int", 100001);
+		assertTrue(checkBothAndCompare(mapParam, params).failed());
+		params.put("int", 11);
+		assertTrue(checkBothAndCompare(mapParam, params).failed());
+		params.put("int", 10L);
+		assertEquals(ApiErrorType.CASTING_ERROR, checkBothAndCompare(mapParam, params).error.errorType);
+
+		params.put("int", 10);
+		params.put("code_points", "ab!");
+		assertTrue(checkBothAndCompare(mapParam, params).failed());
+
+		params.put("code_points", "ab");
+		params.put("formatted", "6");
+		assertEquals("Must be 5.", checkBothAndCompare(mapParam, params).error.errorMessage);
+		params.put("formatted", "not an integer");
+		assertEquals(ApiErrorType.FORMAT_ERROR, checkBothAndCompare(mapParam, params).error.errorType);
+	}
+
+	@Test
+	public void shouldReturnSameResultForLargeMap() throws Exception {
+		// more instructions than are dispatched by one generated method
+		ApiMapParam.Builder builder = ApiMapParam.builder();
+		Map<String, Object> params = new HashMap<>();
+		for (int i = 0; i < 600; i++) {
+			builder.addOptionalSingleParams(ApiSingleParam.builder("p" + i, Integer.class)
+			                                              .addChecks(IntegerChecks.valueLessThan(i))
+			                                              .build());
+			params.put("p" + i, i - 1);
+		}
+		ApiMapParam mapParam = builder.addRequiredMapParams(CUSTOMER).build();
+		params.put("customer", order(0).get("customer"));
+		assertTrue(checkBothAndCompare(mapParam, params).successful());
+		params.put("p555", 555);
+		assertTrue(checkBothAndCompare(mapParam, params).failed());
+	}
+
+}
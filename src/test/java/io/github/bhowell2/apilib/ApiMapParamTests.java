@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -603,4 +604,83 @@ public class ApiMapParamTests {
 		assertFalse(innerCheckResult.hasCheckedCollectionResults());
 	}
 
+	@Test
+	public void shouldShareKeyNamesForSameCheckedParams() throws Exception {
+		ApiMapParam mapParam =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(ShippingAddress.LINE1)
+			           .addOptionalSingleParams(ShippingAddress.LINE2, ShippingAddress.LINE3)
+			           .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put(ShippingAddress.BodyParamNames.LINE1, "123 Main St");
+		params.put(ShippingAddress.BodyParamNames.LINE2, "Apt 1");
+		ApiMapParam.Result result1 = mapParam.check(params);
+		ApiMapParam.Result result2 = mapParam.check(params);
+		assertTrue(result1.successful());
+		assertNotSame(result1, result2);
+		assertSame(result1.checkedKeyNames, result2.checkedKeyNames);
+		assertEquals(new HashSet<>(Arrays.asList(ShippingAddress.BodyParamNames.LINE1,
+		                                         ShippingAddress.BodyParamNames.LINE2)),
+		             result1.checkedKeyNames);
+		assertTrue(result1.containsParameter(ShippingAddress.BodyParamNames.LINE2));
+		assertFalse(result1.containsParameter(ShippingAddress.BodyParamNames.LINE3));
+		assertFalse(result1.containsParameter("unknown"));
+		assertEquals(2, result1.getCheckedParamsAsList().size());
+		assertThrows(UnsupportedOperationException.class, () -> result1.checkedKeyNames.add("line3"));
+
+		params.put(ShippingAddress.BodyParamNames.LINE3, "Floor 2");
+		ApiMapParam.Result result3 = mapParam.check(params);
+		assertNotSame(result1.checkedKeyNames, result3.checkedKeyNames);
+		assertEquals(3, result3.checkedKeyNames.size());
+		assertTrue(result3.containsParameter(ShippingAddress.BodyParamNames.LINE3));
+	}
+
+	@Test
+	public void shouldReturnNestedResultsByKeyName() throws Exception {
+		ApiMapParam innerMapParam = ApiMapParam.builder("inner")
+		                                       .addRequiredSingleParams(ShippingAddress.LINE1)
+		                                       .build();
+		ApiMapParam parentMapParam = ApiMapParam.builder()
+		                                        .addRequiredSingleParams(ShippingAddress.CITY)
+		                                        .addOptionalMapParams(innerMapParam,
+		                                                              ApiMapParam.builder("other", innerMapParam)
+		                                                                         .build())
+		                                        .build();
+		Map<String, Object> inner = new HashMap<>();
+		inner.put(ShippingAddress.BodyParamNames.LINE1, "123 Main St");
+		Map<String, Object> params = new HashMap<>();
+		params.put(ShippingAddress.BodyParamNames.CITY, "Memphis");
+		params.put("inner", inner);
+		ApiMapParam.Result checkResult = parentMapParam.check(params);
+		assertTrue(checkResult.successful());
+		assertEquals(1, checkResult.checkedMapResults.size());
+		assertTrue(checkResult.checkedMapResults.containsKey("inner"));
+		assertFalse(checkResult.checkedMapResults.containsKey("other"));
+		assertFalse(checkResult.checkedMapResults.containsKey(ShippingAddress.BodyParamNames.CITY));
+		assertNull(checkResult.getMapResult("other"));
+		assertEquals("inner", checkResult.checkedMapResults.keySet().iterator().next());
+		assertTrue(checkResult.getMapResult("inner").containsParameter(ShippingAddress.BodyParamNames.LINE1));
+		assertFalse(checkResult.hasCheckedCollectionResults());
+	}
+
+	@Test
+	public void shouldMergeCustomParamKeyNames() throws Exception {
+		ApiMapParam mapParam =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(ShippingAddress.LINE1)
+			           .addRequiredCustomParams(params -> ApiCustomParam.Result.success("custom1", "custom2"))
+			           .addOptionalSingleParams(ShippingAddress.LINE2)
+			           .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put(ShippingAddress.BodyParamNames.LINE1, "123 Main St");
+		params.put(ShippingAddress.BodyParamNames.LINE2, "Apt 1");
+		ApiMapParam.Result checkResult = mapParam.check(params);
+		assertTrue(checkResult.successful());
+		assertEquals(new HashSet<>(Arrays.asList(ShippingAddress.BodyParamNames.LINE1,
+		                                         ShippingAddress.BodyParamNames.LINE2,
+		                                         "custom1",
+		                                         "custom2")),
+		             checkResult.checkedKeyNames);
+	}
+
 }
@@ -358,4 +358,53 @@ public class ApiSingleParamTests {
 		assertTrue(resultDiffType.successful());
 	}
 
+
+	@Test
+	public void shouldFailWithCastingErrorForWrongType() throws Exception {
+		String key = "key1";
+		// the check would throw a ClassCastException if the type was not checked first
+		ApiSingleParam<String> param = ApiSingleParam.builder(key, String.class)
+		                                             .addChecks(StringChecks.lengthGreaterThan(1))
+		                                             .build();
+		Map<String, Object> map = new HashMap<>();
+		map.put(key, 123);
+		ApiSingleParam.Result result = param.check(map);
+		assertTrue(result.failed());
+		assertEquals(key, result.error.keyName);
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+		assertNull(result.error.exception);
+
+		// primitive classes are checked as their wrapper
+		ApiSingleParam<Integer> intParam = ApiSingleParam.builder(key, int.class)
+		                                                 .addChecks(Check.alwaysPass(Integer.class))
+		                                                 .build();
+		assertTrue(intParam.check(map).successful());
+		map.put(key, "123");
+		assertEquals(ApiErrorType.CASTING_ERROR, intParam.check(map).error.errorType);
+	}
+
+	@Test
+	public void shouldCheckTypeAfterFormatting() throws Exception {
+		String key = "key1";
+		ApiSingleParam<Integer> param = ApiSingleParam.builder(key, Integer.class)
+		                                              .addFormatters((String s) -> Formatter.Result.success(Integer.parseInt(s)))
+		                                              .addChecks(Check.alwaysPass(Integer.class))
+		                                              .build();
+		Map<String, Object> map = new HashMap<>();
+		map.put(key, "123");
+		assertTrue(param.check(map).successful());
+		assertEquals(123, map.get(key));
+
+		ApiSingleParam<Integer> wrongFormatterParam =
+			ApiSingleParam.builder(key, Integer.class)
+			              .addFormatters((String s) -> Formatter.Result.success(s.trim()))
+			              .addChecks(Check.alwaysPass(Integer.class))
+			              .build();
+		map.put(key, " 123 ");
+		ApiSingleParam.Result result = wrongFormatterParam.check(map);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.CASTING_ERROR, result.error.errorType);
+		assertEquals(" 123 ", map.get(key));
+	}
+
 }
@@ -0,0 +1,211 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link AsyncApiCustomParam} and {@link ApiMapParam#checkAsync(Map)}.
+ *
+ * @author Blake Howell
+ */
+public class AsyncApiCustomParamTests {
+
+	/**
+	 * Stand-in for a database, which completes each query after a delay.
+	 */
+	static class InMemoryDatabase {
+
+		// daemon threads, so the executor does not need to be shutdown
+		static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(4, r -> {
+			Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		final Set<String> usernames = Collections.synchronizedSet(new HashSet<>(Arrays.asList("taken")));
+		final Set<Integer> accountIds = Collections.synchronizedSet(new HashSet<>(Arrays.asList(1, 2, 3)));
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final AtomicInteger queryCount = new AtomicInteger();
+
+		<T> CompletableFuture<T> query(long latencyMillis, T result) {
+			this.queryCount.incrementAndGet();
+			this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+			CompletableFuture<T> future = new CompletableFuture<>();
+			EXECUTOR.schedule(() -> {
+				this.running.decrementAndGet();
+				future.complete(result);
+			}, latencyMillis, TimeUnit.MILLISECONDS);
+			return future;
+		}
+
+		AsyncApiCustomParam uniqueUsername(long latencyMillis) {
+			return params -> query(latencyMillis, this.usernames.contains(params.get("username")))
+				.thenApply(taken -> taken
+					? ApiCustomParam.Result.failure(ApiParamError.invalid("username", null, "Username is taken."))
+					: ApiCustomParam.Result.successWithCustomResult("usernameAvailable", true));
+		}
+
+		AsyncApiCustomParam accountExists(long latencyMillis) {
+			return params -> query(latencyMillis, this.accountIds.contains(params.get("account_id")))
+				.thenApply(exists -> exists
+					? ApiCustomParam.Result.success("account_id")
+					: ApiCustomParam.Result.failure(ApiParamError.invalid("account_id", null, "Account does not exist.")));
+		}
+	}
+
+	static final ApiSingleParam<String> USERNAME =
+		ApiSingleParam.builder("username", String.class)
+		              .addChecks(StringChecks.lengthGreaterThan(2))
+		              .build();
+
+	static Map<String, Object> signup(String username, int accountId) {
+		Map<String, Object> params = new HashMap<>();
+		params.put("username", username);
+		params.put("account_id", accountId);
+		return params;
+	}
+
+	@Test
+	public void shouldRunAsyncParamsConcurrentlyAfterSyncChecks() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		ApiMapParam signup = ApiMapParam.builder()
+		                                .addRequiredSingleParams(USERNAME)
+		                                .addRequiredAsyncCustomParams(database.uniqueUsername(300),
+		                                                              database.accountExists(300))
+		                                .build();
+		long start = System.nanoTime();
+		ApiMapParam.Result result = signup.checkAsync(signup("bobby", 2)).get(5, TimeUnit.SECONDS);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(result.successful());
+		assertTrue(result.containsParameter("username"));
+		assertTrue(result.containsParameter("account_id"));
+		assertEquals(true, result.getCustomValue("usernameAvailable"));
+		assertEquals(2, database.maxRunning.get());
+		assertTrue(elapsedMillis < 550, "Async params should have run concurrently, took " + elapsedMillis + "ms.");
+
+		// sync check fails, so the async params are never started
+		database.queryCount.set(0);
+		result = signup.checkAsync(signup("b", 2)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals("username", result.error.keyName);
+		assertEquals(0, database.queryCount.get());
+
+		// blocking check returns the same
+		result = signup.check(signup("taken", 2));
+		assertTrue(result.failed());
+		assertEquals("Username is taken.", result.error.errorMessage);
+	}
+
+	@Test
+	public void shouldReturnFirstFailureRegardlessOfCompletionOrder() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		// the first async param fails last
+		ApiMapParam signup = ApiMapParam.builder()
+		                                .addRequiredAsyncCustomParams(database.uniqueUsername(150),
+		                                                              database.accountExists(10))
+		                                .build();
+		ApiMapParam.Result result = signup.checkAsync(signup("taken", 99)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals("username", result.error.keyName);
+
+		result = signup.checkAsync(signup("available", 99)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals("account_id", result.error.keyName);
+	}
+
+	@Test
+	public void shouldNotStartAsyncParamsAfterFailure() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		ApiMapParam signup = ApiMapParam.builder()
+		                                .addRequiredAsyncCustomParams(database.uniqueUsername(10),
+		                                                              database.accountExists(10),
+		                                                              database.accountExists(10))
+		                                .setAsyncConcurrencyLimit(1)
+		                                .build();
+		ApiMapParam.Result result = signup.checkAsync(signup("taken", 1)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals(1, database.queryCount.get());
+	}
+
+	@Test
+	public void shouldLimitConcurrencyAcrossChecks() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		ApiMapParam signup = ApiMapParam.builder()
+		                                .addRequiredAsyncCustomParams(database.uniqueUsername(20),
+		                                                              database.accountExists(20))
+		                                .setAsyncConcurrencyLimit(3)
+		                                .build();
+		List<CompletableFuture<ApiMapParam.Result>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(signup.checkAsync(signup("user" + i, 1 + i % 3)));
+		}
+		for (CompletableFuture<ApiMapParam.Result> future : futures) {
+			assertTrue(future.get(5, TimeUnit.SECONDS).successful());
+		}
+		assertEquals(20, database.queryCount.get());
+		assertEquals(3, database.maxRunning.get());
+	}
+
+	@Test
+	public void shouldHandleOptionalAndExceptionalAsyncParams() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		ApiMapParam signup = ApiMapParam.builder()
+		                                .addRequiredAsyncCustomParams(database.accountExists(10))
+		                                .addOptionalAsyncCustomParams(params -> CompletableFuture.completedFuture(
+			                                ApiCustomParam.Result.failure(ApiParamError.missing("referrer", null))))
+		                                .build();
+		ApiMapParam.Result result = signup.checkAsync(signup("bobby", 1)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.successful());
+		assertTrue(result.containsParameter("account_id"));
+
+		CompletableFuture<ApiCustomParam.Result> failedFuture = new CompletableFuture<>();
+		failedFuture.completeExceptionally(new IllegalStateException("Connection lost."));
+		ApiMapParam exceptional = ApiMapParam.builder()
+		                                     .addRequiredAsyncCustomParams(params -> failedFuture)
+		                                     .build();
+		result = exceptional.checkAsync(signup("bobby", 1)).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.EXCEPTIONAL, result.error.errorType);
+		assertTrue(result.error.exception instanceof IllegalStateException);
+	}
+
+	@Test
+	public void shouldBlockOnNestedMapAsyncParams() throws Exception {
+		InMemoryDatabase database = new InMemoryDatabase();
+		ApiMapParam root = ApiMapParam.builder()
+		                              .addRequiredMapParams(ApiMapParam.builder("signup")
+		                                                               .addRequiredAsyncCustomParams(database.accountExists(10))
+		                                                               .build())
+		                              .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put("signup", signup("bobby", 5));
+		ApiMapParam.Result result = root.checkAsync(params).get(5, TimeUnit.SECONDS);
+		assertTrue(result.failed());
+		assertEquals("signup", result.error.keyName);
+		assertEquals("account_id", result.error.childParamError.keyName);
+
+		params.put("signup", signup("bobby", 3));
+		assertTrue(root.check(params).getMapResult("signup").containsParameter("account_id"));
+		assertTrue(root.compile().check(params).getMapResult("signup").containsParameter("account_id"));
+	}
+
+}
@@ -0,0 +1,198 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.errors.ApiParamError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link BatchingCheck}.
+ *
+ * @author Blake Howell
+ */
+public class BatchingCheckTests {
+
+	static final Set<Integer> USER_IDS = new HashSet<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+	/**
+	 * Records the keys of each batch and returns true for the existing user ids.
+	 */
+	static class UserLookup implements Function<Set<Integer>, Map<Integer, Boolean>> {
+
+		final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public Map<Integer, Boolean> apply(Set<Integer> ids) {
+			this.batches.add(new ArrayList<>(ids));
+			Map<Integer, Boolean> existing = new HashMap<>();
+			for (Integer id : ids) {
+				if (USER_IDS.contains(id)) {
+					existing.put(id, true);
+				}
+			}
+			return existing;
+		}
+	}
+
+	@Test
+	public void shouldResolveKeysOfWindowInOneBatch() throws Exception {
+		UserLookup lookup = new UserLookup();
+		BatchingCheck<Integer, Boolean> userExists = BatchingCheck.builder(lookup)
+		                                                          .setBatchWindow(100, TimeUnit.MILLISECONDS)
+		                                                          .build();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(userExists.load(i % 20));
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals(i % 20 >= 1 && i % 20 <= 10 ? true : null, futures.get(i).get(5, TimeUnit.SECONDS));
+		}
+		// duplicates are only looked up once
+		assertEquals(1, lookup.batches.size());
+		assertEquals(20, lookup.batches.get(0).size());
+		assertEquals(0, (int) lookup.batches.get(0).get(0));
+		assertEquals(100, userExists.getRequestCount());
+		assertEquals(1, userExists.getBatchCount());
+		assertEquals(20, userExists.getBatchedKeyCount());
+
+		// keys of a resolved batch are not cached
+		assertTrue(userExists.get(1));
+		assertEquals(2, lookup.batches.size());
+	}
+
+	@Test
+	public void shouldDispatchBatchAtMaxBatchSize() throws Exception {
+		UserLookup lookup = new UserLookup();
+		BatchingCheck<Integer, Boolean> userExists = BatchingCheck.builder(lookup)
+		                                                          .setBatchWindow(200, TimeUnit.MILLISECONDS)
+		                                                          .setMaxBatchSize(5)
+		                                                          .build();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		for (int i = 1; i <= 12; i++) {
+			futures.add(userExists.load(i));
+		}
+		// the full batches are resolved before the window has elapsed
+		futures.get(9).get(100, TimeUnit.MILLISECONDS);
+		assertFalse(futures.get(11).isDone());
+		assertNull(futures.get(11).get(5, TimeUnit.SECONDS));
+		// the full batches run concurrently, so may be looked up in either order
+		assertEquals(3, lookup.batches.size());
+		assertTrue(lookup.batches.contains(Arrays.asList(1, 2, 3, 4, 5)));
+		assertTrue(lookup.batches.contains(Arrays.asList(6, 7, 8, 9, 10)));
+		assertEquals(Arrays.asList(11, 12), lookup.batches.get(2));
+	}
+
+	@Test
+	public void shouldBatchConcurrentMapChecks() throws Exception {
+		UserLookup lookup = new UserLookup();
+		BatchingCheck<Integer, Boolean> userExists = BatchingCheck.builder(lookup)
+		                                                          .setBatchWindow(50, TimeUnit.MILLISECONDS)
+		                                                          .build();
+		ApiMapParam transfer =
+			ApiMapParam.builder()
+			           .addRequiredSingleParams(
+				           ApiSingleParam.builder("from", Integer.class)
+				                         .addChecks(userExists.toCheck(exists -> exists != null
+					                         ? Check.Result.success()
+					                         : Check.Result.failure("User does not exist.")))
+				                         .build())
+			           .addRequiredCustomParams(params -> userExists.get((Integer) params.get("to")) != null
+				           ? ApiCustomParam.Result.success("to")
+				           : ApiCustomParam.Result.failure(ApiParamError.invalid("to", null, "User does not exist.")))
+			           .build();
+		int checkCount = 40;
+		ExecutorService executor = Executors.newFixedThreadPool(checkCount);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<ApiMapParam.Result>> results = new ArrayList<>();
+			for (int i = 0; i < checkCount; i++) {
+				Map<String, Object> params = new HashMap<>();
+				params.put("from", 1 + i % 10);
+				params.put("to", i == checkCount - 1 ? 99 : 1 + (i + 1) % 10);
+				results.add(executor.submit(() -> {
+					start.await();
+					return transfer.check(params);
+				}));
+			}
+			start.countDown();
+			for (int i = 0; i < checkCount; i++) {
+				ApiMapParam.Result result = results.get(i).get(5, TimeUnit.SECONDS);
+				if (i == checkCount - 1) {
+					assertTrue(result.failed());
+					assertEquals("to", result.error.keyName);
+				} else {
+					assertTrue(result.successful());
+					assertTrue(result.containsParameter("to"));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(2 * checkCount, userExists.getRequestCount());
+		assertTrue(userExists.getBatchCount() < 10, "Expected few batches, was " + userExists.getBatchCount());
+	}
+
+	@Test
+	public void shouldFailAllCallersOfFailedBatch() throws Exception {
+		BatchingCheck<Integer, Boolean> userExists =
+			BatchingCheck.<Integer, Boolean>builder(ids -> {
+				throw new IllegalStateException("Connection lost.");
+			}).build();
+		CompletableFuture<Boolean> first = userExists.load(1);
+		CompletableFuture<Boolean> second = userExists.load(2);
+		assertThrows(IllegalStateException.class, () -> userExists.get(3));
+		assertTrue(first.isCompletedExceptionally());
+		assertTrue(second.isCompletedExceptionally());
+
+		ApiMapParam mapParam = ApiMapParam.builder()
+		                                  .addRequiredCustomParams(params -> userExists.get(1)
+			                                  ? ApiCustomParam.Result.success()
+			                                  : ApiCustomParam.Result.failure(ApiParamError.invalid("id", null, null)))
+		                                  .build();
+		ApiMapParam.Result result = mapParam.check(new HashMap<>());
+		assertEquals(ApiErrorType.EXCEPTIONAL, result.error.errorType);
+		assertTrue(result.error.exception instanceof IllegalStateException);
+	}
+
+	@Test
+	public void shouldResolveAsyncBatchFunction() throws Exception {
+		BatchingCheck<String, Integer> lengths =
+			BatchingCheck.<String, Integer>asyncBuilder(keys -> {
+				Map<String, Integer> values = new HashMap<>();
+				for (String key : keys) {
+					values.put(key, key.length());
+				}
+				return CompletableFuture.completedFuture(values);
+			}).setBatchWindow(0, TimeUnit.MILLISECONDS).build();
+		assertEquals(5, (int) lengths.load("hello").get(5, TimeUnit.SECONDS));
+		assertEquals(2, (int) lengths.get("hi"));
+	}
+
+	@Test
+	public void shouldNotAllowInvalidSettings() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> BatchingCheck.builder(null));
+		assertThrows(IllegalArgumentException.class, () -> BatchingCheck.builder(new UserLookup()).setMaxBatchSize(0));
+		assertThrows(IllegalArgumentException.class,
+		             () -> BatchingCheck.builder(new UserLookup()).setBatchWindow(-1, TimeUnit.MILLISECONDS));
+		assertThrows(IllegalArgumentException.class, () -> BatchingCheck.builder(new UserLookup()).build().load(null));
+	}
+
+}
@@ -0,0 +1,187 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static io.github.bhowell2.apilib.TestParamsBase.map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ApiMapParam#checkWithDeadline(Map, Deadline)}.
+ *
+ * @author Blake Howell
+ */
+public class DeadlineTests {
+
+	static String repeat(char c, int count) {
+		return String.join("", Collections.nCopies(count, String.valueOf(c)));
+	}
+
+	@Test
+	public void shouldTimeOutExpiredDeadline() throws Exception {
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addOptionalSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                      .addChecks(StringChecks.IS_STRING)
+		                                                                      .build())
+		                               .setContinueOnOptionalFailure(true)
+		                               .build();
+		Deadline expired = Deadline.after(0, TimeUnit.NANOSECONDS);
+		assertTrue(expired.isExpired());
+		assertEquals(0, expired.remainingNanos());
+		ApiMapParam.Result result = param.checkWithDeadline(map("name", "blake"), expired);
+		assertTrue(result.failed());
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+		// not bound after the check
+		assertNull(Deadline.current());
+		assertTrue(param.checkWithDeadline(map("name", "blake"), Deadline.after(1, TimeUnit.MINUTES)).successful());
+		assertTrue(param.checkWithDeadline(map("name", "blake"), null).successful());
+	}
+
+	@Test
+	public void shouldStopBacktrackingRegex() throws Exception {
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                      .addChecks(StringChecks.matchesRegex(Pattern.compile("(.*a){20}b")))
+		                                                                      .build())
+		                               .build();
+		long start = System.nanoTime();
+		ApiMapParam.Result result = param.checkWithDeadline(map("name", repeat('a', 64)), Deadline.after(50, TimeUnit.MILLISECONDS));
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+		assertEquals("name", result.error.keyName);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+	}
+
+	@Test
+	public void shouldStopCheckingCollection() throws Exception {
+		AtomicInteger checkedCount = new AtomicInteger();
+		ApiListParam<Map<String, Object>, Integer> points =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks((index, point) -> {
+				            checkedCount.incrementAndGet();
+				            try {
+					            Thread.sleep(1);
+				            } catch (InterruptedException e) {
+					            throw new RuntimeException(e);
+				            }
+				            return Check.Result.success();
+			            })
+			            .build();
+		List<Object> values = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			values.add(i);
+		}
+		ApiMapParam param = ApiMapParam.builder().addRequiredCollectionParams(points).build();
+		ApiMapParam.Result result = param.checkWithDeadline(map("points", values), Deadline.after(50, TimeUnit.MILLISECONDS));
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+		assertEquals("points", result.error.keyName);
+		assertTrue(checkedCount.get() < 10_000);
+
+		// checked in parallel
+		ApiListParam<Map<String, Object>, Integer> parallelPoints =
+			ApiListParam.mapInputBuilder("points", Integer.class)
+			            .addIndexChecks((index, point) -> {
+				            try {
+					            Thread.sleep(1);
+				            } catch (InterruptedException e) {
+					            throw new RuntimeException(e);
+				            }
+				            return Check.Result.success();
+			            })
+			            .setParallelIndexCheck(ForkJoinPool.commonPool(), 256)
+			            .build();
+		ApiMapParam parallelParam = ApiMapParam.builder().addRequiredCollectionParams(parallelPoints).build();
+		long start = System.nanoTime();
+		result = parallelParam.checkWithDeadline(map("points", values), Deadline.after(50, TimeUnit.MILLISECONDS));
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+	}
+
+	@Test
+	public void shouldPassRemainingTimeToCustomParams() throws Exception {
+		AtomicReference<Deadline> customDeadline = new AtomicReference<>(), asyncDeadline = new AtomicReference<>();
+		CompletableFuture<ApiCustomParam.Result> neverCompleted = new CompletableFuture<>();
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredCustomParams(params -> {
+			                               customDeadline.set(Deadline.current());
+			                               return ApiCustomParam.Result.success();
+		                               })
+		                               .addRequiredAsyncCustomParams(new AsyncApiCustomParam() {
+			                               @Override
+			                               public CompletableFuture<ApiCustomParam.Result> checkAsync(Map<String, Object> params) {
+				                               return neverCompleted;
+			                               }
+
+			                               @Override
+			                               public CompletableFuture<ApiCustomParam.Result> checkAsync(Map<String, Object> params,
+			                                                                                          Deadline deadline) {
+				                               asyncDeadline.set(deadline);
+				                               return neverCompleted;
+			                               }
+		                               })
+		                               .build();
+		Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS);
+		ApiMapParam.Result result = param.checkWithDeadline(map(), deadline);
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+		assertSame(deadline, customDeadline.get());
+		assertSame(deadline, asyncDeadline.get());
+		// the map stopped waiting for it
+		assertTrue(neverCompleted.isCancelled());
+	}
+
+	@Test
+	public void shouldKeepEarlierDeadlineOfNestedChecks() throws Exception {
+		AtomicReference<Deadline> innerDeadline = new AtomicReference<>();
+		ApiMapParam inner = ApiMapParam.builder()
+		                               .addRequiredCustomParams(params -> {
+			                               innerDeadline.set(Deadline.current());
+			                               return ApiCustomParam.Result.success();
+		                               })
+		                               .build();
+		Deadline earlier = Deadline.after(1, TimeUnit.MINUTES);
+		ApiMapParam outer = ApiMapParam.builder()
+		                               .addRequiredCustomParams(params -> {
+			                               ApiMapParam.Result result = inner.checkWithDeadline(params, Deadline.after(1, TimeUnit.HOURS));
+			                               return result.successful() ? ApiCustomParam.Result.success() : ApiCustomParam.Result.failure(result.error);
+		                               })
+		                               .build();
+		assertTrue(outer.checkWithDeadline(map(), earlier).successful());
+		assertSame(earlier, innerDeadline.get());
+		assertNull(Deadline.current());
+	}
+
+	@Test
+	public void shouldNotCacheTimeouts() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ValidationCache cache = ValidationCache.builder().build();
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                                      .addChecks(name -> {
+			                                                                      checkCount.incrementAndGet();
+			                                                                      return Check.Result.success();
+		                                                                      })
+		                                                                      .build())
+		                               .setFormattedValueOverlay(true)
+		                               .setValidationCache(cache)
+		                               .build();
+		assertEquals(ApiErrorType.TIMEOUT,
+		             param.checkWithDeadline(map("name", "blake"), Deadline.after(0, TimeUnit.NANOSECONDS)).error.errorType);
+		assertEquals(0, cache.size());
+		assertTrue(param.checkWithDeadline(map("name", "blake"), Deadline.after(1, TimeUnit.MINUTES)).successful());
+		assertEquals(1, checkCount.get());
+		assertEquals(1, cache.size());
+	}
+
+}
@@ -1,10 +1,14 @@
 package io.github.bhowell2.apilib;
 
+import io.github.bhowell2.apilib.checks.Check;
 import io.github.bhowell2.apilib.checks.StringChecks;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests can extend this (or use the static fields) to obtain pre-set parameters for their tests.
@@ -58,6 +62,52 @@ public abstract class TestParamsBase {
 
 	public static final String CUSTOM_PARAM_NAME_USERNAME_OR_EMAIL = "username_or_email";
 
+	/* COLLECTION PARAMS */
+
+	/**
+	 * @param count the number of points
+	 * @return params with the list of points 1 to count (inclusive) at "points"
+	 */
+	public static Map<String, Object> points(int count) {
+		List<Object> points = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			points.add(i + 1);
+		}
+		Map<String, Object> params = new HashMap<>();
+		params.put("points", points);
+		return params;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static List<Object> pointList(Map<String, Object> params) {
+		return (List<Object>) params.get("points");
+	}
+
+	/* HELPERS */
+
+	/**
+	 * @param checkCount incremented each time the check is run
+	 * @return a check that always passes
+	 */
+	public static <T> Check<T> countingCheck(AtomicInteger checkCount) {
+		return value -> {
+			checkCount.incrementAndGet();
+			return Check.Result.success();
+		};
+	}
+
+	/**
+	 * @param keysAndValues alternating keys (strings) and values
+	 * @return a mutable map of the keys and values
+	 */
+	public static Map<String, Object> map(Object... keysAndValues) {
+		Map<String, Object> map = new HashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
 	/* MAP PARAMS */
 
 	// reset for each test
@@ -0,0 +1,279 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.Check;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import io.github.bhowell2.apilib.formatters.StringFormatters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.bhowell2.apilib.TestParamsBase.countingCheck;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ValidationCache}.
+ *
+ * @author Blake Howell
+ */
+public class ValidationCacheTests {
+
+	static ApiMapParam.Builder userBuilder(Check<String> nameCheck) {
+		return ApiMapParam.builder()
+		                  .addRequiredSingleParams(ApiSingleParam.builder("name", String.class)
+		                                                         .addFormatters(StringFormatters.TRIM_LEADING_AND_TRAILING_WHITESPACE)
+		                                                         .addChecks(nameCheck, StringChecks.lengthGreaterThan(2))
+		                                                         .build())
+		                  .addOptionalCollectionParams(ApiListParam.<Map<String, Object>, String>builder("tags")
+		                                                           .addIndexChecks(Check.alwaysPass(String.class))
+		                                                           .build())
+		                  .setFormattedValueOverlay(true);
+	}
+
+	static Map<String, Object> user(String name, String... tags) {
+		Map<String, Object> user = new HashMap<>();
+		user.put("name", name);
+		user.put("tags", new ArrayList<>(Arrays.asList(tags)));
+		return user;
+	}
+
+	// counts how many times the map's entries are iterated (i.e., the map is walked)
+	static final class CountingMap extends HashMap<String, Object> {
+
+		final AtomicInteger walkCount = new AtomicInteger();
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			this.walkCount.incrementAndGet();
+			return super.entrySet();
+		}
+
+	}
+
+	@Test
+	public void shouldCheckInputBudgetOnceOnMiss() throws Exception {
+		ApiMapParam userParam = userBuilder(Check.alwaysPass(String.class))
+			.setMaxDepth(3)
+			.setValidationCache(ValidationCache.builder().build())
+			.build();
+		ApiMapParam uncached = userBuilder(Check.alwaysPass(String.class)).setMaxDepth(3).build();
+		Map<String, Object> user = user("blake");
+		CountingMap meta = new CountingMap();
+		meta.put("source", "signup");
+		user.put("meta", meta);
+		assertTrue(uncached.check(user).successful());
+		// only walked by the budget
+		assertEquals(1, meta.walkCount.get());
+		meta.walkCount.set(0);
+		assertTrue(userParam.check(user).successful());
+		// walked by the budget once and by the cache to hash and copy the payload
+		assertEquals(3, meta.walkCount.get());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldReturnCachedResultsForIdenticalPayloads() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ValidationCache cache = ValidationCache.builder().build();
+		ApiMapParam userParam = userBuilder(countingCheck(checkCount)).setValidationCache(cache).build();
+
+		ApiMapParam.Result result = userParam.check(user(" blake ", "a", "b"));
+		assertTrue(result.successful());
+		assertEquals("blake", result.formattedValues.get("name"));
+		// a different (but equal) map
+		assertSame(result, userParam.check(user(" blake ", "a", "b")));
+		assertEquals(1, checkCount.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// tag order matters
+		assertNotSame(result, userParam.check(user(" blake ", "b", "a")));
+		// an array is not a list
+		Map<String, Object> arrayTags = user(" blake ");
+		arrayTags.put("tags", new Object[]{"a", "b"});
+		userParam.check(arrayTags);
+		assertEquals(3, checkCount.get());
+
+		// modifying the checked payload does not modify the cached payload
+		Map<String, Object> user = user("modified");
+		assertTrue(userParam.check(user).successful());
+		((List<Object>) user.get("tags")).add(1);
+		assertTrue(userParam.check(user).failed());
+		assertTrue(userParam.check(user("modified")).successful());
+		assertEquals(5, checkCount.get());
+	}
+
+	@Test
+	public void shouldCompareLivePayloadWithCachedCopy() throws Exception {
+		ApiMapParam mapParam = ApiMapParam.builder().build();
+		Map<String, Object> payload = new HashMap<>();
+		payload.put("tags", new ArrayList<>(Arrays.asList("a", "b")));
+		payload.put("ids", new Object[]{1, new LinkedList<>(Arrays.asList(2, 3))});
+		payload.put("roles", new HashSet<>(Arrays.asList("admin", "user")));
+		payload.put("empty", null);
+		ValidationCache.PayloadKey live = new ValidationCache.PayloadKey(mapParam, payload);
+		ValidationCache.PayloadKey copy = live.copy();
+		assertNotSame(payload, copy.payload);
+		assertEquals(live.hashCode(), copy.hashCode());
+		assertEquals(live, copy);
+		assertEquals(copy, live);
+		assertEquals(copy, copy.copy());
+		assertEquals(13, live.weight);
+
+		Map<String, Object> different = new HashMap<>(payload);
+		different.put("ids", new Object[]{1, Arrays.asList(2, 4)});
+		assertNotEquals(new ValidationCache.PayloadKey(mapParam, different), copy);
+		different.put("ids", Arrays.asList(1, Arrays.asList(2, 3)));
+		assertNotEquals(new ValidationCache.PayloadKey(mapParam, different), copy);
+		different.remove("empty");
+		different.put("other", null);
+		assertNotEquals(new ValidationCache.PayloadKey(mapParam, different), copy);
+	}
+
+	@Test
+	public void shouldNotCacheHeavyPayloads() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ValidationCache cache = ValidationCache.builder().setMaximumPayloadWeight(4).build();
+		ApiMapParam userParam = userBuilder(countingCheck(checkCount)).setValidationCache(cache).build();
+		// the map, name, tags and one tag
+		userParam.check(user("blake", "a"));
+		userParam.check(user("blake", "a"));
+		assertEquals(1, checkCount.get());
+		userParam.check(user("blake", "a", "b"));
+		userParam.check(user("blake", "a", "b"));
+		assertEquals(3, checkCount.get());
+		assertEquals(1, cache.size());
+		assertThrows(IllegalArgumentException.class, () -> ValidationCache.builder().setMaximumPayloadWeight(0));
+	}
+
+	@Test
+	public void shouldCacheFailures() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ValidationCache cache = ValidationCache.builder().build();
+		ApiMapParam userParam = userBuilder(countingCheck(checkCount)).setValidationCache(cache).build();
+		for (int i = 0; i < 10; i++) {
+			ApiMapParam.Result result = userParam.check(user("ab"));
+			assertTrue(result.failed());
+			assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+			assertEquals("name", result.error.keyName);
+		}
+		assertEquals(1, checkCount.get());
+
+		ApiMapParam noFailures = userBuilder(countingCheck(checkCount))
+			.setValidationCache(ValidationCache.builder().setCacheFailures(false).build())
+			.build();
+		checkCount.set(0);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(noFailures.check(user("ab")).failed());
+		}
+		assertEquals(10, checkCount.get());
+	}
+
+	@Test
+	public void shouldExpireAndEvictResults() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		ApiMapParam expiring = userBuilder(countingCheck(checkCount))
+			.setValidationCache(ValidationCache.builder().setExpireAfterWrite(1, TimeUnit.NANOSECONDS).build())
+			.build();
+		expiring.check(user("blake"));
+		Thread.sleep(1);
+		expiring.check(user("blake"));
+		assertEquals(2, checkCount.get());
+
+		ValidationCache cache = ValidationCache.builder().setMaximumSize(10).build();
+		ApiMapParam bounded = userBuilder(countingCheck(checkCount)).setValidationCache(cache).build();
+		for (int i = 0; i < 100; i++) {
+			bounded.check(user("name" + i));
+		}
+		assertTrue(cache.size() <= 10);
+		assertEquals(90, cache.getEvictionCount());
+	}
+
+	@Test
+	public void shouldCheckConcurrentIdenticalPayloadsOnce() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		CountDownLatch checking = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ValidationCache cache = ValidationCache.builder().build();
+		ApiMapParam userParam = userBuilder(name -> {
+			checkCount.incrementAndGet();
+			checking.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return Check.Result.success();
+		}).setValidationCache(cache).build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<ApiMapParam.Result> first = executor.submit(() -> userParam.check(user("blake")));
+			checking.await();
+			List<Future<ApiMapParam.Result>> waiting = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				waiting.add(executor.submit(() -> userParam.check(user("blake"))));
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (cache.getCoalescedCount() < 3 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+			ApiMapParam.Result result = first.get();
+			for (Future<ApiMapParam.Result> future : waiting) {
+				assertSame(result, future.get());
+			}
+			assertEquals(1, checkCount.get());
+			assertEquals(3, cache.getCoalescedCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldRequireFormattedValueOverlay() throws Exception {
+		ValidationCache cache = ValidationCache.builder().build();
+		assertThrows(IllegalArgumentException.class,
+		             () -> userBuilder(Check.alwaysPass(String.class))
+			             .setFormattedValueOverlay(false)
+			             .setValidationCache(cache)
+			             .build());
+		assertThrows(IllegalArgumentException.class, () -> ValidationCache.builder().setMaximumSize(0));
+		assertThrows(IllegalArgumentException.class,
+		             () -> ValidationCache.builder().setExpireAfterWrite(-1, TimeUnit.SECONDS));
+		// copied
+		ApiMapParam userParam = userBuilder(Check.alwaysPass(String.class)).setValidationCache(cache).build();
+		ApiMapParam copy = ApiMapParam.builder(userParam).build();
+		copy.check(user("blake"));
+		copy.check(user("blake"));
+		assertEquals(1, cache.getHitCount());
+		// cached by map
+		userParam.check(user("blake"));
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void shouldReturnSameResultForNullParamsAsWithoutCache() throws Exception {
+		ApiMapParam keyed = ApiMapParam.builder("user", userBuilder(Check.alwaysPass(String.class)).build()).build();
+		ApiMapParam cached = ApiMapParam.builder("user", keyed)
+		                                .setValidationCache(ValidationCache.builder().build())
+		                                .build();
+		assertEquals(ApiErrorType.EXCEPTIONAL, keyed.check(null).error.errorType);
+		assertEquals(ApiErrorType.EXCEPTIONAL, cached.check(null).error.errorType);
+		assertEquals(keyed.check(new HashMap<>()).error.errorType, cached.check(new HashMap<>()).error.errorType);
+	}
+
+}
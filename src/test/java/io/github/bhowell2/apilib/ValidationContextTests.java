@@ -0,0 +1,168 @@
+package io.github.bhowell2.apilib;
+
+import io.github.bhowell2.apilib.checks.IntegerChecks;
+import io.github.bhowell2.apilib.checks.StringChecks;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests checking with a {@link ValidationContext}.
+ *
+ * @author Blake Howell
+ */
+public class ValidationContextTests {
+
+	static final ApiMapParam ADDRESS =
+		ApiMapParam.builder("address")
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("line1", String.class)
+			                         .addChecks(StringChecks.lengthGreaterThan(0), StringChecks.lengthLessThan(100))
+			                         .build(),
+			           ApiSingleParam.builder("zip", String.class)
+			                         .addChecks(StringChecks.lengthEqualTo(5))
+			                         .build())
+		           .addOptionalSingleParams(
+			           ApiSingleParam.builder("line2", String.class)
+			                         .addChecks(StringChecks.lengthLessThan(100))
+			                         .build())
+		           .build();
+
+	static final ApiMapParam LINE_ITEM =
+		ApiMapParam.builder()
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("sku", String.class)
+			                         .addChecks(StringChecks.lengthEqualTo(6))
+			                         .build(),
+			           ApiSingleParam.builder("quantity", Integer.class)
+			                         .addChecks(IntegerChecks.valueGreaterThan(0), IntegerChecks.valueLessThan(1000))
+			                         .build())
+		           .build();
+
+	static final ApiMapParam ORDER =
+		ApiMapParam.builder()
+		           .addRequiredSingleParams(
+			           ApiSingleParam.builder("name", String.class)
+			                         .addChecks(StringChecks.lengthGreaterThan(1))
+			                         .build())
+		           .addRequiredMapParams(ADDRESS)
+		           .addOptionalMapParams(ApiMapParam.builder("billing_address", ADDRESS)
+		                                            .setCanBeNull(true)
+		                                            .build())
+		           .addRequiredCollectionParams(
+			           ApiListParam.<Map<String, Object>, Map<String, Object>>builder("line_items")
+				           .setIndexMapCheck(LINE_ITEM)
+				           .build())
+		           .addOptionalCollectionParams(
+			           ApiListParam.<Map<String, Object>, Integer>builder("tags")
+				           .addIndexChecks(IntegerChecks.valueGreaterThan(0))
+				           .build())
+		           .build();
+
+	static Map<String, Object> order(int lineItemCount) {
+		Map<String, Object> address = new HashMap<>();
+		address.put("line1", "123 Main Street");
+		address.put("zip", "38117");
+		List<Map<String, Object>> lineItems = new ArrayList<>();
+		for (int i = 0; i < lineItemCount; i++) {
+			Map<String, Object> lineItem = new HashMap<>();
+			lineItem.put("sku", "ABC" + (100 + i));
+			lineItem.put("quantity", 1 + i);
+			lineItems.add(lineItem);
+		}
+		Map<String, Object> order = new HashMap<>();
+		order.put("name", "Bob Smith");
+		order.put("address", address);
+		order.put("line_items", lineItems);
+		order.put("tags", Arrays.asList(1, 2, 3));
+		return order;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shouldReturnSameResultAsCheck() throws Exception {
+		ValidationContext context = new ValidationContext();
+		for (int lineItemCount : new int[]{0, 1, 5, 2}) {
+			Map<String, Object> params = order(lineItemCount);
+			ApiMapParamPlanTests.assertSameResult(ORDER.check(params), ORDER.check(params, context));
+		}
+		Map<String, Object> params = order(3);
+		params.put("billing_address", null);
+		ApiMapParam.Result result = ORDER.check(params, context);
+		ApiMapParamPlanTests.assertSameResult(ORDER.check(params), result);
+		assertEquals(new HashSet<>(Arrays.asList("name", "address", "billing_address", "line_items", "tags")),
+		             result.checkedKeyNames);
+		assertEquals(3, result.getCollectionResult("line_items").mapResults.size());
+		assertTrue(result.getCollectionResult("line_items").mapResults.get(2).containsParameter("quantity"));
+
+		((Map<String, Object>) ((List<?>) params.get("line_items")).get(1)).put("quantity", 0);
+		result = ORDER.check(params, context);
+		ApiMapParamPlanTests.assertSameResult(ORDER.check(params), result);
+		assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+	}
+
+	@Test
+	public void shouldReuseResults() throws Exception {
+		ValidationContext context = new ValidationContext();
+		Map<String, Object> params = order(2);
+		ApiMapParam.Result result1 = ORDER.check(params, context);
+		ApiMapParam.Result result2 = ORDER.check(params, context);
+		assertTrue(result2.successful());
+		assertSame(result1, result2);
+		assertSame(result1.getMapResult("address"), result2.getMapResult("address"));
+		assertNotSame(result1, ORDER.check(params));
+		// null context is the same as without a context
+		assertNotSame(ORDER.check(params, null), ORDER.check(params, null));
+	}
+
+	@Test
+	public void shouldNotAllocateOnSuccessfulCheck() throws Exception {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+		com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		if (!allocationMXBean.isThreadAllocatedMemorySupported()) {
+			return;
+		}
+		allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		ValidationContext context = new ValidationContext();
+		Map<String, Object> params = order(10);
+		// the first checks allocate the context's storage (and warm up)
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(ORDER.check(params, context).successful());
+		}
+		// the first call to get the allocated bytes allocates
+		allocationMXBean.getThreadAllocatedBytes(threadId);
+		/*
+		 * The JVM may occasionally allocate something on the thread (e.g., after a
+		 * deoptimization), so take the best of a few rounds. Allocating anything per
+		 * check would allocate in every round.
+		 * */
+		long allocated = Long.MAX_VALUE;
+		int failures = 0;
+		for (int round = 0; round < 5 && allocated > 0; round++) {
+			long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 10_000; i++) {
+				if (ORDER.check(params, context).failed()) {
+					failures++;
+				}
+			}
+			allocated = Math.min(allocated, allocationMXBean.getThreadAllocatedBytes(threadId) - before);
+		}
+		assertEquals(0, failures);
+		assertEquals(0, allocated, "Allocated bytes for 10,000 checks.");
+	}
+
+}
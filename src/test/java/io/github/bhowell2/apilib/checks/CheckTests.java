@@ -1,7 +1,11 @@
 package io.github.bhowell2.apilib.checks;
 
+import io.github.bhowell2.apilib.ApiLibSettings;
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -38,7 +42,80 @@ public class CheckTests {
 		Check<String> alwaysFailStringCheck = Check.alwaysFail(failureMessage);
 		Check.Result result = alwaysFailStringCheck.check("ehh");
 		assertTrue(result.failed());
-		assertEquals(failureMessage, result.failureMessage);
+		assertEquals(failureMessage, result.failureMessage());
+	}
+
+	@Test
+	public void shouldReuseLibraryFailureResults() throws Exception {
+		Check<Integer> check = IntegerChecks.valueGreaterThan(5);
+		Check.Result result = check.check(1);
+		assertTrue(result.failed());
+		assertEquals("Must be greater than 5.", result.failureMessage());
+		assertSame(result, check.check(2));
+		assertSame(StringChecks.IS_NOT_EMPTY.check(""), StringChecks.IS_NOT_EMPTY.check(""));
+	}
+
+	@Test
+	public void shouldOnlyCreateLazyFailureMessageWhenRead() throws Exception {
+		AtomicInteger supplied = new AtomicInteger();
+		Check<String> check = s -> s.isEmpty()
+			? Check.Result.success()
+			: Check.Result.lazyFailure(() -> {
+			supplied.incrementAndGet();
+			return "Was '" + s + "'.";
+		});
+		Check.Result result = check.check("abc");
+		assertTrue(result.failed());
+		assertFalse(result.successful());
+		assertEquals(0, supplied.get());
+		assertEquals("Was 'abc'.", result.failureMessage());
+		assertEquals(1, supplied.get());
+		assertNull(check.check("").failureMessage());
+
+		Check.Result nullMessageResult = Check.Result.lazyFailure(() -> null);
+		assertTrue(nullMessageResult.failed());
+		assertEquals(ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE, nullMessageResult.failureMessage());
+	}
+
+	@Test
+	public void shouldUseCurrentDefaultFailureMessage() throws Exception {
+		String defaultMessage = ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE;
+		try {
+			Check.Result result = Check.Result.failure();
+			assertSame(result, Check.Result.failure(null));
+			ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE = "Changed.";
+			assertEquals("Changed.", result.failureMessage());
+		} finally {
+			ApiLibSettings.DEFAULT_INVALID_PARAMETER_MESSAGE = defaultMessage;
+		}
+	}
+
+	@Test
+	public void shouldMemoizeCheck() throws Exception {
+		AtomicInteger checkCount = new AtomicInteger();
+		MemoizedCheck<String> check = Check.memoized(s -> {
+			checkCount.incrementAndGet();
+			return s.length() == 2 ? Check.Result.success() : Check.Result.failure("Not a country code.");
+		}, CachePolicy.maximumSize(100));
+		for (int i = 0; i < 10; i++) {
+			assertTrue(check.check("US").successful());
+			assertEquals("Not a country code.", check.check("USA").failureMessage());
+		}
+		assertEquals(2, checkCount.get());
+		assertEquals(2, check.getCache().getMissCount());
+		assertEquals(18, check.getCache().getHitCount());
+		assertEquals(0, check.getCache().getEvictionCount());
+
+		// nothing is cached when the check throws
+		MemoizedCheck<String> throwingCheck = Check.memoized(s -> {
+			checkCount.incrementAndGet();
+			throw new IllegalStateException();
+		}, CachePolicy.maximumSize(100));
+		checkCount.set(0);
+		assertThrows(IllegalStateException.class, () -> throwingCheck.check("US"));
+		assertThrows(IllegalStateException.class, () -> throwingCheck.check("US"));
+		assertEquals(2, checkCount.get());
+		assertEquals(0, throwingCheck.getCache().size());
 	}
 
 }
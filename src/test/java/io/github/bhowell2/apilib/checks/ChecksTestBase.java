@@ -8,7 +8,7 @@ import org.junit.jupiter.api.Assertions;
 public abstract class ChecksTestBase {
 
 	public static void assertCheckSuccessful(Check.Result result) {
-		Assertions.assertTrue(result.successful(), result.failureMessage);
+		Assertions.assertTrue(result.successful(), result.failureMessage());
 	}
 
 	public static void assertCheckFailed(Check.Result result) {
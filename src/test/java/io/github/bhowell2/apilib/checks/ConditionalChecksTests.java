@@ -1,5 +1,6 @@
 package io.github.bhowell2.apilib.checks;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -28,6 +29,7 @@ public class ConditionalChecksTests extends ChecksTestBase {
 		assertCheckFailed(check.check(-100));
 		assertCheckFailed(check.check(-50));
 		assertCheckFailed(check.check(25));
+		Assertions.assertEquals("Must be greater than 100. OR Must be less than -100.", check.check(0).failureMessage());
 	}
 
 	@Test
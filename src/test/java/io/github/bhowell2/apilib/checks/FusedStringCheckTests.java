@@ -0,0 +1,164 @@
+package io.github.bhowell2.apilib.checks;
+
+import io.github.bhowell2.apilib.ApiMapParam;
+import io.github.bhowell2.apilib.ApiSingleParam;
+import io.github.bhowell2.apilib.Deadline;
+import io.github.bhowell2.apilib.checks.utils.CodePointSet;
+import io.github.bhowell2.apilib.errors.ApiErrorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class FusedStringCheckTests extends ChecksTestBase {
+
+	@SuppressWarnings("unchecked")
+	private static final List<Check<String>> CHECKS = Arrays.asList(
+		StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		StringChecks.codePointCountLessThan(12),
+		StringChecks.lengthGreaterThanOrEqualTo(2),
+		StringChecks.limitConsecutiveCodePoints(2),
+		StringChecks.containsCodePointsInRange(1, 'a', 'b', false),
+		StringChecks.containsCodePoint(2, "🤓"),
+		StringChecks.limitCodePointsToRange(CodePointSet.of("ab 🤓"), true)
+	);
+
+	static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append(new String[]{"a", "b", "c", " ", "\t", "🤓"}[random.nextInt(6)]);
+		}
+		return builder.toString();
+	}
+
+	static void assertSameResultAsRunningChecksSeparately(List<Check<String>> checks) {
+		List<Check<String>> fused = FusedStringCheck.fuse(checks);
+		assertEquals(1, fused.size());
+		assertTrue(fused.get(0) instanceof FusedStringCheck);
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			String s = randomString(random, random.nextInt(14));
+			Check.Result expected = Check.Result.success();
+			for (Check<String> check : checks) {
+				Check.Result result = check.check(s);
+				if (result.failed()) {
+					expected = result;
+					break;
+				}
+			}
+			Check.Result result = fused.get(0).check(s);
+			assertEquals(expected.successful(), result.successful(), s);
+			assertEquals(expected.failureMessage(), result.failureMessage(), s);
+		}
+	}
+
+	@Test
+	public void shouldReturnSameResultAsRunningChecksSeparately() throws Exception {
+		assertSameResultAsRunningChecksSeparately(CHECKS);
+		// the length checks are evaluated before the pass
+		assertSameResultAsRunningChecksSeparately(Arrays.asList(StringChecks.lengthLessThan(9),
+		                                                        StringChecks.doesNotContainCodePoints(CodePointSet.of("c")),
+		                                                        StringChecks.limitConsecutiveCodePoints(2),
+		                                                        StringChecks.lengthGreaterThan(1),
+		                                                        StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		                                                        StringChecks.containsCodePointsInRange(1, 'a', 'b', false)));
+	}
+
+	@Test
+	public void shouldNotScanStringWhenLengthCheckFailsFirst() throws Exception {
+		// passes once the deadline has passed, so the string cannot be scanned by the fused check after it
+		Check<String> waitForDeadline = s -> {
+			while (!Deadline.current().isExpired()) {
+				Thread.yield();
+			}
+			return Check.Result.success();
+		};
+		ApiMapParam param = ApiMapParam.builder()
+		                               .addRequiredSingleParams(ApiSingleParam.builder("comment", String.class)
+		                                                                      .addChecks(waitForDeadline,
+		                                                                                 StringChecks.lengthLessThanOrEqualTo(100),
+		                                                                                 StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		                                                                                 StringChecks.limitConsecutiveCodePoints(2))
+		                                                                      .build())
+		                               .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put("comment", String.join("", Collections.nCopies(10_000, "a")));
+		ApiMapParam.Result result = param.checkWithDeadline(params, Deadline.after(1, TimeUnit.MILLISECONDS));
+		assertEquals(ApiErrorType.INVALID_PARAMETER, result.error.errorType);
+		assertEquals("Length must be less than of equal to 100.", result.error.errorMessage);
+		// the whole string is scanned when a check before the length check scans it
+		param = ApiMapParam.builder()
+		                   .addRequiredSingleParams(ApiSingleParam.builder("comment", String.class)
+		                                                          .addChecks(waitForDeadline,
+		                                                                     StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		                                                                     StringChecks.limitConsecutiveCodePoints(2),
+		                                                                     StringChecks.lengthLessThanOrEqualTo(100))
+		                                                          .build())
+		                   .build();
+		result = param.checkWithDeadline(params, Deadline.after(1, TimeUnit.MILLISECONDS));
+		assertEquals(ApiErrorType.TIMEOUT, result.error.errorType);
+	}
+
+	@Test
+	public void shouldOnlyFuseConsecutiveScanningChecks() throws Exception {
+		Check<String> custom = s -> Check.Result.success();
+		List<Check<String>> checks = Arrays.asList(StringChecks.codePointCountLessThan(5),
+		                                           custom,
+		                                           StringChecks.lengthLessThan(5),
+		                                           StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		                                           StringChecks.limitConsecutiveCodePoints(2),
+		                                           StringChecks.containsCodePoints(2, "abc", true));
+		List<Check<String>> fused = FusedStringCheck.fuse(checks);
+		assertEquals(4, fused.size());
+		assertSame(checks.get(0), fused.get(0));
+		assertSame(custom, fused.get(1));
+		assertEquals(checks.subList(2, 5), ((FusedStringCheck) fused.get(2)).getChecks());
+		// unique code points are not counted by the fused check
+		assertSame(checks.get(5), fused.get(3));
+		assertEquals(checks, FusedStringCheck.unfuse(fused));
+		// nothing to fuse
+		List<Check<String>> lengths = Arrays.asList(StringChecks.lengthLessThan(5), StringChecks.codePointCountLessThan(5));
+		assertSame(lengths, FusedStringCheck.fuse(lengths));
+		// too many code point sets
+		List<Check<String>> sets = Arrays.asList(StringChecks.doesNotContainCodePoints(CodePointSet.of("a")),
+		                                         StringChecks.doesNotContainCodePoints(CodePointSet.of("b")),
+		                                         StringChecks.doesNotContainCodePoints(CodePointSet.of("c")),
+		                                         StringChecks.doesNotContainCodePoints(CodePointSet.of("d")),
+		                                         StringChecks.doesNotContainCodePoints(CodePointSet.of("e")));
+		assertSame(sets, FusedStringCheck.fuse(sets));
+		assertTrue(FusedStringCheck.fuse(sets.subList(0, 4)).get(0) instanceof FusedStringCheck);
+	}
+
+	@Test
+	public void shouldFuseChecksOfSingleParam() throws Exception {
+		ApiSingleParam<String> param = ApiSingleParam.builder("comment", String.class)
+		                                             .addChecks(StringChecks.IS_NOT_EMPTY_OR_ONLY_WHITESPACE,
+		                                                        StringChecks.codePointCountLessThanOrEqualTo(5),
+		                                                        StringChecks.limitConsecutiveCodePoints(1))
+		                                             .build();
+		Map<String, Object> params = new HashMap<>();
+		params.put("comment", "abcde");
+		assertTrue(param.check(params).successful());
+		params.put("comment", "  ");
+		assertEquals("Cannot be empty or only contain whitespace.", param.check(params).error.errorMessage);
+		params.put("comment", "abcdef");
+		assertEquals("Length must be less than of equal to 5.", param.check(params).error.errorMessage);
+		params.put("comment", "abbc");
+		assertTrue(param.check(params).failed());
+		// copying the param does not fuse the fused check
+		ApiSingleParam<String> copy = ApiSingleParam.builder("copy", param).build();
+		params.put("copy", "abcd");
+		assertTrue(copy.check(params).successful());
+	}
+
+}
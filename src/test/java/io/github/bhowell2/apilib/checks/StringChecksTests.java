@@ -1,5 +1,6 @@
 package io.github.bhowell2.apilib.checks;
 
+import io.github.bhowell2.apilib.checks.utils.CodePointSet;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -352,6 +353,30 @@ public class StringChecksTests extends ChecksTestBase {
 		});
 	}
 
+	@Test
+	public void testMatchesRegexLinear() throws Exception {
+		Check<String> check = StringChecks.matchesRegexLinear("^[zyx].*[abc]$");
+		// successful
+		assertCheckSuccessful(check.check("za"));
+		assertCheckSuccessful(check.check("xjdiuq8912983b"));
+		assertCheckSuccessful(check.check("x🤔c"));
+		// unsuccessful
+		assertCheckFailed(check.check("nope"));
+		assertCheckFailed(check.check("🤔"));
+		assertCheckFailed(check.check(" "));
+
+		// would backtrack exponentially with java.util.regex
+		Check<String> backtracking = StringChecks.matchesRegexLinear("(.*a){20}b");
+		assertCheckFailed(backtracking.check("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			StringChecks.matchesRegexLinear("");
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			StringChecks.matchesRegexLinear("(a)\\1");
+		});
+	}
+
 	@Test
 	public void testBeginsWithCodePoints() throws Exception {
 		Check<String> check = StringChecks.beginsWithCodePoints("aBc!🤓 ");
@@ -430,12 +455,13 @@ public class StringChecksTests extends ChecksTestBase {
 		assertCheckFailed(check.check("!"));
 		assertCheckFailed(check.check("^Acb"));
 		assertCheckFailed(check.check("🤓a"));
+		assertEquals("Cannot begin with any of the following characters: '🤓!^'.", check.check("!").failureMessage());
 
 		assertThrows(IllegalArgumentException.class, () -> {
 			StringChecks.doesNotBeginWithCodePoints("");
 		});
 		assertThrows(NullPointerException.class, () -> {
-			StringChecks.doesNotBeginWithCodePoints(null);
+			StringChecks.doesNotBeginWithCodePoints((String) null);
 		});
 		assertThrows(IllegalArgumentException.class, () -> {
 			StringChecks.doesNotBeginWithCodePoints("!!");
@@ -547,6 +573,8 @@ public class StringChecksTests extends ChecksTestBase {
 		// unsuccessful
 		assertCheckFailed(checkOne.check("hmm999"));
 		assertCheckFailed(checkOne.check("hmm and one!"));
+		assertEquals("Cannot begin with any of the following strings: \"hmm\".",
+		             checkOne.check("hmm999").failureMessage());
 
 		assertThrows(IllegalArgumentException.class, () -> {
 			StringChecks.beginsWithStrings((String)null);
@@ -725,6 +753,15 @@ public class StringChecksTests extends ChecksTestBase {
 		assertCheckFailed(check1.check("abc"));
 		assertCheckFailed(check1.check("\uD83E\uDD14"));
 
+		// more unique code points than are tracked in a table
+		Check<String> checkMany = StringChecks.containsCodePoints(1000, CodePointSet.range(0x4E00, 0x9FFF), true);
+		StringBuilder many = new StringBuilder();
+		for (int codePoint = 0x4E00; codePoint < 0x4E00 + 999; codePoint++) {
+			many.appendCodePoint(codePoint).appendCodePoint(codePoint);
+		}
+		assertCheckFailed(checkMany.check(many.toString()));
+		assertCheckSuccessful(checkMany.check(many.appendCodePoint(0x9FFF).toString()));
+
 		assertThrows(IllegalArgumentException.class, () -> {
 			StringChecks.containsCodePoints(0, "a1", true);
 		}, "Cannot check for 0 codepoints.");
@@ -775,6 +812,49 @@ public class StringChecksTests extends ChecksTestBase {
 		}, "String cannot contain duplicate codepoints.");
 	}
 
+	@Test
+	public void testCodePointSetChecks() throws Exception {
+		CodePointSet digits = CodePointSet.categories(Character.DECIMAL_DIGIT_NUMBER);
+		CodePointSet symbols = CodePointSet.of("!@#🤓");
+
+		Check<String> containsDigits = StringChecks.containsCodePoints(2, digits, true);
+		assertCheckSuccessful(containsDigits.check("pass12"));
+		assertCheckSuccessful(containsDigits.check("pass1٣"));   // arabic-indic digit three
+		assertCheckFailed(containsDigits.check("pass11"));
+		assertCheckFailed(containsDigits.check("password"));
+		assertCheckSuccessful(StringChecks.containsCodePoints(2, digits, false).check("pass11"));
+		// many unique code points
+		Check<String> containsManyDigits = StringChecks.containsCodePoints(20, digits, true);
+		assertCheckSuccessful(containsManyDigits.check("0123456789٠١٢٣٤٥٦٧٨٩"));
+		assertCheckFailed(containsManyDigits.check("0123456789٠١٢٣٤٥٦٧٨0"));
+		assertThrows(IllegalArgumentException.class, () -> {
+			StringChecks.containsCodePoints(5, symbols, true);
+		});
+
+		Check<String> noSymbols = StringChecks.doesNotContainCodePoints(symbols);
+		assertCheckSuccessful(noSymbols.check(""));
+		assertCheckSuccessful(noSymbols.check("blake"));
+		assertCheckFailed(noSymbols.check("bl🤓ke"));
+
+		Check<String> latin = StringChecks.limitCodePointsToRange(CodePointSet.scripts(Character.UnicodeScript.LATIN), true);
+		assertCheckSuccessful(latin.check("Blake Howell"));
+		assertCheckSuccessful(latin.check("Zoë"));
+		assertCheckFailed(latin.check("Blake1"));
+		assertCheckFailed(latin.check("Блейк"));
+		assertCheckFailed(latin.check(""));
+		assertCheckFailed(StringChecks.limitCodePointsToRange(CodePointSet.scripts(Character.UnicodeScript.LATIN), false)
+		                              .check("Blake Howell"));
+
+		Check<String> beginsWithSymbol = StringChecks.beginsWithCodePoints(symbols);
+		assertCheckSuccessful(beginsWithSymbol.check("🤓!"));
+		assertCheckFailed(beginsWithSymbol.check("a!"));
+		assertCheckFailed(beginsWithSymbol.check(""));
+		Check<String> doesNotBeginWithSymbol = StringChecks.doesNotBeginWithCodePoints(symbols);
+		assertCheckSuccessful(doesNotBeginWithSymbol.check("a!"));
+		assertCheckSuccessful(doesNotBeginWithSymbol.check(""));
+		assertCheckFailed(doesNotBeginWithSymbol.check("#a"));
+	}
+
 	@Test
 	public void testContainsString() throws Exception {
 		Check<String> check = StringChecks.containsString("!!!");
@@ -825,6 +905,40 @@ public class StringChecksTests extends ChecksTestBase {
 		assertThrows(IllegalArgumentException.class, () -> {
 			StringChecks.containsStrings(5, new HashSet<>());
 		});
+
+		Check<String> ignoreCase = StringChecks.containsStrings(2, new HashSet<>(Arrays.asList("Ab", "cD")), true);
+		// successful
+		assertCheckSuccessful(ignoreCase.check("xaBxCdx"));
+		assertCheckSuccessful(ignoreCase.check("abcd"));
+		// unsuccessful
+		assertCheckFailed(ignoreCase.check("ABAB"));
+		assertCheckFailed(ignoreCase.check("acbd"));
+	}
+
+	@Test
+	public void testDoesNotContainStrings() throws Exception {
+		Check<String> check = StringChecks.doesNotContainStrings("darn", "heck", "🤓");
+		// successful
+		assertCheckSuccessful(check.check(""));
+		assertCheckSuccessful(check.check("oh dear"));
+		assertCheckSuccessful(check.check("dar n he ck"));
+		assertCheckSuccessful(check.check("Heck"));
+		// unsuccessful
+		assertCheckFailed(check.check("check"));
+		assertCheckFailed(check.check("darn it"));
+		assertCheckFailed(check.check("a🤓"));
+		assertEquals("Cannot contain 'heck'.", check.check("oh heck").failureMessage());
+
+		Check<String> ignoreCase = StringChecks.doesNotContainStrings(new HashSet<>(Arrays.asList("darn", "heck")), true);
+		assertCheckSuccessful(ignoreCase.check("oh dear"));
+		assertEquals("Cannot contain 'heck'.", ignoreCase.check("oh HeCk").failureMessage());
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			StringChecks.doesNotContainStrings(new HashSet<>());
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			StringChecks.doesNotContainStrings("");
+		});
 	}
 
 	@Test
@@ -0,0 +1,78 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class AhoCorasickTests {
+
+	@Test
+	public void shouldFindNeedlesLikeContains() throws Exception {
+		Random random = new Random(42);
+		List<String> needles = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			needles.add(randomString(random, 1 + random.nextInt(5)));
+		}
+		AhoCorasick automaton = AhoCorasick.of(needles);
+		for (int i = 0; i < 1000; i++) {
+			String s = randomString(random, random.nextInt(30));
+			int expectedCount = 0;
+			for (int j = 0; j < automaton.size(); j++) {
+				if (s.contains(automaton.needle(j))) {
+					expectedCount++;
+				}
+			}
+			int found = automaton.find(s);
+			assertEquals(expectedCount > 0, found != -1);
+			if (found != -1) {
+				assertTrue(s.contains(automaton.needle(found)));
+			}
+			assertEquals(expectedCount, automaton.countContained(s, Integer.MAX_VALUE), s);
+			assertEquals(Math.min(expectedCount, 2), automaton.countContained(s, 2));
+		}
+	}
+
+	static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append("abcA".charAt(random.nextInt(4)));
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void shouldFindNeedleThatEndsFirst() throws Exception {
+		AhoCorasick automaton = AhoCorasick.of("she", "he", "hers", "his");
+		assertEquals("she", automaton.needle(automaton.find("ushers")));
+		assertEquals("he", automaton.needle(automaton.find("uhers")));
+		assertEquals("his", automaton.needle(automaton.find("this")));
+		assertEquals(-1, automaton.find("sh eh"));
+		assertEquals(3, automaton.countContained("ushers", 10));
+	}
+
+	@Test
+	public void shouldIgnoreCase() throws Exception {
+		AhoCorasick automaton = AhoCorasick.of(Arrays.asList("Straße", "ÉTÉ", "été"), true);
+		// duplicates ignoring case are removed
+		assertEquals(2, automaton.size());
+		assertEquals("ÉTÉ", automaton.needle(automaton.find("un Été")));
+		assertEquals("Straße", automaton.needle(automaton.find("STRAßE")));
+		assertEquals(-1, AhoCorasick.of("abc").find("ABC"));
+	}
+
+	@Test
+	public void shouldNotAllowEmptyNeedles() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of());
+		assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of("a", ""));
+		assertThrows(IllegalArgumentException.class, () -> AhoCorasick.of("a", null));
+	}
+
+}
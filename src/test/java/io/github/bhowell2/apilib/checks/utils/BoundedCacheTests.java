@@ -0,0 +1,116 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class BoundedCacheTests {
+
+	@Test
+	public void shouldNotExceedMaximumSize() throws Exception {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(CachePolicy.maximumSize(100));
+		for (int i = 0; i < 10_000; i++) {
+			cache.put(i, "v" + i);
+			assertTrue(cache.size() <= 100);
+		}
+		assertEquals(100, cache.size());
+		assertEquals(9_900, cache.getEvictionCount());
+		assertNull(cache.getIfPresent(null));
+		cache.put(null, "v");
+		cache.put(1, null);
+		assertEquals(100, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void shouldKeepFrequentlyUsedEntries() throws Exception {
+		BoundedCache<String, String> cache = new BoundedCache<>(CachePolicy.maximumSize(100));
+		// e.g., country codes that are seen on every request
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				String key = "frequent" + i;
+				cache.get(key, k -> k);
+			}
+		}
+		// a scan of values that are only seen once
+		for (int i = 0; i < 10_000; i++) {
+			cache.get("once" + i, k -> k);
+		}
+		int hits = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.getIfPresent("frequent" + i) != null) {
+				hits++;
+			}
+		}
+		assertTrue(hits >= 45, "Only " + hits + " frequent entries were kept.");
+		assertTrue(cache.size() <= 100);
+	}
+
+	@Test
+	public void shouldReturnComputedValues() throws Exception {
+		BoundedCache<String, String> cache = new BoundedCache<>(CachePolicy.builder()
+		                                                                  .setMaximumSize(1)
+		                                                                  .setWindowPercent(100)
+		                                                                  .build());
+		assertEquals("a", cache.get("a", k -> k));
+		assertEquals("a", cache.getIfPresent("a"));
+		assertEquals("b", cache.get("b", k -> k));
+		assertEquals(1, cache.size());
+		assertNull(cache.get("c", k -> null));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getMaximumSize());
+	}
+
+	@Test
+	public void shouldBeThreadSafe() throws Exception {
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(CachePolicy.maximumSize(64));
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int seed = t;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < 20_000; i++) {
+						int key = (i * 31 + seed) % (i % 3 == 0 ? 1000 : 50);
+						Integer value = cache.get(key, k -> k * 2);
+						if (value != key * 2) {
+							throw new AssertionError("Incorrect value for " + key + ": " + value);
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get());
+		assertTrue(cache.size() <= 64);
+		assertEquals(160_000, cache.getHitCount() + cache.getMissCount());
+	}
+
+	@Test
+	public void shouldNotAllowInvalidPolicy() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> CachePolicy.maximumSize(0));
+		assertThrows(IllegalArgumentException.class, () -> CachePolicy.builder().setWindowPercent(0));
+		assertThrows(IllegalArgumentException.class, () -> CachePolicy.builder().setWindowPercent(101));
+		assertThrows(IllegalArgumentException.class, () -> CachePolicy.builder().build());
+		assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(null));
+	}
+
+}
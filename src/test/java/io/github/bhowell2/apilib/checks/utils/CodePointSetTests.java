@@ -0,0 +1,75 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class CodePointSetTests {
+
+	@Test
+	public void shouldContainCodePoints() throws Exception {
+		CodePointSet set = CodePointSet.builder()
+		                               .addCodePoints("!🤓")
+		                               .addRange('a', 'c')
+		                               .addRange(0xFFF0, 0x10010)
+		                               .addCodePoints('b', 'd')
+		                               .build();
+		assertEquals(2 + 4 + 0x21, set.size());
+		assertTrue(set.contains('!'));
+		assertTrue(set.contains('a'));
+		assertTrue(set.contains('d'));
+		assertTrue(set.contains("🤓".codePointAt(0)));
+		assertTrue(set.contains(0xFFFF));
+		assertTrue(set.contains(0x10000));
+		assertTrue(set.contains(0x10010));
+		assertFalse(set.contains('e'));
+		assertFalse(set.contains(0x10011));
+		assertFalse(set.contains("🤔".codePointAt(0)));
+		assertFalse(set.contains(-1));
+		assertEquals("!a-d￰-𐀐🤓", set.toString());
+		assertFalse(CodePointSet.of("").contains(0));
+		assertTrue(CodePointSet.of("").isEmpty());
+	}
+
+	@Test
+	public void shouldCreateComplementAndUnion() throws Exception {
+		CodePointSet digits = CodePointSet.range('0', '9');
+		CodePointSet notDigits = digits.complement();
+		assertEquals(Character.MAX_CODE_POINT + 1 - 10, notDigits.size());
+		assertFalse(notDigits.contains('5'));
+		assertTrue(notDigits.contains('a'));
+		assertTrue(notDigits.contains(Character.MAX_CODE_POINT));
+		assertEquals(digits, notDigits.complement());
+		CodePointSet union = digits.union(CodePointSet.of("abc"));
+		assertEquals(CodePointSet.of("0123456789abc"), union);
+		assertTrue(union.union(union.complement()).contains(0x10FFFF));
+	}
+
+	@Test
+	public void shouldCreateFromCategoriesAndScripts() throws Exception {
+		CodePointSet uppercase = CodePointSet.categories(Character.UPPERCASE_LETTER);
+		assertTrue(uppercase.contains('A'));
+		assertTrue(uppercase.contains('Ä'));
+		assertTrue(uppercase.contains("𝐀".codePointAt(0)));
+		assertFalse(uppercase.contains('a'));
+		CodePointSet cyrillic = CodePointSet.scripts(Character.UnicodeScript.CYRILLIC);
+		assertTrue(cyrillic.contains('Ж'));
+		assertFalse(cyrillic.contains('a'));
+		for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint += 7) {
+			assertEquals(Character.getType(codePoint) == Character.UPPERCASE_LETTER, uppercase.contains(codePoint));
+		}
+	}
+
+	@Test
+	public void shouldNotAllowInvalidCodePoints() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> CodePointSet.range('b', 'a'));
+		assertThrows(IllegalArgumentException.class, () -> CodePointSet.of(-1));
+		assertThrows(IllegalArgumentException.class, () -> CodePointSet.of(Character.MAX_CODE_POINT + 1));
+		assertThrows(IllegalArgumentException.class, () -> CodePointSet.categories(31));
+		assertThrows(IllegalArgumentException.class, () -> CodePointSet.of((String) null));
+	}
+
+}
@@ -0,0 +1,162 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class LinearRegexTests {
+
+	// all strings of the chars up to the length
+	static List<String> allStrings(String chars, int maxLength) {
+		List<String> strings = new ArrayList<>();
+		strings.add("");
+		int from = 0;
+		for (int length = 1; length <= maxLength; length++) {
+			int to = strings.size();
+			for (int i = from; i < to; i++) {
+				for (char c : chars.toCharArray()) {
+					strings.add(strings.get(i) + c);
+				}
+			}
+			from = to;
+		}
+		return strings;
+	}
+
+	static void assertMatchesSameAsPattern(String regex, List<String> inputs) {
+		LinearRegex linearRegex = LinearRegex.compile(regex);
+		Pattern pattern = Pattern.compile(regex);
+		for (String input : inputs) {
+			assertEquals(pattern.matcher(input).matches(), linearRegex.matches(input),
+			             "Regex '" + regex + "' with input '" + input + "'");
+		}
+	}
+
+	@Test
+	public void shouldMatchSameAsPattern() throws Exception {
+		List<String> inputs = allStrings("ab-1 ", 5);
+		inputs.add("a\nb");
+		inputs.add("é");
+		inputs.add("🤓");
+		inputs.add("a🤓b");
+		String[] regexes = {
+			"a", "ab", "a|b", "a*", "a+b?", "(ab)*", "(a|b)*a(a|b)", "a{2}", "a{2,}", "a{1,3}b{0,2}",
+			"(?:a|b-){2,3}", "(?<name>a)b", "[ab]+", "[^a]*", "[a-b1]+", "[-a]+", "[]a]*", "\\d+", "\\D*",
+			"\\s?a", "\\S+", "\\w*", "\\W", ".*", ".", "a.b", "^ab$", "^(a|b$)*", "a|^b", "\\Aa*\\z", "(a*)*",
+			"(a|)*b", "(|a)+", "a*?b+?", "\\-\\.\\[", "[\\-\\d]+", "\\x61+", "\\u0061\\x{62}",
+			"a{0}", "x{2}{3}", "[^\\s]+", ".+@.+\\..{2,}$"
+		};
+		for (String regex : regexes) {
+			assertMatchesSameAsPattern(regex, inputs);
+		}
+	}
+
+	@Test
+	public void shouldMatchLargeDfaBySimulatingNfa() throws Exception {
+		// the DFA of the regex has more than 2^15 states, so the NFA is simulated once the DFA is full
+		assertMatchesSameAsPattern("(a|b)*a(a|b){15}", allStrings("ab", 17));
+		assertMatchesSameAsPattern("(a|b)*a(a|b){15}c", allStrings("abc", 6));
+	}
+
+	@Test
+	public void shouldCompileLargeRepetitionsQuickly() throws Exception {
+		String x = String.join("", Collections.nCopies(999, "a")) + "x";
+		long start = System.nanoTime();
+		LinearRegex dotsAroundX = LinearRegex.compile(".{0,999}x.{0,999}");
+		LinearRegex email = LinearRegex.compile("\\w{0,500}@\\w{0,500}");
+		LinearRegex letters = LinearRegex.compile("[a-z]{1,1000}");
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+		assertTrue(dotsAroundX.matches(x));
+		assertTrue(dotsAroundX.matches(x + x.substring(1)));
+		assertFalse(dotsAroundX.matches("a" + x + "a"));
+		assertFalse(dotsAroundX.matches("aaa"));
+		assertMatchesSameAsPattern("\\w{0,500}@\\w{0,500}", allStrings("a@", 6));
+		assertTrue(email.matches("user@example"));
+		assertTrue(letters.matches(x.substring(0, 999)));
+		assertFalse(letters.matches(x + "a"));
+	}
+
+	@Test
+	public void shouldShareDfaBetweenThreads() throws Exception {
+		LinearRegex linearRegex = LinearRegex.compile("(a|b)*a(a|b){12}");
+		Pattern pattern = Pattern.compile("(a|b)*a(a|b){12}");
+		List<String> inputs = allStrings("ab", 14);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				int offset = thread;
+				futures.add(executor.submit(() -> {
+					// each input is matched by a few of the threads
+					for (int i = offset; i < inputs.size(); i += 3) {
+						String input = inputs.get(i);
+						assertEquals(pattern.matcher(input).matches(), linearRegex.matches(input), input);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldNotKeepDiscardedRegex() throws Exception {
+		LinearRegex regex = LinearRegex.compile("(a|b)*a(a|b){15}");
+		Random random = new Random(42);
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 50_000; i++) {
+			input.append(random.nextBoolean() ? 'a' : 'b');
+		}
+		// fills the DFA, so the NFA is simulated as well
+		assertEquals(input.charAt(input.length() - 16) == 'a', regex.matches(input));
+		WeakReference<LinearRegex> reference = new WeakReference<>(regex);
+		regex = null;
+		for (int i = 0; i < 100 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+
+	@Test
+	public void shouldMatchInLinearTime() throws Exception {
+		String input = String.join("", Collections.nCopies(100_000, "a"));
+		long start = System.nanoTime();
+		assertFalse(LinearRegex.compile("(.*a){20}b").matches(input));
+		assertFalse(LinearRegex.compile("(a+)+b").matches(input));
+		assertFalse(LinearRegex.compile("(a|aa)*b").matches(input));
+		assertTrue(LinearRegex.compile("(a|aa)*").matches(input));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+	}
+
+	@Test
+	public void shouldNotCompileUnsupportedRegex() throws Exception {
+		String[] regexes = {
+			"(a)\\1", "(?<a>b)\\k<a>", "a(?=b)", "a(?!b)", "(?<=a)b", "(?<!a)b", "(?>a)", "(?i)a", "a*+", "\\ba",
+			"[a[b]]", "[a-z&&[^b]]", "\\p{L}", "\\0", "a**", "*a", "{", "a{2,1}", "a{,2}", "(a", "a)", "[a",
+			"[b-a]", "\\", "a{1001}"
+		};
+		for (String regex : regexes) {
+			assertThrows(IllegalArgumentException.class, () -> LinearRegex.compile(regex), regex);
+		}
+		assertThrows(IllegalArgumentException.class, () -> LinearRegex.compile("(a{1000}){1000}"));
+	}
+
+}
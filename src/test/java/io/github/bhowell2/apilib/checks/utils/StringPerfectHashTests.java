@@ -0,0 +1,90 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class StringPerfectHashTests {
+
+	@Test
+	public void shouldReturnIndexOfStrings() throws Exception {
+		StringPerfectHash perfectHash = StringPerfectHash.of("a", "b", "hello", "", "🤓");
+		assertEquals(5, perfectHash.size());
+		assertEquals(0, perfectHash.indexOf("a"));
+		assertEquals(1, perfectHash.indexOf("b"));
+		assertEquals(2, perfectHash.indexOf("hello"));
+		assertEquals(3, perfectHash.indexOf(""));
+		assertEquals(4, perfectHash.indexOf("🤓"));
+		assertEquals(-1, perfectHash.indexOf("c"));
+		assertEquals(-1, perfectHash.indexOf("hell"));
+		assertEquals(-1, perfectHash.indexOf(null));
+		assertTrue(perfectHash.contains("hello"));
+		assertFalse(perfectHash.contains("Hello"));
+	}
+
+	@Test
+	public void shouldReturnIndexOfManyStrings() throws Exception {
+		List<String> strings = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			strings.add("key_" + i);
+		}
+		StringPerfectHash perfectHash = StringPerfectHash.of(strings);
+		assertEquals(5000, perfectHash.size());
+		for (int i = 0; i < strings.size(); i++) {
+			assertEquals(i, perfectHash.indexOf(strings.get(i)));
+		}
+		for (int i = 5000; i < 6000; i++) {
+			assertEquals(-1, perfectHash.indexOf("key_" + i));
+		}
+	}
+
+	@Test
+	public void shouldHandleSameHashCodes() throws Exception {
+		// "Aa" and "BB" have the same hash code (as do all combinations of them)
+		StringPerfectHash perfectHash = StringPerfectHash.of("AaAa", "AaBB", "BBAa", "BBBB", "Aa", "BB");
+		assertEquals(0, perfectHash.indexOf("AaAa"));
+		assertEquals(1, perfectHash.indexOf("AaBB"));
+		assertEquals(2, perfectHash.indexOf("BBAa"));
+		assertEquals(3, perfectHash.indexOf("BBBB"));
+		assertEquals(4, perfectHash.indexOf("Aa"));
+		assertEquals(5, perfectHash.indexOf("BB"));
+		assertEquals(-1, perfectHash.indexOf("AaAaAa"));
+	}
+
+	@Test
+	public void shouldHandleEmpty() throws Exception {
+		StringPerfectHash perfectHash = StringPerfectHash.of();
+		assertEquals(0, perfectHash.size());
+		assertEquals(-1, perfectHash.indexOf("a"));
+	}
+
+	@Test
+	public void shouldFailForDuplicateOrNullStrings() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> StringPerfectHash.of("a", "b", "a"));
+		assertThrows(IllegalArgumentException.class, () -> StringPerfectHash.of("a", null));
+		assertThrows(IllegalArgumentException.class, () -> StringPerfectHash.of((String[]) null));
+		assertThrows(IllegalArgumentException.class, () -> StringPerfectHash.of(Arrays.asList("a", "a")));
+	}
+
+	@Test
+	public void shouldReturnIndexIgnoringCase() throws Exception {
+		StringPerfectHash perfectHash = StringPerfectHash.ofIgnoreCase("USD", "eur", "Straße", "Aa", "BB");
+		assertEquals(0, perfectHash.indexOf("usd"));
+		assertEquals(0, perfectHash.indexOf("uSd"));
+		assertEquals(1, perfectHash.indexOf("EUR"));
+		assertEquals(2, perfectHash.indexOf("STRAßE"));
+		assertEquals(3, perfectHash.indexOf("aA"));
+		assertEquals(4, perfectHash.indexOf("bb"));
+		assertEquals(-1, perfectHash.indexOf("usd "));
+		assertEquals(-1, perfectHash.indexOf("gbp"));
+		assertThrows(IllegalArgumentException.class, () -> StringPerfectHash.ofIgnoreCase("usd", "USD"));
+	}
+
+}
@@ -0,0 +1,46 @@
+package io.github.bhowell2.apilib.checks.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Blake Howell
+ */
+public class StringPrefixTrieTests {
+
+	@Test
+	public void shouldReturnIndexOfShortestPrefix() throws Exception {
+		StringPrefixTrie trie = StringPrefixTrie.of("abc", "ab", "b", "🤓", "ab", "");
+		assertEquals(6, trie.size());
+		assertEquals(1, trie.indexOfPrefix("ab"));
+		assertEquals(1, trie.indexOfPrefix("abcd"));
+		assertEquals(2, trie.indexOfPrefix("b"));
+		assertEquals(3, trie.indexOfPrefix("🤓!"));
+		assertEquals(-1, trie.indexOfPrefix("a"));
+		assertEquals(-1, trie.indexOfPrefix("cab"));
+		// the empty prefix is not added
+		assertEquals(-1, trie.indexOfPrefix(""));
+		assertTrue(trie.beginsWithAny("bee"));
+		assertFalse(trie.beginsWithAny("\uD83E"));
+		assertThrows(IllegalArgumentException.class, () -> StringPrefixTrie.of("a", null));
+	}
+
+	@Test
+	public void shouldReturnIndexOfManyPrefixes() throws Exception {
+		List<String> prefixes = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			prefixes.add("SKU-" + i + "-");
+		}
+		StringPrefixTrie trie = StringPrefixTrie.of(prefixes);
+		for (int i = 0; i < prefixes.size(); i++) {
+			assertEquals(i, trie.indexOfPrefix(prefixes.get(i) + "blue"));
+		}
+		assertEquals(-1, trie.indexOfPrefix("SKU-10000-blue"));
+		assertEquals(-1, trie.indexOfPrefix("SKU-1"));
+	}
+
+}
@@ -1,7 +1,10 @@
 package io.github.bhowell2.apilib.formatters;
 
+import io.github.bhowell2.apilib.checks.utils.CachePolicy;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -45,4 +48,21 @@ public class StringFormattersTests {
 		assertEquals(uppercasedS, result.formattedValue);
 	}
 
+	@Test
+	public void shouldMemoizeFormatter() throws Exception {
+		AtomicInteger formatCount = new AtomicInteger();
+		MemoizedFormatter<String, String> formatter = Formatter.memoized(s -> {
+			formatCount.incrementAndGet();
+			return StringFormatters.NORMALIZE_NFKC.format(s);
+		}, CachePolicy.maximumSize(10));
+		for (int i = 0; i < 5; i++) {
+			Formatter.Result<String> result = formatter.format("\uFB01");
+			assertTrue(result.successful());
+			assertEquals("fi", result.getFormattedValue());
+		}
+		assertEquals(1, formatCount.get());
+		assertEquals(4, formatter.getCache().getHitCount());
+		assertEquals(1, formatter.getCache().getMissCount());
+	}
+
 }